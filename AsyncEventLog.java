@@ -0,0 +1,420 @@
+package ca.ucalgary.seng300.a2;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An event log that never writes on the thread that fired the hardware event.
+ * Records are placed in a bounded multi-producer, single-consumer ring buffer and
+ * a single writer thread drains them into another EventLogInterface (normally an EventLog).
+ * When the buffer is full the BackpressurePolicy decides what the calling thread does.
+ * <p>
+ * The writer thread also applies the Durability: with PERIODIC it flushes the delegate every flush period,
+ * with GROUP_COMMIT each commit() queues a marker and the writer flushes once after writing everything
+ * up to it. Several commits that are written in the same batch share one flush.
+ */
+public class AsyncEventLog implements EventLogInterface {
+
+	/**
+	 * What a producer does when the ring buffer has no room for its record
+	 */
+	public enum BackpressurePolicy {
+		/** Wait until the writer thread frees a slot. Nothing is lost. */
+		BLOCK,
+		/** Throw the new record away and count it as dropped. */
+		DROP_NEWEST,
+		/** Once the buffer is three quarters full keep only every Nth record, drop when full. */
+		SAMPLE
+	}
+
+	public static final int DEFAULT_CAPACITY = 4096;
+	public static final int DEFAULT_SAMPLE_RATE = 8;
+	public static final long DEFAULT_FLUSH_PERIOD_MILLIS = 1000;
+
+	private final EventLogInterface delegate;
+	private final BackpressurePolicy policy;
+	private final int sampleRate;
+
+	// ring buffer. sequences[i] == position means slot i is free for that position,
+	// sequences[i] == position + 1 means the slot holds the record for that position
+	private final int capacity;
+	private final int mask;
+	private final String[] messages;
+	private final EventCode[] codes;
+	private final HardwareKind[] kinds;
+	private final int[] indexes;
+	private final int[] values;
+	private final long[] times;			// nanoseconds since the epoch
+	private final int[] machines;
+	private final long[] machineSequences;		// the number of each record among those of its machine
+	private final AtomicLongArray sequences;
+	private final AtomicLong tail = new AtomicLong();	// next position a producer claims
+	private volatile long head = 0;				// next position the writer reads, only written by the writer
+
+	private final AtomicLong droppedCount = new AtomicLong();
+	private final AtomicLong sampledOutCount = new AtomicLong();
+	private final AtomicLong sampleCounter = new AtomicLong();
+	private final AtomicLong writtenCount = new AtomicLong();
+	private final AtomicLong flushCount = new AtomicLong();
+
+	private volatile Durability durability = Durability.NONE;
+	private volatile long flushPeriodNanos = DEFAULT_FLUSH_PERIOD_MILLIS * 1000000L;
+	// only used by the writer thread
+	private boolean unflushed = false;
+	private boolean flushRequested = false;
+	private long lastFlushNanos = System.nanoTime();
+
+	private final Thread writer;
+	private volatile boolean writerParked = false;
+	private volatile boolean closed = false;
+
+	/**
+	* Constructor creates an asynchronous log with the default capacity that blocks when full
+	* @param EventLogInterface delegate, the log the writer thread writes records to
+	*/
+	public AsyncEventLog(EventLogInterface delegate) {
+		this(delegate, DEFAULT_CAPACITY, BackpressurePolicy.BLOCK, DEFAULT_SAMPLE_RATE);
+	}
+
+	/**
+	* Constructor creates an asynchronous log and starts its writer thread
+	* @param EventLogInterface delegate, the log the writer thread writes records to
+	* @param int capacity, the number of records the ring buffer holds. Rounded up to a power of two
+	* @param BackpressurePolicy policy, what to do when the buffer is full
+	* @param int sampleRate, for SAMPLE, one record in sampleRate is kept under pressure
+	*/
+	public AsyncEventLog(EventLogInterface delegate, int capacity, BackpressurePolicy policy, int sampleRate) {
+		if (delegate == null || policy == null)
+			throw new IllegalArgumentException("Arguments may not be null");
+		if (capacity < 2 || sampleRate < 1)
+			throw new IllegalArgumentException("Capacity must be at least 2 and sample rate positive");
+
+		this.delegate = delegate;
+		this.policy = policy;
+		this.sampleRate = sampleRate;
+		this.capacity = Integer.highestOneBit(capacity - 1) << 1;
+		this.mask = this.capacity - 1;
+		this.messages = new String[this.capacity];
+		this.codes = new EventCode[this.capacity];
+		this.kinds = new HardwareKind[this.capacity];
+		this.indexes = new int[this.capacity];
+		this.values = new int[this.capacity];
+		this.times = new long[this.capacity];
+		this.machines = new int[this.capacity];
+		this.machineSequences = new long[this.capacity];
+		this.sequences = new AtomicLongArray(this.capacity);
+		for (int i = 0; i < this.capacity; i++) {
+			sequences.set(i, i);
+		}
+
+		writer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				drainLoop();
+			}
+		}, "EventLog writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	* Method queues a string for the writer thread. Never touches the disk.
+	* @param String s, the string to be written to the log
+	*/
+	@Override
+	public void writeToLog(String s) {
+		writeToLog(s, EventRecord.currentTimeNanos() / 1000000L);
+	}
+
+	/**
+	* Method queues a string for the writer thread, keeping the time the event happened
+	* @param String s, the string to be written to the log
+	* @param long timeMillis, when the event happened
+	*/
+	@Override
+	public void writeToLog(String s, long timeMillis) {
+		enqueue(0, -1, EventCode.TEXT, HardwareKind.UNKNOWN, -1, 0, s, timeMillis * 1000000L);
+	}
+
+	/**
+	* Method queues a string of one of the machines sharing the log
+	*/
+	@Override
+	public void writeToLog(int machineId, long sequence, String s, long timeMillis) {
+		enqueue(machineId, sequence, EventCode.TEXT, HardwareKind.UNKNOWN, -1, 0, s, timeMillis * 1000000L);
+	}
+
+	/**
+	* Method queues a typed event for the writer thread. Never touches the disk.
+	*/
+	@Override
+	public void writeEvent(EventCode code, HardwareKind kind, int hardwareIndex, int value, long timeNanos) {
+		enqueue(0, -1, code, kind, hardwareIndex, value, null, timeNanos);
+	}
+
+	/**
+	* Method queues a typed event of one of the machines sharing the log
+	*/
+	@Override
+	public void writeEvent(int machineId, long sequence, EventCode code, HardwareKind kind, int hardwareIndex, int value, long timeNanos) {
+		enqueue(machineId, sequence, code, kind, hardwareIndex, value, null, timeNanos);
+	}
+
+	/**
+	* Method asks the delegate, so disabled kinds are skipped before anything is queued
+	*/
+	@Override
+	public boolean isEnabled(HardwareKind kind) {
+		return delegate.isEnabled(kind);
+	}
+
+	/**
+	* Method marks the end of a transaction. With GROUP_COMMIT the writer thread flushes
+	* the delegate once everything logged before this call has been written. Does not wait.
+	*/
+	@Override
+	public void commit() {
+		if (durability == Durability.GROUP_COMMIT)
+			enqueue(0, -1, null, HardwareKind.UNKNOWN, -1, 0, null, 0L);
+	}
+
+	/**
+	* Method asks the writer thread to flush the delegate once everything logged before this call
+	* has been written, whatever the durability. Does not wait.
+	*/
+	@Override
+	public void flush() {
+		enqueue(0, -1, null, HardwareKind.UNKNOWN, -1, 0, null, 0L);
+	}
+
+	/**
+	* Method sets how hard the writer thread tries to get records onto the disk
+	* @param Durability durability, the new level
+	* @param long flushPeriodMillis, for PERIODIC, the time between flushes
+	*/
+	public void setDurability(Durability durability, long flushPeriodMillis) {
+		if (durability == null || flushPeriodMillis <= 0)
+			throw new IllegalArgumentException("Durability must be given and the flush period positive");
+		this.flushPeriodNanos = flushPeriodMillis * 1000000L;
+		this.durability = durability;
+		wakeWriter();
+	}
+
+	/**
+	* @return how hard the writer thread tries to get records onto the disk
+	*/
+	public Durability getDurability() {
+		return durability;
+	}
+
+	/**
+	* Method applies the backpressure policy and places a record in the ring buffer.
+	* A null code is a flush marker, which is never sampled or dropped.
+	*/
+	private void enqueue(int machineId, long sequence, EventCode code, HardwareKind kind, int hardwareIndex, int value, String s, long timeNanos) {
+		if (closed)
+			return;
+		boolean marker = code == null;
+
+		if (!marker && policy == BackpressurePolicy.SAMPLE && size() >= capacity - (capacity >> 2)) {
+			if (sampleCounter.incrementAndGet() % sampleRate != 0) {
+				sampledOutCount.incrementAndGet();
+				droppedCount.incrementAndGet();
+				return;
+			}
+		}
+
+		while (!offer(machineId, sequence, code, kind, hardwareIndex, value, s, timeNanos)) {
+			if ((policy != BackpressurePolicy.BLOCK && !marker) || closed) {
+				droppedCount.incrementAndGet();
+				return;
+			}
+			wakeWriter();
+			LockSupport.parkNanos(50000);
+		}
+		wakeWriter();
+	}
+
+	/**
+	* Method claims a slot in the ring buffer and fills it
+	* @return false if the buffer is full
+	*/
+	private boolean offer(int machineId, long sequence, EventCode code, HardwareKind kind, int hardwareIndex, int value, String s, long timeNanos) {
+		long position = tail.get();
+		int index;
+		while (true) {
+			index = (int) (position & mask);
+			long difference = sequences.get(index) - position;
+			if (difference == 0) {
+				if (tail.compareAndSet(position, position + 1))
+					break;
+				position = tail.get();
+			}
+			else if (difference < 0)
+				return false;			// the writer has not freed this slot yet, buffer is full
+			else
+				position = tail.get();		// another producer took it, try again
+		}
+		codes[index] = code;
+		kinds[index] = kind;
+		indexes[index] = hardwareIndex;
+		values[index] = value;
+		messages[index] = s;
+		times[index] = timeNanos;
+		machines[index] = machineId;
+		machineSequences[index] = sequence;
+		sequences.lazySet(index, position + 1);	// publish the record to the writer
+		return true;
+	}
+
+	private void wakeWriter() {
+		if (writerParked)
+			LockSupport.unpark(writer);
+	}
+
+	/**
+	* Method run by the writer thread. Writes records in order until the log is closed and empty.
+	*/
+	private void drainLoop() {
+		while (true) {
+			int written = drain();
+			if (written > 0)
+				unflushed = true;
+			if (flushRequested || (durability == Durability.PERIODIC && unflushed
+					&& System.nanoTime() - lastFlushNanos >= flushPeriodNanos))
+				flushDelegate();
+
+			if (written == 0) {
+				if (closed && head == tail.get()) {
+					if (unflushed)
+						flushDelegate();
+					return;
+				}
+				long wait = 100000000L;
+				if (durability == Durability.PERIODIC && unflushed)
+					wait = Math.max(1, Math.min(wait, lastFlushNanos + flushPeriodNanos - System.nanoTime()));
+				writerParked = true;
+				if (head == tail.get() && !closed)
+					LockSupport.parkNanos(wait);
+				writerParked = false;
+			}
+		}
+	}
+
+	private void flushDelegate() {
+		try {
+			delegate.flush();
+		} catch (RuntimeException e) {
+			e.printStackTrace();
+		}
+		flushCount.incrementAndGet();
+		lastFlushNanos = System.nanoTime();
+		unflushed = false;
+		flushRequested = false;
+	}
+
+	/**
+	* Method writes every published record to the delegate
+	* @return the number of records written
+	*/
+	private int drain() {
+		int count = 0;
+		long position = head;
+		while (true) {
+			int index = (int) (position & mask);
+			if (sequences.get(index) != position + 1)
+				break;
+			EventCode code = codes[index];
+			HardwareKind kind = kinds[index];
+			int hardwareIndex = indexes[index];
+			int value = values[index];
+			String s = messages[index];
+			long time = times[index];
+			int machineId = machines[index];
+			long sequence = machineSequences[index];
+			messages[index] = null;
+			sequences.lazySet(index, position + capacity);	// hand the slot back to producers
+			position++;
+			head = position;
+			if (code == null) {
+				flushRequested = true;		// flushed once this batch is written
+				continue;
+			}
+			try {
+				if (code == EventCode.TEXT)
+					delegate.writeToLog(machineId, sequence, s, time / 1000000L);
+				else
+					delegate.writeEvent(machineId, sequence, code, kind, hardwareIndex, value, time);
+			} catch (RuntimeException e) {
+				e.printStackTrace();
+			}
+			count++;
+		}
+		if (count > 0)
+			writtenCount.addAndGet(count);
+		return count;
+	}
+
+	/**
+	* Method stops accepting records, waits for the writer thread to write and flush everything queued, then stops it
+	*/
+	public void close() {
+		closed = true;
+		LockSupport.unpark(writer);
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	* @return the number of records waiting for the writer thread
+	*/
+	public int size() {
+		return (int) (tail.get() - head);
+	}
+
+	/**
+	* @return the number of records the ring buffer can hold
+	*/
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	* @return the policy used when the buffer is full
+	*/
+	public BackpressurePolicy getPolicy() {
+		return policy;
+	}
+
+	/**
+	* @return the number of records that were never written, including those sampled out
+	*/
+	public long getDroppedCount() {
+		return droppedCount.get();
+	}
+
+	/**
+	* @return the number of records thrown away by the SAMPLE policy
+	*/
+	public long getSampledOutCount() {
+		return sampledOutCount.get();
+	}
+
+	/**
+	* @return the number of times the writer thread has flushed the delegate
+	*/
+	public long getFlushCount() {
+		return flushCount.get();
+	}
+
+	/**
+	* @return the number of records the writer thread has passed to the delegate
+	*/
+	public long getWrittenCount() {
+		return writtenCount.get();
+	}
+}
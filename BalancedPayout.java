@@ -0,0 +1,112 @@
+package ca.ucalgary.seng300.a2;
+
+import java.util.Arrays;
+
+/**
+ * Pays change so as to keep each rack near a target fill level, so that no rack runs empty long before the others.
+ * <p>
+ * How far a rack is from its target is measured as the square of the difference between its fill, as a share of
+ * its capacity, and the target share. Each coin paid from a rack changes that by an amount that grows with every
+ * further coin taken from the same rack, and is negative while the rack is over its target. Among the ways the
+ * racks can pay an amount exactly, the strategy picks the one that leaves them closest to their targets overall,
+ * by dynamic programming over the coins that could be paid. Between two equally good payouts it takes the one with
+ * fewer coins.
+ */
+public class BalancedPayout implements PayoutStrategy {
+
+	public static final double DEFAULT_TARGET_FILL = 0.5;
+	private static final double COIN_COST = 1e-9;		// breaks ties in favour of fewer coins
+
+	private final double targetFill;
+
+	/**
+	* Constructor creates a strategy that keeps the racks half full
+	*/
+	public BalancedPayout() {
+		this(DEFAULT_TARGET_FILL);
+	}
+
+	/**
+	* Constructor creates a strategy
+	* @param double targetFill, the share of its capacity each rack is kept near, from 0 to 1
+	*/
+	public BalancedPayout(double targetFill) {
+		if (targetFill < 0 || targetFill > 1)
+			throw new IllegalArgumentException("Target fill must be between 0 and 1");
+		this.targetFill = targetFill;
+	}
+
+	@Override
+	public int[] payout(int amount, int[] denominations, int[] counts, int[] capacities) {
+		if (amount < 0)
+			return null;
+		int unit = 0;
+		for (int value : denominations)
+			unit = gcd(unit, value);
+		if (amount % unit != 0)
+			return null;
+		int units = amount / unit;
+
+		// one item per coin that could be paid, each rack's coins in the order they would be taken
+		int items = 0;
+		for (int rack = 0; rack < denominations.length; rack++)
+			items += Math.min(counts[rack], units / (denominations[rack] / unit));
+		int[] itemRack = new int[items];
+		double[] itemCost = new double[items];
+		int item = 0;
+		for (int rack = 0; rack < denominations.length; rack++) {
+			int take = Math.min(counts[rack], units / (denominations[rack] / unit));
+			double capacity = Math.max(1, capacities[rack]);
+			for (int j = 0; j < take; j++) {
+				double before = (counts[rack] - j) / capacity - targetFill;
+				double after = before - 1 / capacity;
+				itemRack[item] = rack;
+				itemCost[item++] = after * after - before * before + COIN_COST;
+			}
+		}
+
+		double[] best = new double[units + 1];
+		Arrays.fill(best, 1, best.length, Double.POSITIVE_INFINITY);
+		boolean[][] taken = new boolean[items][];
+		for (item = 0; item < items; item++) {
+			int w = denominations[itemRack[item]] / unit;
+			boolean[] used = new boolean[units + 1];
+			for (int a = units; a >= w; a--) {
+				double cost = best[a - w] + itemCost[item];
+				if (cost < best[a]) {
+					best[a] = cost;
+					used[a] = true;
+				}
+			}
+			taken[item] = used;
+		}
+		if (best[units] == Double.POSITIVE_INFINITY)
+			return null;
+
+		int[] coins = new int[denominations.length];
+		for (item = items - 1, units = amount / unit; item >= 0; item--) {
+			if (taken[item][units]) {
+				coins[itemRack[item]]++;
+				units -= denominations[itemRack[item]] / unit;
+			}
+		}
+		return coins;
+	}
+
+	/**
+	* Method tells how much of a rack's count matters. How full a rack is matters as soon as its coins could be paid
+	*/
+	@Override
+	public int relevantCount(int amount, int denomination, int count) {
+		return denomination <= amount ? count : 0;
+	}
+
+	private static int gcd(int a, int b) {
+		while (b != 0) {
+			int t = a % b;
+			a = b;
+			b = t;
+		}
+		return a;
+	}
+}
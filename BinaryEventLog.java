@@ -0,0 +1,148 @@
+package ca.ucalgary.seng300.a2;
+
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An event log that stores typed events as fixed-width binary records (see EventRecord)
+ * instead of UTF-8 lines. Use EventLogDecoder to turn the file back into the WorkLog.txt layout.
+ */
+public class BinaryEventLog implements EventLogInterface {
+
+	private OutputStream out;
+	private FileDescriptor fd;		// null unless the log is written to a file
+	private final byte[] slot = new byte[EventRecord.RECORD_SIZE];
+	private final ByteBuffer slotBuffer = ByteBuffer.wrap(slot);
+	private final byte[] padding = new byte[EventRecord.RECORD_SIZE];
+
+	/**
+	* Constructor creates the binary log file "WorkLog.bin"
+	*/
+	public BinaryEventLog() {
+		try {
+			FileOutputStream file = new FileOutputStream("WorkLog.bin");
+			fd = file.getFD();
+			open(file);
+		} catch (IOException e) {
+			System.out.println("trouble creating WorkLog file");
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	* Constructor writes the binary log to a stream, for example a file other than the default
+	* @param OutputStream stream, where the records are written
+	*/
+	public BinaryEventLog(OutputStream stream) throws IOException {
+		if (stream instanceof FileOutputStream)
+			fd = ((FileOutputStream) stream).getFD();
+		open(stream);
+	}
+
+	private void open(OutputStream stream) throws IOException {
+		out = new BufferedOutputStream(stream);
+		slotBuffer.clear();
+		EventRecord.encodeHeader(slotBuffer, EventRecord.currentTimeNanos(), 0L);
+		out.write(slot);
+	}
+
+	/**
+	* Method writes free text as a TEXT record
+	* @param String s, the string to be written to the log
+	*/
+	@Override
+	public void writeToLog(String s) {
+		writeToLog(s, EventRecord.currentTimeNanos() / 1000000L);
+	}
+
+	/**
+	* Method writes free text as a TEXT record followed by the text itself
+	* @param String s, the string to be written to the log
+	* @param long timeMillis, when the event happened
+	*/
+	@Override
+	public void writeToLog(String s, long timeMillis) {
+		writeToLog(0, -1, s, timeMillis);
+	}
+
+	/**
+	* Method writes free text for one of the machines sharing the log
+	*/
+	@Override
+	public synchronized void writeToLog(int machineId, long sequence, String s, long timeMillis) {
+		if (out == null)
+			return;
+		byte[] text = (s == null ? "null" : s).getBytes(StandardCharsets.UTF_8);
+		try {
+			writeSlot(timeMillis * 1000000L, EventCode.TEXT, HardwareKind.UNKNOWN, -1, text.length, machineId);
+			out.write(text);
+			int padTo = (EventRecord.slotsForText(text.length) - 1) * EventRecord.RECORD_SIZE;
+			out.write(padding, 0, padTo - text.length);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	* Method writes one fixed-width record. No strings are built.
+	*/
+	@Override
+	public void writeEvent(EventCode code, HardwareKind kind, int hardwareIndex, int value, long timeNanos) {
+		writeEvent(0, -1, code, kind, hardwareIndex, value, timeNanos);
+	}
+
+	/**
+	* Method writes one fixed-width record for one of the machines sharing the log
+	*/
+	@Override
+	public synchronized void writeEvent(int machineId, long sequence, EventCode code, HardwareKind kind, int hardwareIndex, int value, long timeNanos) {
+		if (out == null)
+			return;
+		try {
+			writeSlot(timeNanos, code, kind, hardwareIndex, value, machineId);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private void writeSlot(long timeNanos, EventCode code, HardwareKind kind, int hardwareIndex, int value, int machineId) throws IOException {
+		slotBuffer.clear();
+		EventRecord.encode(slotBuffer, timeNanos, code, kind, hardwareIndex, value, machineId);
+		out.write(slot);
+	}
+
+	/**
+	* Method writes out any buffered records and syncs the file to the disk
+	*/
+	@Override
+	public synchronized void flush() {
+		if (out == null)
+			return;
+		try {
+			out.flush();
+			if (fd != null)
+				fd.sync();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	* Method writes any buffered records and closes the file
+	*/
+	public synchronized void close() {
+		if (out == null)
+			return;
+		try {
+			out.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		out = null;
+	}
+}
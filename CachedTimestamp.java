@@ -0,0 +1,83 @@
+package ca.ucalgary.seng300.a2;
+
+import java.util.TimeZone;
+
+/**
+ * Formats times as yyyy/MM/dd HH:mm:ss, the layout of WorkLog.txt, without creating any objects.
+ * The formatted text is kept for the current second, so records written within the same second
+ * only copy it; a new second is formatted with integer arithmetic instead of a SimpleDateFormat.
+ * Not thread safe; each log keeps its own.
+ */
+public class CachedTimestamp {
+
+	public static final int LENGTH = 19;		// "yyyy/MM/dd HH:mm:ss"
+
+	private final TimeZone zone;
+	private final char[] text = new char[LENGTH];
+	private long cachedSecond = Long.MIN_VALUE;
+
+	/**
+	* Constructor formats times in the default time zone
+	*/
+	public CachedTimestamp() {
+		this(TimeZone.getDefault());
+	}
+
+	/**
+	* Constructor formats times in the given time zone
+	* @param TimeZone zone, the zone the time stamps are written in
+	*/
+	public CachedTimestamp(TimeZone zone) {
+		this.zone = zone;
+	}
+
+	/**
+	* Method appends the formatted time
+	* @param long timeMillis, the time to format, in milliseconds since the epoch
+	* @param StringBuilder sb, receives LENGTH characters
+	*/
+	public void appendTo(long timeMillis, StringBuilder sb) {
+		long second = Math.floorDiv(timeMillis, 1000L);
+		if (second != cachedSecond) {
+			format(timeMillis);
+			cachedSecond = second;
+		}
+		sb.append(text, 0, LENGTH);
+	}
+
+	private void format(long timeMillis) {
+		long local = Math.floorDiv(timeMillis + zone.getOffset(timeMillis), 1000L);
+		long days = Math.floorDiv(local, 86400L);
+		int secondOfDay = (int) Math.floorMod(local, 86400L);
+
+		// civil date from days since 1970-01-01 (proleptic Gregorian calendar)
+		long z = days + 719468;
+		long era = Math.floorDiv(z, 146097);
+		long dayOfEra = z - era * 146097;
+		long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+		long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		long mp = (5 * dayOfYear + 2) / 153;
+		int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+		int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+		int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+
+		put(0, year, 4);
+		text[4] = '/';
+		put(5, month, 2);
+		text[7] = '/';
+		put(8, day, 2);
+		text[10] = ' ';
+		put(11, secondOfDay / 3600, 2);
+		text[13] = ':';
+		put(14, secondOfDay / 60 % 60, 2);
+		text[16] = ':';
+		put(17, secondOfDay % 60, 2);
+	}
+
+	private void put(int position, int number, int digits) {
+		for (int i = position + digits - 1; i >= position; i--) {
+			text[i] = (char) ('0' + number % 10);
+			number /= 10;
+		}
+	}
+}
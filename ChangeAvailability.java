@@ -0,0 +1,203 @@
+package ca.ucalgary.seng300.a2;
+
+import java.util.Arrays;
+
+/**
+ * Keeps track of which amounts of change the coins in a machine's racks can pay exactly, as coins come and go.
+ * <p>
+ * For every amount up to a limit it keeps the number of different ways the coins in the racks can add up to it,
+ * where ways differ in how many coins of each rack they use. An amount can be paid exactly when that number is not
+ * zero. A rack of c coins of weight w contributes the factor (1 - x^(w(c+1))) / (1 - x^w) to the generating
+ * function of these numbers, so changing its count from c to c' divides by one binomial and multiplies by another:
+ * at most two passes over the amounts, however many coins moved and however many the racks hold, and none when
+ * both exponents lie beyond the limit. Asking about an amount is then a single lookup. The numbers are kept modulo
+ * the prime 2^61-1; a number that is not zero comes out as zero only if it is an exact multiple of that prime,
+ * which the counts of a vending machine's racks will in practice never be.
+ * <p>
+ * The coins of a disabled rack are left out until it is enabled again. When an amount above the limit is asked
+ * about, the limit is raised and the numbers are worked out again from the racks' counts.
+ */
+public class ChangeAvailability {
+
+	private static final long MODULUS = (1L << 61) - 1;
+
+	private final int[] weights;		// the value of each denomination, in units
+	private final int unit;			// the largest common divisor of the denominations
+	private final int[] counts;		// the coins in each rack
+	private final boolean[] enabled;
+	private long[] ways;			// for each amount in units, the number of ways of paying it
+	private long updates;
+
+	/**
+	* Constructor creates the record for a set of racks
+	* @param int[] denominations, the value of the coins in each rack, in cents
+	* @param int[] counts, the coins in each rack
+	* @param int maxAmount, the largest change expected to be asked about, in cents
+	*/
+	public ChangeAvailability(int[] denominations, int[] counts, int maxAmount) {
+		if (denominations.length != counts.length)
+			throw new IllegalArgumentException("There must be a count for each denomination");
+		int unit = 0;
+		for (int value : denominations) {
+			if (value <= 0)
+				throw new IllegalArgumentException("Denominations must be positive");
+			unit = gcd(unit, value);
+		}
+		this.unit = unit;
+		weights = new int[denominations.length];
+		for (int i = 0; i < weights.length; i++)
+			weights[i] = denominations[i] / unit;
+		this.counts = counts.clone();
+		enabled = new boolean[counts.length];
+		Arrays.fill(enabled, true);
+		rebuild(Math.max(0, maxAmount) / unit);
+	}
+
+	/**
+	* Method records a coin put into a rack
+	* @param int rack, the index of the rack
+	*/
+	public void coinAdded(int rack) {
+		coinsAdded(rack, 1);
+	}
+
+	/**
+	* Method records coins put into a rack together
+	* @param int rack, the index of the rack
+	* @param int n, the number of coins
+	*/
+	public synchronized void coinsAdded(int rack, int n) {
+		if (n <= 0)
+			return;
+		if (enabled[rack])
+			change(weights[rack], counts[rack], counts[rack] + n);
+		counts[rack] += n;
+	}
+
+	/**
+	* Method records a coin taken out of a rack
+	* @param int rack, the index of the rack
+	*/
+	public void coinRemoved(int rack) {
+		coinsRemoved(rack, 1);
+	}
+
+	/**
+	* Method records coins taken out of a rack together, such as the coins of one payout
+	* @param int rack, the index of the rack
+	* @param int n, the number of coins
+	*/
+	public synchronized void coinsRemoved(int rack, int n) {
+		n = Math.min(n, counts[rack]);
+		if (n <= 0)
+			return;
+		if (enabled[rack])
+			change(weights[rack], counts[rack], counts[rack] - n);
+		counts[rack] -= n;
+	}
+
+	/**
+	* Method puts the coins of a rack back in use, or takes them out of use
+	* @param int rack, the index of the rack
+	* @param boolean enable, true if its coins can be paid out
+	*/
+	public synchronized void setEnabled(int rack, boolean enable) {
+		if (enabled[rack] == enable)
+			return;
+		enabled[rack] = enable;
+		// a disabled rack counts as an empty one, whose factor is 1
+		if (enable)
+			change(weights[rack], 0, counts[rack]);
+		else
+			change(weights[rack], counts[rack], 0);
+	}
+
+	/**
+	* @param int amount, the change, in cents
+	* @return true if the coins in the enabled racks can pay it exactly
+	*/
+	public synchronized boolean canPay(int amount) {
+		if (amount < 0 || amount % unit != 0)
+			return false;
+		int units = amount / unit;
+		if (units >= ways.length)
+			rebuild(Math.max(units, ways.length * 2));
+		return ways[units] != 0;
+	}
+
+	/**
+	* @param int rack, the index of the rack
+	* @return the coins in the rack, as far as this record knows
+	*/
+	public synchronized int getCount(int rack) {
+		return counts[rack];
+	}
+
+	/**
+	* @return the number of passes over the amounts made so far, at most two per change of a rack's count
+	*/
+	public synchronized long getUpdateCount() {
+		return updates;
+	}
+
+	/**
+	* Method changes the factor of a rack from the one for one count to the one for another
+	* @param int weight, the weight of the rack's coins
+	* @param int from, the count before
+	* @param int to, the count after
+	*/
+	private void change(int weight, int from, int to) {
+		if (from == to)
+			return;
+		divide((long) weight * (from + 1));
+		multiply((long) weight * (to + 1));
+	}
+
+	/**
+	* Method multiplies by 1 - x^k. Amounts go down, so each subtracts the number from before the pass
+	*/
+	private void multiply(long k) {
+		long[] ways = this.ways;
+		if (k >= ways.length)
+			return;
+		int step = (int) k;
+		for (int a = ways.length - 1; a >= step; a--) {
+			long difference = ways[a] - ways[a - step];
+			ways[a] = difference < 0 ? difference + MODULUS : difference;
+		}
+		updates++;
+	}
+
+	/**
+	* Method undoes multiply(). Amounts go up, so each adds the number already worked out
+	*/
+	private void divide(long k) {
+		long[] ways = this.ways;
+		if (k >= ways.length)
+			return;
+		int step = (int) k;
+		for (int a = step; a < ways.length; a++) {
+			long sum = ways[a] + ways[a - step];
+			ways[a] = sum >= MODULUS ? sum - MODULUS : sum;
+		}
+		updates++;
+	}
+
+	private void rebuild(int limit) {
+		ways = new long[limit + 1];
+		ways[0] = 1;
+		for (int rack = 0; rack < counts.length; rack++) {
+			if (enabled[rack])
+				change(weights[rack], 0, counts[rack]);
+		}
+	}
+
+	private static int gcd(int a, int b) {
+		while (b != 0) {
+			int t = a % b;
+			a = b;
+			b = t;
+		}
+		return a;
+	}
+}
@@ -0,0 +1,261 @@
+package ca.ucalgary.seng300.a2;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Works out how to pay an amount of change with the fewest coins, when each kind of coin has only so many left.
+ * <p>
+ * The denominations can be anything, not only ones for which taking the largest coin first happens to work. For
+ * each set of denominations there is one solver, made by forDenominations(), which keeps a table of the fewest
+ * coins for every amount as if no rack could run out, grown as larger amounts are asked for. While the racks hold
+ * enough coins, that answer is the answer and costs a lookup and a check per denomination. When they do not, the
+ * solver falls back to dynamic programming over the coins actually in the racks: each rack is split into bundles
+ * of 1, 2, 4... coins and the bundles are taken at most once each, so the work grows with the logarithm of the
+ * number of coins rather than the number itself. Amounts are worked in units of the largest common divisor of the
+ * denominations, five cents for Canadian coins, which keeps the tables small.
+ */
+public class ChangeSolver {
+
+	private static final ConcurrentHashMap<String, ChangeSolver> solvers = new ConcurrentHashMap<String, ChangeSolver>();
+	private static final int NONE = Integer.MAX_VALUE;
+
+	private final int[] denominations;
+	private final int unit;			// the largest common divisor of the denominations
+	// the unbounded table, in units: fewest coins for each amount, and the index of the last coin taken
+	private int[] fewest = {0};
+	private int[] lastCoin = {-1};
+
+	/**
+	* Constructor creates a solver. Use forDenominations() to share one per set of denominations
+	* @param int[] denominations, the value of each kind of coin, in cents, indexed as the racks are
+	*/
+	public ChangeSolver(int... denominations) {
+		if (denominations.length == 0)
+			throw new IllegalArgumentException("There must be at least one denomination");
+		int unit = 0;
+		for (int value : denominations) {
+			if (value <= 0)
+				throw new IllegalArgumentException("Denominations must be positive");
+			unit = gcd(unit, value);
+		}
+		this.denominations = denominations.clone();
+		this.unit = unit;
+	}
+
+	/**
+	* Method gives the solver for a set of denominations, creating it on first use
+	* @param int[] denominations, the value of each kind of coin, in cents, indexed as the racks are
+	* @return a solver shared by every machine with the same coins in the same order
+	*/
+	public static ChangeSolver forDenominations(int... denominations) {
+		return solvers.computeIfAbsent(Arrays.toString(denominations), key -> new ChangeSolver(denominations));
+	}
+
+	/**
+	* @return the value of each kind of coin, indexed as the racks are
+	*/
+	public int[] getDenominations() {
+		return denominations.clone();
+	}
+
+	/**
+	* Method works out the fewest coins that pay an amount
+	* @param int amount, the change, in cents
+	* @param int[] counts, the coins left of each denomination
+	* @return the number of coins of each denomination to pay, or null if the amount cannot be paid exactly
+	*/
+	public int[] payout(int amount, int[] counts) {
+		return withCounts(counts).payout(amount);
+	}
+
+	/**
+	* Method gives the answers for one set of rack counts, for asking about several amounts
+	* @param int[] counts, the coins left of each denomination. Not copied, so it must not change while in use
+	* @return the answers
+	*/
+	public Payouts withCounts(int[] counts) {
+		if (counts.length != denominations.length)
+			throw new IllegalArgumentException("There must be a count for each denomination");
+		return new Payouts(counts);
+	}
+
+	/**
+	* Method tries the unbounded table: the fewest coins if no rack could run out
+	* @return the coins to pay, or null if the racks do not hold them or the amount cannot be paid at all
+	*/
+	private int[] unboundedPayout(int units, int[] counts) {
+		int[] fewest;
+		int[] lastCoin;
+		synchronized (this) {
+			if (units >= this.fewest.length)
+				grow(units);
+			fewest = this.fewest;
+			lastCoin = this.lastCoin;
+		}
+		if (fewest[units] == NONE)
+			return null;
+		int[] coins = new int[denominations.length];
+		for (int a = units; a > 0; a -= denominations[lastCoin[a]] / unit) {
+			int coin = lastCoin[a];
+			if (++coins[coin] > counts[coin])
+				return null;
+		}
+		return coins;
+	}
+
+	/**
+	* Method extends the unbounded table, at least doubling it so it is grown rarely
+	*/
+	private void grow(int units) {
+		int from = fewest.length;
+		int size = Math.max(units + 1, from * 2);
+		int[] newFewest = Arrays.copyOf(fewest, size);
+		int[] newLast = Arrays.copyOf(lastCoin, size);
+		for (int a = from; a < size; a++) {
+			newFewest[a] = NONE;
+			newLast[a] = -1;
+			for (int coin = 0; coin < denominations.length; coin++) {
+				int w = denominations[coin] / unit;
+				if (w <= a && newFewest[a - w] != NONE && newFewest[a - w] + 1 < newFewest[a]) {
+					newFewest[a] = newFewest[a - w] + 1;
+					newLast[a] = coin;
+				}
+			}
+		}
+		fewest = newFewest;		// published whole, so readers never see a half-built table
+		lastCoin = newLast;
+	}
+
+	private static int gcd(int a, int b) {
+		while (b != 0) {
+			int t = a % b;
+			a = b;
+			b = t;
+		}
+		return a;
+	}
+
+	/**
+	 * The answers for one set of rack counts. The bounded table is built the first time the racks turn out to be
+	 * too short, large enough for the amount asked, and reused for smaller amounts
+	 */
+	public class Payouts {
+		private final int[] counts;
+		private int[] pieceCoin;		// the bundles: which denomination, and how many coins
+		private int[] pieceCount;
+		private int[] best;			// fewest coins for each amount, in units, using the bundles
+		private BitSet[] taken;			// for each bundle, the amounts for which it was taken
+
+		private Payouts(int[] counts) {
+			this.counts = counts;
+		}
+
+		/**
+		* @param int amount, the change, in cents
+		* @return true if the racks can pay the amount exactly
+		*/
+		public boolean canPay(int amount) {
+			if (amount == 0)
+				return true;
+			if (amount < 0 || amount % unit != 0)
+				return false;
+			int units = amount / unit;
+			if (unboundedPayout(units, counts) != null)
+				return true;
+			build(units);
+			return best[units] != NONE;
+		}
+
+		/**
+		* @param int amount, the change, in cents
+		* @return the number of coins of each denomination to pay, or null if the racks cannot pay the amount exactly
+		*/
+		public int[] payout(int amount) {
+			if (amount < 0 || amount % unit != 0)
+				return null;
+			int units = amount / unit;
+			int[] coins = unboundedPayout(units, counts);
+			if (coins != null)
+				return coins;
+			build(units);
+			if (best[units] == NONE)
+				return null;
+			coins = new int[denominations.length];
+			for (int piece = pieceCoin.length - 1; piece >= 0; piece--) {
+				if (taken[piece].get(units)) {
+					coins[pieceCoin[piece]] += pieceCount[piece];
+					units -= pieceCount[piece] * denominations[pieceCoin[piece]] / unit;
+				}
+			}
+			return coins;
+		}
+
+		/**
+		* Method finds the most change up to an amount the racks can pay exactly
+		* @param int amount, the most that is owed, in cents
+		* @return the largest amount no more than the one given that can be paid, 0 if none
+		*/
+		public int largestPayable(int amount) {
+			if (amount <= 0)
+				return 0;
+			int units = amount / unit;
+			if (unboundedPayout(units, counts) != null)
+				return units * unit;
+			build(units);
+			while (units > 0 && best[units] == NONE)
+				units--;
+			return units * unit;
+		}
+
+		/**
+		* Method builds the bounded table up to an amount, unless one at least as large was built already
+		*/
+		private void build(int units) {
+			if (best != null && best.length > units)
+				return;
+			if (pieceCoin == null)
+				split();
+			best = new int[units + 1];
+			Arrays.fill(best, 1, best.length, NONE);
+			taken = new BitSet[pieceCoin.length];
+			for (int piece = 0; piece < pieceCoin.length; piece++) {
+				BitSet used = new BitSet(units + 1);
+				int w = pieceCount[piece] * denominations[pieceCoin[piece]] / unit;
+				for (int a = units; a >= w; a--) {
+					if (best[a - w] != NONE && best[a - w] + pieceCount[piece] < best[a]) {
+						best[a] = best[a - w] + pieceCount[piece];
+						used.set(a);
+					}
+				}
+				taken[piece] = used;
+			}
+		}
+
+		/**
+		* Method splits each rack into bundles of 1, 2, 4... coins and what is left, which add up to any number it holds
+		*/
+		private void split() {
+			int pieces = 0;
+			for (int count : counts)
+				pieces += count <= 0 ? 0 : 32 - Integer.numberOfLeadingZeros(count);
+			pieceCoin = new int[pieces];
+			pieceCount = new int[pieces];
+			int piece = 0;
+			for (int coin = 0; coin < counts.length; coin++) {
+				int left = counts[coin];
+				for (int size = 1; left > 0; size <<= 1) {
+					int take = Math.min(size, left);
+					pieceCoin[piece] = coin;
+					pieceCount[piece++] = take;
+					left -= take;
+				}
+			}
+			if (piece < pieces) {
+				pieceCoin = Arrays.copyOf(pieceCoin, piece);
+				pieceCount = Arrays.copyOf(pieceCount, piece);
+			}
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package ca.ucalgary.seng300.a2;
+
+/**
+ * An event log that stamps records with the time of a TaskScheduler instead of the wall clock, in front of
+ * another EventLogInterface. A machine simulated on a VirtualTimeScheduler writes through one, so its log shows
+ * when things happened in the simulation, and two runs of the same simulation write the same log.
+ * Records that already carry a time are passed through as they are.
+ */
+public class ClockedEventLog implements EventLogInterface {
+
+	private final EventLogInterface delegate;
+	private final TaskScheduler clock;
+
+	/**
+	* Constructor creates a log stamped by a clock
+	* @param EventLogInterface delegate, the log records are written to
+	* @param TaskScheduler clock, gives the time of each record
+	*/
+	public ClockedEventLog(EventLogInterface delegate, TaskScheduler clock) {
+		if (delegate == null || clock == null)
+			throw new IllegalArgumentException("Arguments may not be null");
+		this.delegate = delegate;
+		this.clock = clock;
+	}
+
+	@Override
+	public void writeToLog(String s) {
+		delegate.writeToLog(s, clock.currentTimeNanos() / 1000000L);
+	}
+
+	@Override
+	public void writeToLog(String s, long timeMillis) {
+		delegate.writeToLog(s, timeMillis);
+	}
+
+	@Override
+	public void writeToLog(int machineId, long sequence, String s, long timeMillis) {
+		delegate.writeToLog(machineId, sequence, s, timeMillis);
+	}
+
+	@Override
+	public void writeEvent(EventCode code, HardwareKind kind, int hardwareIndex, int value) {
+		delegate.writeEvent(code, kind, hardwareIndex, value, clock.currentTimeNanos());
+	}
+
+	@Override
+	public void writeEvent(EventCode code, HardwareKind kind, int hardwareIndex, int value, long timeNanos) {
+		delegate.writeEvent(code, kind, hardwareIndex, value, timeNanos);
+	}
+
+	@Override
+	public void writeEvent(int machineId, long sequence, EventCode code, HardwareKind kind, int hardwareIndex, int value, long timeNanos) {
+		delegate.writeEvent(machineId, sequence, code, kind, hardwareIndex, value, timeNanos);
+	}
+
+	@Override
+	public boolean isEnabled(HardwareKind kind) {
+		return delegate.isEnabled(kind);
+	}
+
+	@Override
+	public void commit() {
+		delegate.commit();
+	}
+
+	@Override
+	public void flush() {
+		delegate.flush();
+	}
+
+	/**
+	* @return the log records are written to
+	*/
+	public EventLogInterface getDelegate() {
+		return delegate;
+	}
+}
@@ -58,8 +58,10 @@ public class CoinRackListenerDevice implements CoinRackListener{
 	public void coinsFull(CoinRack rack) {
 		if(rack.getCapacity()<=rack.size()) {
 			racksFull = true;
-			int myRack = logic.findHardwareIndex(rack);
-			logic.getEventLog().writeToLog("Coin rack #" + myRack + " is full.");
+			if (logic.getEventLog().isEnabled(HardwareKind.COIN_RACK)) {	// skip the index lookup if the record is not written
+				int myRack = logic.findHardwareIndex(rack);
+				logic.getEventLog().writeEvent(EventCode.COIN_RACK_FULL, HardwareKind.COIN_RACK, myRack, 0);
+			}
 		}
 		else racksFull = false;
 	}
@@ -74,8 +76,10 @@ public class CoinRackListenerDevice implements CoinRackListener{
 	public void coinsEmpty(CoinRack rack) {
 		if(rack.size() == 0) {
 			racksEmpty = true;
-			int myRack = logic.findHardwareIndex(rack);
-			logic.getEventLog().writeToLog("Coin rack #" + myRack + " is empty.");
+			if (logic.getEventLog().isEnabled(HardwareKind.COIN_RACK)) {
+				int myRack = logic.findHardwareIndex(rack);
+				logic.getEventLog().writeEvent(EventCode.COIN_RACK_EMPTY, HardwareKind.COIN_RACK, myRack, 0);
+			}
 		}
 		else racksEmpty = false;
 		
@@ -94,8 +98,11 @@ public class CoinRackListenerDevice implements CoinRackListener{
 	public void coinAdded(CoinRack rack, Coin coin) {
 		coinValue+=coin.getValue();
 		coinCount++;
-		int myRack = logic.findHardwareIndex(rack);
-		logic.getEventLog().writeToLog("Coin rack #" + myRack + " was added with " + coinValue + "cents.");
+		logic.coinRackChanged(rack, true);
+		if (logic.getEventLog().isEnabled(HardwareKind.COIN_RACK)) {
+			int myRack = logic.findHardwareIndex(rack);
+			logic.getEventLog().writeEvent(EventCode.COIN_RACK_COIN_ADDED, HardwareKind.COIN_RACK, myRack, coinValue);
+		}
 	}
 
 	/**
@@ -111,8 +118,34 @@ public class CoinRackListenerDevice implements CoinRackListener{
 	public void coinRemoved(CoinRack rack, Coin coin) {
 		coinValue-=coin.getValue();
 		coinCount--;
-		int myRack = logic.findHardwareIndex(rack);
-		logic.getEventLog().writeToLog("Coin rack #" + myRack + " was removed with " + coinValue + "cents.");
+		logic.coinRackChanged(rack, false);
+		if (logic.getEventLog().isEnabled(HardwareKind.COIN_RACK)) {
+			int myRack = logic.findHardwareIndex(rack);
+			logic.getEventLog().writeEvent(EventCode.COIN_RACK_COIN_REMOVED, HardwareKind.COIN_RACK, myRack, coinValue);
+		}
+	}
+
+	/**
+     	* Announces that the indicated coins have been released together from the
+     	* indicated coin rack, as when change is paid. Written to the log as one
+     	* release and one total, however many coins there are.
+     	* 
+     	* @param rack
+     	*            The rack where the event occurred.
+    	 * @param coins
+    	 *            The coins that were removed.
+     */
+	@Override
+	public void coinsRemoved(CoinRack rack, Coin... coins) {
+		for(Coin coin : coins)
+			coinValue-=coin.getValue();
+		coinCount-=coins.length;
+		logic.coinRackChanged(rack, -coins.length);
+		if (logic.getEventLog().isEnabled(HardwareKind.COIN_RACK)) {
+			int myRack = logic.findHardwareIndex(rack);
+			logic.getEventLog().writeEvent(EventCode.COIN_RACK_RELEASED, HardwareKind.COIN_RACK, myRack, coins.length);
+			logic.getEventLog().writeEvent(EventCode.TOTAL_RELEASED_VALUE, HardwareKind.COIN_RACK, myRack, coinValue);
+		}
 	}
 
 	/**
@@ -130,9 +163,11 @@ public class CoinRackListenerDevice implements CoinRackListener{
 		for(Coin coin : coins) {
 			 coinAdded(rack, coin);
 		}
-		int myRack = logic.findHardwareIndex(rack);
-		logic.getEventLog().writeToLog("Coin rack #" + myRack + " was loaded with " + coinCount + "coins.");
-		logic.getEventLog().writeToLog("Total loaded value is "+ coinValue);
+		if (logic.getEventLog().isEnabled(HardwareKind.COIN_RACK)) {
+			int myRack = logic.findHardwareIndex(rack);
+			logic.getEventLog().writeEvent(EventCode.COIN_RACK_LOADED, HardwareKind.COIN_RACK, myRack, coinCount);
+			logic.getEventLog().writeEvent(EventCode.TOTAL_LOADED_VALUE, HardwareKind.COIN_RACK, myRack, coinValue);
+		}
 	}
 
 	/**
@@ -150,9 +185,11 @@ public class CoinRackListenerDevice implements CoinRackListener{
 		for(Coin coin : coins) {
 			coinRemoved(rack, coin);
 		}
-		int myRack = logic.findHardwareIndex(rack);
-		logic.getEventLog().writeToLog("Coin rack #" + myRack + " was unloaded with " + coinCount + "coins.");
-		logic.getEventLog().writeToLog("Total unloaded value is "+ coinValue);
+		if (logic.getEventLog().isEnabled(HardwareKind.COIN_RACK)) {
+			int myRack = logic.findHardwareIndex(rack);
+			logic.getEventLog().writeEvent(EventCode.COIN_RACK_UNLOADED, HardwareKind.COIN_RACK, myRack, coinCount);
+			logic.getEventLog().writeEvent(EventCode.TOTAL_UNLOADED_VALUE, HardwareKind.COIN_RACK, myRack, coinValue);
+		}
 	}
 
 	
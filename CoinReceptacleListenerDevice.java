@@ -65,7 +65,7 @@ public class CoinReceptacleListenerDevice implements CoinReceptacleListener{
 		coinValue += coin.getValue();
 		coinCount++;
 		
-		logic.getEventLog().writeToLog("Coin Receptacle was added with " + coinValue + "cents.");
+		logic.getEventLog().writeEvent(EventCode.RECEPTACLE_COIN_ADDED, HardwareKind.COIN_RECEPTACLE, -1, coinValue);
 	}
 
 	/**
@@ -79,7 +79,7 @@ public class CoinReceptacleListenerDevice implements CoinReceptacleListener{
 	public void coinsRemoved(CoinReceptacle receptacle) {
 		coinValue = 0;
 		coinCount = 0;
-		logic.getEventLog().writeToLog("Coin Receptacle was removed with " + coinValue + "cents.");
+		logic.getEventLog().writeEvent(EventCode.RECEPTACLE_COINS_REMOVED, HardwareKind.COIN_RECEPTACLE, -1, coinValue);
 		
 	}
 
@@ -93,7 +93,7 @@ public class CoinReceptacleListenerDevice implements CoinReceptacleListener{
 	public void coinsFull(CoinReceptacle receptacle) {
 		if(receptacle.getCapacity()<=receptacle.size()) {
 			receptaclesFull = true;
-			logic.getEventLog().writeToLog("Coin Receptacle is full.");
+			logic.getEventLog().writeEvent(EventCode.RECEPTACLE_FULL, HardwareKind.COIN_RECEPTACLE, -1, 0);
 		}
 		else receptaclesFull = false;
 	}
@@ -114,8 +114,8 @@ public class CoinReceptacleListenerDevice implements CoinReceptacleListener{
 			coinValue += coin.getValue();
 			coinCount ++;
 		}
-		logic.getEventLog().writeToLog("Coin Receptacle was loaded with " + coinCount + "coins.");
-		logic.getEventLog().writeToLog("Total loaded value is "+ coinValue);
+		logic.getEventLog().writeEvent(EventCode.RECEPTACLE_LOADED, HardwareKind.COIN_RECEPTACLE, -1, coinCount);
+		logic.getEventLog().writeEvent(EventCode.TOTAL_LOADED_VALUE, HardwareKind.COIN_RECEPTACLE, -1, coinValue);
 	}
 
 	/**
@@ -134,8 +134,8 @@ public class CoinReceptacleListenerDevice implements CoinReceptacleListener{
 			coinValue -= coin.getValue();
 			coinCount --;
 		}
-		logic.getEventLog().writeToLog("Coin Receptacle was unloaded with " + coinCount + "coins.");
-		logic.getEventLog().writeToLog("Total unloaded value is "+ coinValue);
+		logic.getEventLog().writeEvent(EventCode.RECEPTACLE_UNLOADED, HardwareKind.COIN_RECEPTACLE, -1, coinCount);
+		logic.getEventLog().writeEvent(EventCode.TOTAL_UNLOADED_VALUE, HardwareKind.COIN_RECEPTACLE, -1, coinValue);
 	}
 
 }
@@ -60,7 +60,7 @@ public class CoinReturnListenerDevice implements CoinReturnListener {
 			deliveredCoinCount++;
 			deliveredCoinValue+=coin.getValue();
 		}
-		logic.getEventLog().writeToLog("CoinReturn delivered " + deliveredCoinValue + "cents");
+		logic.getEventLog().writeEvent(EventCode.COIN_RETURN_DELIVERED, HardwareKind.COIN_RETURN, -1, deliveredCoinValue);
 		
 	}
 	
@@ -75,7 +75,7 @@ public class CoinReturnListenerDevice implements CoinReturnListener {
 	public void returnIsFull(CoinReturn coinReturn) {
 		if(coinReturn.getCapacity()<=coinReturn.size()) {
 			returnsfull = true;
-			logic.getEventLog().writeToLog("CoinReturn is full.");
+			logic.getEventLog().writeEvent(EventCode.COIN_RETURN_FULL, HardwareKind.COIN_RETURN, -1, 0);
 		}
 		else returnsfull = false;
 	}
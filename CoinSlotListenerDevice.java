@@ -58,6 +58,7 @@ public class CoinSlotListenerDevice implements CoinSlotListener {
 	public void validCoinInserted(CoinSlot slot, Coin coin) {
 	    validCoinInsertedCount++;
 	    insertedCoinValue += coin.getValue();
+	    logic.getEventLog().writeEvent(EventCode.COIN_INSERTED, HardwareKind.COIN_SLOT, -1, coin.getValue());
 	    logic.validCoinInserted(coin);
 	}
 
@@ -70,6 +71,7 @@ public class CoinSlotListenerDevice implements CoinSlotListener {
 	public void coinRejected(CoinSlot slot, Coin coin) {
 	    coinRejectedCount++;
 	    rejectedCoinValue += coin.getValue();
+	    logic.getEventLog().writeEvent(EventCode.COIN_REJECTED, HardwareKind.COIN_SLOT, -1, coin.getValue());
 	    logic.invalidCoinInserted();
 	}
 
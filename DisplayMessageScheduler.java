@@ -0,0 +1,195 @@
+package ca.ucalgary.seng300.a2;
+
+import org.lsmr.vending.hardware.Display;
+
+/**
+ * Decides what the display of a machine shows when several messages want it at once.
+ * <p>
+ * Each priority holds at most one message. The display shows the message of the highest priority that has one, so
+ * an out of order message hides an invalid coin message, which hides a price, and so on down to the welcome message.
+ * A message can be shown until it is cleared or replaced, or for a while: it is then taken down by the timer
+ * and the message below it comes back on its own. Nobody waits for a message to expire, so the thread that pressed
+ * a button or inserted a coin is free at once.
+ * <p>
+ * With a frame set, the display is written at most once a frame: the first change after a quiet spell is written
+ * at once, and the changes that follow it within the frame are held back so only the last is written, when the
+ * frame ends. A message that is shown and replaced within one frame never reaches the display, or the log.
+ */
+public class DisplayMessageScheduler {
+
+	/**
+	 * What a message is about, lowest first
+	 */
+	public enum Priority {
+		WELCOME, CREDIT, PRICE, INVALID_COIN, OUT_OF_ORDER
+	}
+
+	private final Display display;
+	private final TaskScheduler timer;
+	private final String[] messages = new String[Priority.values().length];
+	private final TaskScheduler.ScheduledTask[] expiries = new TaskScheduler.ScheduledTask[messages.length];
+	private final long[] generations = new long[messages.length];		// bumped each time a message is replaced
+	private int showing = -1;		// the priority on the display, -1 for none
+	private long frameMillis = 0;		// 0 writes every change at once
+	private boolean frameOpen = false;
+	private String pending;			// the last change held back in this frame, null for none
+
+	/**
+	* Constructor creates a scheduler for a display, with expiry on the timer all machines share
+	* @param Display display, where messages are shown
+	*/
+	public DisplayMessageScheduler(Display display) {
+		this(display, HashedWheelTimer.getShared());
+	}
+
+	/**
+	* Constructor creates a scheduler for a display
+	* @param Display display, where messages are shown
+	* @param TaskScheduler timer, takes messages down when they expire
+	*/
+	public DisplayMessageScheduler(Display display, TaskScheduler timer) {
+		this.display = display;
+		this.timer = timer;
+	}
+
+	/**
+	* Method sets how often the display may change. Changes made meanwhile are coalesced into one
+	* @param long frameMillis, the shortest time between two writes to the display, 0 to write every change at once
+	*/
+	public synchronized void setFrameMillis(long frameMillis) {
+		if (frameMillis < 0)
+			throw new IllegalArgumentException("Frame must not be negative");
+		this.frameMillis = frameMillis;
+		if (frameMillis == 0 && pending != null) {
+			display.display(pending);
+			pending = null;
+		}
+	}
+
+	/**
+	* Method shows a message until it is cleared or replaced. It is only on the display while no higher priority has a message
+	* @param Priority priority, what the message is about
+	* @param String message, the text
+	*/
+	public synchronized void show(Priority priority, String message) {
+		int p = priority.ordinal();
+		cancelExpiry(p);
+		messages[p] = message;
+		if (p >= top()) {
+			showing = p;
+			write(message);
+		}
+	}
+
+	/**
+	* Method shows a message for a while, then puts back whatever it hid
+	* @param Priority priority, what the message is about
+	* @param String message, the text
+	* @param long durationMillis, how long it stays. With 0 or less it is shown and taken down straight away
+	*/
+	public synchronized void show(Priority priority, String message, long durationMillis) {
+		show(priority, message);
+		int p = priority.ordinal();
+		if (durationMillis <= 0) {
+			clear(priority);
+			return;
+		}
+		final long generation = generations[p];
+		expiries[p] = timer.schedule(() -> expire(p, generation), durationMillis);
+	}
+
+	/**
+	* Method takes down the message of a priority, if it has one. The next message down is shown in its place
+	* @param Priority priority, the message to take down
+	*/
+	public synchronized void clear(Priority priority) {
+		int p = priority.ordinal();
+		cancelExpiry(p);
+		if (messages[p] == null)
+			return;
+		messages[p] = null;
+		if (p == showing)
+			showTop();
+	}
+
+	/**
+	* @param Priority priority
+	* @return the message the priority holds, or null
+	*/
+	public synchronized String getMessage(Priority priority) {
+		return messages[priority.ordinal()];
+	}
+
+	/**
+	* @return the priority of the message on the display, or null if the scheduler has not shown one
+	*/
+	public synchronized Priority getShowing() {
+		return showing < 0 ? null : Priority.values()[showing];
+	}
+
+	/**
+	* Method run by the timer. Does nothing if the message was replaced since the expiry was set
+	*/
+	private synchronized void expire(int p, long generation) {
+		if (generations[p] != generation)
+			return;
+		expiries[p] = null;
+		clear(Priority.values()[p]);
+	}
+
+	private void cancelExpiry(int p) {
+		generations[p]++;
+		if (expiries[p] != null) {
+			expiries[p].cancel();
+			expiries[p] = null;
+		}
+	}
+
+	private int top() {
+		for (int p = messages.length - 1; p >= 0; p--) {
+			if (messages[p] != null)
+				return p;
+		}
+		return -1;
+	}
+
+	private void showTop() {
+		showing = top();
+		write(showing < 0 ? "" : messages[showing]);
+	}
+
+	/**
+	* Method writes a message to the display now, or at the end of the frame if one is open
+	*/
+	private void write(String message) {
+		if (frameMillis == 0) {
+			pending = null;
+			display.display(message);
+			return;
+		}
+		if (frameOpen) {
+			pending = message;
+			return;
+		}
+		display.display(message);
+		openFrame();
+	}
+
+	private void openFrame() {
+		frameOpen = true;
+		timer.schedule(this::endFrame, frameMillis);
+	}
+
+	/**
+	* Method run by the timer. Writes the change held back, if any, which starts another frame
+	*/
+	private synchronized void endFrame() {
+		frameOpen = false;
+		if (pending == null)
+			return;
+		String message = pending;
+		pending = null;
+		display.display(message);		// dropped by the display if it is already showing it
+		openFrame();
+	}
+}
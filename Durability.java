@@ -0,0 +1,17 @@
+package ca.ucalgary.seng300.a2;
+
+/**
+ * How hard an event log tries to get records onto the disk, trading latency against
+ * how many records can be lost if the machine loses power.
+ */
+public enum Durability {
+	/** Records reach the disk whenever the operating system decides. Fastest, largest loss window. */
+	NONE,
+	/** The log is flushed and synced at a fixed period. Loses at most one period of records. */
+	PERIODIC,
+	/**
+	 * The log is flushed and synced once per transaction, when the logic calls commit(),
+	 * covering every record written during that purchase. Commits that arrive together share one sync.
+	 */
+	GROUP_COMMIT
+}
@@ -0,0 +1,129 @@
+package ca.ucalgary.seng300.a2;
+
+/**
+ * The typed events the listener devices write to the event log.
+ * Each code has a template giving the text that used to be built by hand in the listener device,
+ * so a typed event can always be turned back into the line WorkLog.txt would have held.
+ * {index} is replaced by the hardware index and {value} by the event value (cents or a count).
+ * The number of each code is what is stored in binary event records, so existing numbers must never change.
+ */
+public enum EventCode {
+	TEXT(0, ""),
+	COIN_RACK_FULL(1, "Coin rack #{index} is full."),
+	COIN_RACK_EMPTY(2, "Coin rack #{index} is empty."),
+	COIN_RACK_COIN_ADDED(3, "Coin rack #{index} was added with {value}cents."),
+	COIN_RACK_COIN_REMOVED(4, "Coin rack #{index} was removed with {value}cents."),
+	COIN_RACK_LOADED(5, "Coin rack #{index} was loaded with {value}coins."),
+	COIN_RACK_UNLOADED(6, "Coin rack #{index} was unloaded with {value}coins."),
+	TOTAL_LOADED_VALUE(7, "Total loaded value is {value}"),
+	TOTAL_UNLOADED_VALUE(8, "Total unloaded value is {value}"),
+	RECEPTACLE_COIN_ADDED(9, "Coin Receptacle was added with {value}cents."),
+	RECEPTACLE_COINS_REMOVED(10, "Coin Receptacle was removed with {value}cents."),
+	RECEPTACLE_FULL(11, "Coin Receptacle is full."),
+	RECEPTACLE_LOADED(12, "Coin Receptacle was loaded with {value}coins."),
+	RECEPTACLE_UNLOADED(13, "Coin Receptacle was unloaded with {value}coins."),
+	COIN_RETURN_DELIVERED(14, "CoinReturn delivered {value}cents"),
+	COIN_RETURN_FULL(15, "CoinReturn is full."),
+	LIGHT_ON(16, "IndicatorLight was turned on."),
+	LIGHT_OFF(17, "IndicatorLight was turned off."),
+	POP_RACK_FULL(18, "Pop Can Rack #{index} is full."),
+	POP_RACK_EMPTY(19, "Pop Can Rack #{index} is empty."),
+	POP_RACK_LOADED(20, "Pop Can Rack #{index} was loaded with {value}cans."),
+	POP_RACK_UNLOADED(21, "Pop Can Rack #{index} had {value}pop cans unloaded."),
+	COIN_INSERTED(22, "Coin of {value}cents was inserted."),
+	COIN_REJECTED(23, "Coin of {value}cents was rejected."),
+	SELECTION_PRESSED(24, "Selection button #{index} was pressed."),
+	CREDIT_CHANGED(25, "Credit is {value}cents."),
+	POP_RACK_CAN_ADDED(26, "Pop Can Rack #{index} was added with a pop can."),
+	POP_RACK_CAN_REMOVED(27, "Pop Can Rack #{index} had a pop can removed."),
+	HARDWARE_DISABLED(28, "Hardware #{index} was disabled."),
+	HARDWARE_ENABLED(29, "Hardware #{index} was enabled."),
+	RECORDS_DROPPED(30, "{value} records were dropped."),
+	COIN_RACK_RELEASED(31, "Coin rack #{index} released {value}coins."),
+	TOTAL_RELEASED_VALUE(32, "Total released value is {value}");
+
+	private static final EventCode[] BY_CODE = new EventCode[33];
+	static {
+		for (EventCode code : values())
+			BY_CODE[code.code] = code;
+	}
+
+	private static final String INDEX = "{index}";
+	private static final String VALUE = "{value}";
+
+	private final int code;
+	private final String template;
+	// the template split around its placeholders, so formatting never has to search it
+	private final String[] parts;
+	private final boolean[] isValue;
+
+	private EventCode(int code, String template) {
+		this.code = code;
+		this.template = template;
+
+		int placeholders = 0;
+		for (int i = template.indexOf('{'); i >= 0; i = template.indexOf('{', i + 1))
+			placeholders++;
+		parts = new String[placeholders + 1];
+		isValue = new boolean[placeholders];
+
+		int start = 0;
+		for (int p = 0; p < placeholders; p++) {
+			int open = template.indexOf('{', start);
+			parts[p] = template.substring(start, open);
+			isValue[p] = template.startsWith(VALUE, open);
+			start = open + (isValue[p] ? VALUE.length() : INDEX.length());
+		}
+		parts[placeholders] = template.substring(start);
+	}
+
+	/**
+	* @return the number written to binary event records
+	*/
+	public int getCode() {
+		return code;
+	}
+
+	/**
+	* @return the text template, with {index} and {value} placeholders
+	*/
+	public String getTemplate() {
+		return template;
+	}
+
+	/**
+	* Method fills in the template
+	* @param int index, the hardware index of the event
+	* @param int value, the cents or count of the event
+	* @return the text this event used to be logged as
+	*/
+	public String format(int index, int value) {
+		return appendTo(new StringBuilder(template.length() + 16), index, value).toString();
+	}
+
+	/**
+	* Method fills in the template at the end of a builder
+	* @param StringBuilder sb, where the text is appended
+	* @param int index, the hardware index of the event
+	* @param int value, the cents or count of the event
+	* @return sb
+	*/
+	public StringBuilder appendTo(StringBuilder sb, int index, int value) {
+		for (int p = 0; p < isValue.length; p++) {
+			sb.append(parts[p]);
+			sb.append(isValue[p] ? value : index);
+		}
+		return sb.append(parts[isValue.length]);
+	}
+
+	/**
+	* Method finds the event code with the given number
+	* @param int code, a number read from a binary event record
+	* @return the matching event code, or null if the number is not known
+	*/
+	public static EventCode fromCode(int code) {
+		if (code < 0 || code >= BY_CODE.length)
+			return null;
+		return BY_CODE[code];
+	}
+}
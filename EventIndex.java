@@ -0,0 +1,395 @@
+package ca.ucalgary.seng300.a2;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The index of one segment of a SegmentedEventLog, so a query only reads the parts of the segment that can hold
+ * what it wants.
+ * <p>
+ * The records are grouped in blocks of BLOCK_RECORDS. For each block the index keeps where it starts and the
+ * earliest and latest time in it (the sparse time index), and for each event code and each piece of hardware
+ * the blocks it appears in (the postings). A query works out the blocks that pass all three and reads only those.
+ * <p>
+ * The index is built as records are written. When a segment is closed its index is saved next to it as
+ * baseName-000001.idx; a segment without a saved index, or with one that does not cover it, is indexed by scanning it once.
+ */
+public class EventIndex {
+
+	public static final String INDEX_SUFFIX = ".idx";
+	public static final int BLOCK_RECORDS = 64;
+
+	private static final int MAGIC = 0x56494458;		// "VIDX"
+	private static final short VERSION = 1;
+	private static final int MAX_INDEXED_HARDWARE = 1024;	// higher indexes share the overflow postings
+
+	private int blockCount;
+	private int[] blockStart = new int[16];
+	private long[] minTime = new long[16];
+	private long[] maxTime = new long[16];
+	private int recordsInBlock = BLOCK_RECORDS;
+	private int end = EventRecord.RECORD_SIZE;
+
+	private final BitSet[] byCode = new BitSet[EventCode.values().length];
+	// [kind ordinal][hardware index + 1], since index -1 means the kind has only one
+	private final BitSet[][] byHardware = new BitSet[HardwareKind.values().length][];
+	private final BitSet overflow = new BitSet();
+
+	/**
+	* Method adds the record just written to the index
+	* @param int offset, where the record starts in the segment
+	* @param int size, the bytes it takes up, including any text
+	* @param long timeNanos, the time of the record
+	* @param EventCode code, the event, or null if it is not known to this version
+	*/
+	public void add(int offset, int size, long timeNanos, EventCode code, HardwareKind kind, int hardwareIndex) {
+		if (recordsInBlock == BLOCK_RECORDS) {
+			if (blockCount == blockStart.length) {
+				blockStart = Arrays.copyOf(blockStart, blockCount * 2);
+				minTime = Arrays.copyOf(minTime, blockCount * 2);
+				maxTime = Arrays.copyOf(maxTime, blockCount * 2);
+			}
+			blockStart[blockCount] = offset;
+			minTime[blockCount] = timeNanos;
+			maxTime[blockCount] = timeNanos;
+			blockCount++;
+			recordsInBlock = 0;
+		}
+		int block = blockCount - 1;
+		recordsInBlock++;
+		end = offset + size;
+		if (timeNanos < minTime[block])
+			minTime[block] = timeNanos;
+		if (timeNanos > maxTime[block])
+			maxTime[block] = timeNanos;
+
+		if (code != null)
+			postings(byCode, code.ordinal()).set(block);
+		hardwarePostings(kind, hardwareIndex).set(block);
+	}
+
+	private static BitSet postings(BitSet[] sets, int i) {
+		if (sets[i] == null)
+			sets[i] = new BitSet();
+		return sets[i];
+	}
+
+	private BitSet hardwarePostings(HardwareKind kind, int hardwareIndex) {
+		int slot = hardwareIndex + 1;
+		if (slot < 0 || slot >= MAX_INDEXED_HARDWARE)
+			return overflow;
+		BitSet[] sets = byHardware[kind.ordinal()];
+		if (sets == null || slot >= sets.length) {
+			sets = sets == null ? new BitSet[Math.max(8, slot + 1)] : Arrays.copyOf(sets, Math.max(sets.length * 2, slot + 1));
+			byHardware[kind.ordinal()] = sets;
+		}
+		return postings(sets, slot);
+	}
+
+	/**
+	* Method works out which blocks can hold records the query wants
+	* @param EventQuery query, the records wanted
+	* @return the numbers of the blocks to read
+	*/
+	public BitSet candidateBlocks(EventQuery query) {
+		BitSet blocks = new BitSet(blockCount);
+		for (int b = 0; b < blockCount; b++) {
+			if (maxTime[b] >= query.getFromNanos() && minTime[b] < query.getToNanos())
+				blocks.set(b);
+		}
+
+		if (query.getEvents() != null) {
+			BitSet wanted = new BitSet();
+			for (EventCode code : query.getEvents()) {
+				if (byCode[code.ordinal()] != null)
+					wanted.or(byCode[code.ordinal()]);
+			}
+			blocks.and(wanted);
+		}
+
+		if (query.getKind() != null) {
+			BitSet wanted = (BitSet) overflow.clone();
+			BitSet[] sets = byHardware[query.getKind().ordinal()];
+			if (sets != null) {
+				if (query.getHardwareIndex() == EventQuery.ANY_INDEX) {
+					for (BitSet set : sets) {
+						if (set != null)
+							wanted.or(set);
+					}
+				} else {
+					int slot = query.getHardwareIndex() + 1;
+					if (slot >= 0 && slot < sets.length && sets[slot] != null)
+						wanted.or(sets[slot]);
+				}
+			}
+			blocks.and(wanted);
+		}
+		return blocks;
+	}
+
+	/**
+	* Method reads the records a query wants from the segment this index belongs to
+	* @param FileChannel channel, the segment. Its position is not changed
+	* @param EventQuery query, the records wanted
+	* @param List<EventRecord> results, receives the records in the order they were written
+	*/
+	public void find(FileChannel channel, EventQuery query, List<EventRecord> results) throws IOException {
+		BitSet blocks = candidateBlocks(query);
+		ByteBuffer data = null;
+		for (int b = blocks.nextSetBit(0); b >= 0; b = blocks.nextSetBit(b + 1)) {
+			int start = blockStart[b];
+			int length = getBlockEnd(b) - start;
+			if (data == null || data.capacity() < length)
+				data = ByteBuffer.allocate(length);
+			data.clear();
+			data.limit(length);
+			while (data.hasRemaining()) {
+				if (channel.read(data, start + data.position()) < 0)
+					throw new IOException("Segment is shorter than its index");
+			}
+			data.flip();
+			while (data.hasRemaining()) {
+				EventRecord record = new EventRecord();
+				record.readFrom(data);
+				if (query.matches(record.getTimeNanos(), record.getCode(), record.getKind(), record.getHardwareIndex(), record.getMachineId()))
+					results.add(record);
+			}
+		}
+	}
+
+	public int getBlockCount() {
+		return blockCount;
+	}
+
+	public int getBlockStart(int block) {
+		return blockStart[block];
+	}
+
+	/**
+	* @return the offset just past the last record of a block
+	*/
+	public int getBlockEnd(int block) {
+		return block + 1 < blockCount ? blockStart[block + 1] : end;
+	}
+
+	/**
+	* @return the offset just past the last record indexed
+	*/
+	public int getEnd() {
+		return end;
+	}
+
+	/**
+	* @return the earliest time indexed, or Long.MAX_VALUE if there are no records
+	*/
+	public long getMinTime() {
+		long min = Long.MAX_VALUE;
+		for (int b = 0; b < blockCount; b++)
+			min = Math.min(min, minTime[b]);
+		return min;
+	}
+
+	/**
+	* @return the latest time indexed, or Long.MIN_VALUE if there are no records
+	*/
+	public long getMaxTime() {
+		long max = Long.MIN_VALUE;
+		for (int b = 0; b < blockCount; b++)
+			max = Math.max(max, maxTime[b]);
+		return max;
+	}
+
+	/**
+	* Method indexes the records of a segment by reading them
+	* @param ByteBuffer segment, the whole segment
+	* @param int end, the end of data given by the segment header
+	* @return the index
+	*/
+	public static EventIndex scan(ByteBuffer segment, int end) {
+		ByteBuffer data = segment.duplicate();
+		data.position(EventRecord.RECORD_SIZE);
+		data.limit(end);
+		EventIndex index = new EventIndex();
+		EventRecord record = new EventRecord();
+		while (data.hasRemaining()) {
+			int offset = data.position();
+			record.readFrom(data);
+			index.add(offset, data.position() - offset, record.getTimeNanos(), record.getCode(), record.getKind(), record.getHardwareIndex());
+		}
+		return index;
+	}
+
+	/**
+	* @return the file the index of a segment is saved in
+	*/
+	public static File indexFile(File segment) {
+		String name = segment.getName();
+		if (name.endsWith(SegmentedEventLog.SEGMENT_SUFFIX))
+			name = name.substring(0, name.length() - SegmentedEventLog.SEGMENT_SUFFIX.length());
+		return new File(segment.getParentFile(), name + INDEX_SUFFIX);
+	}
+
+	/**
+	* Method saves the index
+	* @param File f, the index file
+	*/
+	public void save(File f) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(f)))) {
+			out.writeInt(MAGIC);
+			out.writeShort(VERSION);
+			out.writeInt(BLOCK_RECORDS);
+			out.writeInt(end);
+			out.writeInt(recordsInBlock);
+			out.writeInt(blockCount);
+			for (int b = 0; b < blockCount; b++) {
+				out.writeInt(blockStart[b]);
+				out.writeLong(minTime[b]);
+				out.writeLong(maxTime[b]);
+			}
+
+			int codes = 0;
+			for (BitSet set : byCode) {
+				if (set != null)
+					codes++;
+			}
+			out.writeInt(codes);
+			for (EventCode code : EventCode.values()) {
+				if (byCode[code.ordinal()] != null) {
+					out.writeShort(code.getCode());
+					writeBits(out, byCode[code.ordinal()]);
+				}
+			}
+
+			int hardware = 0;
+			for (BitSet[] sets : byHardware) {
+				for (int i = 0; sets != null && i < sets.length; i++) {
+					if (sets[i] != null)
+						hardware++;
+				}
+			}
+			out.writeInt(hardware);
+			for (HardwareKind kind : HardwareKind.values()) {
+				BitSet[] sets = byHardware[kind.ordinal()];
+				for (int i = 0; sets != null && i < sets.length; i++) {
+					if (sets[i] != null) {
+						out.writeShort(kind.getId());
+						out.writeInt(i - 1);
+						writeBits(out, sets[i]);
+					}
+				}
+			}
+			writeBits(out, overflow);
+		}
+	}
+
+	/**
+	* Method loads a saved index
+	* @param File f, the index file
+	* @return the index
+	* @throws IOException if the file cannot be read or is not an index this version can read
+	*/
+	public static EventIndex load(File f) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)))) {
+			if (in.readInt() != MAGIC || in.readShort() != VERSION || in.readInt() != BLOCK_RECORDS)
+				throw new IOException("Not an event index this version can read: " + f);
+			EventIndex index = new EventIndex();
+			index.end = in.readInt();
+			index.recordsInBlock = in.readInt();
+			int blocks = in.readInt();
+			index.blockStart = new int[Math.max(16, blocks)];
+			index.minTime = new long[index.blockStart.length];
+			index.maxTime = new long[index.blockStart.length];
+			for (int b = 0; b < blocks; b++) {
+				index.blockStart[b] = in.readInt();
+				index.minTime[b] = in.readLong();
+				index.maxTime[b] = in.readLong();
+			}
+			index.blockCount = blocks;
+
+			int codes = in.readInt();
+			for (int i = 0; i < codes; i++) {
+				EventCode code = EventCode.fromCode(in.readShort());
+				BitSet set = readBits(in);
+				if (code != null)
+					index.byCode[code.ordinal()] = set;
+			}
+			int hardware = in.readInt();
+			for (int i = 0; i < hardware; i++) {
+				HardwareKind kind = HardwareKind.fromId(in.readShort());
+				int hardwareIndex = in.readInt();
+				index.hardwarePostings(kind, hardwareIndex).or(readBits(in));
+			}
+			index.overflow.or(readBits(in));
+			return index;
+		}
+	}
+
+	/**
+	* Method finds the index of a closed segment: the saved one if it covers the segment,
+	* otherwise a new one made by scanning the segment, which is then saved
+	* @param File segment, the segment file
+	* @param FileChannel channel, open on the segment
+	* @return the index
+	* @throws IOException if the segment cannot be read or is not a segment of an event log
+	*/
+	public static EventIndex forSegment(File segment, FileChannel channel) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(EventRecord.RECORD_SIZE);
+		while (header.hasRemaining()) {
+			if (channel.read(header, header.position()) < 0)
+				throw new IOException("Not a segment of an event log: " + segment);
+		}
+		if (header.getInt(0) != EventRecord.MAGIC || !EventRecord.isReadableVersion(header.getShort(4)))
+			throw new IOException("Not a segment of an event log: " + segment);
+		long end = header.getLong(EventRecord.END_OFFSET_POSITION);
+		if (end < EventRecord.RECORD_SIZE || end > channel.size())
+			throw new IOException("Damaged end of data in " + segment);
+
+		File f = indexFile(segment);
+		if (f.isFile()) {
+			try {
+				EventIndex index = load(f);
+				if (index.end == end)
+					return index;
+			} catch (IOException e) {
+				// damaged or from another version. Build it again below
+			}
+		}
+		ByteBuffer data = ByteBuffer.allocate((int) end);
+		while (data.hasRemaining()) {
+			if (channel.read(data, data.position()) < 0)
+				throw new IOException("Segment is shorter than its end of data: " + segment);
+		}
+		EventIndex index = scan(data, (int) end);
+		try {
+			index.save(f);
+		} catch (IOException e) {
+			System.out.println("trouble saving event index " + f);
+		}
+		return index;
+	}
+
+	private static void writeBits(DataOutputStream out, BitSet set) throws IOException {
+		long[] words = set.toLongArray();
+		out.writeInt(words.length);
+		for (long word : words)
+			out.writeLong(word);
+	}
+
+	private static BitSet readBits(DataInputStream in) throws IOException {
+		long[] words = new long[in.readInt()];
+		for (int i = 0; i < words.length; i++)
+			words[i] = in.readLong();
+		return BitSet.valueOf(words);
+	}
+}
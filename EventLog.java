@@ -1,51 +1,189 @@
 package ca.ucalgary.seng300.a2;
 
-import java.io.FileNotFoundException;
-import java.io.PrintWriter;
-import java.io.UnsupportedEncodingException;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The text event log, WorkLog.txt. Once warmed up, writing a record creates no objects: the time stamp
+ * is cached per second, typed events are formatted from their template into a reused line buffer and
+ * the line is encoded to UTF-8 into a reused byte buffer.
+ */
 public class EventLog implements EventLogInterface {
-	
-	
-	private PrintWriter writer;
-	
-		
+
+
+	private OutputStream out;
+	private FileOutputStream file;
+	private final boolean[] disabledKinds = new boolean[HardwareKind.values().length];
+
+	// reused for every record
+	private final CachedTimestamp timestamp = new CachedTimestamp();
+	private final StringBuilder line = new StringBuilder(256);
+	private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+			.onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+	private char[] chars = new char[256];
+	private CharBuffer charBuffer = CharBuffer.wrap(chars);
+	private final byte[] bytes = new byte[1024];
+	private final ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
+	private final String newLine = System.lineSeparator();
+
+
 	/**
-	* Constructor creates an event log file and writes base contents. 
+	* Constructor creates an event log file and writes base contents.
 	* File name is "WorkLog.txt", formatted in UTF-8
-	* TODO: I suggest that the constructor throws an error rather than catch it so that we dont 
+	* TODO: I suggest that the constructor throws an error rather than catch it so that we dont
 	* not write the event log in some case.
 	*/
 	public EventLog() {
+		this("WorkLog.txt");
+	}
+
+	/**
+	* Constructor creates an event log file with the given name and writes base contents, formatted in UTF-8
+	* @param String fileName, the file to write
+	*/
+	public EventLog(String fileName) {
 		try {
-			writer = new PrintWriter("WorkLog.txt", "UTF-8");
-			writer.println("DATE/TIME \t\t EVENT");
-		} catch (FileNotFoundException | UnsupportedEncodingException e) {
+			file = new FileOutputStream(fileName);
+			out = new BufferedOutputStream(file, 8192);
+			line.append("DATE/TIME \t\t EVENT").append(newLine);
+			writeLine();
+		} catch (IOException e) {
 			System.out.println("trouble creating WorkLog file");
 			e.printStackTrace();
-		}		
+		}
 	}
-	
+
 	/**
 	* Method writs a string to the log on a new line
 	* @param String s, the string to be written to the log
-	* !!TODO!! writer may not exist if the constructor throws an error
 	*/
 	public void writeToLog(String s){
-		timeStamp();
-		writer.println(s + "\n");		
+		writeToLog(s, System.currentTimeMillis());
+	}
+
+	/**
+	* Method writes a string to the log on a new line, stamped with the time the event happened
+	* @param String s, the string to be written to the log
+	* @param long timeMillis, when the event happened
+	*/
+	@Override
+	public synchronized void writeToLog(String s, long timeMillis){
+		if (out == null)
+			return;
+		timeStamp(timeMillis);
+		line.append(s);
+		endRecord();
+	}
+
+	/**
+	* Method writes a typed event as the line its template describes, without building a String
+	*/
+	@Override
+	public synchronized void writeEvent(EventCode code, HardwareKind kind, int hardwareIndex, int value, long timeNanos) {
+		if (out == null || disabledKinds[kind.ordinal()])
+			return;
+		timeStamp(timeNanos / 1000000L);
+		code.appendTo(line, hardwareIndex, value);
+		endRecord();
+	}
+
+	/**
+	* Method starts a record with a time stamp line in the format yyyy/MM/dd HH:mm:ss
+	* @param long timeMillis, the time to write
+	*/
+	private void timeStamp(long timeMillis) {
+		line.setLength(0);
+		timestamp.appendTo(timeMillis, line);
+		line.append("\t\t").append(newLine);
+	}
+
+	private void endRecord() {
+		line.append('\n').append(newLine);
+		try {
+			writeLine();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
 	}
-	
+
 	/**
-	* Method writes a time stamp in the format yyyy/MM/dd HH:mm:ss to the work log.
-	* !!TODO!! writer may not exist if the constructor throws an error
+	* Method encodes the line buffer to UTF-8 and writes it
 	*/
-	private void timeStamp() {
-		DateFormat df = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss");
-		Date date = new Date();
-		writer.println(df.format(date) + "\t\t");
+	private void writeLine() throws IOException {
+		int length = line.length();
+		if (length > chars.length) {
+			chars = new char[Math.max(length, chars.length * 2)];
+			charBuffer = CharBuffer.wrap(chars);
+		}
+		line.getChars(0, length, chars, 0);
+		charBuffer.clear();
+		charBuffer.limit(length);
+		encoder.reset();
+		CoderResult result;
+		do {
+			byteBuffer.clear();
+			result = encoder.encode(charBuffer, byteBuffer, true);
+			if (!result.isOverflow())
+				result = encoder.flush(byteBuffer);
+			out.write(bytes, 0, byteBuffer.position());
+		} while (result.isOverflow());
 	}
-	
+
+	/**
+	* Method checks whether records from a kind of hardware are written. Callers can use it
+	* to skip working out the arguments of a record that would not be written.
+	* @param HardwareKind kind, the category of the record
+	* @return true if records of that kind are written
+	*/
+	@Override
+	public boolean isEnabled(HardwareKind kind) {
+		return !disabledKinds[kind.ordinal()];
+	}
+
+	/**
+	* Method turns the records from a kind of hardware on or off
+	* @param HardwareKind kind, the category of the record
+	* @param boolean enabled, false to stop writing them
+	*/
+	public void setEnabled(HardwareKind kind, boolean enabled) {
+		disabledKinds[kind.ordinal()] = !enabled;
+	}
+
+	/**
+	* Method writes out anything buffered and syncs the file to the disk
+	*/
+	@Override
+	public synchronized void flush() {
+		if (out == null)
+			return;
+		try {
+			out.flush();
+			file.getFD().sync();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	* Method writes out anything buffered and closes the file
+	*/
+	public synchronized void close() {
+		if (out == null)
+			return;
+		try {
+			out.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		out = null;
+	}
+
 }
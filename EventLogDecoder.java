@@ -0,0 +1,62 @@
+package ca.ucalgary.seng300.a2;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+
+/**
+ * Tool that prints a binary event log in the same layout EventLog uses for WorkLog.txt.
+ * Works on streamed logs (WorkLog.bin) and on the segments written by SegmentedEventLog.
+ * <p>
+ * Usage: java ca.ucalgary.seng300.a2.EventLogDecoder [WorkLog.bin | WorkLog-000001.seg ...]
+ */
+public class EventLogDecoder {
+
+	/**
+	* Method prints the binary logs named on the command line (WorkLog.bin by default) to standard output
+	* @param args, the binary log files, in order
+	*/
+	public static void main(String[] args) throws IOException {
+		String[] fileNames = args.length > 0 ? args : new String[] {"WorkLog.bin"};
+		Writer out = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+		for (String fileName : fileNames) {
+			try (InputStream in = new FileInputStream(fileName)) {
+				decode(in, out);
+			}
+		}
+	}
+
+	/**
+	* Method decodes a whole binary log into text
+	* @param InputStream in, the binary log
+	* @param Writer out, receives the WorkLog.txt text. It is flushed but not closed
+	* @return the number of records decoded
+	* @throws IOException if the log cannot be read or is not a binary event log
+	*/
+	public static int decode(InputStream in, Writer out) throws IOException {
+		DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+		long end = EventRecord.readHeader(data);
+		long offset = EventRecord.RECORD_SIZE;
+
+		PrintWriter writer = new PrintWriter(out);
+		writer.println("DATE/TIME \t\t EVENT");
+		DateFormat df = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss");
+		EventRecord record = new EventRecord();
+		int count = 0;
+		while ((end == 0 || offset < end) && record.readFrom(data)) {
+			writer.print(record.toLogText(df));
+			offset += record.getEncodedSize();
+			count++;
+		}
+		writer.flush();
+		return count;
+	}
+}
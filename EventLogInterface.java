@@ -1,4 +1,7 @@
 package ca.ucalgary.seng300.a2;
+
+import java.util.function.Supplier;
+
 /**
  *For Testing
  */
@@ -6,4 +9,98 @@ public interface EventLogInterface {
 
 	public void writeToLog(String s);
 	
+	/**
+	 * Writes a string to the log for an event that happened at an earlier time.
+	 * Used by logs that write records on another thread, such as AsyncEventLog.
+	 * @param s the string to be written to the log
+	 * @param timeMillis when the event happened
+	 */
+	public default void writeToLog(String s, long timeMillis) {
+		writeToLog(s);
+	}
+	
+	/**
+	 * Writes a typed event to the log. Logs that only store text write the line the
+	 * listener devices used to build by hand (see EventCode).
+	 * @param code what happened
+	 * @param kind the kind of hardware it happened on
+	 * @param hardwareIndex the index of that hardware in the vending machine, or -1 if it has none
+	 * @param value the cents or count of the event
+	 */
+	public default void writeEvent(EventCode code, HardwareKind kind, int hardwareIndex, int value) {
+		writeEvent(code, kind, hardwareIndex, value, EventRecord.currentTimeNanos());
+	}
+	
+	/**
+	 * Writes a typed event that happened at an earlier time.
+	 * @param code what happened
+	 * @param kind the kind of hardware it happened on
+	 * @param hardwareIndex the index of that hardware in the vending machine, or -1 if it has none
+	 * @param value the cents or count of the event
+	 * @param timeNanos when the event happened, in nanoseconds since the epoch
+	 */
+	public default void writeEvent(EventCode code, HardwareKind kind, int hardwareIndex, int value, long timeNanos) {
+		writeToLog(code.format(hardwareIndex, value), timeNanos / 1000000L);
+	}
+	
+	/**
+	 * Writes a typed event for one of several machines sharing the log (see EventLogMultiplexer).
+	 * Logs that do not keep machine ids write it like any other event.
+	 * @param machineId the machine the event happened on, 0 for a log with only one machine
+	 * @param sequence the number of the record among those of its machine, counting from 0, or -1 if not numbered
+	 * @param code what happened
+	 * @param kind the kind of hardware it happened on
+	 * @param hardwareIndex the index of that hardware in the vending machine, or -1 if it has none
+	 * @param value the cents or count of the event
+	 * @param timeNanos when the event happened, in nanoseconds since the epoch
+	 */
+	public default void writeEvent(int machineId, long sequence, EventCode code, HardwareKind kind, int hardwareIndex, int value, long timeNanos) {
+		writeEvent(code, kind, hardwareIndex, value, timeNanos);
+	}
+	
+	/**
+	 * Writes a string for one of several machines sharing the log.
+	 * Logs that do not keep machine ids write it like any other string.
+	 * @param machineId the machine the event happened on, 0 for a log with only one machine
+	 * @param sequence the number of the record among those of its machine, counting from 0, or -1 if not numbered
+	 * @param s the string to be written to the log
+	 * @param timeMillis when the event happened
+	 */
+	public default void writeToLog(int machineId, long sequence, String s, long timeMillis) {
+		writeToLog(s, timeMillis);
+	}
+	
+	/**
+	 * Checks whether records about a kind of hardware are written at all, so that callers can
+	 * skip working out the arguments of records that would be thrown away. True by default.
+	 * @param kind the category of the record
+	 * @return true if records of that kind are written
+	 */
+	public default boolean isEnabled(HardwareKind kind) {
+		return true;
+	}
+	
+	/**
+	 * Writes a string that is only built if records of its kind are written.
+	 * @param kind the category of the record
+	 * @param message builds the string to be written to the log
+	 */
+	public default void writeToLog(HardwareKind kind, Supplier<String> message) {
+		if (isEnabled(kind))
+			writeToLog(message.get());
+	}
+	
+	/**
+	 * Marks the end of a transaction, such as a purchase and its change. Logs using
+	 * Durability.GROUP_COMMIT make every record written so far durable. Does nothing by default.
+	 */
+	public default void commit() {
+	}
+	
+	/**
+	 * Makes every record written so far durable, however the log is configured. Does nothing by default.
+	 */
+	public default void flush() {
+	}
+	
 }
@@ -0,0 +1,216 @@
+package ca.ucalgary.seng300.a2;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One event log shared by every machine in the process.
+ * <p>
+ * Each machine writes through its own MachineEventLog handle, which only holds the machine id and the number of the
+ * next record. All handles queue their records on one AsyncEventLog, so however many machines there are, there is
+ * one writer thread and one set of log files. Records keep the id of their machine (see EventRecord), so the
+ * records of one machine can be picked out with EventQuery.machine() or replayed on their own.
+ * <p>
+ * The handles number the records of each machine. The writer thread checks the numbers, and when records of a
+ * machine were dropped on the way, because the ring buffer was full, it writes a RECORDS_DROPPED record for that
+ * machine saying how many.
+ */
+public class EventLogMultiplexer {
+
+	private static EventLogMultiplexer defaultMultiplexer;
+
+	private final AsyncEventLog writer;
+	private final SequenceCheck check;
+	private final ConcurrentHashMap<Integer, MachineEventLog> machines = new ConcurrentHashMap<Integer, MachineEventLog>();
+	private final AtomicInteger nextMachineId = new AtomicInteger(1);
+
+	/**
+	* Constructor creates a multiplexer that blocks machines when the writer thread falls behind
+	* @param EventLogInterface log, where the records of every machine are stored
+	*/
+	public EventLogMultiplexer(EventLogInterface log) {
+		this(log, AsyncEventLog.DEFAULT_CAPACITY, AsyncEventLog.BackpressurePolicy.BLOCK);
+	}
+
+	/**
+	* Constructor creates a multiplexer and starts its writer thread
+	* @param EventLogInterface log, where the records of every machine are stored
+	* @param int capacity, the number of records queued for the writer thread, shared by all machines
+	* @param BackpressurePolicy policy, what a machine does when the queue is full
+	*/
+	public EventLogMultiplexer(EventLogInterface log, int capacity, AsyncEventLog.BackpressurePolicy policy) {
+		check = new SequenceCheck(log);
+		writer = new AsyncEventLog(check, capacity, policy, AsyncEventLog.DEFAULT_SAMPLE_RATE);
+	}
+
+	/**
+	* Method gives the log the machines of this process share. It is created on first use, in the working
+	* directory, with the rotation, archiving, display limits and group commit a machine in service uses.
+	* <p>
+	* Under group commit, commit() only queues a marker and returns before the records are on the disk. So that a
+	* purchase committed just before the process exits is not lost, a shutdown hook closes the shared multiplexer:
+	* the writer thread writes and flushes everything queued, the outstanding display summaries are written, and
+	* the segments already closed are archived. A process killed without running its shutdown hooks can still lose
+	* the records of the last flush period.
+	* @return the shared multiplexer
+	*/
+	public static synchronized EventLogMultiplexer getDefault() {
+		if (defaultMultiplexer == null) {
+			SegmentedEventLog segments = new SegmentedEventLog();
+			SegmentArchiver archiver = new SegmentArchiver();
+			segments.setArchiver(archiver);		// closed segments are compressed in the background
+			RateLimitingEventLog limited = new RateLimitingEventLog(segments);
+			limited.configure(HardwareKind.DISPLAY, RateLimitingEventLog.DEFAULT_WINDOW_MILLIS, RateLimitingEventLog.UNLIMITED, true);	// the welcome cycle becomes a summary
+			EventLogMultiplexer multiplexer = new EventLogMultiplexer(limited);
+			multiplexer.setDurability(Durability.GROUP_COMMIT, AsyncEventLog.DEFAULT_FLUSH_PERIOD_MILLIS);	// one sync per purchase
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				multiplexer.close();
+				limited.close();		// after the writer thread has stopped, so nothing else writes to the segments
+				archiver.close();
+			}, "event-log-shutdown"));
+			defaultMultiplexer = multiplexer;
+		}
+		return defaultMultiplexer;
+	}
+
+	/**
+	* Method gives a new machine its own handle, with an id no other handle of this multiplexer has
+	* @return the handle
+	*/
+	public MachineEventLog newMachine() {
+		while (true) {
+			int id = nextMachineId.getAndIncrement();
+			MachineEventLog log = new MachineEventLog(writer, id);
+			if (machines.putIfAbsent(id, log) == null)
+				return log;
+		}
+	}
+
+	/**
+	* Method gives the handle of a machine with a known id, such as one restarted with the id it had before.
+	* Asking twice gives the same handle, so the records of the machine stay numbered in order.
+	* @param int machineId, a positive id
+	* @return the handle
+	*/
+	public MachineEventLog machine(int machineId) {
+		if (machineId <= 0)
+			throw new IllegalArgumentException("Machine ids must be positive");
+		return machines.computeIfAbsent(machineId, id -> new MachineEventLog(writer, id));
+	}
+
+	/**
+	* @return the number of machines with a handle
+	*/
+	public int getMachineCount() {
+		return machines.size();
+	}
+
+	/**
+	* Method sets how hard the writer thread tries to get records onto the disk
+	*/
+	public void setDurability(Durability durability, long flushPeriodMillis) {
+		writer.setDurability(durability, flushPeriodMillis);
+	}
+
+	/**
+	* @return the queue all machines write to, for its counters
+	*/
+	public AsyncEventLog getWriter() {
+		return writer;
+	}
+
+	/**
+	* @return the number of records found missing by their numbers
+	*/
+	public long getMissingCount() {
+		return check.missing;
+	}
+
+	/**
+	* Method writes and flushes everything queued, then stops the writer thread
+	*/
+	public void close() {
+		writer.close();
+	}
+
+	/**
+	 * Runs on the writer thread. Checks the numbers of the records of each machine before they are stored
+	 */
+	private static class SequenceCheck implements EventLogInterface {
+		private final EventLogInterface log;
+		private static final int DENSE_IDS = 4096;		// ids below this are kept in an array, as newMachine() hands them out
+		private long[] expected = new long[64];		// the number of the next record of each machine
+		private final Map<Integer, long[]> sparse = new HashMap<Integer, long[]>();	// the same, for larger ids given to machine()
+		private volatile long missing;
+
+		SequenceCheck(EventLogInterface log) {
+			this.log = log;
+		}
+
+		private void check(int machineId, long sequence, long timeNanos) {
+			if (machineId <= 0 || sequence < 0)
+				return;
+			long[] next = expected;
+			int slot = machineId;
+			if (machineId >= DENSE_IDS) {
+				next = sparse.computeIfAbsent(machineId, id -> new long[1]);
+				slot = 0;
+			}
+			else if (machineId >= expected.length) {
+				expected = Arrays.copyOf(expected, Math.min(DENSE_IDS, Math.max(machineId + 1, expected.length * 2)));
+				next = expected;
+			}
+			long gap = sequence - next[slot];
+			if (gap > 0) {
+				missing += gap;
+				log.writeEvent(machineId, -1, EventCode.RECORDS_DROPPED, HardwareKind.UNKNOWN, -1, (int) Math.min(gap, Integer.MAX_VALUE), timeNanos);
+			}
+			next[slot] = Math.max(next[slot], sequence + 1);
+		}
+
+		@Override
+		public void writeToLog(String s) {
+			log.writeToLog(s);
+		}
+
+		@Override
+		public void writeToLog(String s, long timeMillis) {
+			log.writeToLog(s, timeMillis);
+		}
+
+		@Override
+		public void writeToLog(int machineId, long sequence, String s, long timeMillis) {
+			check(machineId, sequence, timeMillis * 1000000L);
+			log.writeToLog(machineId, sequence, s, timeMillis);
+		}
+
+		@Override
+		public void writeEvent(EventCode code, HardwareKind kind, int hardwareIndex, int value, long timeNanos) {
+			log.writeEvent(code, kind, hardwareIndex, value, timeNanos);
+		}
+
+		@Override
+		public void writeEvent(int machineId, long sequence, EventCode code, HardwareKind kind, int hardwareIndex, int value, long timeNanos) {
+			check(machineId, sequence, timeNanos);
+			log.writeEvent(machineId, sequence, code, kind, hardwareIndex, value, timeNanos);
+		}
+
+		@Override
+		public boolean isEnabled(HardwareKind kind) {
+			return log.isEnabled(kind);
+		}
+
+		@Override
+		public void commit() {
+			log.commit();
+		}
+
+		@Override
+		public void flush() {
+			log.flush();
+		}
+	}
+}
@@ -0,0 +1,133 @@
+package ca.ucalgary.seng300.a2;
+
+import java.util.EnumSet;
+
+/**
+ * The records wanted from a segmented event log: a time range, the kinds of event and the piece of hardware.
+ * Anything left unset matches every record, so "what happened to pop can rack #3 between 14:00 and 14:05" is
+ * <pre>
+ * new EventQuery().between(from, to).hardware(HardwareKind.POP_CAN_RACK, 3)
+ * </pre>
+ */
+public class EventQuery {
+
+	public static final int ANY_INDEX = Integer.MIN_VALUE;
+	public static final int ANY_MACHINE = -1;
+
+	private long fromNanos = Long.MIN_VALUE;
+	private long toNanos = Long.MAX_VALUE;
+	private EnumSet<EventCode> codes;
+	private HardwareKind kind;
+	private int hardwareIndex = ANY_INDEX;
+	private int machineId = ANY_MACHINE;
+
+	/**
+	* Method limits the query to a time range
+	* @param long fromMillis, the earliest time wanted, in milliseconds since the epoch
+	* @param long toMillis, the time just after the last one wanted
+	* @return this query
+	*/
+	public EventQuery between(long fromMillis, long toMillis) {
+		return betweenNanos(fromMillis * 1000000L, toMillis * 1000000L);
+	}
+
+	/**
+	* Method limits the query to a time range, in nanoseconds since the epoch as stored in event records
+	* @return this query
+	*/
+	public EventQuery betweenNanos(long fromNanos, long toNanos) {
+		this.fromNanos = fromNanos;
+		this.toNanos = toNanos;
+		return this;
+	}
+
+	/**
+	* Method limits the query to some kinds of event. Called more than once, it matches any of them
+	* @param EventCode... codes, the events wanted
+	* @return this query
+	*/
+	public EventQuery events(EventCode... codes) {
+		if (this.codes == null)
+			this.codes = EnumSet.noneOf(EventCode.class);
+		for (EventCode code : codes)
+			this.codes.add(code);
+		return this;
+	}
+
+	/**
+	* Method limits the query to one kind of hardware
+	* @param HardwareKind kind, the hardware wanted
+	* @return this query
+	*/
+	public EventQuery hardware(HardwareKind kind) {
+		return hardware(kind, ANY_INDEX);
+	}
+
+	/**
+	* Method limits the query to one piece of hardware, such as one rack or button
+	* @param HardwareKind kind, the hardware wanted
+	* @param int hardwareIndex, its index, or ANY_INDEX for all of that kind
+	* @return this query
+	*/
+	public EventQuery hardware(HardwareKind kind, int hardwareIndex) {
+		this.kind = kind;
+		this.hardwareIndex = hardwareIndex;
+		return this;
+	}
+
+	/**
+	* Method limits the query to one of the machines sharing a log
+	* @param int machineId, the machine wanted, or ANY_MACHINE
+	* @return this query
+	*/
+	public EventQuery machine(int machineId) {
+		this.machineId = machineId;
+		return this;
+	}
+
+	public long getFromNanos() {
+		return fromNanos;
+	}
+
+	public long getToNanos() {
+		return toNanos;
+	}
+
+	/**
+	* @return the events wanted, or null for all of them
+	*/
+	public EnumSet<EventCode> getEvents() {
+		return codes;
+	}
+
+	/**
+	* @return the hardware wanted, or null for all of it
+	*/
+	public HardwareKind getKind() {
+		return kind;
+	}
+
+	public int getHardwareIndex() {
+		return hardwareIndex;
+	}
+
+	public int getMachineId() {
+		return machineId;
+	}
+
+	/**
+	* Method checks one record against the query
+	* @return true if the record is wanted
+	*/
+	public boolean matches(long timeNanos, EventCode code, HardwareKind kind, int hardwareIndex, int machineId) {
+		if (timeNanos < fromNanos || timeNanos >= toNanos)
+			return false;
+		if (this.machineId != ANY_MACHINE && this.machineId != machineId)
+			return false;
+		if (codes != null && (code == null || !codes.contains(code)))
+			return false;
+		if (this.kind != null && this.kind != kind)
+			return false;
+		return this.hardwareIndex == ANY_INDEX || this.hardwareIndex == hardwareIndex;
+	}
+}
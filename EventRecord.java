@@ -0,0 +1,234 @@
+package ca.ucalgary.seng300.a2;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.DateFormat;
+import java.util.Date;
+
+/**
+ * One typed event read back from a binary event log, plus the fixed-width encoding used to write it.
+ * <p>
+ * A binary log starts with one header slot and is followed by record slots, all RECORD_SIZE bytes, big-endian:
+ * <pre>
+ * header: int magic | short version | short record size | long creation time (ns) | long end of data
+ * record: long time (ns since the epoch) | short event code | short hardware kind | int hardware index | int value | int machine id
+ * </pre>
+ * The machine id tells apart the machines sharing one log (see EventLogMultiplexer). It was added in version 2;
+ * version 1 logs hold 0 there and are read as machine 0, a log with only one machine.
+ * A TEXT record carries free text. Its value is the length of the UTF-8 text, which follows it
+ * in as many whole slots as it needs, zero padded, so every record still starts on a slot boundary.
+ * <p>
+ * The end of data is the byte offset just past the last record, for files that are allocated before
+ * they are written (see SegmentedEventLog). It is 0 in streamed logs, which simply end after the last record.
+ */
+public class EventRecord {
+
+	public static final int RECORD_SIZE = 24;
+	public static final int MAGIC = 0x564C4F47;		// "VLOG"
+	public static final short VERSION = 2;
+	public static final int END_OFFSET_POSITION = 16;	// where the header keeps the end of data
+
+	// wall clock time is only read once; afterwards the time of an event is worked out from System.nanoTime()
+	private static final long WALL_BASE_NANOS = System.currentTimeMillis() * 1000000L;
+	private static final long NANO_BASE = System.nanoTime();
+
+	private long timeNanos;
+	private EventCode code;
+	private HardwareKind kind;
+	private int hardwareIndex;
+	private int value;
+	private int machineId;
+	private String text;
+
+	/**
+	* @return the current time in nanoseconds since the epoch, as stored in event records
+	*/
+	public static long currentTimeNanos() {
+		return WALL_BASE_NANOS + (System.nanoTime() - NANO_BASE);
+	}
+
+	/**
+	* Method writes the header slot of a binary log
+	* @param ByteBuffer buffer, receives RECORD_SIZE bytes
+	* @param long createdNanos, when the log was created
+	* @param long endOffset, the end of data, or 0 if the log simply ends after its last record
+	*/
+	public static void encodeHeader(ByteBuffer buffer, long createdNanos, long endOffset) {
+		buffer.putInt(MAGIC);
+		buffer.putShort(VERSION);
+		buffer.putShort((short) RECORD_SIZE);
+		buffer.putLong(createdNanos);
+		buffer.putLong(endOffset);
+	}
+
+	/**
+	* Method writes one record slot
+	* @param ByteBuffer buffer, receives RECORD_SIZE bytes
+	*/
+	public static void encode(ByteBuffer buffer, long timeNanos, EventCode code, HardwareKind kind, int hardwareIndex, int value) {
+		encode(buffer, timeNanos, code, kind, hardwareIndex, value, 0);
+	}
+
+	/**
+	* Method writes one record slot for one of the machines sharing a log
+	* @param ByteBuffer buffer, receives RECORD_SIZE bytes
+	* @param int machineId, the machine the event happened on
+	*/
+	public static void encode(ByteBuffer buffer, long timeNanos, EventCode code, HardwareKind kind, int hardwareIndex, int value, int machineId) {
+		buffer.putLong(timeNanos);
+		buffer.putShort((short) code.getCode());
+		buffer.putShort((short) kind.getId());
+		buffer.putInt(hardwareIndex);
+		buffer.putInt(value);
+		buffer.putInt(machineId);
+	}
+
+	/**
+	* @return true if logs with the version in their header can be read
+	*/
+	public static boolean isReadableVersion(int version) {
+		return version == 1 || version == VERSION;
+	}
+
+	/**
+	* Method works out how many slots a text record takes, including its own slot
+	* @param int textLength, the number of UTF-8 bytes of text
+	* @return the number of slots
+	*/
+	public static int slotsForText(int textLength) {
+		return 1 + (textLength + RECORD_SIZE - 1) / RECORD_SIZE;
+	}
+
+	/**
+	* Method reads the header slot of a binary log and checks that it is one
+	* @param DataInputStream in, positioned at the start of the log
+	* @return the end of data, or 0 if the log ends after its last record
+	* @throws IOException if the stream is not a binary event log this version can read
+	*/
+	public static long readHeader(DataInputStream in) throws IOException {
+		if (in.readInt() != MAGIC)
+			throw new IOException("Not a binary event log");
+		short version = in.readShort();
+		short recordSize = in.readShort();
+		if (!isReadableVersion(version) || recordSize != RECORD_SIZE)
+			throw new IOException("Unsupported event log version " + version);
+		in.readLong();
+		return in.readLong();
+	}
+
+	/**
+	* Method reads the next record, and its text if it has any
+	* @param DataInputStream in, positioned at a slot boundary
+	* @return false if the end of the log was reached
+	*/
+	public boolean readFrom(DataInputStream in) throws IOException {
+		try {
+			timeNanos = in.readLong();
+		} catch (EOFException e) {
+			return false;
+		}
+		code = EventCode.fromCode(in.readShort());
+		kind = HardwareKind.fromId(in.readShort());
+		hardwareIndex = in.readInt();
+		value = in.readInt();
+		machineId = in.readInt();
+		text = null;
+		if (code == EventCode.TEXT) {
+			byte[] bytes = new byte[(slotsForText(value) - 1) * RECORD_SIZE];
+			in.readFully(bytes);
+			text = new String(bytes, 0, value, StandardCharsets.UTF_8);
+		}
+		return true;
+	}
+
+	/**
+	* Method reads the next record, and its text if it has any
+	* @param ByteBuffer buffer, positioned at a slot boundary, with at least the whole record remaining
+	*/
+	public void readFrom(ByteBuffer buffer) {
+		timeNanos = buffer.getLong();
+		code = EventCode.fromCode(buffer.getShort());
+		kind = HardwareKind.fromId(buffer.getShort());
+		hardwareIndex = buffer.getInt();
+		value = buffer.getInt();
+		machineId = buffer.getInt();
+		text = null;
+		if (code == EventCode.TEXT) {
+			byte[] bytes = new byte[value];
+			buffer.get(bytes);
+			text = new String(bytes, StandardCharsets.UTF_8);
+			buffer.position(buffer.position() + (slotsForText(value) - 1) * RECORD_SIZE - value);
+		}
+	}
+
+	/**
+	* @return the number of bytes the last record read took up, including its text
+	*/
+	public int getEncodedSize() {
+		if (code == EventCode.TEXT)
+			return slotsForText(value) * RECORD_SIZE;
+		return RECORD_SIZE;
+	}
+
+	public long getTimeNanos() {
+		return timeNanos;
+	}
+
+	/**
+	* @return the time of the event in milliseconds since the epoch
+	*/
+	public long getTimeMillis() {
+		return timeNanos / 1000000L;
+	}
+
+	/**
+	* @return the event code, or null if the record was written by a newer version
+	*/
+	public EventCode getCode() {
+		return code;
+	}
+
+	public HardwareKind getKind() {
+		return kind;
+	}
+
+	public int getHardwareIndex() {
+		return hardwareIndex;
+	}
+
+	public int getValue() {
+		return value;
+	}
+
+	/**
+	* @return the machine the event happened on, or 0 if the log has only one machine
+	*/
+	public int getMachineId() {
+		return machineId;
+	}
+
+	/**
+	* @return the text of the event, as it would have been written to WorkLog.txt
+	*/
+	public String getMessage() {
+		if (code == null)
+			return "Unknown event";
+		if (code == EventCode.TEXT)
+			return text;
+		return code.format(hardwareIndex, value);
+	}
+
+	/**
+	* Method gives the record in the layout of WorkLog.txt: a time stamp line, then the event and a blank line
+	* @param DateFormat df, formats the time stamp, normally yyyy/MM/dd HH:mm:ss
+	* @return the text of the record
+	*/
+	public String toLogText(DateFormat df) {
+		String newLine = System.lineSeparator();
+		String machine = machineId == 0 ? "" : "Machine #" + machineId + ": ";
+		return df.format(new Date(getTimeMillis())) + "\t\t" + newLine + machine + getMessage() + "\n" + newLine;
+	}
+}
@@ -0,0 +1,229 @@
+package ca.ucalgary.seng300.a2;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * Replays recorded binary event logs into a ReplayTarget: a MachineStateModel, or a VendingLogicReplay
+ * that drives a real VendingMachine and VendingLogic.
+ * <p>
+ * Each log file is read in one go and its records are decoded straight out of the buffer. Only TEXT records create an object, so a
+ * log is replayed as fast as it can be read. Replay stops at the first record at or after the time asked
+ * for, which gives the state of the machine at that time. Logs of several machines are replayed in
+ * parallel, one fork-join task per machine. When machines share a log (see EventLogMultiplexer), the records of one
+ * machine are replayed by giving its id; records of the others are skipped. The methods that take no id replay
+ * the records of every machine into the one target, which only makes sense for a log of a single machine.
+ */
+public class EventReplayer {
+
+	public static final long END_OF_LOG = Long.MAX_VALUE;
+	public static final int ANY_MACHINE = EventQuery.ANY_MACHINE;
+
+	/**
+	* Method replays a whole log held in a buffer, from its header
+	* @param ByteBuffer log, a streamed log or a segment. Its position is not changed
+	* @param ReplayTarget target, receives the records
+	* @param long untilNanos, the time to stop at, or END_OF_LOG
+	* @return the number of records replayed
+	* @throws IOException if the buffer does not hold a binary event log
+	*/
+	public static long replay(ByteBuffer log, ReplayTarget target, long untilNanos) throws IOException {
+		return replay(log, ANY_MACHINE, target, untilNanos);
+	}
+
+	private static long replay(ByteBuffer log, int machineId, ReplayTarget target, long untilNanos) throws IOException {
+		ByteBuffer data = log.duplicate();
+		if (data.remaining() < EventRecord.RECORD_SIZE || data.getInt(0) != EventRecord.MAGIC
+				|| !EventRecord.isReadableVersion(data.getShort(4)) || data.getShort(6) != EventRecord.RECORD_SIZE)
+			throw new IOException("Not a binary event log");
+		long end = data.getLong(EventRecord.END_OFFSET_POSITION);
+		if (end != 0) {
+			if (end < EventRecord.RECORD_SIZE || end > data.limit())
+				throw new IOException("Damaged end of data in event log");
+			data.limit((int) end);
+		}
+		data.position(EventRecord.RECORD_SIZE);
+		return replayRecords(data, machineId, target, untilNanos);
+	}
+
+	/**
+	* Method replays the records from the position of a buffer to its limit
+	* @return the number of records replayed
+	*/
+	private static long replayRecords(ByteBuffer data, int machineId, ReplayTarget target, long untilNanos) throws IOException {
+		long count = 0;
+		while (data.remaining() >= EventRecord.RECORD_SIZE) {
+			long timeNanos = data.getLong();
+			if (timeNanos >= untilNanos)
+				break;
+			EventCode code = EventCode.fromCode(data.getShort());
+			HardwareKind kind = HardwareKind.fromId(data.getShort());
+			int hardwareIndex = data.getInt();
+			int value = data.getInt();
+			int machine = data.getInt();
+			String text = null;
+			if (code == EventCode.TEXT) {
+				int padded = (EventRecord.slotsForText(value) - 1) * EventRecord.RECORD_SIZE;
+				if (value < 0 || padded > data.remaining())
+					throw new IOException("Damaged text record in event log");
+				byte[] bytes = new byte[value];
+				data.get(bytes);
+				text = new String(bytes, StandardCharsets.UTF_8);
+				data.position(data.position() + padded - value);
+			}
+			if (code != null && (machineId == ANY_MACHINE || machine == machineId)) {
+				target.apply(timeNanos, code, kind, hardwareIndex, value, text);
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	* Method replays one log file: a streamed log such as WorkLog.bin, or one segment
+	* @return the number of records replayed
+	*/
+	public static long replay(File log, ReplayTarget target, long untilNanos) throws IOException {
+		return replay(log, ANY_MACHINE, target, untilNanos);
+	}
+
+	private static long replay(File log, int machineId, ReplayTarget target, long untilNanos) throws IOException {
+		try (RandomAccessFile in = new RandomAccessFile(log, "r")) {
+			ByteBuffer data = ByteBuffer.allocate((int) in.length());
+			FileChannel channel = in.getChannel();
+			while (data.hasRemaining()) {
+				if (channel.read(data) < 0)
+					break;
+			}
+			data.flip();
+			return replay(data, machineId, target, untilNanos);
+		}
+	}
+
+	/**
+	* Method replays an archived segment, inflating only the blocks that start before the time to stop at
+	* @return the number of records replayed
+	*/
+	public static long replay(SegmentArchive archive, ReplayTarget target, long untilNanos) throws IOException {
+		return replay(archive, ANY_MACHINE, target, untilNanos);
+	}
+
+	private static long replay(SegmentArchive archive, int machineId, ReplayTarget target, long untilNanos) throws IOException {
+		long count = 0;
+		for (int b = 0; b < archive.getBlockCount() && archive.getMinTime(b) < untilNanos; b++)
+			count += replayRecords(archive.readBlock(b), machineId, target, untilNanos);
+		return count;
+	}
+
+	/**
+	* Method replays all the segments of a segmented log, archived or not, oldest first. The records of every
+	* machine go to the one target, so for a log that several machines share use the method that takes an id
+	* @param File directory, where the segments are kept
+	* @param String baseName, the start of each segment file name
+	* @return the number of records replayed
+	*/
+	public static long replaySegments(File directory, String baseName, ReplayTarget target, long untilNanos) throws IOException {
+		return replaySegments(directory, baseName, ANY_MACHINE, target, untilNanos);
+	}
+
+	/**
+	* Method replays the records of one machine from a segmented log that several machines share
+	* @param int machineId, the machine to replay, or ANY_MACHINE
+	* @return the number of records replayed
+	*/
+	public static long replaySegments(File directory, String baseName, int machineId, ReplayTarget target, long untilNanos) throws IOException {
+		long count = 0;
+		for (File segment : SegmentedEventLog.listLogFiles(directory, baseName)) {
+			if (segment.getName().endsWith(SegmentArchive.ARCHIVE_SUFFIX)) {
+				try (SegmentArchive archive = new SegmentArchive(segment)) {
+					count += replay(archive, machineId, target, untilNanos);
+				}
+			}
+			else
+				count += replay(segment, machineId, target, untilNanos);
+		}
+		return count;
+	}
+
+	/**
+	* Method replays the segmented logs of many machines in parallel, one fork-join task per machine
+	* @param List<File> directories, the log directory of each machine
+	* @param String baseName, the start of each segment file name
+	* @param Supplier<T> targets, makes a new target for each machine
+	* @param long untilNanos, the time to stop at, or END_OF_LOG
+	* @return the target of each machine, in the order of the directories
+	*/
+	public static <T extends ReplayTarget> List<T> replayMachines(List<File> directories, final String baseName,
+			final Supplier<T> targets, final long untilNanos) throws IOException {
+		final List<RecursiveTask<T>> tasks = new ArrayList<RecursiveTask<T>>();
+		for (final File directory : directories)
+			tasks.add(replayTask(directory, baseName, ANY_MACHINE, targets, untilNanos));
+		return runAll(tasks);
+	}
+
+	/**
+	* Method replays the machines that share one segmented log in parallel, one fork-join task per machine
+	* @param File directory, where the segments are kept
+	* @param String baseName, the start of each segment file name
+	* @param int[] machineIds, the machines to replay
+	* @param Supplier<T> targets, makes a new target for each machine
+	* @param long untilNanos, the time to stop at, or END_OF_LOG
+	* @return the target of each machine, in the order of the ids
+	*/
+	public static <T extends ReplayTarget> List<T> replayMachines(File directory, String baseName, int[] machineIds,
+			Supplier<T> targets, long untilNanos) throws IOException {
+		List<RecursiveTask<T>> tasks = new ArrayList<RecursiveTask<T>>();
+		for (int machineId : machineIds)
+			tasks.add(replayTask(directory, baseName, machineId, targets, untilNanos));
+		return runAll(tasks);
+	}
+
+	private static <T extends ReplayTarget> RecursiveTask<T> replayTask(final File directory, final String baseName, final int machineId,
+			final Supplier<T> targets, final long untilNanos) {
+		return new RecursiveTask<T>() {
+			@Override
+			protected T compute() {
+				T target = targets.get();
+				try {
+					replaySegments(directory, baseName, machineId, target, untilNanos);
+				} catch (IOException e) {
+					throw new UncheckedIOException(directory.toString(), e);
+				}
+				return target;
+			}
+		};
+	}
+
+	/**
+	* Method runs the replay tasks on the common fork-join pool
+	* @return the target of each task, in order
+	*/
+	private static <T extends ReplayTarget> List<T> runAll(final List<RecursiveTask<T>> tasks) throws IOException {
+		try {
+			ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+				@Override
+				protected void compute() {
+					invokeAll(tasks);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+
+		List<T> results = new ArrayList<T>();
+		for (RecursiveTask<T> task : tasks)
+			results.add(task.join());
+		return results;
+	}
+}
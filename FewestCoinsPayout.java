@@ -0,0 +1,21 @@
+package ca.ucalgary.seng300.a2;
+
+import java.util.Arrays;
+
+/**
+ * Pays change with as few coins as the racks allow, using the ChangeSolver shared by machines with the same coins.
+ */
+public class FewestCoinsPayout implements PayoutStrategy {
+
+	private volatile ChangeSolver solver;		// the solver of the denominations last asked about
+
+	@Override
+	public int[] payout(int amount, int[] denominations, int[] counts, int[] capacities) {
+		ChangeSolver solver = this.solver;
+		if (solver == null || !Arrays.equals(solver.getDenominations(), denominations)) {
+			solver = ChangeSolver.forDenominations(denominations);
+			this.solver = solver;
+		}
+		return solver.payout(amount, counts);
+	}
+}
@@ -0,0 +1,77 @@
+package ca.ucalgary.seng300.a2;
+
+import org.lsmr.vending.hardware.*;
+
+/**
+ * The kinds of vending machine hardware an event can come from.
+ * The id of each kind is what is stored in binary event records, so existing ids must never change.
+ */
+public enum HardwareKind {
+	UNKNOWN(0),
+	COIN_SLOT(1),
+	COIN_RECEPTACLE(2),
+	COIN_RACK(3),
+	COIN_RETURN(4),
+	DELIVERY_CHUTE(5),
+	POP_CAN_RACK(6),
+	DISPLAY(7),
+	INDICATOR_LIGHT(8),
+	PUSH_BUTTON(9);
+
+	private static final HardwareKind[] BY_ID = new HardwareKind[10];
+	static {
+		for (HardwareKind kind : values())
+			BY_ID[kind.id] = kind;
+	}
+
+	private final int id;
+
+	private HardwareKind(int id) {
+		this.id = id;
+	}
+
+	/**
+	* @return the id written to binary event records
+	*/
+	public int getId() {
+		return id;
+	}
+
+	/**
+	* Method finds the kind of a piece of hardware
+	* @param AbstractHardware<?> hardware, the hardware an event happened on
+	* @return its kind, or UNKNOWN
+	*/
+	public static HardwareKind of(AbstractHardware<?> hardware) {
+		if (hardware instanceof CoinSlot)
+			return COIN_SLOT;
+		if (hardware instanceof CoinReceptacle)
+			return COIN_RECEPTACLE;
+		if (hardware instanceof CoinRack)
+			return COIN_RACK;
+		if (hardware instanceof CoinReturn)
+			return COIN_RETURN;
+		if (hardware instanceof DeliveryChute)
+			return DELIVERY_CHUTE;
+		if (hardware instanceof PopCanRack)
+			return POP_CAN_RACK;
+		if (hardware instanceof Display)
+			return DISPLAY;
+		if (hardware instanceof IndicatorLight)
+			return INDICATOR_LIGHT;
+		if (hardware instanceof PushButton)
+			return PUSH_BUTTON;
+		return UNKNOWN;
+	}
+
+	/**
+	* Method finds the kind with the given id
+	* @param int id, an id read from a binary event record
+	* @return the matching kind, or UNKNOWN if the id is not known
+	*/
+	public static HardwareKind fromId(int id) {
+		if (id < 0 || id >= BY_ID.length || BY_ID[id] == null)
+			return UNKNOWN;
+		return BY_ID[id];
+	}
+}
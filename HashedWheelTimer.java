@@ -0,0 +1,267 @@
+package ca.ucalgary.seng300.a2;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs delayed and repeating tasks for any number of machines on one thread, using a hashed timing wheel.
+ * <p>
+ * Time is cut into ticks, and the wheel has a bucket for each tick, reused every turn of the wheel. A task goes in
+ * the bucket of the tick it is due in, with the number of whole turns still to wait. Each tick the thread runs the
+ * tasks in one bucket that have no turns left. Scheduling and cancelling are O(1) whatever the number of tasks, and
+ * tasks run at most one tick late. Tasks are handed to the thread through queues, so callers never take a lock the
+ * thread holds. Tasks run on the timer thread and should be short.
+ * <p>
+ * This is the TaskScheduler of a machine in service. Its clock is the wall clock the event log stamps records with.
+ */
+public class HashedWheelTimer implements TaskScheduler {
+
+	public static final long DEFAULT_TICK_MILLIS = 10;
+	public static final int DEFAULT_WHEEL_SIZE = 512;
+
+	private static HashedWheelTimer shared;
+
+	private final long tickNanos;
+	private final int mask;
+	private final Timeout[] heads;		// each bucket is a doubly linked list
+	private final Timeout[] tails;
+	private final long startNanos = System.nanoTime();
+	private long tick;			// the next tick to expire, only used by the timer thread
+
+	private final ConcurrentLinkedQueue<Timeout> added = new ConcurrentLinkedQueue<Timeout>();
+	private final ConcurrentLinkedQueue<Timeout> cancelled = new ConcurrentLinkedQueue<Timeout>();
+	private final Thread worker;
+	private volatile boolean stopped = false;
+
+	/**
+	* Constructor creates a wheel of the default size and starts its thread
+	*/
+	public HashedWheelTimer() {
+		this(DEFAULT_TICK_MILLIS, DEFAULT_WHEEL_SIZE);
+	}
+
+	/**
+	* Constructor creates a wheel and starts its thread
+	* @param long tickMillis, the length of a tick. Tasks run up to this late
+	* @param int wheelSize, the number of buckets. Rounded up to a power of two
+	*/
+	public HashedWheelTimer(long tickMillis, int wheelSize) {
+		if (tickMillis <= 0 || wheelSize < 1)
+			throw new IllegalArgumentException("Tick and wheel size must be positive");
+		tickNanos = tickMillis * 1000000L;
+		int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+		mask = size - 1;
+		heads = new Timeout[size];
+		tails = new Timeout[size];
+		worker = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				workLoop();
+			}
+		}, "Vending timer");
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	/**
+	* @return the wheel every machine in the process schedules on
+	*/
+	public static synchronized HashedWheelTimer getShared() {
+		if (shared == null)
+			shared = new HashedWheelTimer();
+		return shared;
+	}
+
+	@Override
+	public long currentTimeNanos() {
+		return EventRecord.currentTimeNanos();
+	}
+
+	/**
+	* Method runs a task once after a delay
+	* @param Runnable task, what to run
+	* @param long delayMillis, how long to wait
+	* @return the scheduled task, which can be cancelled
+	*/
+	@Override
+	public Timeout schedule(Runnable task, long delayMillis) {
+		return add(new Timeout(this, task, System.nanoTime() + Math.max(0, delayMillis) * 1000000L, 0));
+	}
+
+	/**
+	* Method runs a task repeatedly. Each run is due a whole period after the one before was due, so the task does not drift
+	* @param Runnable task, what to run
+	* @param long delayMillis, how long to wait before the first run
+	* @param long periodMillis, the time between runs
+	* @return the scheduled task, which can be cancelled
+	*/
+	@Override
+	public Timeout scheduleAtFixedRate(Runnable task, long delayMillis, long periodMillis) {
+		if (periodMillis <= 0)
+			throw new IllegalArgumentException("Period must be positive");
+		return add(new Timeout(this, task, System.nanoTime() + Math.max(0, delayMillis) * 1000000L, periodMillis * 1000000L));
+	}
+
+	private Timeout add(Timeout timeout) {
+		if (stopped)
+			throw new IllegalStateException("Timer is stopped");
+		added.add(timeout);
+		return timeout;
+	}
+
+	/**
+	* Method stops the thread. Tasks not yet run never run
+	*/
+	public void stop() {
+		stopped = true;
+		LockSupport.unpark(worker);
+	}
+
+	/**
+	* Method run by the timer thread. Expires one bucket per tick
+	*/
+	private void workLoop() {
+		while (!stopped) {
+			long deadline = startNanos + (tick + 1) * tickNanos;
+			long wait;
+			while ((wait = deadline - System.nanoTime()) > 0 && !stopped)
+				LockSupport.parkNanos(wait);
+			if (stopped)
+				return;
+			removeCancelled();
+			transferAdded();
+			expire(heads[(int) (tick & mask)]);
+			tick++;
+		}
+	}
+
+	private void removeCancelled() {
+		Timeout timeout;
+		while ((timeout = cancelled.poll()) != null) {
+			if (timeout.bucket >= 0)
+				unlink(timeout);
+		}
+	}
+
+	private void transferAdded() {
+		Timeout timeout;
+		// a bounded number per tick, so a flood of new tasks cannot stop the wheel turning
+		for (int i = 0; i < 100000 && (timeout = added.poll()) != null; i++) {
+			if (timeout.state.get() == Timeout.PENDING)
+				place(timeout, tick);
+		}
+	}
+
+	/**
+	* Method puts a task in the bucket of the tick it is due in, or the earliest allowed if it is already due
+	*/
+	private void place(Timeout timeout, long earliestTick) {
+		long due = (timeout.deadlineNanos - startNanos + tickNanos - 1) / tickNanos - 1;
+		if (due < earliestTick)
+			due = earliestTick;
+		timeout.rounds = (due - tick) / (mask + 1);
+		int bucket = (int) (due & mask);
+		timeout.bucket = bucket;
+		timeout.prev = tails[bucket];
+		timeout.next = null;
+		if (tails[bucket] == null)
+			heads[bucket] = timeout;
+		else
+			tails[bucket].next = timeout;
+		tails[bucket] = timeout;
+	}
+
+	private void unlink(Timeout timeout) {
+		int bucket = timeout.bucket;
+		if (timeout.prev == null)
+			heads[bucket] = timeout.next;
+		else
+			timeout.prev.next = timeout.next;
+		if (timeout.next == null)
+			tails[bucket] = timeout.prev;
+		else
+			timeout.next.prev = timeout.prev;
+		timeout.prev = null;
+		timeout.next = null;
+		timeout.bucket = -1;
+	}
+
+	/**
+	* Method runs the tasks of a bucket that have no turns left, and counts down the others
+	*/
+	private void expire(Timeout timeout) {
+		while (timeout != null) {
+			Timeout next = timeout.next;
+			if (timeout.rounds > 0)
+				timeout.rounds--;
+			else {
+				unlink(timeout);
+				boolean periodic = timeout.periodNanos > 0;
+				if (periodic ? timeout.state.get() == Timeout.PENDING : timeout.state.compareAndSet(Timeout.PENDING, Timeout.EXPIRED)) {
+					try {
+						timeout.task.run();
+					} catch (RuntimeException e) {
+						e.printStackTrace();
+					}
+				}
+				if (periodic && timeout.state.get() == Timeout.PENDING) {
+					timeout.deadlineNanos += timeout.periodNanos;
+					place(timeout, tick + 1);		// never back into the bucket being expired
+				}
+			}
+			timeout = next;
+		}
+	}
+
+	/**
+	 * A task on the wheel
+	 */
+	public static class Timeout implements TaskScheduler.ScheduledTask {
+		private static final int PENDING = 0;
+		private static final int CANCELLED = 1;
+		private static final int EXPIRED = 2;
+
+		private final HashedWheelTimer timer;
+		private final Runnable task;
+		private final long periodNanos;
+		private final AtomicInteger state = new AtomicInteger(PENDING);
+		// only used by the timer thread
+		private long deadlineNanos;
+		private long rounds;
+		private int bucket = -1;
+		private Timeout prev;
+		private Timeout next;
+
+		private Timeout(HashedWheelTimer timer, Runnable task, long deadlineNanos, long periodNanos) {
+			this.timer = timer;
+			this.task = task;
+			this.deadlineNanos = deadlineNanos;
+			this.periodNanos = periodNanos;
+		}
+
+		/**
+		* Method stops the task running again. A run already under way is not interrupted
+		* @return false if the task had already run, or was already cancelled
+		*/
+		@Override
+		public boolean cancel() {
+			if (!state.compareAndSet(PENDING, CANCELLED))
+				return false;
+			timer.cancelled.add(this);		// taken off its bucket by the timer thread
+			return true;
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return state.get() == CANCELLED;
+		}
+
+		/**
+		* @return true if a one-off task has run
+		*/
+		public boolean isExpired() {
+			return state.get() == EXPIRED;
+		}
+	}
+}
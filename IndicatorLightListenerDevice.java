@@ -53,7 +53,7 @@ public class IndicatorLightListenerDevice implements IndicatorLightListener{
 	@Override
 	public void activated(IndicatorLight light) {
 		lightActivated = true;
-		logic.getEventLog().writeToLog("IndicatorLight was turned on.");
+		logic.getEventLog().writeEvent(EventCode.LIGHT_ON, HardwareKind.INDICATOR_LIGHT, -1, 0);
 		
 	}
 	/**
@@ -64,7 +64,7 @@ public class IndicatorLightListenerDevice implements IndicatorLightListener{
 	@Override
 	public void deactivated(IndicatorLight light) {
 		lightActivated = false;
-		logic.getEventLog().writeToLog("IndicatorLight was turned off.");
+		logic.getEventLog().writeEvent(EventCode.LIGHT_OFF, HardwareKind.INDICATOR_LIGHT, -1, 0);
 		
 	}
 	
@@ -0,0 +1,68 @@
+package ca.ucalgary.seng300.a2;
+
+/**
+ * The handle one machine writes its events through when several machines share a log (see EventLogMultiplexer).
+ * It holds nothing but the id of the machine and the number of its next record, so a process can host thousands
+ * of machines without a thread, file or buffer for each. Every record is tagged with the machine id and numbered.
+ * A record is numbered and queued under the lock of the handle, so the records of a machine reach the writer in order.
+ */
+public class MachineEventLog implements EventLogInterface {
+
+	private final EventLogInterface shared;
+	private final int machineId;
+	private long nextSequence;
+
+	/**
+	* Constructor creates a handle. Handles are made by EventLogMultiplexer, one per machine id
+	* @param EventLogInterface shared, the log all machines write to
+	* @param int machineId, the id records are tagged with
+	*/
+	MachineEventLog(EventLogInterface shared, int machineId) {
+		this.shared = shared;
+		this.machineId = machineId;
+	}
+
+	@Override
+	public void writeToLog(String s) {
+		writeToLog(s, EventRecord.currentTimeNanos() / 1000000L);
+	}
+
+	@Override
+	public synchronized void writeToLog(String s, long timeMillis) {
+		shared.writeToLog(machineId, nextSequence++, s, timeMillis);
+	}
+
+	@Override
+	public synchronized void writeEvent(EventCode code, HardwareKind kind, int hardwareIndex, int value, long timeNanos) {
+		shared.writeEvent(machineId, nextSequence++, code, kind, hardwareIndex, value, timeNanos);
+	}
+
+	@Override
+	public boolean isEnabled(HardwareKind kind) {
+		return shared.isEnabled(kind);
+	}
+
+	/**
+	* Method marks the end of a transaction of this machine. Other machines' records written before it are made durable too
+	*/
+	@Override
+	public void commit() {
+		shared.commit();
+	}
+
+	@Override
+	public void flush() {
+		shared.flush();
+	}
+
+	public int getMachineId() {
+		return machineId;
+	}
+
+	/**
+	* @return the number of records this machine has written
+	*/
+	public synchronized long getRecordCount() {
+		return nextSequence;
+	}
+}
@@ -0,0 +1,212 @@
+package ca.ucalgary.seng300.a2;
+
+import java.util.Arrays;
+
+/**
+ * A lightweight model of the state of one machine, rebuilt from its event log without a VendingMachine or VendingLogic.
+ * It follows the records the machine writes about itself: the credit, the coins and pop cans in each rack,
+ * which selections are available, whether the machine is out of order and what the display shows.
+ * Applying a record only updates a few fields, so replaying into a model is limited by reading the log.
+ * <p>
+ * The model starts from an empty machine, like the listener devices do, so it should be replayed from the
+ * first segment of a log. Racks and selections are added as records mention them.
+ */
+public class MachineStateModel implements ReplayTarget {
+
+	private int credit;
+	private int[] coinRackCount = new int[0];
+	private int[] coinRackValue = new int[0];
+	private int[] popCanRackCount = new int[0];
+	private boolean[] circuitDisabled = new boolean[0];
+	private boolean[] buttonDisabled = new boolean[0];
+	private boolean outOfOrder;
+	private String displayMessage = "";
+	private long timeNanos;
+	private long eventCount;
+
+	/**
+	* Method applies one record. The display is the only hardware that writes free text, so a TEXT record is a new message,
+	* unless it is a summary of repeated messages written by a RateLimitingEventLog
+	*/
+	@Override
+	public void apply(long timeNanos, EventCode code, HardwareKind kind, int hardwareIndex, int value, String text) {
+		this.timeNanos = timeNanos;
+		eventCount++;
+		switch (code) {
+		case TEXT:
+			if (!RateLimitingEventLog.isSummary(text))
+				displayMessage = text;
+			break;
+		case CREDIT_CHANGED:
+			credit = value;
+			break;
+		case COIN_RACK_COIN_ADDED:
+		case COIN_RACK_COIN_REMOVED:
+			if (hardwareIndex >= 0) {
+				coinRackCount = ensure(coinRackCount, hardwareIndex);
+				coinRackValue = ensure(coinRackValue, hardwareIndex);
+				coinRackCount[hardwareIndex] += code == EventCode.COIN_RACK_COIN_ADDED ? 1 : -1;
+				coinRackValue[hardwareIndex] = value;
+			}
+			break;
+		case COIN_RACK_RELEASED:
+			if (hardwareIndex >= 0) {
+				coinRackCount = ensure(coinRackCount, hardwareIndex);
+				coinRackCount[hardwareIndex] -= value;
+			}
+			break;
+		case COIN_RACK_LOADED:
+		case COIN_RACK_UNLOADED:
+			if (hardwareIndex >= 0) {
+				coinRackCount = ensure(coinRackCount, hardwareIndex);
+				coinRackCount[hardwareIndex] = value;
+			}
+			break;
+		case TOTAL_LOADED_VALUE:
+		case TOTAL_UNLOADED_VALUE:
+		case TOTAL_RELEASED_VALUE:
+			if (kind == HardwareKind.COIN_RACK && hardwareIndex >= 0) {
+				coinRackValue = ensure(coinRackValue, hardwareIndex);
+				coinRackValue[hardwareIndex] = value;
+			}
+			break;
+		case POP_RACK_CAN_ADDED:
+			addPopCans(hardwareIndex, 1);
+			break;
+		case POP_RACK_CAN_REMOVED:
+			addPopCans(hardwareIndex, -1);
+			break;
+		case POP_RACK_LOADED:
+			addPopCans(hardwareIndex, value);
+			break;
+		case POP_RACK_UNLOADED:
+			addPopCans(hardwareIndex, -value);
+			break;
+		case HARDWARE_DISABLED:
+			setEnabled(kind, hardwareIndex, false);
+			break;
+		case HARDWARE_ENABLED:
+			setEnabled(kind, hardwareIndex, true);
+			break;
+		default:
+			break;
+		}
+	}
+
+	private void addPopCans(int rack, int cans) {
+		if (rack < 0)
+			return;
+		popCanRackCount = ensure(popCanRackCount, rack);
+		popCanRackCount[rack] += cans;
+	}
+
+	/**
+	* Method follows VendingLogic.disableHardware and enableHardware
+	*/
+	private void setEnabled(HardwareKind kind, int hardwareIndex, boolean enabled) {
+		if (kind == HardwareKind.POP_CAN_RACK) {
+			if (hardwareIndex < 0)
+				return;
+			circuitDisabled = ensure(circuitDisabled, hardwareIndex);
+			buttonDisabled = ensure(buttonDisabled, hardwareIndex);
+			if (!enabled || !buttonDisabled[hardwareIndex])
+				circuitDisabled[hardwareIndex] = !enabled;
+		}
+		else if (kind == HardwareKind.PUSH_BUTTON) {
+			if (hardwareIndex < 0)
+				return;		// configuration panel buttons do not change the state
+			circuitDisabled = ensure(circuitDisabled, hardwareIndex);
+			buttonDisabled = ensure(buttonDisabled, hardwareIndex);
+			circuitDisabled[hardwareIndex] = !enabled;
+			buttonDisabled[hardwareIndex] = !enabled;
+		}
+		else
+			outOfOrder = !enabled;
+	}
+
+	private static int[] ensure(int[] a, int i) {
+		return i < a.length ? a : Arrays.copyOf(a, Math.max(i + 1, a.length * 2));
+	}
+
+	private static boolean[] ensure(boolean[] a, int i) {
+		return i < a.length ? a : Arrays.copyOf(a, Math.max(i + 1, a.length * 2));
+	}
+
+	/**
+	* @return a copy of the model as it is now, which later records do not change
+	*/
+	public MachineStateModel copy() {
+		MachineStateModel copy = new MachineStateModel();
+		copy.credit = credit;
+		copy.coinRackCount = coinRackCount.clone();
+		copy.coinRackValue = coinRackValue.clone();
+		copy.popCanRackCount = popCanRackCount.clone();
+		copy.circuitDisabled = circuitDisabled.clone();
+		copy.buttonDisabled = buttonDisabled.clone();
+		copy.outOfOrder = outOfOrder;
+		copy.displayMessage = displayMessage;
+		copy.timeNanos = timeNanos;
+		copy.eventCount = eventCount;
+		return copy;
+	}
+
+	/**
+	* @return the credit in cents
+	*/
+	public int getCredit() {
+		return credit;
+	}
+
+	/**
+	* @return the number of coins in a coin rack
+	*/
+	public int getCoinRackCount(int index) {
+		return index < coinRackCount.length ? coinRackCount[index] : 0;
+	}
+
+	/**
+	* @return the value of the coins in a coin rack, in cents
+	*/
+	public int getCoinRackValue(int index) {
+		return index < coinRackValue.length ? coinRackValue[index] : 0;
+	}
+
+	/**
+	* @return the number of pop cans in a pop can rack
+	*/
+	public int getPopCanRackCount(int index) {
+		return index < popCanRackCount.length ? popCanRackCount[index] : 0;
+	}
+
+	/**
+	* @return the value VendingLogic.getCircuitEnabledIndex would give
+	*/
+	public boolean getCircuitEnabled(int index) {
+		return index >= circuitDisabled.length || !circuitDisabled[index];
+	}
+
+	public boolean isOutOfOrder() {
+		return outOfOrder;
+	}
+
+	/**
+	* @return the message on the display
+	*/
+	public String getDisplayMessage() {
+		return displayMessage;
+	}
+
+	/**
+	* @return the time of the last record applied, in nanoseconds since the epoch
+	*/
+	public long getTimeNanos() {
+		return timeNanos;
+	}
+
+	/**
+	* @return the number of records applied
+	*/
+	public long getEventCount() {
+		return eventCount;
+	}
+}
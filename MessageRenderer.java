@@ -0,0 +1,147 @@
+package ca.ucalgary.seng300.a2;
+
+import org.lsmr.vending.hardware.VendingMachine;
+
+/**
+ * Builds the credit and price messages of a machine's display from whole cents, and keeps them so the same
+ * message is not built twice.
+ * <p>
+ * Amounts are written the way the display always has, as dollars with one decimal place when the cents are a
+ * multiple of ten ($0.0, $2.5) and two otherwise ($0.25), but from integer arithmetic, so no floating point is
+ * involved. Price messages are built for every selection when the machine's pop kinds are read, and rebuilt only
+ * when a name or cost changes. Credit messages are kept in a small cache indexed by the amount, so inserting
+ * coins that bring the credit back to an amount seen recently builds nothing at all.
+ */
+public class MessageRenderer {
+
+	public static final String CREDIT_PREFIX = "Current Credit: $";
+	public static final int DEFAULT_CACHE_SIZE = 256;
+
+	private final VendingMachine vm;
+	private final int[] creditCents;		// the amount held in each slot of the cache
+	private final String[] creditMessages;
+	private final int mask;
+	private String[] priceNames;			// what each price message was built from
+	private int[] priceCents;
+	private String[] priceMessages;
+	private final StringBuilder buffer = new StringBuilder(64);
+	private long built;
+
+	/**
+	* Constructor creates a renderer with the default cache and builds the price messages of a machine
+	* @param VendingMachine vm, the machine whose pop kinds are priced
+	*/
+	public MessageRenderer(VendingMachine vm) {
+		this(vm, DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	* Constructor creates a renderer and builds the price messages of a machine
+	* @param VendingMachine vm, the machine whose pop kinds are priced
+	* @param int cacheSize, how many credit messages are kept. Rounded up to a power of two
+	*/
+	public MessageRenderer(VendingMachine vm, int cacheSize) {
+		if (cacheSize < 1)
+			throw new IllegalArgumentException("Cache size must be positive");
+		this.vm = vm;
+		int size = Integer.highestOneBit(Math.max(1, cacheSize - 1)) << 1;
+		mask = size - 1;
+		creditCents = new int[size];
+		creditMessages = new String[size];
+		configure();
+	}
+
+	/**
+	* Method builds the price message of every selection, for when the machine has been configured
+	*/
+	public synchronized void configure() {
+		int count = vm.getNumberOfSelectionButtons();
+		priceNames = new String[count];
+		priceCents = new int[count];
+		priceMessages = new String[count];
+		for (int i = 0; i < count; i++)
+			buildPrice(i);
+	}
+
+	/**
+	* Method gives the message showing an amount of credit
+	* @param int cents, the credit
+	* @return the message, built only if it is not in the cache
+	*/
+	public synchronized String credit(int cents) {
+		int slot = cents & mask;
+		String message = creditMessages[slot];
+		if (message != null && creditCents[slot] == cents)
+			return message;
+		buffer.setLength(0);
+		buffer.append(CREDIT_PREFIX);
+		appendDollars(buffer, cents);
+		message = buffer.toString();
+		built++;
+		creditCents[slot] = cents;
+		creditMessages[slot] = message;
+		return message;
+	}
+
+	/**
+	* Method gives the message showing the price of a selection. It is rebuilt if the machine was configured since
+	* @param int index, the selection
+	* @return the message
+	*/
+	public synchronized String price(int index) {
+		if (index >= priceMessages.length)
+			configure();
+		if (priceNames[index] != vm.getPopKindName(index) || priceCents[index] != vm.getPopKindCost(index))
+			buildPrice(index);
+		return priceMessages[index];
+	}
+
+	private void buildPrice(int index) {
+		String name = vm.getPopKindName(index);
+		int cents = vm.getPopKindCost(index);
+		buffer.setLength(0);
+		buffer.append("Price of ").append(name).append(": $");
+		appendDollars(buffer, cents);
+		priceNames[index] = name;
+		priceCents[index] = cents;
+		priceMessages[index] = buffer.toString();
+		built++;
+	}
+
+	/**
+	* @return the number of messages built so far, the rest having come from the cache
+	*/
+	public synchronized long getBuiltCount() {
+		return built;
+	}
+
+	/**
+	* Method writes an amount the way the display shows it
+	* @param int cents, the amount
+	* @return the amount in dollars, such as 0.0, 2.5 or 0.25
+	*/
+	public static String formatDollars(int cents) {
+		return appendDollars(new StringBuilder(16), cents).toString();
+	}
+
+	/**
+	* Method writes an amount as dollars, with one decimal place if the cents are a multiple of ten and two if not
+	* @param StringBuilder out, where the amount is written
+	* @param int cents, the amount
+	* @return out
+	*/
+	public static StringBuilder appendDollars(StringBuilder out, int cents) {
+		long amount = cents;		// a long, so the smallest int can be negated
+		if (amount < 0) {
+			out.append('-');
+			amount = -amount;
+		}
+		int rest = (int) (amount % 100);
+		out.append(amount / 100).append('.');
+		if (rest % 10 == 0)
+			out.append((char) ('0' + rest / 10));
+		else
+			out.append((char) ('0' + rest / 10)).append((char) ('0' + rest % 10));
+		return out;
+	}
+}
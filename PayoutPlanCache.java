@@ -0,0 +1,206 @@
+package ca.ucalgary.seng300.a2;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers the coins paid for recent amounts of change, so that a machine that sees the same few credits all
+ * day does not work its payouts out again every time.
+ * <p>
+ * A plan is the coins that pay the most of a credit the racks can pay exactly, as the payout strategy picks them.
+ * It is kept under the credit and a signature of the rack counts packed into a long, so a plan is only ever reused
+ * for the counts it was worked out for. Only the part of each count the strategy says can matter goes into the
+ * signature: paying 25 cents with the fewest coins depends on whether there is a quarter, not on how many, so the
+ * plan survives quarters being paid out until the last one. When a rack's count changes, rackChanged() drops just
+ * the plans whose signature no longer matches the rack, and leaves the others. The least recently used plan is
+ * dropped when the cache is full.
+ * <p>
+ * Racks too large for their counts to fit the signature together are not cached; every payout is then worked out.
+ */
+public class PayoutPlanCache {
+
+	public static final int DEFAULT_MAX_PLANS = 64;
+
+	private final int[] denominations;
+	private final int[] capacities;
+	private final ChangeSolver solver;
+	private final PayoutStrategy strategy;
+	private final int[] shifts;		// where each rack's count is in a signature
+	private final long[] masks;
+	private final boolean packable;
+	private final LinkedHashMap<Key, int[]> plans;
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long invalidations;
+
+	/**
+	* Constructor creates an empty cache
+	* @param int[] denominations, the value of the coins in each rack
+	* @param int[] capacities, how many coins each rack holds when full
+	* @param PayoutStrategy strategy, how change is paid
+	* @param int maxPlans, the most plans kept
+	*/
+	public PayoutPlanCache(int[] denominations, int[] capacities, PayoutStrategy strategy, final int maxPlans) {
+		if (denominations.length != capacities.length)
+			throw new IllegalArgumentException("There must be a capacity for each denomination");
+		if (maxPlans <= 0)
+			throw new IllegalArgumentException("The cache must hold at least one plan");
+		this.denominations = denominations.clone();
+		this.capacities = capacities.clone();
+		this.strategy = strategy;
+		solver = ChangeSolver.forDenominations(denominations);
+		shifts = new int[denominations.length];
+		masks = new long[denominations.length];
+		int bits = 0;
+		for (int rack = 0; rack < denominations.length; rack++) {
+			int width = 32 - Integer.numberOfLeadingZeros(Math.max(1, capacities[rack]));
+			shifts[rack] = bits;
+			masks[rack] = (1L << width) - 1;
+			bits += width;
+		}
+		packable = bits < 64;		// so that no signature is -1
+		plans = new LinkedHashMap<Key, int[]>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, int[]> eldest) {
+				if (size() <= maxPlans)
+					return false;
+				evictions++;
+				return true;
+			}
+		};
+	}
+
+	/**
+	* Method finds the coins that pay the most of a credit the racks can pay exactly
+	* @param int credit, the credit to pay back, in cents
+	* @param int[] counts, the coins in each rack that can be paid out
+	* @return the number of coins to pay from each rack
+	*/
+	public synchronized int[] payout(int credit, int[] counts) {
+		long signature = packable ? signature(credit, counts) : -1;
+		Key key = signature == -1 ? null : new Key(credit, signature);
+		if (key != null) {
+			int[] plan = plans.get(key);
+			if (plan != null) {
+				hits++;
+				return plan.clone();
+			}
+		}
+		misses++;
+		// worked out from only the part of the counts in the signature, so the plan is the same whenever it is reused
+		int[] relevant = new int[counts.length];
+		for (int rack = 0; rack < counts.length; rack++)
+			relevant[rack] = Math.max(0, (int) relevantCount(credit, rack, counts[rack]));
+		int amount = solver.withCounts(relevant).largestPayable(credit);
+		int[] plan = strategy.payout(amount, denominations, relevant, capacities);
+		if (plan == null)
+			plan = new int[denominations.length];		// the strategy cannot pay what the solver can; pay nothing rather than wrongly
+		if (key != null)
+			plans.put(key, plan.clone());
+		return plan;
+	}
+
+	/**
+	* Method drops the plans that were worked out for another count of a rack than it now holds
+	* @param int rack, the index of the rack
+	* @param int count, the coins in the rack that can be paid out now
+	*/
+	public synchronized void rackChanged(int rack, int count) {
+		Iterator<Key> keys = plans.keySet().iterator();
+		while (keys.hasNext()) {
+			Key key = keys.next();
+			long held = (key.signature >>> shifts[rack]) & masks[rack];
+			if (held != relevantCount(key.credit, rack, count)) {
+				keys.remove();
+				invalidations++;
+			}
+		}
+	}
+
+	/**
+	* Method drops every plan
+	*/
+	public synchronized void clear() {
+		invalidations += plans.size();
+		plans.clear();
+	}
+
+	/**
+	* @return the strategy the plans are made with
+	*/
+	public PayoutStrategy getStrategy() {
+		return strategy;
+	}
+
+	public synchronized int size() {
+		return plans.size();
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	* @return the number of plans dropped to make room for newer ones
+	*/
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	* @return the number of plans dropped because a rack's count changed, or because the cache was cleared
+	*/
+	public synchronized long getInvalidations() {
+		return invalidations;
+	}
+
+	/**
+	* @return the signature of the counts for a credit, or -1 if a count does not fit
+	*/
+	private long signature(int credit, int[] counts) {
+		long signature = 0;
+		for (int rack = 0; rack < counts.length; rack++) {
+			long count = relevantCount(credit, rack, counts[rack]);
+			if (count < 0 || count > masks[rack])
+				return -1;
+			signature |= count << shifts[rack];
+		}
+		return signature;
+	}
+
+	private long relevantCount(int credit, int rack, int count) {
+		return strategy.relevantCount(credit, denominations[rack], count);
+	}
+
+	private static final class Key {
+		private final int credit;
+		private final long signature;
+
+		Key(int credit, long signature) {
+			this.credit = credit;
+			this.signature = signature;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key))
+				return false;
+			Key other = (Key) o;
+			return credit == other.credit && signature == other.signature;
+		}
+
+		@Override
+		public int hashCode() {
+			long h = signature * 31 + credit;
+			return (int) (h ^ (h >>> 32));
+		}
+	}
+}
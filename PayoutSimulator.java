@@ -0,0 +1,208 @@
+package ca.ucalgary.seng300.a2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Replays recorded purchases against a model of a machine's coin racks, to see how often a technician would have
+ * to refill them under a PayoutStrategy.
+ * <p>
+ * Each purchase puts the coins the customer inserted into the racks of their denominations, as far as there is
+ * room, and then pays the change with the strategy. A refill is needed when the change cannot be paid exactly or
+ * a rack has run empty, as the machine would then show exact change only; the racks are then put back to their
+ * starting counts. The purchases can come from a log: a Recorder replayed from it by EventReplayer collects the
+ * coins inserted and the change owed for every purchase.
+ */
+public class PayoutSimulator {
+
+	private final int[] denominations;
+	private final int[] startCounts;
+	private final int[] capacities;
+
+	/**
+	* Constructor creates a simulator for a set of racks
+	* @param int[] denominations, the value of the coins in each rack
+	* @param int[] startCounts, the coins in each rack after a refill
+	* @param int[] capacities, how many coins each rack holds when full
+	*/
+	public PayoutSimulator(int[] denominations, int[] startCounts, int[] capacities) {
+		if (denominations.length != startCounts.length || denominations.length != capacities.length)
+			throw new IllegalArgumentException("There must be a count and a capacity for each denomination");
+		this.denominations = denominations.clone();
+		this.startCounts = startCounts.clone();
+		this.capacities = capacities.clone();
+	}
+
+	/**
+	* Method runs the purchases through the racks, as many times over as asked, so that there are enough refills to compare
+	* @param PayoutStrategy strategy, how change is paid
+	* @param List<Purchase> traffic, the purchases, in order
+	* @param int rounds, the number of times the purchases are run
+	* @return what happened
+	*/
+	public Report run(PayoutStrategy strategy, List<Purchase> traffic, int rounds) {
+		int[] counts = startCounts.clone();
+		Report report = new Report();
+		for (int round = 0; round < rounds; round++) {
+			for (Purchase purchase : traffic) {
+				report.purchases++;
+				for (int coin : purchase.coins) {
+					int rack = rackFor(coin);
+					if (rack >= 0 && counts[rack] < capacities[rack])
+						counts[rack]++;
+				}
+				int[] paid = strategy.payout(purchase.change, denominations, counts, capacities);
+				if (paid == null) {
+					report.failedPayouts++;
+					refill(counts, report);
+					continue;
+				}
+				for (int rack = 0; rack < counts.length; rack++) {
+					counts[rack] -= paid[rack];
+					report.coinsPaid += paid[rack];
+				}
+				for (int count : counts) {
+					if (count == 0) {
+						refill(counts, report);
+						break;
+					}
+				}
+			}
+		}
+		return report;
+	}
+
+	/**
+	* Method runs the same purchases under two strategies
+	* @return how many times more purchases the second strategy handles between refills than the first
+	*/
+	public double improvement(PayoutStrategy before, PayoutStrategy after, List<Purchase> traffic, int rounds) {
+		return run(after, traffic, rounds).getPurchasesPerRefill() / run(before, traffic, rounds).getPurchasesPerRefill();
+	}
+
+	private void refill(int[] counts, Report report) {
+		report.refills++;
+		System.arraycopy(startCounts, 0, counts, 0, counts.length);
+	}
+
+	private int rackFor(int coin) {
+		for (int rack = 0; rack < denominations.length; rack++) {
+			if (denominations[rack] == coin)
+				return rack;
+		}
+		return -1;
+	}
+
+	/**
+	 * One purchase: the coins the customer put in, and the change they were owed
+	 */
+	public static class Purchase {
+		private final int[] coins;
+		private final int change;
+
+		public Purchase(int[] coins, int change) {
+			this.coins = coins.clone();
+			this.change = change;
+		}
+
+		public int[] getCoins() {
+			return coins.clone();
+		}
+
+		public int getChange() {
+			return change;
+		}
+
+		@Override
+		public String toString() {
+			return Arrays.toString(coins) + " -> " + change;
+		}
+	}
+
+	/**
+	 * What happened to the racks over a run
+	 */
+	public static class Report {
+		private long purchases;
+		private long refills;
+		private long failedPayouts;
+		private long coinsPaid;
+
+		public long getPurchases() {
+			return purchases;
+		}
+
+		public long getRefills() {
+			return refills;
+		}
+
+		/**
+		* @return the number of purchases whose change could not be paid exactly
+		*/
+		public long getFailedPayouts() {
+			return failedPayouts;
+		}
+
+		public long getCoinsPaid() {
+			return coinsPaid;
+		}
+
+		/**
+		* @return the average number of purchases between two refills
+		*/
+		public double getPurchasesPerRefill() {
+			return refills == 0 ? purchases : (double) purchases / refills;
+		}
+
+		@Override
+		public String toString() {
+			return purchases + " purchases, " + refills + " refills (" + failedPayouts + " for change that could not be paid), "
+					+ coinsPaid + " coins paid, " + String.format("%.1f", getPurchasesPerRefill()) + " purchases per refill";
+		}
+	}
+
+	/**
+	 * Collects the purchases of a machine from its log. Coins inserted are kept until the credit drops after a
+	 * selection is pressed, which is a purchase; the credit left then is the change owed.
+	 */
+	public static class Recorder implements ReplayTarget {
+		private final List<Purchase> purchases = new ArrayList<Purchase>();
+		private final List<Integer> inserted = new ArrayList<Integer>();
+		private int credit;
+		private boolean selected;
+
+		@Override
+		public void apply(long timeNanos, EventCode code, HardwareKind kind, int hardwareIndex, int value, String text) {
+			switch (code) {
+			case COIN_INSERTED:
+				inserted.add(value);
+				break;
+			case SELECTION_PRESSED:
+				selected = true;
+				break;
+			case CREDIT_CHANGED:
+				if (selected && value < credit) {
+					int[] coins = new int[inserted.size()];
+					for (int i = 0; i < coins.length; i++)
+						coins[i] = inserted.get(i);
+					purchases.add(new Purchase(coins, value));
+					inserted.clear();
+				}
+				selected = false;
+				credit = value;
+				break;
+			default:
+				break;
+			}
+		}
+
+		/**
+		* @return the purchases found so far, in order
+		*/
+		public List<Purchase> getPurchases() {
+			return Collections.unmodifiableList(purchases);
+		}
+	}
+}
@@ -0,0 +1,33 @@
+package ca.ucalgary.seng300.a2;
+
+/**
+ * Chooses which coins pay an amount of change, when the racks can pay it in more than one way.
+ * <p>
+ * FewestCoinsPayout pays with as few coins as it can, which drains the racks of the largest coins first.
+ * BalancedPayout pays so as to keep every rack near a fill level, so the racks run low together and a technician
+ * visits less often. PayoutSimulator compares strategies over recorded traffic.
+ */
+public interface PayoutStrategy {
+
+	/**
+	 * Method works out the coins that pay an amount exactly
+	 * @param int amount, the change, in cents
+	 * @param int[] denominations, the value of the coins in each rack
+	 * @param int[] counts, the coins in each rack that can be paid out
+	 * @param int[] capacities, how many coins each rack holds when full
+	 * @return the number of coins to pay from each rack, or null if the amount cannot be paid exactly
+	 */
+	public int[] payout(int amount, int[] denominations, int[] counts, int[] capacities);
+
+	/**
+	 * Method tells how much of a rack's count the payouts of amounts up to a limit depend on, so they can be
+	 * remembered while it stays the same. By default only the coins that could be part of such a payout matter
+	 * @param int amount, the largest amount, in cents
+	 * @param int denomination, the value of the rack's coins
+	 * @param int count, the coins in the rack
+	 * @return the part of the count that matters
+	 */
+	public default int relevantCount(int amount, int denomination, int count) {
+		return Math.min(count, amount / denomination);
+	}
+}
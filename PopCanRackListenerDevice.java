@@ -43,8 +43,10 @@ public class PopCanRackListenerDevice implements PopCanRackListener {
 	*/
 	@Override
 	public void popCanAdded(PopCanRack popCanRack, PopCan popCan) {
-		// TODO Auto-generated method stub
-		
+		if (logic.getEventLog().isEnabled(HardwareKind.POP_CAN_RACK)) {
+			int myRack = logic.findHardwareIndex(popCanRack);
+			logic.getEventLog().writeEvent(EventCode.POP_RACK_CAN_ADDED, HardwareKind.POP_CAN_RACK, myRack, 0);
+		}
 	}
 
 	/**
@@ -54,8 +56,10 @@ public class PopCanRackListenerDevice implements PopCanRackListener {
 	*/
 	@Override
 	public void popCanRemoved(PopCanRack popCanRack, PopCan popCan) {
-		// TODO Auto-generated method stub
-		
+		if (logic.getEventLog().isEnabled(HardwareKind.POP_CAN_RACK)) {
+			int myRack = logic.findHardwareIndex(popCanRack);
+			logic.getEventLog().writeEvent(EventCode.POP_RACK_CAN_REMOVED, HardwareKind.POP_CAN_RACK, myRack, 0);
+		}
 	}
 
 	/**
@@ -65,8 +69,10 @@ public class PopCanRackListenerDevice implements PopCanRackListener {
 	*/
 	@Override
 	public void popCansFull(PopCanRack popCanRack) {
-		int myRack = logic.findHardwareIndex(popCanRack);
-		logic.getEventLog().writeToLog("Pop Can Rack #" + myRack + " is full.");
+		if (logic.getEventLog().isEnabled(HardwareKind.POP_CAN_RACK)) {	// skip the index lookup if the record is not written
+			int myRack = logic.findHardwareIndex(popCanRack);
+			logic.getEventLog().writeEvent(EventCode.POP_RACK_FULL, HardwareKind.POP_CAN_RACK, myRack, 0);
+		}
 		
 	}
 
@@ -77,8 +83,10 @@ public class PopCanRackListenerDevice implements PopCanRackListener {
 	*/
 	@Override
 	public void popCansEmpty(PopCanRack popCanRack) {
-		int myRack = logic.findHardwareIndex(popCanRack);
-		logic.getEventLog().writeToLog("Pop Can Rack #" + myRack + " is empty.");
+		if (logic.getEventLog().isEnabled(HardwareKind.POP_CAN_RACK)) {
+			int myRack = logic.findHardwareIndex(popCanRack);
+			logic.getEventLog().writeEvent(EventCode.POP_RACK_EMPTY, HardwareKind.POP_CAN_RACK, myRack, 0);
+		}
 		logic.disableHardware(popCanRack);
 	}
 
@@ -89,8 +97,10 @@ public class PopCanRackListenerDevice implements PopCanRackListener {
 	*/
 	@Override
 	public void popCansLoaded(PopCanRack rack, PopCan... popCans) {
-		int myRack = logic.findHardwareIndex(rack);
-		logic.getEventLog().writeToLog("Pop Can Rack #" + myRack + " was loaded with " + popCans.length + "cans.");
+		if (logic.getEventLog().isEnabled(HardwareKind.POP_CAN_RACK)) {
+			int myRack = logic.findHardwareIndex(rack);
+			logic.getEventLog().writeEvent(EventCode.POP_RACK_LOADED, HardwareKind.POP_CAN_RACK, myRack, popCans.length);
+		}
 	}
 
 	/**
@@ -100,8 +110,10 @@ public class PopCanRackListenerDevice implements PopCanRackListener {
 	*/
 	@Override
 	public void popCansUnloaded(PopCanRack rack, PopCan... popCans) {
-		int myRack = logic.findHardwareIndex(rack);
-		logic.getEventLog().writeToLog("Pop Can Rack #" + myRack + " had " + popCans.length + "pop cans unloaded.");
+		if (logic.getEventLog().isEnabled(HardwareKind.POP_CAN_RACK)) {
+			int myRack = logic.findHardwareIndex(rack);
+			logic.getEventLog().writeEvent(EventCode.POP_RACK_UNLOADED, HardwareKind.POP_CAN_RACK, myRack, popCans.length);
+		}
 	}
 
 }
@@ -0,0 +1,388 @@
+package ca.ucalgary.seng300.a2;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * An event log that limits how much each kind of hardware may write, in front of another EventLogInterface.
+ * <p>
+ * Each listener device writes the records of its own kind of hardware, so limits are set per HardwareKind.
+ * Free text is written by the display alone and falls under DISPLAY. For each kind that is configured, time
+ * is cut into windows. Within a window:
+ * <ul>
+ * <li>with collapseRepeats, a run of records that repeat the one before them, or that keep alternating between
+ *   two records, is collapsed. A record identical to the one before it is counted instead of written. Two records
+ *   that alternate, such as the welcome message and the blank display, are written twice each and counted after
+ *   that. When the run is broken, or the window ends, one summary is written for each record of the run, such as
+ *   {@code "Hi There!" x240 between t1..t2}, so the records of a kind stay in the order they happened</li>
+ * <li>at most maxRecords records are written. The rest are dropped, and one summary says how many</li>
+ * </ul>
+ * A window ends when a record of its kind arrives after it, or when writeSummaries() or close() is called.
+ * Kinds that are not configured are written straight through. When several machines share the log, records of
+ * different machines are never identical, but the maximum of a kind is shared by all of them.
+ * <p>
+ * A log written through limits is a summary of what happened, so only the kinds left alone can be replayed exactly.
+ */
+public class RateLimitingEventLog implements EventLogInterface {
+
+	public static final int UNLIMITED = Integer.MAX_VALUE;
+	public static final long DEFAULT_WINDOW_MILLIS = 15 * 60 * 1000;
+
+	private static final Pattern SUMMARY = Pattern.compile("(\".*\" x\\d+|\\d+ [A-Z_]+ records dropped) between .+\\.\\..+", Pattern.DOTALL);
+
+	private final EventLogInterface delegate;
+	private final Window[] windows = new Window[HardwareKind.values().length];
+	private final RecordKey probe = new RecordKey();	// looked up without creating a key per record
+	private final CachedTimestamp timestamp = new CachedTimestamp();
+	private final StringBuilder summary = new StringBuilder();
+	private long summaryCount;
+
+	/**
+	* Constructor creates a log with no limits set
+	* @param EventLogInterface delegate, the log records that pass the limits are written to
+	*/
+	public RateLimitingEventLog(EventLogInterface delegate) {
+		if (delegate == null)
+			throw new IllegalArgumentException("Arguments may not be null");
+		this.delegate = delegate;
+	}
+
+	/**
+	* Method sets the limits for one kind of hardware, writing the summaries of its current window first
+	* @param HardwareKind kind, the kind of hardware the records are about
+	* @param long windowMillis, the length of each window
+	* @param int maxRecords, the most records written per window, or UNLIMITED
+	* @param boolean collapseRepeats, true to write only the first of identical records in a window
+	*/
+	public synchronized void configure(HardwareKind kind, long windowMillis, int maxRecords, boolean collapseRepeats) {
+		if (windowMillis <= 0 || maxRecords < 0)
+			throw new IllegalArgumentException("Window must be positive and maximum not negative");
+		unconfigure(kind);
+		windows[kind.ordinal()] = new Window(kind, windowMillis * 1000000L, maxRecords, collapseRepeats);
+	}
+
+	/**
+	* Method removes the limits for one kind of hardware, writing the summaries of its current window first
+	*/
+	public synchronized void unconfigure(HardwareKind kind) {
+		Window window = windows[kind.ordinal()];
+		if (window != null)
+			window.close(EventRecord.currentTimeNanos());
+		windows[kind.ordinal()] = null;
+	}
+
+	/**
+	* Method writes free text, which comes from the display
+	*/
+	@Override
+	public void writeToLog(String s) {
+		writeToLog(s, EventRecord.currentTimeNanos() / 1000000L);
+	}
+
+	@Override
+	public void writeToLog(String s, long timeMillis) {
+		writeToLog(0, -1, s, timeMillis);
+	}
+
+	@Override
+	public synchronized void writeToLog(int machineId, long sequence, String s, long timeMillis) {
+		Window window = windows[HardwareKind.DISPLAY.ordinal()];
+		if (window == null) {
+			delegate.writeToLog(machineId, sequence, s, timeMillis);
+			return;
+		}
+		probe.set(machineId, EventCode.TEXT, -1, 0, s);
+		if (window.admit(probe, timeMillis * 1000000L))
+			delegate.writeToLog(machineId, sequence, s, timeMillis);
+	}
+
+	@Override
+	public void writeEvent(EventCode code, HardwareKind kind, int hardwareIndex, int value, long timeNanos) {
+		writeEvent(0, -1, code, kind, hardwareIndex, value, timeNanos);
+	}
+
+	@Override
+	public synchronized void writeEvent(int machineId, long sequence, EventCode code, HardwareKind kind, int hardwareIndex, int value, long timeNanos) {
+		Window window = windows[kind.ordinal()];
+		if (window == null) {
+			delegate.writeEvent(machineId, sequence, code, kind, hardwareIndex, value, timeNanos);
+			return;
+		}
+		probe.set(machineId, code, hardwareIndex, value, null);
+		if (window.admit(probe, timeNanos))
+			delegate.writeEvent(machineId, sequence, code, kind, hardwareIndex, value, timeNanos);
+	}
+
+	@Override
+	public boolean isEnabled(HardwareKind kind) {
+		return delegate.isEnabled(kind);
+	}
+
+	@Override
+	public void commit() {
+		delegate.commit();
+	}
+
+	/**
+	* Method flushes the log. Windows are left open, so flushing often does not stop repeats being collapsed
+	*/
+	@Override
+	public void flush() {
+		delegate.flush();
+	}
+
+	/**
+	* Method ends the current window of every kind, writing its summaries
+	*/
+	public synchronized void writeSummaries() {
+		long now = EventRecord.currentTimeNanos();
+		for (Window window : windows) {
+			if (window != null)
+				window.close(now);
+		}
+	}
+
+	/**
+	* Method writes the outstanding summaries and flushes the log
+	*/
+	public void close() {
+		writeSummaries();
+		delegate.flush();
+	}
+
+	/**
+	* @return the number of summary records written
+	*/
+	public synchronized long getSummaryCount() {
+		return summaryCount;
+	}
+
+	/**
+	* Method tells summaries apart from text that was really shown, for readers of the log such as MachineStateModel
+	* @param String text, the text of a TEXT record
+	* @return true if the text is a summary written by a RateLimitingEventLog
+	*/
+	public static boolean isSummary(String text) {
+		if (text == null || text.isEmpty())
+			return false;
+		char first = text.charAt(0);
+		return (first == '"' || Character.isDigit(first)) && SUMMARY.matcher(text).matches();
+	}
+
+	/**
+	* Method writes one summary, stamped with the time the window ended
+	*/
+	private void writeSummary(int machineId, long firstNanos, long lastNanos, long endNanos) {
+		summary.append(" between ");
+		timestamp.appendTo(firstNanos / 1000000L, summary);
+		summary.append("..");
+		timestamp.appendTo(lastNanos / 1000000L, summary);
+		delegate.writeToLog(machineId, -1, summary.toString(), endNanos / 1000000L);
+		summary.setLength(0);
+		summaryCount++;
+	}
+
+	/**
+	 * The limits and counts of one kind of hardware
+	 */
+	private class Window {
+		private final HardwareKind kind;
+		private final long lengthNanos;
+		private final int maxRecords;
+		private final boolean collapseRepeats;
+
+		private boolean open;
+		private long startNanos;
+		private int written;
+		private int dropped;
+		private long firstDroppedNanos;
+		private long lastDroppedNanos;
+		// the run each machine is in, with the repeats of it that were not written
+		private final Map<Integer, Run> runs = new LinkedHashMap<Integer, Run>();
+
+		Window(HardwareKind kind, long lengthNanos, int maxRecords, boolean collapseRepeats) {
+			this.kind = kind;
+			this.lengthNanos = lengthNanos;
+			this.maxRecords = maxRecords;
+			this.collapseRepeats = collapseRepeats;
+		}
+
+		/**
+		* @return true if the record is to be written
+		*/
+		boolean admit(RecordKey key, long timeNanos) {
+			if (!open || timeNanos - startNanos >= lengthNanos) {
+				close(timeNanos);
+				open = true;
+				startNanos = timeNanos;
+			}
+			if (collapseRepeats) {
+				Run run = runs.get(key.machineId);
+				if (run == null)
+					runs.put(key.machineId, run = new Run());
+				if (run.repeats(key, timeNanos))
+					return false;
+			}
+			if (written >= maxRecords) {
+				if (dropped++ == 0)
+					firstDroppedNanos = timeNanos;
+				lastDroppedNanos = timeNanos;
+				return false;
+			}
+			written++;
+			return true;
+		}
+
+		/**
+		* Method writes the summaries of the window and starts counting afresh
+		*/
+		void close(long endNanos) {
+			if (!open)
+				return;
+			for (Run run : runs.values())
+				run.end(endNanos);
+			runs.clear();
+			if (dropped > 0) {
+				summary.append(dropped).append(' ').append(kind).append(" records dropped");
+				writeSummary(0, firstDroppedNanos, lastDroppedNanos, endNanos);
+			}
+			open = false;
+			written = 0;
+			dropped = 0;
+		}
+	}
+
+	/**
+	 * The latest records of one machine, and the run of repeats they are in
+	 */
+	private class Run {
+		private final RecordKey[] cycle = new RecordKey[2];	// the records that repeat, in order
+		private final Repeats[] repeats = {new Repeats(), new Repeats()};
+		private int period;		// 1 or 2 while in a run, 0 when not
+		private int position;		// the record of the cycle expected next
+		private RecordKey last;
+		private RecordKey beforeLast;
+		private int alternations;	// records in a row that were the same as the one two before them
+
+		/**
+		* @return true if the record is a repeat, which is counted instead of written
+		*/
+		boolean repeats(RecordKey key, long timeNanos) {
+			if (period > 0) {
+				if (key.equals(cycle[position])) {
+					repeats[position].add(timeNanos);
+					position = (position + 1) % period;
+					return true;
+				}
+				end(timeNanos);
+			}
+			if (last != null && key.equals(last)) {
+				start(1, last, null, timeNanos);
+				return true;
+			}
+			if (beforeLast != null && key.equals(beforeLast)) {
+				if (++alternations > 2) {		// both records have been written twice
+					start(2, beforeLast, last, timeNanos);
+					return true;
+				}
+			}
+			else
+				alternations = 0;
+			beforeLast = last;
+			last = key.copy();
+			return false;
+		}
+
+		/**
+		* Method starts a run with its first repeat, which is of the first record of the cycle
+		*/
+		private void start(int period, RecordKey first, RecordKey second, long timeNanos) {
+			this.period = period;
+			cycle[0] = first;
+			cycle[1] = second;
+			repeats[0].add(timeNanos);
+			position = 1 % period;
+		}
+
+		/**
+		* Method writes the summaries of the run, if it is in one, and leaves its last records as the latest
+		*/
+		void end(long endNanos) {
+			if (period == 0)
+				return;
+			for (int i = 0; i < period; i++) {
+				if (repeats[i].count > 0) {
+					summary.append('"').append(cycle[i].describe()).append("\" x").append(repeats[i].count);
+					writeSummary(cycle[i].machineId, repeats[i].firstNanos, repeats[i].lastNanos, endNanos);
+				}
+				repeats[i].count = 0;
+			}
+			last = cycle[(position + period - 1) % period];
+			beforeLast = cycle[(position + period - 2) % period];
+			alternations = 0;
+			period = 0;
+		}
+	}
+
+	/**
+	 * The repeats of a record that were not written
+	 */
+	private static class Repeats {
+		private int count;
+		private long firstNanos;
+		private long lastNanos;
+
+		void add(long timeNanos) {
+			if (count++ == 0)
+				firstNanos = timeNanos;
+			lastNanos = timeNanos;
+		}
+	}
+
+	/**
+	 * What makes two records identical: the machine, and the event, hardware index and value or the text
+	 */
+	private static class RecordKey {
+		private int machineId;
+		private EventCode code;
+		private int hardwareIndex;
+		private int value;
+		private String text;
+
+		void set(int machineId, EventCode code, int hardwareIndex, int value, String text) {
+			this.machineId = machineId;
+			this.code = code;
+			this.hardwareIndex = hardwareIndex;
+			this.value = value;
+			this.text = text;
+		}
+
+		RecordKey copy() {
+			RecordKey copy = new RecordKey();
+			copy.set(machineId, code, hardwareIndex, value, text);
+			return copy;
+		}
+
+		String describe() {
+			return code == EventCode.TEXT ? String.valueOf(text) : code.format(hardwareIndex, value);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof RecordKey))
+				return false;
+			RecordKey other = (RecordKey) o;
+			return machineId == other.machineId && code == other.code && hardwareIndex == other.hardwareIndex && value == other.value
+					&& (text == null ? other.text == null : text.equals(other.text));
+		}
+
+		@Override
+		public int hashCode() {
+			int h = 31 * machineId + code.hashCode();
+			h = 31 * h + hardwareIndex;
+			h = 31 * h + value;
+			return 31 * h + (text == null ? 0 : text.hashCode());
+		}
+	}
+}
@@ -0,0 +1,18 @@
+package ca.ucalgary.seng300.a2;
+
+/**
+ * Something an event log can be replayed into, one record at a time, by EventReplayer.
+ */
+public interface ReplayTarget {
+
+	/**
+	 * Method applies one record of the log
+	 * @param long timeNanos, when the event happened, in nanoseconds since the epoch
+	 * @param EventCode code, the event. Never null; records unknown to this version are skipped
+	 * @param HardwareKind kind, the hardware the event happened on
+	 * @param int hardwareIndex, the index of that hardware, or -1
+	 * @param int value, the cents or count of the event
+	 * @param String text, the text of a TEXT record, otherwise null
+	 */
+	public void apply(long timeNanos, EventCode code, HardwareKind kind, int hardwareIndex, int value, String text);
+}
@@ -0,0 +1,288 @@
+package ca.ucalgary.seng300.a2;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A closed log segment compressed in independent blocks, so it can be read back a block at a time.
+ * <p>
+ * The records of the segment are cut into blocks of about blockSize bytes, never splitting a record, and each
+ * block is compressed on its own with a Deflater. After the blocks comes the block index: the earliest and
+ * latest time in each block and where its compressed bytes are. A reader loads only the index, then inflates
+ * just the blocks that overlap the time range it wants.
+ * <pre>
+ * header: int magic | short version | short 0 | the header slot of the segment
+ * blocks: compressed records
+ * index:  per block: long min time | long max time | long offset | int compressed length | int raw length
+ * footer: long index offset | int block count | int magic
+ * </pre>
+ * Archives are named like their segment with ARCHIVE_SUFFIX in place of SEGMENT_SUFFIX.
+ */
+public class SegmentArchive implements Closeable {
+
+	public static final String ARCHIVE_SUFFIX = ".vlz";
+	public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+	private static final int MAGIC = 0x564C5A41;		// "VLZA"
+	private static final short VERSION = 1;
+	private static final int HEADER_SIZE = 8 + EventRecord.RECORD_SIZE;
+	private static final int INDEX_ENTRY_SIZE = 32;
+	private static final int FOOTER_SIZE = 16;
+
+	private final File file;
+	private final RandomAccessFile in;
+	private final ByteBuffer segmentHeader;
+	private final int blockCount;
+	private final long[] minTime;
+	private final long[] maxTime;
+	private final long[] offset;
+	private final int[] compressedLength;
+	private final int[] rawLength;
+	private final Inflater inflater = new Inflater();
+	private int blocksRead;
+
+	/**
+	* Constructor opens an archive and reads its block index
+	* @param File file, the archive
+	* @throws IOException if it cannot be read or is not an archive this version can read
+	*/
+	public SegmentArchive(File file) throws IOException {
+		this.file = file;
+		in = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = in.getChannel();
+			long size = channel.size();
+			ByteBuffer header = read(channel, 0, HEADER_SIZE);
+			if (size < HEADER_SIZE + FOOTER_SIZE || header.getInt() != MAGIC || header.getShort() != VERSION)
+				throw new IOException("Not a segment archive: " + file);
+			header.getShort();
+			segmentHeader = header.slice();
+
+			ByteBuffer footer = read(channel, size - FOOTER_SIZE, FOOTER_SIZE);
+			long indexOffset = footer.getLong();
+			blockCount = footer.getInt();
+			if (footer.getInt() != MAGIC || blockCount < 0 || indexOffset + (long) blockCount * INDEX_ENTRY_SIZE != size - FOOTER_SIZE)
+				throw new IOException("Damaged segment archive: " + file);
+
+			minTime = new long[blockCount];
+			maxTime = new long[blockCount];
+			offset = new long[blockCount];
+			compressedLength = new int[blockCount];
+			rawLength = new int[blockCount];
+			ByteBuffer index = read(channel, indexOffset, blockCount * INDEX_ENTRY_SIZE);
+			for (int b = 0; b < blockCount; b++) {
+				minTime[b] = index.getLong();
+				maxTime[b] = index.getLong();
+				offset[b] = index.getLong();
+				compressedLength[b] = index.getInt();
+				rawLength[b] = index.getInt();
+			}
+		} catch (IOException e) {
+			in.close();
+			throw e;
+		}
+	}
+
+	private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+		ByteBuffer data = ByteBuffer.allocate(length);
+		while (data.hasRemaining()) {
+			if (channel.read(data, position + data.position()) < 0)
+				throw new IOException("Unexpected end of segment archive");
+		}
+		data.flip();
+		return data;
+	}
+
+	/**
+	* Method compresses a closed segment into an archive next to it. The segment itself is left alone.
+	* The archive is written under a temporary name and renamed when complete, so an archive that
+	* exists is always whole.
+	* @param File segment, a closed segment
+	* @param int blockSize, the number of uncompressed bytes to put in each block
+	* @param int level, the Deflater compression level
+	* @return the archive
+	* @throws IOException if the segment cannot be read or the archive cannot be written
+	*/
+	public static File archive(File segment, int blockSize, int level) throws IOException {
+		ByteBuffer data;
+		try (RandomAccessFile seg = new RandomAccessFile(segment, "r")) {
+			ByteBuffer header = read(seg.getChannel(), 0, EventRecord.RECORD_SIZE);
+			if (header.getInt(0) != EventRecord.MAGIC || !EventRecord.isReadableVersion(header.getShort(4)))
+				throw new IOException("Not a segment of an event log: " + segment);
+			long end = header.getLong(EventRecord.END_OFFSET_POSITION);
+			if (end < EventRecord.RECORD_SIZE || end > seg.length())
+				throw new IOException("Damaged end of data in " + segment);
+			data = read(seg.getChannel(), 0, (int) end);
+		}
+
+		File archive = archiveFile(segment);
+		File partial = new File(archive.getParentFile(), archive.getName() + ".tmp");
+		Deflater deflater = new Deflater(level);
+		try (FileOutputStream out = new FileOutputStream(partial)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.putInt(MAGIC);
+			header.putShort(VERSION);
+			header.putShort((short) 0);
+			header.put(data.array(), 0, EventRecord.RECORD_SIZE);
+			out.write(header.array());
+			long position = HEADER_SIZE;
+
+			// cut the records into blocks, noting the time range of each
+			ByteBuffer index = ByteBuffer.allocate(INDEX_ENTRY_SIZE * 16);
+			int blocks = 0;
+			byte[] compressed = new byte[blockSize + blockSize / 8 + 64];
+			EventRecord record = new EventRecord();
+			data.position(EventRecord.RECORD_SIZE);
+			while (data.hasRemaining()) {
+				int start = data.position();
+				long min = Long.MAX_VALUE;
+				long max = Long.MIN_VALUE;
+				while (data.hasRemaining() && data.position() - start < blockSize) {
+					record.readFrom(data);
+					min = Math.min(min, record.getTimeNanos());
+					max = Math.max(max, record.getTimeNanos());
+				}
+				int length = data.position() - start;
+
+				deflater.reset();
+				deflater.setInput(data.array(), start, length);
+				deflater.finish();
+				int written = 0;
+				while (!deflater.finished()) {
+					if (written == compressed.length)
+						compressed = Arrays.copyOf(compressed, compressed.length * 2);
+					written += deflater.deflate(compressed, written, compressed.length - written);
+				}
+				out.write(compressed, 0, written);
+
+				if (index.remaining() < INDEX_ENTRY_SIZE) {
+					ByteBuffer bigger = ByteBuffer.allocate(index.capacity() * 2);
+					index.flip();
+					bigger.put(index);
+					index = bigger;
+				}
+				index.putLong(min);
+				index.putLong(max);
+				index.putLong(position);
+				index.putInt(written);
+				index.putInt(length);
+				position += written;
+				blocks++;
+			}
+
+			out.write(index.array(), 0, index.position());
+			ByteBuffer footer = ByteBuffer.allocate(FOOTER_SIZE);
+			footer.putLong(position);
+			footer.putInt(blocks);
+			footer.putInt(MAGIC);
+			out.write(footer.array());
+			out.getFD().sync();
+		} finally {
+			deflater.end();
+		}
+		if (!partial.renameTo(archive)) {
+			partial.delete();
+			throw new IOException("Cannot rename " + partial + " to " + archive);
+		}
+		return archive;
+	}
+
+	/**
+	* @return the file the archive of a segment is kept in
+	*/
+	public static File archiveFile(File segment) {
+		String name = segment.getName();
+		if (name.endsWith(SegmentedEventLog.SEGMENT_SUFFIX))
+			name = name.substring(0, name.length() - SegmentedEventLog.SEGMENT_SUFFIX.length());
+		return new File(segment.getParentFile(), name + ARCHIVE_SUFFIX);
+	}
+
+	/**
+	* Method inflates one block
+	* @param int block, the number of the block
+	* @return the records of the block, from the start of the first to the end of the last
+	* @throws IOException if the block cannot be read or does not inflate to its recorded length
+	*/
+	public synchronized ByteBuffer readBlock(int block) throws IOException {
+		ByteBuffer compressed = read(in.getChannel(), offset[block], compressedLength[block]);
+		byte[] raw = new byte[rawLength[block]];
+		inflater.reset();
+		inflater.setInput(compressed.array());
+		try {
+			int length = 0;
+			while (length < raw.length && !inflater.finished()) {
+				int n = inflater.inflate(raw, length, raw.length - length);
+				if (n == 0 && inflater.needsInput())
+					break;
+				length += n;
+			}
+			if (length != raw.length)
+				throw new IOException("Damaged block " + block + " in " + file);
+		} catch (DataFormatException e) {
+			throw new IOException("Damaged block " + block + " in " + file, e);
+		}
+		blocksRead++;
+		return ByteBuffer.wrap(raw);
+	}
+
+	/**
+	* Method finds the records a query wants, inflating only the blocks in its time range
+	* @param EventQuery query, the records wanted
+	* @param List<EventRecord> results, receives the records in the order they were written
+	*/
+	public void find(EventQuery query, List<EventRecord> results) throws IOException {
+		for (int b = 0; b < blockCount; b++) {
+			if (maxTime[b] < query.getFromNanos() || minTime[b] >= query.getToNanos())
+				continue;
+			ByteBuffer data = readBlock(b);
+			while (data.hasRemaining()) {
+				EventRecord record = new EventRecord();
+				record.readFrom(data);
+				if (query.matches(record.getTimeNanos(), record.getCode(), record.getKind(), record.getHardwareIndex(), record.getMachineId()))
+					results.add(record);
+			}
+		}
+	}
+
+	/**
+	* @return the header slot of the segment that was archived
+	*/
+	public ByteBuffer getSegmentHeader() {
+		return segmentHeader.duplicate();
+	}
+
+	public int getBlockCount() {
+		return blockCount;
+	}
+
+	public long getMinTime(int block) {
+		return minTime[block];
+	}
+
+	public long getMaxTime(int block) {
+		return maxTime[block];
+	}
+
+	/**
+	* @return how many blocks have been inflated since the archive was opened
+	*/
+	public int getBlocksRead() {
+		return blocksRead;
+	}
+
+	@Override
+	public void close() throws IOException {
+		inflater.end();
+		in.close();
+	}
+}
@@ -0,0 +1,99 @@
+package ca.ucalgary.seng300.a2;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses closed log segments into SegmentArchives on a background thread, so compression never holds up
+ * the thread writing events. Once a segment is archived, the segment and its index are deleted.
+ * SegmentedEventLog hands segments over as it rotates out of them (see SegmentedEventLog.setArchiver).
+ */
+public class SegmentArchiver {
+
+	private final int blockSize;
+	private final int level;
+	private final ExecutorService executor;
+	private final AtomicLong archivedCount = new AtomicLong();
+	private final AtomicLong failedCount = new AtomicLong();
+
+	/**
+	* Constructor creates an archiver with the default block size and compression level
+	*/
+	public SegmentArchiver() {
+		this(SegmentArchive.DEFAULT_BLOCK_SIZE, Deflater.DEFAULT_COMPRESSION);
+	}
+
+	/**
+	* Constructor creates an archiver
+	* @param int blockSize, the number of uncompressed bytes in each block. Smaller blocks make reading a
+	*   short time range cheaper, larger ones compress better
+	* @param int level, the Deflater compression level
+	*/
+	public SegmentArchiver(int blockSize, int level) {
+		if (blockSize < EventRecord.RECORD_SIZE)
+			throw new IllegalArgumentException("Block size must hold at least one record");
+		this.blockSize = blockSize;
+		this.level = level;
+		executor = Executors.newSingleThreadExecutor(r -> {
+			Thread t = new Thread(r, "EventLog archiver");
+			t.setDaemon(true);
+			t.setPriority(Thread.MIN_PRIORITY);
+			return t;
+		});
+	}
+
+	/**
+	* Method queues a closed segment to be archived. Does not wait.
+	* @param File segment, a segment that is no longer written
+	* @return the archive, once it is written
+	*/
+	public Future<File> submit(final File segment) {
+		return executor.submit(() -> {
+			try {
+				File archive = SegmentArchive.archive(segment, blockSize, level);
+				EventIndex.indexFile(segment).delete();
+				if (!segment.delete())
+					System.out.println("trouble deleting archived log segment " + segment);
+				archivedCount.incrementAndGet();
+				return archive;
+			} catch (IOException e) {
+				// the segment stays as it is and can still be read
+				failedCount.incrementAndGet();
+				System.out.println("trouble archiving log segment " + segment);
+				throw e;
+			}
+		});
+	}
+
+	/**
+	* Method archives the segments already queued, then stops the archiver
+	*/
+	public void close() {
+		executor.shutdown();
+		try {
+			executor.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	* @return the number of segments archived
+	*/
+	public long getArchivedCount() {
+		return archivedCount.get();
+	}
+
+	/**
+	* @return the number of segments that could not be archived
+	*/
+	public long getFailedCount() {
+		return failedCount.get();
+	}
+}
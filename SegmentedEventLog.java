@@ -0,0 +1,484 @@
+package ca.ucalgary.seng300.a2;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A binary event log kept in a series of fixed-size segment files, each written through a MappedByteBuffer,
+ * so writing a record is a handful of memory stores rather than a stream call.
+ * <p>
+ * Segments are named baseName-000001.seg, baseName-000002.seg, ... and use the EventRecord layout.
+ * A new segment is started when the current one is full or older than the rotation interval, and only the
+ * newest maxSegments segments are kept. The age of a segment is measured from its first record on the clock the
+ * records are stamped with, so a log written through a ClockedEventLog rotates in virtual time. Every write also stores the end of data in the segment header,
+ * so a new log on the same directory carries on from the end of the last segment instead of wiping it.
+ * <p>
+ * Each segment is indexed as it is written (see EventIndex), and query() uses the indexes to answer
+ * questions by time, event and hardware without reading whole segments.
+ * <p>
+ * With an archiver set, each segment is compressed into a SegmentArchive in the background once it is closed.
+ * Archived segments still count towards maxSegments and are still read by query() and EventReplayer.
+ */
+public class SegmentedEventLog implements EventLogInterface {
+
+	public static final String SEGMENT_SUFFIX = ".seg";
+	public static final int DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024;
+	public static final long DEFAULT_ROTATE_MILLIS = 24L * 60 * 60 * 1000;
+	public static final int DEFAULT_MAX_SEGMENTS = 16;
+	private static final long NO_RECORDS = Long.MIN_VALUE;
+
+	private final File directory;
+	private final String baseName;
+	private final int segmentSize;
+	private final long rotateNanos;
+	private final int maxSegments;
+
+	private File segmentFile;
+	private int segmentNumber;
+	private long segmentStartNanos;		// time of the first record in the segment, or NO_RECORDS
+	private RandomAccessFile file;
+	private MappedByteBuffer buffer;
+	private EventIndex index;
+	private SegmentArchiver archiver;
+	// indexes of closed segments, which never change once loaded
+	private final Map<File, EventIndex> closedIndexes = new HashMap<File, EventIndex>();
+
+	/**
+	* Constructor creates or resumes the log "WorkLog" in the working directory with the default sizes
+	*/
+	public SegmentedEventLog() {
+		directory = new File(".");
+		baseName = "WorkLog";
+		segmentSize = DEFAULT_SEGMENT_SIZE;
+		rotateNanos = DEFAULT_ROTATE_MILLIS * 1000000L;
+		maxSegments = DEFAULT_MAX_SEGMENTS;
+		try {
+			resume();
+		} catch (IOException e) {
+			System.out.println("trouble creating WorkLog file");
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	* Constructor creates or resumes a segmented log
+	* @param File directory, where the segments are kept
+	* @param String baseName, the start of each segment file name
+	* @param int segmentSize, the size of each segment file in bytes
+	* @param long rotateMillis, the age at which a segment is closed even if it is not full, counted from its first record
+	* @param int maxSegments, how many segments are kept, including the one being written
+	* @throws IOException if the last segment cannot be opened or a new one cannot be created
+	*/
+	public SegmentedEventLog(File directory, String baseName, int segmentSize, long rotateMillis, int maxSegments) throws IOException {
+		if (segmentSize < 4 * EventRecord.RECORD_SIZE || rotateMillis <= 0 || maxSegments < 1)
+			throw new IllegalArgumentException("Segment size, rotation interval and segment count must be positive");
+		this.directory = directory;
+		this.baseName = baseName;
+		this.segmentSize = segmentSize;
+		this.rotateNanos = rotateMillis * 1000000L;
+		this.maxSegments = maxSegments;
+		resume();
+	}
+
+	/**
+	* Method opens the newest existing segment and carries on after its last record,
+	* or starts the first segment if there are none
+	*/
+	private void resume() throws IOException {
+		List<File> logFiles = listLogFiles(directory, baseName);
+		if (logFiles.isEmpty()) {
+			startSegment(1);
+			return;
+		}
+		File last = logFiles.get(logFiles.size() - 1);
+		int number = logFileNumber(last, baseName);
+		if (!last.getName().endsWith(SEGMENT_SUFFIX)) {
+			startSegment(number + 1);		// the last segment was archived
+			return;
+		}
+		try {
+			mapSegment(last, number, false);
+		} catch (IOException e) {
+			// the last segment is damaged. Leave it for inspection and start a new one
+			abandonSegment();
+			startSegment(number + 1);
+		}
+	}
+
+	/**
+	* Method creates and maps a new, empty segment
+	* @param int number, the number of the new segment
+	*/
+	private void startSegment(int number) throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException("Cannot create log directory " + directory);
+		mapSegment(new File(directory, segmentName(baseName, number)), number, true);
+		deleteOldSegments();
+	}
+
+	/**
+	* Method maps a segment file and positions the buffer at its end of data
+	* @param boolean create, true to write a fresh header, false to read the existing one
+	*/
+	private void mapSegment(File segment, int number, boolean create) throws IOException {
+		file = new RandomAccessFile(segment, "rw");
+		int size = (int) Math.max(segmentSize, file.length());
+		buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+		segmentFile = segment;
+		segmentNumber = number;
+
+		if (create) {
+			segmentStartNanos = NO_RECORDS;
+			EventRecord.encodeHeader(buffer, EventRecord.currentTimeNanos(), EventRecord.RECORD_SIZE);
+			index = new EventIndex();
+			return;
+		}
+
+		if (buffer.getInt(0) != EventRecord.MAGIC || !EventRecord.isReadableVersion(buffer.getShort(4))
+				|| buffer.getShort(6) != EventRecord.RECORD_SIZE)
+			throw new IOException("Not a segment of this event log: " + segment);
+		long end = buffer.getLong(EventRecord.END_OFFSET_POSITION);
+		if (end < EventRecord.RECORD_SIZE || end > size || end % EventRecord.RECORD_SIZE != 0)
+			throw new IOException("Damaged end of data in " + segment);
+		buffer.putShort(4, EventRecord.VERSION);		// records appended from now on carry machine ids
+		segmentStartNanos = end > EventRecord.RECORD_SIZE ? buffer.getLong(EventRecord.RECORD_SIZE) : NO_RECORDS;
+		index = EventIndex.scan(buffer, (int) end);
+		buffer.position((int) end);
+	}
+
+	/**
+	* Method writes free text as a TEXT record followed by the text itself
+	* @param String s, the string to be written to the log
+	*/
+	@Override
+	public void writeToLog(String s) {
+		writeToLog(s, EventRecord.currentTimeNanos() / 1000000L);		// the clock typed events are stamped with
+	}
+
+	/**
+	* Method writes free text as a TEXT record followed by the text itself
+	* @param String s, the string to be written to the log
+	* @param long timeMillis, when the event happened
+	*/
+	@Override
+	public void writeToLog(String s, long timeMillis) {
+		writeToLog(0, -1, s, timeMillis);
+	}
+
+	/**
+	* Method writes free text for one of the machines sharing the log
+	*/
+	@Override
+	public synchronized void writeToLog(int machineId, long sequence, String s, long timeMillis) {
+		byte[] text = (s == null ? "null" : s).getBytes(StandardCharsets.UTF_8);
+		int slots = EventRecord.slotsForText(text.length);
+		long timeNanos = timeMillis * 1000000L;
+		if (!makeRoom(slots * EventRecord.RECORD_SIZE, timeNanos))
+			return;
+		index.add(buffer.position(), slots * EventRecord.RECORD_SIZE, timeNanos, EventCode.TEXT, HardwareKind.UNKNOWN, -1);
+		EventRecord.encode(buffer, timeNanos, EventCode.TEXT, HardwareKind.UNKNOWN, -1, text.length, machineId);
+		buffer.put(text);
+		int padding = (slots - 1) * EventRecord.RECORD_SIZE - text.length;
+		for (int i = 0; i < padding; i++)
+			buffer.put((byte) 0);
+		buffer.putLong(EventRecord.END_OFFSET_POSITION, buffer.position());
+	}
+
+	/**
+	* Method writes one fixed-width record straight into the mapped segment
+	*/
+	@Override
+	public void writeEvent(EventCode code, HardwareKind kind, int hardwareIndex, int value, long timeNanos) {
+		writeEvent(0, -1, code, kind, hardwareIndex, value, timeNanos);
+	}
+
+	/**
+	* Method writes one fixed-width record for one of the machines sharing the log
+	*/
+	@Override
+	public synchronized void writeEvent(int machineId, long sequence, EventCode code, HardwareKind kind, int hardwareIndex, int value, long timeNanos) {
+		if (!makeRoom(EventRecord.RECORD_SIZE, timeNanos))
+			return;
+		index.add(buffer.position(), EventRecord.RECORD_SIZE, timeNanos, code, kind, hardwareIndex);
+		EventRecord.encode(buffer, timeNanos, code, kind, hardwareIndex, value, machineId);
+		buffer.putLong(EventRecord.END_OFFSET_POSITION, buffer.position());
+	}
+
+	/**
+	* Method forces the records in the current segment out to the disk
+	*/
+	@Override
+	public synchronized void flush() {
+		if (buffer != null)
+			buffer.force();
+	}
+
+	/**
+	* Method rotates to a new segment if the current one is too old or does not have room
+	* @param int bytes, the size of the record about to be written
+	* @param long timeNanos, the time of the record about to be written
+	* @return false if there is nowhere to write the record
+	*/
+	private boolean makeRoom(int bytes, long timeNanos) {
+		if (buffer == null)
+			return false;
+		if (buffer.remaining() < bytes || (segmentStartNanos != NO_RECORDS && timeNanos - segmentStartNanos >= rotateNanos)) {
+			if (bytes > segmentSize - EventRecord.RECORD_SIZE)
+				return false;		// would not fit even in an empty segment
+			try {
+				rotate();
+			} catch (IOException e) {
+				e.printStackTrace();
+				return false;
+			}
+			if (buffer == null)
+				return false;
+		}
+		if (segmentStartNanos == NO_RECORDS)
+			segmentStartNanos = timeNanos;
+		return true;
+	}
+
+	/**
+	* Method closes the current segment and starts the next one
+	*/
+	public synchronized void rotate() throws IOException {
+		int next = segmentNumber + 1;
+		File closed = segmentFile;
+		closeSegment();
+		if (archiver != null && closed != null)
+			archiver.submit(closed);
+		startSegment(next);
+	}
+
+	/**
+	* Method has closed segments compressed in the background from now on, starting with
+	* any closed segments that are not archived yet
+	* @param SegmentArchiver archiver, does the compressing, or null to keep segments as they are
+	*/
+	public synchronized void setArchiver(SegmentArchiver archiver) {
+		this.archiver = archiver;
+		if (archiver == null)
+			return;
+		for (File segment : listSegments(directory, baseName)) {
+			if (!segment.equals(segmentFile) && !SegmentArchive.archiveFile(segment).exists())
+				archiver.submit(segment);
+		}
+	}
+
+	/**
+	* Method deletes the oldest segments, archived or not, so that at most maxSegments remain
+	*/
+	private void deleteOldSegments() {
+		List<File> logFiles = listLogFiles(directory, baseName);
+		for (int i = 0; i < logFiles.size() - maxSegments; i++) {
+			File segment = new File(directory, segmentName(baseName, logFileNumber(logFiles.get(i), baseName)));
+			closedIndexes.remove(segment);
+			EventIndex.indexFile(segment).delete();
+			SegmentArchive.archiveFile(segment).delete();
+			if (segment.exists() && !segment.delete())
+				System.out.println("trouble deleting old log segment " + segment);
+		}
+	}
+
+	private void closeSegment() throws IOException {
+		if (buffer != null) {
+			buffer.force();		// a closed segment is always complete on disk
+			try {
+				index.save(EventIndex.indexFile(segmentFile));
+				closedIndexes.put(segmentFile, index);
+			} catch (IOException e) {
+				// not fatal, the index is built again by scanning the segment the next time it is queried
+				System.out.println("trouble saving event index for " + segmentFile);
+			}
+		}
+		buffer = null;
+		index = null;
+		if (file != null)
+			file.close();
+		file = null;
+	}
+
+	/**
+	* Method lets go of a segment that could not be resumed, without forcing it or writing an index for it
+	*/
+	private void abandonSegment() throws IOException {
+		buffer = null;
+		index = null;
+		if (file != null)
+			file.close();
+		file = null;
+	}
+
+	/**
+	* Method stops writing. The segments stay on disk and a new log on the same directory resumes from them.
+	*/
+	public synchronized void close() {
+		try {
+			closeSegment();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	* Method finds the records a query wants, using the segment indexes rather than reading every segment
+	* @param EventQuery query, the records wanted
+	* @return the records, oldest segment first and in the order they were written within a segment
+	*/
+	public synchronized List<EventRecord> query(EventQuery query) throws IOException {
+		List<EventRecord> results = new ArrayList<EventRecord>();
+		for (File segment : listLogFiles(directory, baseName)) {
+			if (segment.getName().endsWith(SegmentArchive.ARCHIVE_SUFFIX)) {
+				closedIndexes.remove(new File(directory, segmentName(baseName, logFileNumber(segment, baseName))));
+				findInArchive(segment, query, results);
+				continue;
+			}
+			if (buffer != null && segment.equals(segmentFile)) {
+				index.find(file.getChannel(), query, results);
+				continue;
+			}
+			try (RandomAccessFile in = new RandomAccessFile(segment, "r")) {
+				EventIndex closed = closedIndexes.get(segment);
+				if (closed == null) {
+					closed = EventIndex.forSegment(segment, in.getChannel());
+					closedIndexes.put(segment, closed);
+				}
+				closed.find(in.getChannel(), query, results);
+			} catch (IOException e) {
+				File archive = SegmentArchive.archiveFile(segment);
+				if (!segment.exists() && archive.exists()) {
+					// archived since the segments were listed
+					closedIndexes.remove(segment);
+					findInArchive(archive, query, results);
+				}
+				else	// a damaged segment left behind by resume(). The others can still answer
+					System.out.println("trouble reading log segment " + segment);
+			}
+		}
+		return results;
+	}
+
+	/**
+	* Method finds the records a query wants in a log that is not open, such as one copied off a machine
+	* @param File directory, where the segments are kept
+	* @param String baseName, the start of each segment file name
+	* @param EventQuery query, the records wanted
+	* @return the records, oldest segment first and in the order they were written within a segment
+	*/
+	public static List<EventRecord> query(File directory, String baseName, EventQuery query) {
+		List<EventRecord> results = new ArrayList<EventRecord>();
+		for (File segment : listLogFiles(directory, baseName)) {
+			if (segment.getName().endsWith(SegmentArchive.ARCHIVE_SUFFIX)) {
+				findInArchive(segment, query, results);
+				continue;
+			}
+			try (RandomAccessFile in = new RandomAccessFile(segment, "r")) {
+				EventIndex.forSegment(segment, in.getChannel()).find(in.getChannel(), query, results);
+			} catch (IOException e) {
+				System.out.println("trouble reading log segment " + segment);
+			}
+		}
+		return results;
+	}
+
+	private static void findInArchive(File archive, EventQuery query, List<EventRecord> results) {
+		try (SegmentArchive in = new SegmentArchive(archive)) {
+			in.find(query, results);
+		} catch (IOException e) {
+			System.out.println("trouble reading log archive " + archive);
+		}
+	}
+
+	/**
+	* @return the segment currently being written, or null if the log is closed
+	*/
+	public synchronized File getCurrentSegment() {
+		return buffer == null ? null : segmentFile;
+	}
+
+	/**
+	* @return the number of bytes of the current segment that hold the header and records
+	*/
+	public synchronized int getCurrentSegmentEnd() {
+		return buffer == null ? 0 : buffer.position();
+	}
+
+	/**
+	* Method finds the segments of a log, oldest first
+	* @param File directory, where the segments are kept
+	* @param String baseName, the start of each segment file name
+	* @return the segment files in order. Empty if there are none
+	*/
+	public static List<File> listSegments(File directory, String baseName) {
+		List<File> segments = new ArrayList<File>();
+		File[] files = directory.listFiles();
+		if (files == null)
+			return segments;
+		for (File f : files) {
+			if (segmentNumber(f, baseName, SEGMENT_SUFFIX) > 0)
+				segments.add(f);
+		}
+		Collections.sort(segments, (a, b) -> Integer.compare(logFileNumber(a, baseName), logFileNumber(b, baseName)));
+		return segments;
+	}
+
+	/**
+	* Method finds every segment of a log, giving the archive of a segment in place of the segment once it has one
+	* @param File directory, where the segments are kept
+	* @param String baseName, the start of each segment file name
+	* @return the segment and archive files, oldest first. Empty if there are none
+	*/
+	public static List<File> listLogFiles(File directory, String baseName) {
+		List<File> logFiles = new ArrayList<File>();
+		File[] files = directory.listFiles();
+		if (files == null)
+			return logFiles;
+		for (File f : files) {
+			if (segmentNumber(f, baseName, SegmentArchive.ARCHIVE_SUFFIX) > 0)
+				logFiles.add(f);
+			else if (segmentNumber(f, baseName, SEGMENT_SUFFIX) > 0 && !SegmentArchive.archiveFile(f).exists())
+				logFiles.add(f);
+		}
+		Collections.sort(logFiles, (a, b) -> Integer.compare(logFileNumber(a, baseName), logFileNumber(b, baseName)));
+		return logFiles;
+	}
+
+	/**
+	* @return the number of a segment or archive file, or -1 if the file is neither
+	*/
+	public static int logFileNumber(File f, String baseName) {
+		int number = segmentNumber(f, baseName, SEGMENT_SUFFIX);
+		return number > 0 ? number : segmentNumber(f, baseName, SegmentArchive.ARCHIVE_SUFFIX);
+	}
+
+	/**
+	* @return the file name of a segment
+	*/
+	public static String segmentName(String baseName, int number) {
+		return String.format("%s-%06d%s", baseName, number, SEGMENT_SUFFIX);
+	}
+
+	/**
+	* @return the number of a segment file with the given suffix, or -1 if the file is not one of the named log
+	*/
+	private static int segmentNumber(File f, String baseName, String suffix) {
+		String name = f.getName();
+		if (!name.startsWith(baseName + "-") || !name.endsWith(suffix))
+			return -1;
+		try {
+			return Integer.parseInt(name.substring(baseName.length() + 1, name.length() - suffix.length()));
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package ca.ucalgary.seng300.a2;
+
+/**
+ * The clock a machine reads and the scheduler it runs its timers on.
+ * <p>
+ * In service this is the shared HashedWheelTimer, on the wall clock. A simulation passes a VirtualTimeScheduler
+ * instead, whose clock only moves when the simulation advances it, so hours of a machine's life run in
+ * milliseconds and always in the same order.
+ */
+public interface TaskScheduler {
+
+	/**
+	* @return the current time, in nanoseconds since the epoch like the records of the event log
+	*/
+	public long currentTimeNanos();
+
+	/**
+	* Method runs a task once after a delay
+	* @param Runnable task, what to run
+	* @param long delayMillis, how long to wait
+	* @return the scheduled task, which can be cancelled
+	*/
+	public ScheduledTask schedule(Runnable task, long delayMillis);
+
+	/**
+	* Method runs a task repeatedly. Each run is due a whole period after the one before was due
+	* @param Runnable task, what to run
+	* @param long delayMillis, how long to wait before the first run
+	* @param long periodMillis, the time between runs
+	* @return the scheduled task, which can be cancelled
+	*/
+	public ScheduledTask scheduleAtFixedRate(Runnable task, long delayMillis, long periodMillis);
+
+	/**
+	 * A task waiting to run
+	 */
+	public interface ScheduledTask {
+
+		/**
+		* Method stops the task running again. A run already under way is not interrupted
+		* @return false if the task had already run, or was already cancelled
+		*/
+		public boolean cancel();
+
+		public boolean isCancelled();
+	}
+}
@@ -0,0 +1,179 @@
+package ca.ucalgary.seng300.a2.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import ca.ucalgary.seng300.a2.AsyncEventLog;
+import ca.ucalgary.seng300.a2.Durability;
+import ca.ucalgary.seng300.a2.EventLogInterface;
+
+public class TestAsyncEventLog {
+
+	/**
+	 * Every record written from several threads reaches the delegate when blocking
+	 */
+	@Test
+	public void blockingWritesEverything() throws InterruptedException {
+		final RecordingLog recorder = new RecordingLog();
+		final AsyncEventLog log = new AsyncEventLog(recorder, 8, AsyncEventLog.BackpressurePolicy.BLOCK, 1);
+		Thread[] producers = new Thread[4];
+		for (int t = 0; t < producers.length; t++) {
+			producers[t] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int i = 0; i < 500; i++)
+						log.writeToLog("event " + i);
+				}
+			});
+			producers[t].start();
+		}
+		for (Thread producer : producers)
+			producer.join();
+		log.close();
+
+		assertTrue(recorder.records.size() == 2000);
+		assertTrue(log.getDroppedCount() == 0);
+		assertTrue(log.getWrittenCount() == 2000);
+	}
+
+	/**
+	 * Records from one thread are written in the order they were logged
+	 */
+	@Test
+	public void recordsKeepOrder() {
+		RecordingLog recorder = new RecordingLog();
+		AsyncEventLog log = new AsyncEventLog(recorder);
+		for (int i = 0; i < 100; i++)
+			log.writeToLog("event " + i);
+		log.close();
+
+		for (int i = 0; i < 100; i++)
+			assertTrue(recorder.records.get(i).equals("event " + i));
+	}
+
+	/**
+	 * A full buffer drops new records instead of waiting, and counts them
+	 */
+	@Test
+	public void dropNewestCountsDrops() {
+		SlowLog slow = new SlowLog();
+		AsyncEventLog log = new AsyncEventLog(slow, 4, AsyncEventLog.BackpressurePolicy.DROP_NEWEST, 1);
+		for (int i = 0; i < 20; i++)
+			log.writeToLog("event " + i);
+		slow.release.countDown();
+		log.close();
+
+		assertTrue(log.getDroppedCount() > 0);
+		assertTrue(log.getDroppedCount() + slow.count == 20);
+	}
+
+	/**
+	 * Sampling keeps some records under pressure and drops the rest
+	 */
+	@Test
+	public void sampleKeepsSome() {
+		SlowLog slow = new SlowLog();
+		AsyncEventLog log = new AsyncEventLog(slow, 16, AsyncEventLog.BackpressurePolicy.SAMPLE, 4);
+		for (int i = 0; i < 100; i++)
+			log.writeToLog("event " + i);
+		slow.release.countDown();
+		log.close();
+
+		assertTrue(log.getSampledOutCount() > 0);
+		assertTrue(log.getDroppedCount() + slow.count == 100);
+	}
+
+	/**
+	 * Nothing is written after the log is closed
+	 */
+	@Test
+	public void closedLogIgnoresWrites() {
+		RecordingLog recorder = new RecordingLog();
+		AsyncEventLog log = new AsyncEventLog(recorder);
+		log.close();
+		log.writeToLog("late");
+		assertTrue(recorder.records.isEmpty());
+	}
+
+	/**
+	 * With group commit a commit flushes the delegate once, after the records before it
+	 */
+	@Test
+	public void groupCommitFlushesAfterRecords() {
+		RecordingLog recorder = new RecordingLog();
+		AsyncEventLog log = new AsyncEventLog(recorder);
+		log.setDurability(Durability.GROUP_COMMIT, 1000);
+		log.writeToLog("coin");
+		log.writeToLog("vend");
+		log.commit();
+		log.close();
+
+		assertTrue(recorder.records.get(0).equals("coin"));
+		assertTrue(recorder.records.get(1).equals("vend"));
+		assertTrue(recorder.flushedAt.get(0) == 2);
+	}
+
+	/**
+	 * Without group commit a commit does not flush
+	 */
+	@Test
+	public void commitIgnoredWithoutGroupCommit() {
+		RecordingLog recorder = new RecordingLog();
+		AsyncEventLog log = new AsyncEventLog(recorder);
+		log.commit();
+		log.close();
+
+		assertTrue(recorder.flushedAt.isEmpty());
+	}
+
+	/**
+	 * Periodic durability flushes written records without being asked
+	 */
+	@Test
+	public void periodicFlushes() throws InterruptedException {
+		RecordingLog recorder = new RecordingLog();
+		AsyncEventLog log = new AsyncEventLog(recorder);
+		log.setDurability(Durability.PERIODIC, 10);
+		log.writeToLog("coin");
+		Thread.sleep(200);
+		assertTrue(log.getFlushCount() >= 1);
+		log.close();
+	}
+}
+
+// Stub log that keeps every record written to it, and how many records there were at each flush
+class RecordingLog implements EventLogInterface {
+	List<String> records = new ArrayList<String>();
+	List<Integer> flushedAt = new ArrayList<Integer>();
+
+	@Override
+	public void writeToLog(String s) {
+		records.add(s);
+	}
+
+	@Override
+	public void flush() {
+		flushedAt.add(records.size());
+	}
+}
+
+// Stub log that holds up the writer thread until released
+class SlowLog implements EventLogInterface {
+	CountDownLatch release = new CountDownLatch(1);
+	int count = 0;
+
+	@Override
+	public void writeToLog(String s) {
+		try {
+			release.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		count++;
+	}
+}
@@ -0,0 +1,106 @@
+package ca.ucalgary.seng300.a2.test;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+import ca.ucalgary.seng300.a2.BinaryEventLog;
+import ca.ucalgary.seng300.a2.EventCode;
+import ca.ucalgary.seng300.a2.EventLogDecoder;
+import ca.ucalgary.seng300.a2.EventRecord;
+import ca.ucalgary.seng300.a2.HardwareKind;
+
+public class TestBinaryEventLog {
+
+	/**
+	 * Typed records take one fixed-width slot each, after the header slot
+	 */
+	@Test
+	public void recordsAreFixedWidth() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		BinaryEventLog log = new BinaryEventLog(bytes);
+		log.writeEvent(EventCode.COIN_RACK_COIN_ADDED, HardwareKind.COIN_RACK, 2, 25);
+		log.writeEvent(EventCode.POP_RACK_EMPTY, HardwareKind.POP_CAN_RACK, 3, 0);
+		log.close();
+
+		assertTrue(bytes.size() == 3 * EventRecord.RECORD_SIZE);
+	}
+
+	/**
+	 * A typed record reads back with the same fields it was written with
+	 */
+	@Test
+	public void recordRoundTrip() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		BinaryEventLog log = new BinaryEventLog(bytes);
+		log.writeEvent(EventCode.COIN_RACK_COIN_ADDED, HardwareKind.COIN_RACK, 2, 25, 123456789L);
+		log.close();
+
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		EventRecord.readHeader(in);
+		EventRecord record = new EventRecord();
+		assertTrue(record.readFrom(in));
+		assertTrue(record.getCode() == EventCode.COIN_RACK_COIN_ADDED);
+		assertTrue(record.getKind() == HardwareKind.COIN_RACK);
+		assertTrue(record.getHardwareIndex() == 2);
+		assertTrue(record.getValue() == 25);
+		assertTrue(record.getTimeNanos() == 123456789L);
+		assertFalse(record.readFrom(in));
+	}
+
+	/**
+	 * The decoder prints the same lines the listener devices used to build
+	 */
+	@Test
+	public void decoderPrintsWorkLogText() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		BinaryEventLog log = new BinaryEventLog(bytes);
+		log.writeEvent(EventCode.COIN_RACK_COIN_ADDED, HardwareKind.COIN_RACK, 1, 35);
+		log.writeToLog("Hi There!");
+		log.writeEvent(EventCode.POP_RACK_LOADED, HardwareKind.POP_CAN_RACK, 0, 10);
+		log.close();
+
+		StringWriter text = new StringWriter();
+		int count = EventLogDecoder.decode(new ByteArrayInputStream(bytes.toByteArray()), text);
+
+		assertTrue(count == 3);
+		assertTrue(text.toString().startsWith("DATE/TIME \t\t EVENT"));
+		assertTrue(text.toString().contains("Coin rack #1 was added with 35cents.\n"));
+		assertTrue(text.toString().contains("Hi There!\n"));
+		assertTrue(text.toString().contains("Pop Can Rack #0 was loaded with 10cans.\n"));
+	}
+
+	/**
+	 * Text longer than a slot is padded so the next record still lines up
+	 */
+	@Test
+	public void longTextKeepsAlignment() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		BinaryEventLog log = new BinaryEventLog(bytes);
+		log.writeToLog("Price of Cream Soda: $1.5 and then some more text");
+		log.writeEvent(EventCode.LIGHT_ON, HardwareKind.INDICATOR_LIGHT, -1, 0);
+		log.close();
+
+		assertTrue(bytes.size() % EventRecord.RECORD_SIZE == 0);
+		StringWriter text = new StringWriter();
+		assertTrue(EventLogDecoder.decode(new ByteArrayInputStream(bytes.toByteArray()), text) == 2);
+		assertTrue(text.toString().contains("IndicatorLight was turned on."));
+	}
+
+	/**
+	 * Templates give the text the listener devices used to concatenate
+	 */
+	@Test
+	public void templatesMatchOldText() {
+		assertTrue(EventCode.COIN_RACK_LOADED.format(4, 12).equals("Coin rack #4 was loaded with 12coins."));
+		assertTrue(EventCode.TOTAL_LOADED_VALUE.format(4, 300).equals("Total loaded value is 300"));
+		assertTrue(EventCode.POP_RACK_UNLOADED.format(1, 3).equals("Pop Can Rack #1 had 3pop cans unloaded."));
+		assertTrue(EventCode.fromCode(EventCode.COIN_RETURN_FULL.getCode()) == EventCode.COIN_RETURN_FULL);
+	}
+}
@@ -0,0 +1,116 @@
+package ca.ucalgary.seng300.a2.test;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+import org.lsmr.vending.Coin;
+import org.lsmr.vending.hardware.AbstractHardware;
+import org.lsmr.vending.hardware.AbstractHardwareListener;
+import org.lsmr.vending.hardware.IndicatorLight;
+import org.lsmr.vending.hardware.IndicatorLightListener;
+import org.lsmr.vending.hardware.VendingMachine;
+
+import ca.ucalgary.seng300.a2.ChangeAvailability;
+import ca.ucalgary.seng300.a2.ChangeSolver;
+import ca.ucalgary.seng300.a2.VendingLogic;
+
+public class TestChangeAvailability {
+
+	/**
+	 * After any run of coins going in and out, every amount is answered as the solver answers it from scratch
+	 */
+	@Test
+	public void agreesWithTheSolver() {
+		int[] denominations = {5, 10, 25, 100, 200};
+		int[] counts = {2, 0, 3, 1, 0};
+		ChangeAvailability availability = new ChangeAvailability(denominations, counts, 300);
+		ChangeSolver solver = new ChangeSolver(denominations);
+		Random random = new Random(7);
+		for (int step = 0; step < 400; step++) {
+			int rack = random.nextInt(denominations.length);
+			if (random.nextInt(3) == 0 && counts[rack] > 0) {
+				counts[rack]--;
+				availability.coinRemoved(rack);
+			}
+			else {
+				counts[rack]++;
+				availability.coinAdded(rack);
+			}
+			if (step % 20 == 0) {
+				ChangeSolver.Payouts payouts = solver.withCounts(counts.clone());
+				for (int amount = 0; amount <= 300; amount += 5)
+					assertTrue(availability.canPay(amount) == payouts.canPay(amount));
+			}
+		}
+		assertFalse(availability.canPay(7));
+	}
+
+	/**
+	 * The coins of a disabled rack are not counted until it is enabled, and larger amounts raise the limit
+	 */
+	@Test
+	public void leavesOutDisabledRacks() {
+		ChangeAvailability availability = new ChangeAvailability(new int[] {5, 25}, new int[] {0, 2}, 50);
+		assertTrue(availability.canPay(50));
+		availability.setEnabled(1, false);
+		assertFalse(availability.canPay(25));
+		availability.coinAdded(0);
+		assertTrue(availability.canPay(5));
+		availability.setEnabled(1, true);
+		assertTrue(availability.canPay(55));		// above the limit it was made with
+		assertFalse(availability.canPay(60));
+	}
+
+	/**
+	 * Changing a rack's count costs at most two passes, however many coins move, and none for racks too full to matter
+	 */
+	@Test
+	public void updatesAtMostTwicePerChange() {
+		ChangeAvailability availability = new ChangeAvailability(new int[] {5, 10, 25}, new int[] {100, 100, 100}, 500);
+		long before = availability.getUpdateCount();
+		availability.coinAdded(2);
+		assertTrue(availability.getUpdateCount() == before);
+		availability.coinsRemoved(1, 60);
+		assertTrue(availability.getUpdateCount() == before + 1);
+		availability.coinsRemoved(0, 81);
+		assertTrue(availability.getUpdateCount() == before + 2);
+		availability.coinsAdded(0, 1);
+		assertTrue(availability.getUpdateCount() == before + 4);
+		assertTrue(availability.canPay(500) && availability.canPay(95));
+		assertFalse(new ChangeAvailability(new int[] {5, 10, 25}, new int[] {19, 0, 0}, 500).canPay(100));
+	}
+
+	/**
+	 * The exact change light is switched only when the answer changes, not on every coin
+	 */
+	@Test
+	public void lightTogglesOnlyOnChange() throws Exception {
+		VendingMachine vm = new VendingSetup().getVendingMachine();
+		final int[] switches = new int[1];
+		vm.getExactChangeLight().register(new IndicatorLightListener() {
+			@Override
+			public void enabled(AbstractHardware<? extends AbstractHardwareListener> hardware) {
+			}
+
+			@Override
+			public void disabled(AbstractHardware<? extends AbstractHardwareListener> hardware) {
+			}
+
+			@Override
+			public void activated(IndicatorLight light) {
+				switches[0]++;
+			}
+
+			@Override
+			public void deactivated(IndicatorLight light) {
+				switches[0]++;
+			}
+		});
+		new VendingLogic(vm, new EventStub(), false);
+		for (int i = 0; i < 10; i++)
+			vm.getCoinSlot().addCoin(new Coin(5));
+		assertTrue(switches[0] <= 1);
+	}
+}
@@ -0,0 +1,120 @@
+package ca.ucalgary.seng300.a2.test;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import ca.ucalgary.seng300.a2.ChangeSolver;
+
+public class TestChangeSolver {
+
+	private static int value(int[] denominations, int[] coins) {
+		int total = 0;
+		for (int i = 0; i < coins.length; i++)
+			total += denominations[i] * coins[i];
+		return total;
+	}
+
+	private static int count(int[] coins) {
+		int total = 0;
+		for (int c : coins)
+			total += c;
+		return total;
+	}
+
+	/**
+	 * The fewest coins by trying every combination the racks allow, or -1 if none pays the amount
+	 */
+	private static int bruteForce(int[] denominations, int[] counts, int coin, int amount) {
+		if (amount == 0)
+			return 0;
+		if (coin == denominations.length)
+			return -1;
+		int best = -1;
+		for (int n = 0; n <= counts[coin] && n * denominations[coin] <= amount; n++) {
+			int rest = bruteForce(denominations, counts, coin + 1, amount - n * denominations[coin]);
+			if (rest >= 0 && (best < 0 || rest + n < best))
+				best = rest + n;
+		}
+		return best;
+	}
+
+	/**
+	 * A coin worth exactly the change is paid, which the old loop never did
+	 */
+	@Test
+	public void paysTheLastCoin() {
+		ChangeSolver solver = ChangeSolver.forDenominations(5, 10, 25, 100, 200);
+		assertTrue(Arrays.equals(solver.payout(25, new int[] {0, 0, 1, 0, 0}), new int[] {0, 0, 1, 0, 0}));
+		assertTrue(Arrays.equals(solver.payout(375, new int[] {10, 10, 10, 10, 10}), new int[] {0, 0, 3, 1, 1}));
+	}
+
+	/**
+	 * Where taking the largest coin first strands change, the solver still finds a payout
+	 */
+	@Test
+	public void findsPayoutsGreedyMisses() {
+		ChangeSolver solver = ChangeSolver.forDenominations(5, 10, 25);
+		// 30 cents from one quarter and three dimes, no nickels: the quarter leaves 5 that cannot be paid
+		assertTrue(Arrays.equals(solver.payout(30, new int[] {0, 3, 1}), new int[] {0, 3, 0}));
+		// with denominations where greedy is not optimal at all
+		ChangeSolver odd = new ChangeSolver(1, 3, 4);
+		assertTrue(Arrays.equals(odd.payout(6, new int[] {10, 10, 10}), new int[] {0, 2, 0}));
+		assertTrue(odd.payout(7, new int[] {0, 1, 0}) == null);
+	}
+
+	/**
+	 * When the change cannot all be paid, the most that can is found
+	 */
+	@Test
+	public void findsTheLargestPayable() {
+		ChangeSolver solver = ChangeSolver.forDenominations(5, 10, 25, 100, 200);
+		ChangeSolver.Payouts payouts = solver.withCounts(new int[] {0, 1, 2, 0, 0});
+		assertFalse(payouts.canPay(65));
+		assertTrue(payouts.largestPayable(65) == 60);
+		assertTrue(payouts.largestPayable(7) == 0);
+		assertTrue(payouts.canPay(0));
+		assertFalse(payouts.canPay(3));
+	}
+
+	/**
+	 * Random racks and amounts give the same number of coins as trying every combination
+	 */
+	@Test
+	public void matchesBruteForce() {
+		Random random = new Random(42);
+		int[][] sets = {{5, 10, 25, 100, 200}, {1, 3, 4}, {2, 7, 11, 30}, {25, 10, 5}};
+		for (int[] denominations : sets) {
+			ChangeSolver solver = new ChangeSolver(denominations);
+			for (int trial = 0; trial < 300; trial++) {
+				int[] counts = new int[denominations.length];
+				for (int i = 0; i < counts.length; i++)
+					counts[i] = random.nextInt(6);
+				int amount = random.nextInt(400);
+				int expected = bruteForce(denominations, counts, 0, amount);
+				int[] coins = solver.payout(amount, counts);
+				if (expected < 0) {
+					assertTrue(coins == null);
+					continue;
+				}
+				assertTrue(coins != null);
+				assertTrue(value(denominations, coins) == amount);
+				assertTrue(count(coins) == expected);
+				for (int i = 0; i < counts.length; i++)
+					assertTrue(coins[i] <= counts[i]);
+			}
+		}
+	}
+
+	/**
+	 * Machines with the same coins share a solver
+	 */
+	@Test
+	public void sharesSolvers() {
+		assertTrue(ChangeSolver.forDenominations(5, 10, 25, 100, 200) == ChangeSolver.forDenominations(new int[] {5, 10, 25, 100, 200}));
+		assertTrue(ChangeSolver.forDenominations(5, 10) != ChangeSolver.forDenominations(10, 5));
+	}
+}
@@ -0,0 +1,297 @@
+package ca.ucalgary.seng300.a2.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.lsmr.vending.Coin;
+import org.lsmr.vending.hardware.*;
+
+import ca.ucalgary.seng300.a2.ChangeAvailability;
+import ca.ucalgary.seng300.a2.ChangeSolver;
+import ca.ucalgary.seng300.a2.CoinRackListenerDevice;
+import ca.ucalgary.seng300.a2.CoinReturnListenerDevice;
+import ca.ucalgary.seng300.a2.EventCode;
+import ca.ucalgary.seng300.a2.EventLogInterface;
+import ca.ucalgary.seng300.a2.HardwareKind;
+import ca.ucalgary.seng300.a2.MachineStateModel;
+import ca.ucalgary.seng300.a2.VendingLogicInterface;
+
+public class TestCoinRackRelease {
+
+	/**
+	 * Releasing several coins is announced once by the rack and once by the coin return, and logged once
+	 */
+	@Test
+	public void oneEventPerRack() throws Exception {
+		StubLogic logic = new StubLogic(10);
+		List<String> lines = logic.lines;
+		final int[] removed = new int[2];
+		final int[] delivered = new int[1];
+		CoinRack rack = new CoinRack(10);
+		rack.connect(new CoinChannel(logic.hardware));
+		rack.load(new Coin(25), new Coin(25), new Coin(25), new Coin(25), new Coin(25), new Coin(25));
+		rack.register(new CoinRackListenerDevice(logic));
+		rack.register(new RackCounter() {
+			@Override
+			public void coinRemoved(CoinRack rack, Coin coin) {
+				removed[0]++;
+			}
+
+			@Override
+			public void coinsRemoved(CoinRack rack, Coin... coins) {
+				removed[1] += coins.length;
+			}
+		});
+		logic.hardware.register(new CoinReturnListener() {
+			@Override
+			public void enabled(AbstractHardware<? extends AbstractHardwareListener> hardware) {
+			}
+
+			@Override
+			public void disabled(AbstractHardware<? extends AbstractHardwareListener> hardware) {
+			}
+
+			@Override
+			public void coinsDelivered(CoinReturn coinReturn, Coin[] coins) {
+				delivered[0]++;
+			}
+
+			@Override
+			public void returnIsFull(CoinReturn coinReturn) {
+			}
+		});
+
+		rack.releaseCoins(4);
+		assertTrue(rack.size() == 2 && logic.hardware.size() == 4);
+		assertTrue(removed[0] == 0 && removed[1] == 4);
+		assertTrue(delivered[0] == 1);
+		assertTrue(logic.dev.deliveredCoinCount == 4 && logic.dev.deliveredCoinValue == 100);
+		assertTrue(lines.size() == 3);		// the release, the rack total and the coin return
+		assertEquals("Coin rack #0 released 4coins.", lines.get(0));
+	}
+
+	/**
+	 * A listener that only knows single coins still hears about every coin
+	 */
+	@Test
+	public void singleCoinListenersStillHearEachCoin() throws Exception {
+		final int[] removed = new int[1];
+		CoinRack rack = new CoinRack(5);
+		rack.connect(new CoinChannel(new CoinReturn(5)));
+		rack.load(new Coin(10), new Coin(10), new Coin(10));
+		rack.register(new RackCounter() {
+			@Override
+			public void coinRemoved(CoinRack rack, Coin coin) {
+				removed[0]++;
+			}
+		});
+		rack.releaseCoins(3);
+		assertTrue(removed[0] == 3 && rack.size() == 0);
+	}
+
+	/**
+	 * Asking for more coins than the rack holds, or more than the return can take, fails without losing coins
+	 */
+	@Test
+	public void refusesWhatCannotBeReleased() throws Exception {
+		CoinReturn coinReturn = new CoinReturn(2);
+		CoinRack rack = new CoinRack(5);
+		rack.connect(new CoinChannel(coinReturn));
+		rack.load(new Coin(5), new Coin(5), new Coin(5));
+		try {
+			rack.releaseCoins(4);
+			fail();
+		} catch (EmptyException e) {
+		}
+		assertTrue(rack.size() == 3);
+		try {
+			coinReturn.acceptCoins(new Coin(5), new Coin(5), new Coin(5));
+			fail();
+		} catch (CapacityExceededException e) {
+		}
+		assertTrue(coinReturn.size() == 0);
+		rack.releaseCoins(0);
+		assertTrue(rack.size() == 3);
+	}
+
+	/**
+	 * A payout bigger than the room left in the coin return leaves every coin in the rack, and announces nothing
+	 */
+	@Test
+	public void keepsCoinsTheReturnCannotTake() throws Exception {
+		final int[] removed = new int[1];
+		CoinReturn coinReturn = new CoinReturn(3);
+		coinReturn.acceptCoin(new Coin(25));
+		CoinRack rack = new CoinRack(10);
+		rack.connect(new CoinChannel(coinReturn));
+		rack.load(new Coin(25), new Coin(25), new Coin(25), new Coin(25));
+		rack.register(new RackCounter() {
+			@Override
+			public void coinsRemoved(CoinRack rack, Coin... coins) {
+				removed[0] += coins.length;
+			}
+		});
+		try {
+			rack.releaseCoins(3);
+			fail();
+		} catch (CapacityExceededException e) {
+		}
+		assertTrue(rack.size() == 4 && coinReturn.size() == 1 && removed[0] == 0);
+		rack.releaseCoins(2);
+		assertTrue(rack.size() == 2 && coinReturn.size() == 3 && removed[0] == 2);
+	}
+
+	/**
+	 * Removing coins together leaves the same payable amounts as removing them one by one
+	 */
+	@Test
+	public void batchRemovalMatchesTheSolver() {
+		int[] denominations = {5, 10, 25, 100};
+		int[] counts = {30, 12, 9, 4};
+		ChangeAvailability availability = new ChangeAvailability(denominations, counts, 400);
+		availability.coinsRemoved(0, 27);
+		availability.coinsRemoved(2, 7);
+		availability.coinsAdded(1, 3);
+		availability.setEnabled(3, false);
+		int[] now = {3, 15, 2, 0};
+		ChangeSolver.Payouts payouts = new ChangeSolver(denominations).withCounts(now);
+		for (int amount = 0; amount <= 400; amount += 5)
+			assertTrue(availability.canPay(amount) == payouts.canPay(amount));
+	}
+
+	/**
+	 * A model rebuilt from the log follows a release like the coins removed one by one
+	 */
+	@Test
+	public void modelFollowsReleases() {
+		MachineStateModel model = new MachineStateModel();
+		model.apply(0, EventCode.COIN_RACK_LOADED, HardwareKind.COIN_RACK, 1, 6, null);
+		model.apply(0, EventCode.TOTAL_LOADED_VALUE, HardwareKind.COIN_RACK, 1, 150, null);
+		model.apply(0, EventCode.COIN_RACK_RELEASED, HardwareKind.COIN_RACK, 1, 4, null);
+		model.apply(0, EventCode.TOTAL_RELEASED_VALUE, HardwareKind.COIN_RACK, 1, 50, null);
+		assertTrue(model.getCoinRackCount(1) == 2 && model.getCoinRackValue(1) == 50);
+	}
+
+	/**
+	 * Logic with a coin return and its listener, which keeps the lines logged and ignores everything else
+	 */
+	private static class StubLogic implements VendingLogicInterface {
+		final List<String> lines = new ArrayList<String>();
+		final EventLogInterface log = s -> lines.add(s);
+		final CoinReturn hardware;
+		final CoinReturnListenerDevice dev;
+
+		StubLogic(int capacity) {
+			hardware = new CoinReturn(capacity);
+			dev = new CoinReturnListenerDevice(this);
+			hardware.register(dev);
+		}
+
+		@Override
+		public EventLogInterface getEventLog() {
+			return log;
+		}
+
+		@Override
+		public int getCurrencyValue() {
+			return 0;
+		}
+
+		@Override
+		public void welcomeMessageTimer() {
+		}
+
+		@Override
+		public void welcomeMessage() {
+		}
+
+		@Override
+		public void vendOutOfOrder() {
+		}
+
+		@Override
+		public void displayCredit() {
+		}
+
+		@Override
+		public void displayPrice(int index) {
+		}
+
+		@Override
+		public void invalidCoinInserted() {
+		}
+
+		@Override
+		public void validCoinInserted(Coin coin) {
+		}
+
+		@Override
+		public void dispensingMessage() {
+		}
+
+		@Override
+		public void returnChange() {
+		}
+
+		@Override
+		public void determineButtonAction(PushButton button) {
+		}
+
+		@Override
+		public int findHardwareIndex(AbstractHardware<? extends AbstractHardwareListener> hardware) {
+			return 0;
+		}
+
+		@Override
+		public void disableHardware(AbstractHardware<? extends AbstractHardwareListener> hardware) {
+		}
+
+		@Override
+		public void enableHardware(AbstractHardware<? extends AbstractHardwareListener> hardware) {
+		}
+
+		@Override
+		public void setCurrentMessage(String newMessage) {
+		}
+	}
+
+	/**
+	 * A coin rack listener that ignores everything, for tests to override what they count
+	 */
+	private static class RackCounter implements CoinRackListener {
+		@Override
+		public void enabled(AbstractHardware<? extends AbstractHardwareListener> hardware) {
+		}
+
+		@Override
+		public void disabled(AbstractHardware<? extends AbstractHardwareListener> hardware) {
+		}
+
+		@Override
+		public void coinsFull(CoinRack rack) {
+		}
+
+		@Override
+		public void coinsEmpty(CoinRack rack) {
+		}
+
+		@Override
+		public void coinAdded(CoinRack rack, Coin coin) {
+		}
+
+		@Override
+		public void coinRemoved(CoinRack rack, Coin coin) {
+		}
+
+		@Override
+		public void coinsLoaded(CoinRack rack, Coin... coins) {
+		}
+
+		@Override
+		public void coinsUnloaded(CoinRack rack, Coin... coins) {
+		}
+	}
+}
@@ -0,0 +1,165 @@
+package ca.ucalgary.seng300.a2.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.lsmr.vending.hardware.AbstractHardware;
+import org.lsmr.vending.hardware.AbstractHardwareListener;
+import org.lsmr.vending.hardware.Display;
+import org.lsmr.vending.hardware.DisplayListener;
+import org.lsmr.vending.hardware.VendingMachine;
+
+import ca.ucalgary.seng300.a2.DisplayMessageScheduler;
+import ca.ucalgary.seng300.a2.DisplayMessageScheduler.Priority;
+import ca.ucalgary.seng300.a2.HashedWheelTimer;
+import ca.ucalgary.seng300.a2.VendingLogic;
+
+public class TestDisplayMessageScheduler {
+
+	private final List<String> shown = new ArrayList<String>();
+
+	private Display display() {
+		Display display = new Display();
+		display.register(new DisplayListener() {
+			@Override
+			public void enabled(AbstractHardware<? extends AbstractHardwareListener> hardware) {
+			}
+
+			@Override
+			public void disabled(AbstractHardware<? extends AbstractHardwareListener> hardware) {
+			}
+
+			@Override
+			public void messageChange(Display display, String oldMessage, String newMessage) {
+				synchronized (shown) {
+					shown.add(newMessage);
+				}
+			}
+		});
+		return display;
+	}
+
+	private String last() {
+		synchronized (shown) {
+			return shown.get(shown.size() - 1);
+		}
+	}
+
+	/**
+	 * A message only reaches the display while nothing more important is on it
+	 */
+	@Test
+	public void higherPriorityWins() {
+		DisplayMessageScheduler messages = new DisplayMessageScheduler(display());
+		messages.show(Priority.WELCOME, "Hi There!");
+		messages.show(Priority.OUT_OF_ORDER, "Out Of Order");
+		messages.show(Priority.CREDIT, "Current Credit: $1.0");
+		assertTrue(last().equals("Out Of Order"));
+		assertTrue(messages.getShowing() == Priority.OUT_OF_ORDER);
+
+		messages.clear(Priority.OUT_OF_ORDER);
+		assertTrue(last().equals("Current Credit: $1.0"));
+		messages.clear(Priority.CREDIT);
+		assertTrue(last().equals("Hi There!"));
+		assertTrue(shown.size() == 4);
+	}
+
+	/**
+	 * A message shown for a while expires by itself and uncovers the one it hid
+	 */
+	@Test
+	public void expiredMessagesUncoverTheOneBelow() throws Exception {
+		HashedWheelTimer timer = new HashedWheelTimer(5, 16);
+		DisplayMessageScheduler messages = new DisplayMessageScheduler(display(), timer);
+		messages.show(Priority.CREDIT, "Current Credit: $0.25");
+		messages.show(Priority.INVALID_COIN, "Invalid coin!", 100);
+		messages.show(Priority.PRICE, "Price of Coke: $1.0", 50);	// hidden by the invalid coin message
+		assertTrue(last().equals("Invalid coin!"));
+		Thread.sleep(300);
+		assertTrue(last().equals("Current Credit: $0.25"));
+		assertTrue(messages.getMessage(Priority.PRICE) == null);
+		timer.stop();
+	}
+
+	/**
+	 * Replacing a message before it expires gives the new one its own time
+	 */
+	@Test
+	public void replacingRestartsTheExpiry() throws Exception {
+		HashedWheelTimer timer = new HashedWheelTimer(5, 16);
+		DisplayMessageScheduler messages = new DisplayMessageScheduler(display(), timer);
+		messages.show(Priority.WELCOME, "");
+		messages.show(Priority.INVALID_COIN, "Invalid coin!", 100);
+		Thread.sleep(60);
+		messages.show(Priority.INVALID_COIN, "Invalid coin!", 300);
+		Thread.sleep(150);
+		assertTrue(last().equals("Invalid coin!"));
+		Thread.sleep(400);
+		assertTrue(last().equals(""));
+		timer.stop();
+	}
+
+	/**
+	 * Writing the message already on the display announces nothing
+	 */
+	@Test
+	public void repeatedMessagesAreDropped() {
+		Display display = display();
+		display.display("Current Credit: $1.0");
+		display.display("Current Credit: $1.0");
+		DisplayMessageScheduler messages = new DisplayMessageScheduler(display);
+		messages.show(Priority.CREDIT, "Current Credit: $1.0");
+		messages.show(Priority.PRICE, "Price of Coke: $1.0", 0);
+		assertTrue(shown.equals(Arrays.asList("Current Credit: $1.0", "Price of Coke: $1.0", "Current Credit: $1.0")));
+	}
+
+	/**
+	 * Within a frame only the last change reaches the display, and none if it puts back what was there
+	 */
+	@Test
+	public void burstsAreCoalesced() throws Exception {
+		HashedWheelTimer timer = new HashedWheelTimer(5, 16);
+		DisplayMessageScheduler messages = new DisplayMessageScheduler(display(), timer);
+		messages.setFrameMillis(100);
+		messages.show(Priority.WELCOME, "Hi There!");
+		messages.show(Priority.CREDIT, "Current Credit: $0.25");
+		messages.show(Priority.PRICE, "Price of Coke: $1.0", 0);
+		messages.show(Priority.CREDIT, "Current Credit: $0.5");
+		assertTrue(shown.equals(Arrays.asList("Hi There!")));
+		Thread.sleep(250);
+		assertTrue(shown.equals(Arrays.asList("Hi There!", "Current Credit: $0.5")));
+
+		messages.show(Priority.PRICE, "Price of Coke: $1.0", 0);		// the frame after a quiet spell opens at once
+		messages.clear(Priority.PRICE);
+		Thread.sleep(250);
+		assertTrue(shown.equals(Arrays.asList("Hi There!", "Current Credit: $0.5", "Price of Coke: $1.0", "Current Credit: $0.5")));
+
+		messages.show(Priority.CREDIT, "Current Credit: $0.75");
+		messages.show(Priority.INVALID_COIN, "Invalid coin!", 0);		// shown and taken down within one frame
+		Thread.sleep(250);
+		messages.setFrameMillis(0);
+		assertTrue(shown.size() == 5);
+		assertTrue(last().equals("Current Credit: $0.75"));
+		timer.stop();
+	}
+
+	/**
+	 * A burst of rejected coins and price checks does not hold up the thread reporting them
+	 */
+	@Test
+	public void invalidCoinsDoNotBlock() throws Exception {
+		VendingMachine vm = new VendingMachine(new int[] {5, 10, 25, 100, 200}, 3, 10, 10, 200, 1, 50);
+		vm.configure(Arrays.asList("Coke", "Pepsi", "Sprite"), Arrays.asList(100, 150, 250));
+		VendingLogic logic = new VendingLogic(vm);
+		long start = System.nanoTime();
+		for (int i = 0; i < 20; i++)
+			logic.invalidCoinInserted();		// the coin slot cannot reject coins without a coin return
+		vm.getSelectionButton(0).press();
+		assertTrue((System.nanoTime() - start) / 1000000L < 1000);
+		assertTrue(logic.getCurrentMessage().equals("Invalid coin!"));
+	}
+}
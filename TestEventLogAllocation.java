@@ -0,0 +1,131 @@
+package ca.ucalgary.seng300.a2.test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import ca.ucalgary.seng300.a2.CachedTimestamp;
+import ca.ucalgary.seng300.a2.EventCode;
+import ca.ucalgary.seng300.a2.EventLog;
+import ca.ucalgary.seng300.a2.HardwareKind;
+
+public class TestEventLogAllocation {
+
+	// Writes per measurement. The runtime itself allocates a few hundred bytes now and then (compiling,
+	// safepoints), so the tests allow less than one byte per record. Any object created per record is
+	// at least 16 bytes.
+	private static final int WRITES = 10000;
+
+	/**
+	 * Writing free text to a warmed up log creates no objects
+	 */
+	@Test
+	public void writeToLogDoesNotAllocate() throws IOException {
+		File f = File.createTempFile("WorkLog", ".txt");
+		f.deleteOnExit();
+		EventLog log = new EventLog(f.getPath());
+		long time = System.currentTimeMillis();
+		for (int i = 0; i < WRITES; i++)
+			log.writeToLog("Hi There!", time);
+
+		long cost = measuringCost();
+		long before = allocatedBytes();
+		for (int i = 0; i < WRITES; i++)
+			log.writeToLog("Hi There!", time);
+		long used = allocatedBytes() - before - cost;
+		log.close();
+
+		assertTrue("allocated " + used + " bytes", used < WRITES);
+	}
+
+	/**
+	 * Writing typed events to a warmed up log creates no objects
+	 */
+	@Test
+	public void writeEventDoesNotAllocate() throws IOException {
+		File f = File.createTempFile("WorkLog", ".txt");
+		f.deleteOnExit();
+		EventLog log = new EventLog(f.getPath());
+		long time = System.nanoTime();
+		for (int i = 0; i < WRITES; i++)
+			log.writeEvent(EventCode.COIN_RACK_COIN_ADDED, HardwareKind.COIN_RACK, i % 5, 25, time);
+
+		long cost = measuringCost();
+		long before = allocatedBytes();
+		for (int i = 0; i < WRITES; i++)
+			log.writeEvent(EventCode.COIN_RACK_COIN_ADDED, HardwareKind.COIN_RACK, i % 5, 25, time);
+		long used = allocatedBytes() - before - cost;
+		log.close();
+
+		assertTrue("allocated " + used + " bytes", used < WRITES);
+	}
+
+	/**
+	 * Records of a disabled kind are not written
+	 */
+	@Test
+	public void disabledKindIsSkipped() throws IOException {
+		File f = File.createTempFile("WorkLog", ".txt");
+		f.deleteOnExit();
+		EventLog log = new EventLog(f.getPath());
+		log.flush();
+		long headerLength = f.length();
+
+		log.setEnabled(HardwareKind.COIN_RACK, false);
+		assertFalse(log.isEnabled(HardwareKind.COIN_RACK));
+		assertTrue(log.isEnabled(HardwareKind.POP_CAN_RACK));
+		log.writeEvent(EventCode.COIN_RACK_COIN_ADDED, HardwareKind.COIN_RACK, 0, 25, System.nanoTime());
+		log.writeToLog(HardwareKind.COIN_RACK, () -> "never built");
+		log.close();
+
+		assertTrue(f.length() == headerLength);
+	}
+
+	/**
+	 * The cached time stamp matches the layout SimpleDateFormat wrote, across seconds and dates
+	 */
+	@Test
+	public void cachedTimestampMatchesDateFormat() {
+		TimeZone zone = TimeZone.getTimeZone("America/Edmonton");
+		SimpleDateFormat format = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss");
+		format.setTimeZone(zone);
+		CachedTimestamp timestamp = new CachedTimestamp(zone);
+		StringBuilder sb = new StringBuilder();
+		long[] times = { 0L, 951782400000L, 1583020799999L, 1710061200000L, System.currentTimeMillis(), -86400001L };
+		for (long t : times) {
+			for (long step = 0; step < 3000; step += 700) {
+				sb.setLength(0);
+				timestamp.appendTo(t + step, sb);
+				assertEquals(format.format(new Date(t + step)), sb.toString());
+			}
+		}
+	}
+
+	/**
+	 * @return the bytes the test thread has allocated so far. Skips the test on a JVM that cannot tell.
+	 */
+	private static long allocatedBytes() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+		Assume.assumeTrue(sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled());
+		return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * @return the bytes taking a measurement allocates by itself, once the measuring code is loaded
+	 */
+	private static long measuringCost() {
+		allocatedBytes();
+		long before = allocatedBytes();
+		return allocatedBytes() - before;
+	}
+}
@@ -0,0 +1,168 @@
+package ca.ucalgary.seng300.a2.test;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import ca.ucalgary.seng300.a2.AsyncEventLog;
+import ca.ucalgary.seng300.a2.BinaryEventLog;
+import ca.ucalgary.seng300.a2.EventCode;
+import ca.ucalgary.seng300.a2.EventLogInterface;
+import ca.ucalgary.seng300.a2.EventLogMultiplexer;
+import ca.ucalgary.seng300.a2.EventQuery;
+import ca.ucalgary.seng300.a2.EventRecord;
+import ca.ucalgary.seng300.a2.EventReplayer;
+import ca.ucalgary.seng300.a2.HardwareKind;
+import ca.ucalgary.seng300.a2.MachineEventLog;
+import ca.ucalgary.seng300.a2.MachineStateModel;
+import ca.ucalgary.seng300.a2.SegmentedEventLog;
+
+public class TestEventLogMultiplexer {
+
+	/**
+	 * Thousands of machines share one writer thread and one set of segments, and each gets its own records back
+	 */
+	@Test
+	public void manyMachinesShareOneLog() throws Exception {
+		File dir = Files.createTempDirectory("shared").toFile();
+		SegmentedEventLog segments = new SegmentedEventLog(dir, "WorkLog", 1 << 20, 60000, 100);
+		EventLogMultiplexer multiplexer = new EventLogMultiplexer(segments);
+
+		int threadsBefore = Thread.activeCount();
+		List<MachineEventLog> machines = new ArrayList<MachineEventLog>();
+		for (int m = 0; m < 2000; m++)
+			machines.add(multiplexer.newMachine());
+		assertTrue(Thread.activeCount() <= threadsBefore + 1);
+		assertTrue(multiplexer.getMachineCount() == 2000);
+
+		for (int i = 0; i < 3; i++) {
+			for (MachineEventLog machine : machines)
+				machine.writeEvent(EventCode.CREDIT_CHANGED, HardwareKind.UNKNOWN, -1, machine.getMachineId() * 10 + i);
+		}
+		multiplexer.close();
+
+		MachineEventLog machine = machines.get(1234);
+		assertTrue(machine.getRecordCount() == 3);
+		List<EventRecord> records = segments.query(new EventQuery().machine(machine.getMachineId()));
+		assertTrue(records.size() == 3);
+		for (int i = 0; i < 3; i++) {
+			assertTrue(records.get(i).getMachineId() == machine.getMachineId());
+			assertTrue(records.get(i).getValue() == machine.getMachineId() * 10 + i);
+		}
+		assertTrue(segments.query(new EventQuery()).size() == 6000);
+		assertTrue(multiplexer.getMissingCount() == 0);
+		segments.close();
+	}
+
+	/**
+	 * The records of one machine are replayed on their own from the shared log
+	 */
+	@Test
+	public void replaysOneMachine() throws Exception {
+		File dir = Files.createTempDirectory("shared").toFile();
+		SegmentedEventLog segments = new SegmentedEventLog(dir, "WorkLog", 1 << 16, 60000, 100);
+		EventLogMultiplexer multiplexer = new EventLogMultiplexer(segments);
+		MachineEventLog first = multiplexer.newMachine();
+		MachineEventLog second = multiplexer.newMachine();
+		first.writeEvent(EventCode.CREDIT_CHANGED, HardwareKind.UNKNOWN, -1, 100);
+		second.writeEvent(EventCode.CREDIT_CHANGED, HardwareKind.UNKNOWN, -1, 25);
+		first.writeToLog("Current Credit: $1.00");
+		second.writeToLog("Current Credit: $0.25");
+		multiplexer.close();
+		segments.close();
+
+		MachineStateModel model = new MachineStateModel();
+		assertTrue(EventReplayer.replaySegments(dir, "WorkLog", first.getMachineId(), model, EventReplayer.END_OF_LOG) == 2);
+		assertTrue(model.getCredit() == 100);
+		assertTrue(model.getDisplayMessage().equals("Current Credit: $1.00"));
+	}
+
+	/**
+	 * Machines with large, far apart ids are checked without room for every id in between
+	 */
+	@Test
+	public void checksSparseMachineIds() throws Exception {
+		File dir = Files.createTempDirectory("shared").toFile();
+		SegmentedEventLog segments = new SegmentedEventLog(dir, "WorkLog", 1 << 16, 60000, 100);
+		EventLogMultiplexer multiplexer = new EventLogMultiplexer(segments);
+		int[] ids = {50000000, Integer.MAX_VALUE, 7};
+		for (int id : ids) {
+			MachineEventLog machine = multiplexer.machine(id);
+			for (int i = 0; i < 3; i++)
+				machine.writeEvent(EventCode.CREDIT_CHANGED, HardwareKind.UNKNOWN, -1, i);
+		}
+		multiplexer.close();
+
+		for (int id : ids)
+			assertTrue(segments.query(new EventQuery().machine(id)).size() == 3);
+		assertTrue(multiplexer.getMissingCount() == 0);
+		segments.close();
+	}
+
+	/**
+	 * Records dropped because the queue was full show up as a gap in the numbers of their machine
+	 */
+	@Test
+	public void reportsDroppedRecords() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+		final List<EventCode> codes = new ArrayList<EventCode>();
+		final List<Integer> values = new ArrayList<Integer>();
+		EventLogInterface slow = new EventLogInterface() {
+			@Override
+			public void writeToLog(String s) {
+			}
+
+			@Override
+			public void writeEvent(int machineId, long sequence, EventCode code, HardwareKind kind, int hardwareIndex, int value, long timeNanos) {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				codes.add(code);
+				values.add(value);
+			}
+		};
+		EventLogMultiplexer multiplexer = new EventLogMultiplexer(slow, 4, AsyncEventLog.BackpressurePolicy.DROP_NEWEST);
+		MachineEventLog machine = multiplexer.newMachine();
+		for (int i = 0; i < 20; i++)
+			machine.writeEvent(EventCode.CREDIT_CHANGED, HardwareKind.UNKNOWN, -1, i);
+		release.countDown();
+		Thread.sleep(100);
+		machine.writeEvent(EventCode.CREDIT_CHANGED, HardwareKind.UNKNOWN, -1, 20);
+		multiplexer.close();
+
+		long dropped = multiplexer.getWriter().getDroppedCount();
+		assertTrue(dropped > 0);
+		assertTrue(multiplexer.getMissingCount() == dropped);
+		int marker = codes.indexOf(EventCode.RECORDS_DROPPED);
+		assertTrue(marker >= 0);
+		assertTrue(values.get(marker) == dropped);
+		assertTrue(values.get(marker + 1) == 20);
+	}
+
+	/**
+	 * Logs of the first version, which had no machine ids, are still read, as machine 0
+	 */
+	@Test
+	public void readsVersionOneLogs() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		BinaryEventLog log = new BinaryEventLog(bytes);
+		log.writeEvent(EventCode.COIN_RACK_FULL, HardwareKind.COIN_RACK, 2, 0);
+		log.close();
+		ByteBuffer data = ByteBuffer.wrap(bytes.toByteArray());
+		data.putShort(4, (short) 1);
+
+		MachineStateModel model = new MachineStateModel();
+		assertTrue(EventReplayer.replay(data, model, EventReplayer.END_OF_LOG) == 1);
+		assertTrue(model.getEventCount() == 1);
+	}
+}
@@ -0,0 +1,139 @@
+package ca.ucalgary.seng300.a2.test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.BitSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import ca.ucalgary.seng300.a2.EventCode;
+import ca.ucalgary.seng300.a2.EventIndex;
+import ca.ucalgary.seng300.a2.EventQuery;
+import ca.ucalgary.seng300.a2.EventRecord;
+import ca.ucalgary.seng300.a2.HardwareKind;
+import ca.ucalgary.seng300.a2.SegmentedEventLog;
+
+public class TestEventQuery {
+
+	private static final long SECOND = 1000000000L;
+	private static final long START = 1500000000000L * 1000000L;
+
+	/**
+	 * Method writes one event a second, mostly coins, with pop can rack #3 emptied at second 500 and loaded at 501
+	 */
+	private SegmentedEventLog writeDay(File dir) throws IOException {
+		SegmentedEventLog log = new SegmentedEventLog(dir, "WorkLog", 400 * EventRecord.RECORD_SIZE, 24L * 60 * 60 * 1000, 100);
+		for (int i = 0; i < 1000; i++) {
+			long time = START + i * SECOND;
+			if (i == 500)
+				log.writeEvent(EventCode.POP_RACK_EMPTY, HardwareKind.POP_CAN_RACK, 3, 0, time);
+			else if (i == 501)
+				log.writeEvent(EventCode.POP_RACK_LOADED, HardwareKind.POP_CAN_RACK, 3, 10, time);
+			else
+				log.writeEvent(EventCode.COIN_RACK_COIN_ADDED, HardwareKind.COIN_RACK, i % 5, 25, time);
+		}
+		return log;
+	}
+
+	/**
+	 * The records of one rack in a time range are found across segments, in order
+	 */
+	@Test
+	public void findsRackInTimeRange() throws IOException {
+		File dir = Files.createTempDirectory("querylog").toFile();
+		SegmentedEventLog log = writeDay(dir);
+		assertTrue(SegmentedEventLog.listSegments(dir, "WorkLog").size() == 3);
+
+		List<EventRecord> found = log.query(new EventQuery()
+				.betweenNanos(START + 400 * SECOND, START + 600 * SECOND).hardware(HardwareKind.POP_CAN_RACK, 3));
+		log.close();
+
+		assertTrue(found.size() == 2);
+		assertTrue(found.get(0).getCode() == EventCode.POP_RACK_EMPTY);
+		assertTrue(found.get(1).getMessage().equals("Pop Can Rack #3 was loaded with 10cans."));
+	}
+
+	/**
+	 * Filtering by event code and by time range together only returns records matching both
+	 */
+	@Test
+	public void findsEventsByCodeAndTime() throws IOException {
+		File dir = Files.createTempDirectory("querylog").toFile();
+		SegmentedEventLog log = writeDay(dir);
+		List<EventRecord> found = log.query(new EventQuery()
+				.betweenNanos(START, START + 10 * SECOND).events(EventCode.COIN_RACK_COIN_ADDED).hardware(HardwareKind.COIN_RACK, 2));
+		log.close();
+
+		assertTrue(found.size() == 2);		// seconds 2 and 7
+		assertTrue(found.get(0).getTimeNanos() == START + 2 * SECOND);
+		assertTrue(found.get(1).getTimeNanos() == START + 7 * SECOND);
+	}
+
+	/**
+	 * The index only points a query at the blocks that can hold what it wants
+	 */
+	@Test
+	public void indexSkipsBlocks() {
+		EventIndex index = new EventIndex();
+		int offset = EventRecord.RECORD_SIZE;
+		for (int i = 0; i < 100 * EventIndex.BLOCK_RECORDS; i++) {
+			if (i == 4321)
+				index.add(offset, EventRecord.RECORD_SIZE, START + i * SECOND, EventCode.POP_RACK_EMPTY, HardwareKind.POP_CAN_RACK, 3);
+			else
+				index.add(offset, EventRecord.RECORD_SIZE, START + i * SECOND, EventCode.LIGHT_ON, HardwareKind.INDICATOR_LIGHT, -1);
+			offset += EventRecord.RECORD_SIZE;
+		}
+
+		BitSet byRack = index.candidateBlocks(new EventQuery().hardware(HardwareKind.POP_CAN_RACK, 3));
+		assertTrue(byRack.cardinality() == 1);
+		assertTrue(byRack.get(4321 / EventIndex.BLOCK_RECORDS));
+
+		BitSet byTime = index.candidateBlocks(new EventQuery().betweenNanos(START + 1000 * SECOND, START + 1100 * SECOND));
+		assertTrue(byTime.cardinality() == 3);		// records 960 to 1151
+
+		BitSet none = index.candidateBlocks(new EventQuery().events(EventCode.COIN_RETURN_FULL));
+		assertTrue(none.isEmpty());
+	}
+
+	/**
+	 * Closed segments have their index saved next to them, and a missing index is rebuilt by scanning
+	 */
+	@Test
+	public void closedSegmentsKeepIndexes() throws IOException {
+		File dir = Files.createTempDirectory("querylog").toFile();
+		writeDay(dir).close();
+		List<File> segments = SegmentedEventLog.listSegments(dir, "WorkLog");
+		for (File segment : segments)
+			assertTrue(EventIndex.indexFile(segment).isFile());
+
+		assertTrue(EventIndex.indexFile(segments.get(1)).delete());
+		List<EventRecord> found = SegmentedEventLog.query(dir, "WorkLog", new EventQuery().hardware(HardwareKind.POP_CAN_RACK));
+		assertTrue(found.size() == 2);
+		assertTrue(EventIndex.indexFile(segments.get(1)).isFile());
+	}
+
+	/**
+	 * A resumed segment is indexed again, and free text can be found by its TEXT code
+	 */
+	@Test
+	public void resumedSegmentIsQueryable() throws IOException {
+		File dir = Files.createTempDirectory("querylog").toFile();
+		SegmentedEventLog log = new SegmentedEventLog(dir, "WorkLog", 4096, 60000, 10);
+		log.writeToLog("before restart");
+		log.writeEvent(EventCode.LIGHT_ON, HardwareKind.INDICATOR_LIGHT, -1, 0);
+		log.close();
+
+		log = new SegmentedEventLog(dir, "WorkLog", 4096, 60000, 10);
+		log.writeToLog("after restart");
+		List<EventRecord> text = log.query(new EventQuery().events(EventCode.TEXT));
+		log.close();
+
+		assertTrue(text.size() == 2);
+		assertTrue(text.get(0).getMessage().equals("before restart"));
+		assertTrue(text.get(1).getMessage().equals("after restart"));
+	}
+}
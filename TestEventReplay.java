@@ -0,0 +1,170 @@
+package ca.ucalgary.seng300.a2.test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.lsmr.vending.Coin;
+import org.lsmr.vending.PopCan;
+import org.lsmr.vending.hardware.DisabledException;
+import org.lsmr.vending.hardware.VendingMachine;
+
+import ca.ucalgary.seng300.a2.EventCode;
+import ca.ucalgary.seng300.a2.EventLogMultiplexer;
+import ca.ucalgary.seng300.a2.EventRecord;
+import ca.ucalgary.seng300.a2.EventReplayer;
+import ca.ucalgary.seng300.a2.HardwareKind;
+import ca.ucalgary.seng300.a2.MachineEventLog;
+import ca.ucalgary.seng300.a2.MachineStateModel;
+import ca.ucalgary.seng300.a2.SegmentedEventLog;
+import ca.ucalgary.seng300.a2.VendingLogicReplay;
+
+public class TestEventReplay {
+
+	/**
+	 * Method creates a machine like the one the recorded log came from, with nothing loaded
+	 */
+	private VendingMachine newMachine() {
+		VendingMachine vm = new VendingMachine(new int[] {5, 10, 25, 100, 200}, 3, 10, 10, 200, 1, 50);
+		vm.configure(Arrays.asList("Coke", "Pepsi", "Sprite"), Arrays.asList(100, 150, 250));
+		return vm;
+	}
+
+	/**
+	 * Method runs a machine through a purchase, writing its log to dir
+	 * @return the time just before the selection button was pressed
+	 */
+	private long recordPurchase(File dir, VendingMachine vm) throws IOException, DisabledException {
+		SegmentedEventLog log = new SegmentedEventLog(dir, "WorkLog", 4096, 60000, 10);
+		VendingLogic logic = new VendingLogic(vm, log, false);
+		vm.getPopCanRack(0).load(new PopCan("Coke"), new PopCan("Coke"), new PopCan("Coke"));
+		vm.getCoinRack(2).load(new Coin(25), new Coin(25), new Coin(25), new Coin(25));
+		vm.getCoinSlot().addCoin(new Coin(100));
+		vm.getCoinSlot().addCoin(new Coin(25));
+		long beforePress = EventRecord.currentTimeNanos();
+		vm.getSelectionButton(0).press();
+		vm.getPopCanRack(1).disable();
+		assertTrue(logic.getCurrencyValue() == 25);
+		log.close();
+		return beforePress;
+	}
+
+	/**
+	 * The lightweight model follows credit, racks, selections and the display from the log alone
+	 */
+	@Test
+	public void modelRebuildsState() throws Exception {
+		File dir = Files.createTempDirectory("replay").toFile();
+		VendingMachine vm = newMachine();
+		recordPurchase(dir, vm);
+
+		MachineStateModel model = new MachineStateModel();
+		EventReplayer.replaySegments(dir, "WorkLog", model, EventReplayer.END_OF_LOG);
+
+		assertTrue(model.getCredit() == 25);
+		assertTrue(model.getPopCanRackCount(0) == 2);
+		assertTrue(model.getCoinRackCount(2) == 4);
+		assertTrue(model.getCoinRackValue(2) == 100);
+		assertTrue(model.getCircuitEnabled(0));
+		assertFalse(model.getCircuitEnabled(1));
+		assertFalse(model.isOutOfOrder());
+		assertTrue(model.getDisplayMessage().equals("Current Credit: $0.25"));
+	}
+
+	/**
+	 * Replay can stop at any time, giving the state of the machine then
+	 */
+	@Test
+	public void modelStopsAtTime() throws Exception {
+		File dir = Files.createTempDirectory("replay").toFile();
+		long beforePress = recordPurchase(dir, newMachine());
+
+		MachineStateModel model = new MachineStateModel();
+		EventReplayer.replaySegments(dir, "WorkLog", model, beforePress);
+
+		assertTrue(model.getCredit() == 125);
+		assertTrue(model.getPopCanRackCount(0) == 3);
+		assertTrue(model.getCircuitEnabled(1));
+	}
+
+	/**
+	 * Replaying into a fresh machine and logic makes them end up where the original did
+	 */
+	@Test
+	public void logicReplayMatchesOriginal() throws Exception {
+		File dir = Files.createTempDirectory("replay").toFile();
+		VendingMachine original = newMachine();
+		recordPurchase(dir, original);
+
+		VendingLogicReplay replay = new VendingLogicReplay(newMachine());
+		EventReplayer.replaySegments(dir, "WorkLog", replay, EventReplayer.END_OF_LOG);
+
+		assertTrue(replay.getCredit() == 25);
+		assertTrue(replay.getDisplayMessage().equals("Current Credit: $0.25"));
+		assertTrue(replay.getVendingMachine().getPopCanRack(0).size() == original.getPopCanRack(0).size());
+		assertTrue(replay.getVendingMachine().getCoinRack(2).size() == 4);
+		assertFalse(replay.getLogic().getCircuitEnabledIndex(1));
+	}
+
+	/**
+	 * The logs of several machines are replayed in parallel, each into its own model
+	 */
+	@Test
+	public void replaysMachinesInParallel() throws Exception {
+		List<File> dirs = new ArrayList<File>();
+		for (int m = 0; m < 4; m++) {
+			File dir = Files.createTempDirectory("replay").toFile();
+			SegmentedEventLog log = new SegmentedEventLog(dir, "WorkLog", 100 * EventRecord.RECORD_SIZE, 60000, 100);
+			for (int i = 0; i <= 1000 * m; i++)
+				log.writeEvent(EventCode.CREDIT_CHANGED, HardwareKind.UNKNOWN, -1, i);
+			log.close();
+			dirs.add(dir);
+		}
+
+		List<MachineStateModel> models = EventReplayer.replayMachines(dirs, "WorkLog", MachineStateModel::new, EventReplayer.END_OF_LOG);
+
+		assertTrue(models.size() == 4);
+		for (int m = 0; m < 4; m++) {
+			assertTrue(models.get(m).getCredit() == 1000 * m);
+			assertTrue(models.get(m).getEventCount() == 1000 * m + 1);
+		}
+	}
+
+	/**
+	 * The machines that share one log are replayed in parallel, each into its own model
+	 */
+	@Test
+	public void replaysSharedLogInParallel() throws Exception {
+		File dir = Files.createTempDirectory("replay").toFile();
+		SegmentedEventLog segments = new SegmentedEventLog(dir, "WorkLog", 100 * EventRecord.RECORD_SIZE, 60000, 1000);
+		EventLogMultiplexer multiplexer = new EventLogMultiplexer(segments);
+		MachineEventLog[] machines = new MachineEventLog[4];
+		int[] ids = new int[machines.length];
+		for (int m = 0; m < machines.length; m++) {
+			machines[m] = multiplexer.newMachine();
+			ids[m] = machines[m].getMachineId();
+		}
+		for (int i = 0; i <= 3000; i++) {
+			for (int m = 0; m < machines.length; m++) {
+				if (i <= 1000 * m)
+					machines[m].writeEvent(EventCode.CREDIT_CHANGED, HardwareKind.UNKNOWN, -1, i);
+			}
+		}
+		multiplexer.close();
+		segments.close();
+
+		List<MachineStateModel> models = EventReplayer.replayMachines(dir, "WorkLog", ids, MachineStateModel::new, EventReplayer.END_OF_LOG);
+
+		assertTrue(models.size() == 4);
+		for (int m = 0; m < 4; m++) {
+			assertTrue(models.get(m).getCredit() == 1000 * m);
+			assertTrue(models.get(m).getEventCount() == 1000 * m + 1);
+		}
+	}
+}
@@ -0,0 +1,219 @@
+package ca.ucalgary.seng300.a2.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import org.lsmr.vending.hardware.AbstractHardware;
+import org.lsmr.vending.hardware.AbstractHardwareListener;
+import org.lsmr.vending.hardware.HardwareEventBus;
+import org.lsmr.vending.hardware.HardwareEventBus.Strand;
+import org.lsmr.vending.hardware.PushButton;
+import org.lsmr.vending.hardware.PushButtonListener;
+import org.lsmr.vending.hardware.VendingMachine;
+
+public class TestHardwareEventBus {
+
+	/**
+	 * Records which button was pressed, after an optional pause, and can fail on a given button
+	 */
+	private static class Recorder implements PushButtonListener {
+		final List<Integer> presses = Collections.synchronizedList(new ArrayList<Integer>());
+		final VendingMachine vm;
+		long sleepMillis;
+		int failOn = -1;
+
+		Recorder(VendingMachine vm) {
+			this.vm = vm;
+		}
+
+		@Override
+		public void enabled(AbstractHardware<? extends AbstractHardwareListener> hardware) {
+		}
+
+		@Override
+		public void disabled(AbstractHardware<? extends AbstractHardwareListener> hardware) {
+		}
+
+		@Override
+		public void pressed(PushButton button) {
+			if (sleepMillis > 0) {
+				try {
+					Thread.sleep(sleepMillis);
+				} catch (InterruptedException e) {
+				}
+			}
+			for (int i = 0; i < vm.getNumberOfSelectionButtons(); i++) {
+				if (vm.getSelectionButton(i) == button) {
+					presses.add(i);
+					if (i == failOn)
+						throw new IllegalStateException("failing on purpose");
+				}
+			}
+		}
+	}
+
+	private static VendingMachine machine(HardwareEventBus bus, Recorder[] recorder) {
+		VendingMachine vm = new VendingMachine(new int[] {5, 10, 25, 100, 200}, 6, 10, 10, 200, 1, 50);
+		recorder[0] = new Recorder(vm);
+		for (int i = 0; i < vm.getNumberOfSelectionButtons(); i++)
+			vm.getSelectionButton(i).register(recorder[0]);
+		vm.setEventBus(bus);
+		return vm;
+	}
+
+	/**
+	 * A slow listener no longer holds up the button press
+	 */
+	@Test
+	public void slowListenersRunOffThread() throws Exception {
+		HardwareEventBus bus = new HardwareEventBus(2);
+		Recorder[] recorder = new Recorder[1];
+		VendingMachine vm = machine(bus, recorder);
+		recorder[0].sleepMillis = 200;
+		long start = System.nanoTime();
+		vm.getSelectionButton(0).press();
+		assertTrue(System.nanoTime() - start < 100 * 1000000L);
+		assertTrue(bus.awaitIdle(5000));
+		assertEquals(Collections.singletonList(0), recorder[0].presses);
+		assertTrue(bus.getMaxLatencyNanos() >= 0 && bus.getAnnouncedCount() == 1);
+		bus.shutdown();
+	}
+
+	/**
+	 * Each machine's events are announced in the order they happened, while machines run side by side
+	 */
+	@Test
+	public void keepsOrderPerMachine() throws Exception {
+		HardwareEventBus bus = new HardwareEventBus(4);
+		final int machines = 4;
+		final int presses = 2000;
+		final Recorder[] recorders = new Recorder[machines];
+		final VendingMachine[] vms = new VendingMachine[machines];
+		for (int m = 0; m < machines; m++) {
+			Recorder[] recorder = new Recorder[1];
+			vms[m] = machine(bus, recorder);
+			recorders[m] = recorder[0];
+		}
+		Thread[] pressers = new Thread[machines];
+		for (int m = 0; m < machines; m++) {
+			final VendingMachine vm = vms[m];
+			pressers[m] = new Thread(() -> {
+				for (int i = 0; i < presses; i++)
+					vm.getSelectionButton(i % 6).press();
+			});
+			pressers[m].start();
+		}
+		for (Thread presser : pressers)
+			presser.join();
+		assertTrue(bus.awaitIdle(10000));
+		for (Recorder recorder : recorders) {
+			assertTrue(recorder.presses.size() == presses);
+			for (int i = 0; i < presses; i++)
+				assertTrue(recorder.presses.get(i) == i % 6);
+		}
+		assertTrue(bus.getQueueDepth() == 0 && bus.getMaxQueueDepth() >= 1);
+		assertTrue(bus.getAnnouncedCount() == machines * presses);
+		bus.shutdown();
+	}
+
+	/**
+	 * A listener that throws is counted, and the events after it are still announced
+	 */
+	@Test
+	public void failuresDoNotStopTheStrand() throws Exception {
+		HardwareEventBus bus = new HardwareEventBus(1);
+		Recorder[] recorder = new Recorder[1];
+		VendingMachine vm = machine(bus, recorder);
+		recorder[0].failOn = 1;
+		for (int i = 0; i < 3; i++)
+			vm.getSelectionButton(i).press();
+		assertTrue(bus.awaitIdle(5000));
+		assertTrue(recorder[0].presses.size() == 3 && bus.getFailureCount() == 1);
+
+		vm.setEventBus(null);		// back to announcing on the pressing thread
+		vm.getSelectionButton(4).press();
+		assertTrue(recorder[0].presses.get(3) == 4);
+		bus.shutdown();
+	}
+
+	/**
+	 * Shutting down discards what is still queued, so the bus is idle, and later events are announced inline
+	 */
+	@Test
+	public void shutdownDiscardsQueuedEvents() throws Exception {
+		HardwareEventBus bus = new HardwareEventBus(1);
+		Recorder[] recorder = new Recorder[1];
+		VendingMachine vm = machine(bus, recorder);
+		recorder[0].sleepMillis = 100;
+		for (int i = 0; i < 5; i++)
+			vm.getSelectionButton(i).press();
+		bus.shutdown();
+		assertTrue(bus.awaitIdle(5000));
+		assertTrue(bus.getQueueDepth() == 0);
+		assertTrue(bus.getDiscardedCount() + bus.getAnnouncedCount() == 5 && bus.getDiscardedCount() >= 3);
+
+		recorder[0].sleepMillis = 0;
+		int before = recorder[0].presses.size();
+		vm.getSelectionButton(5).press();
+		assertTrue(recorder[0].presses.size() == before + 1);
+	}
+
+	/**
+	 * Presses that race with a shutdown never fail, and the bus still becomes idle
+	 */
+	@Test
+	public void pressesRacingShutdownDoNotFail() throws Exception {
+		for (int round = 0; round < 20; round++) {
+			HardwareEventBus bus = new HardwareEventBus(2);
+			Recorder[] recorder = new Recorder[1];
+			final VendingMachine vm = machine(bus, recorder);
+			final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+			final CountDownLatch started = new CountDownLatch(1);
+			Thread presser = new Thread(() -> {
+				try {
+					started.countDown();
+					for (int i = 0; i < 2000; i++)
+						vm.getSelectionButton(i % 6).press();
+				} catch (Throwable t) {
+					failure.set(t);
+				}
+			});
+			presser.start();
+			started.await();
+			bus.shutdown();
+			presser.join();
+			assertNull(failure.get());
+			assertTrue(bus.awaitIdle(5000));
+			assertTrue(recorder[0].presses.size() + bus.getDiscardedCount() == 2000);		// each press announced or discarded once
+		}
+	}
+
+	/**
+	 * The bus does not keep the strands of machines moved to another strand or thrown away
+	 */
+	@Test
+	public void letsGoOfUnusedStrands() throws Exception {
+		HardwareEventBus bus = new HardwareEventBus(1);
+		Recorder[] recorder = new Recorder[1];
+		VendingMachine vm = machine(bus, recorder);
+		vm.getSelectionButton(0).press();
+		assertTrue(bus.awaitIdle(5000));
+		WeakReference<Strand> replaced = new WeakReference<Strand>(vm.getSelectionButton(0).getEventStrand());
+		vm.setEventBus(bus);
+		WeakReference<Strand> unused = new WeakReference<Strand>(bus.newStrand());
+		for (int i = 0; i < 50 && (replaced.get() != null || unused.get() != null); i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertNull(replaced.get());
+		assertNull(unused.get());
+		bus.shutdown();
+	}
+}
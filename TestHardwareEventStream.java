@@ -0,0 +1,128 @@
+package ca.ucalgary.seng300.a2.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.lsmr.vending.Coin;
+import org.lsmr.vending.PopCan;
+import org.lsmr.vending.hardware.AbstractHardware;
+import org.lsmr.vending.hardware.HardwareEvent;
+import org.lsmr.vending.hardware.HardwareEventBus;
+import org.lsmr.vending.hardware.HardwareEventSink;
+import org.lsmr.vending.hardware.HardwareEventStream;
+import org.lsmr.vending.hardware.VendingMachine;
+
+public class TestHardwareEventStream {
+
+	/**
+	 * Copies out what it needs from each event, since events are reused
+	 */
+	private static class Recorder implements HardwareEventSink {
+		final List<HardwareEvent.Type> types = new ArrayList<HardwareEvent.Type>();
+		final List<AbstractHardware<?>> sources = new ArrayList<AbstractHardware<?>>();
+		final List<Object> payloads = new ArrayList<Object>();
+
+		@Override
+		public void onEvent(HardwareEvent event) {
+			types.add(event.getType());
+			sources.add(event.getSource());
+			if (event.getCoin() != null)
+				payloads.add(event.getCoin().getValue());
+			else if (event.getPopCan() != null)
+				payloads.add(event.getPopCan().getName());
+			else if (event.getPopCans() != null)
+				payloads.add(event.getPopCans().length);
+			else
+				payloads.add(event.getNewMessage());
+		}
+	}
+
+	private static VendingMachine machine() {
+		return new VendingMachine(new int[] {5, 10, 25, 100, 200}, 6, 10, 10, 200, 1, 50);
+	}
+
+	/**
+	 * One sink sees the events of every kind of device, in order, with their source and payload
+	 */
+	@Test
+	public void seesEveryDeviceInOrder() throws Exception {
+		VendingMachine vm = machine();
+		HardwareEventStream stream = new HardwareEventStream();
+		Recorder recorder = new Recorder();
+		stream.subscribe(recorder);
+		vm.setEventStream(stream);
+
+		vm.getPopCanRack(0).load(new PopCan("Coke"), new PopCan("Coke"));
+		vm.getCoinSlot().addCoin(new Coin(25));
+		vm.getSelectionButton(3).press();
+		vm.getDisplay().display("Hi");
+		vm.getExactChangeLight().activate();
+
+		assertEquals(Arrays.asList(HardwareEvent.Type.POP_CANS_LOADED, HardwareEvent.Type.COIN_ADDED,
+				HardwareEvent.Type.VALID_COIN_INSERTED, HardwareEvent.Type.PRESSED, HardwareEvent.Type.MESSAGE_CHANGE,
+				HardwareEvent.Type.ACTIVATED), recorder.types);
+		assertTrue(recorder.sources.get(0) == vm.getPopCanRack(0));
+		assertTrue(recorder.sources.get(1) == vm.getCoinReceptacle());		// the slot passes the coin on before it reports it
+		assertTrue(recorder.sources.get(2) == vm.getCoinSlot());
+		assertTrue(recorder.sources.get(3) == vm.getSelectionButton(3));
+		assertEquals(Arrays.<Object>asList(2, 25, 25, null, "Hi", null), recorder.payloads);
+	}
+
+	/**
+	 * Once warmed up, publishing reuses the same few event objects
+	 */
+	@Test
+	public void reusesEvents() {
+		VendingMachine vm = machine();
+		HardwareEventStream stream = new HardwareEventStream();
+		final int[] seen = new int[1];
+		stream.subscribe(event -> seen[0]++);
+		vm.setEventStream(stream);
+		for (int i = 0; i < 10000; i++)
+			vm.getSelectionButton(i % 6).press();
+		assertTrue(seen[0] == 10000);
+		assertTrue(stream.getCreatedCount() == 1);
+	}
+
+	/**
+	 * An unsubscribed sink sees nothing more, and a machine taken off the stream publishes nothing
+	 */
+	@Test
+	public void unsubscribes() {
+		VendingMachine vm = machine();
+		HardwareEventStream stream = new HardwareEventStream();
+		Recorder recorder = new Recorder();
+		Recorder other = new Recorder();
+		stream.subscribe(recorder);
+		stream.subscribe(other);
+		vm.setEventStream(stream);
+		vm.getSelectionButton(0).press();
+		assertTrue(stream.unsubscribe(recorder));
+		assertFalse(stream.unsubscribe(recorder));
+		vm.getSelectionButton(1).press();
+		vm.setEventStream(null);
+		vm.getSelectionButton(2).press();
+		assertTrue(recorder.types.size() == 1 && other.types.size() == 2);
+	}
+
+	/**
+	 * Events are published on the thread that causes them even when the listeners run on a bus
+	 */
+	@Test
+	public void publishesBeforeTheBus() throws Exception {
+		VendingMachine vm = machine();
+		HardwareEventBus bus = new HardwareEventBus(1);
+		HardwareEventStream stream = new HardwareEventStream();
+		final List<Thread> threads = new ArrayList<Thread>();
+		stream.subscribe(event -> threads.add(Thread.currentThread()));
+		vm.setEventBus(bus);
+		vm.setEventStream(stream);
+		vm.getSelectionButton(0).press();
+		assertTrue(threads.size() == 1 && threads.get(0) == Thread.currentThread());
+		bus.shutdown();
+	}
+}
@@ -0,0 +1,156 @@
+package ca.ucalgary.seng300.a2.test;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.lsmr.vending.hardware.AbstractHardware;
+import org.lsmr.vending.hardware.AbstractHardwareListener;
+import org.lsmr.vending.hardware.PushButton;
+import org.lsmr.vending.hardware.PushButtonListener;
+
+public class TestHardwareListeners {
+
+	/**
+	 * A listener that counts presses, and can run something when pressed
+	 */
+	private static class Counter implements PushButtonListener {
+		final AtomicInteger presses = new AtomicInteger();
+		Runnable onPress;
+
+		@Override
+		public void enabled(AbstractHardware<? extends AbstractHardwareListener> hardware) {
+		}
+
+		@Override
+		public void disabled(AbstractHardware<? extends AbstractHardwareListener> hardware) {
+		}
+
+		@Override
+		public void pressed(PushButton button) {
+			presses.incrementAndGet();
+			if (onPress != null)
+				onPress.run();
+		}
+	}
+
+	/**
+	 * A listener registered or removed while an event is announced takes effect from the next event
+	 */
+	@Test
+	public void changesDuringDispatchApplyToTheNextEvent() {
+		final PushButton button = new PushButton();
+		final Counter first = new Counter();
+		final Counter late = new Counter();
+		final Counter second = new Counter();
+		first.onPress = () -> {
+			button.register(late);
+			button.deregister(second);
+		};
+		button.register(first);
+		button.register(second);
+		button.press();
+		assertTrue(first.presses.get() == 1 && second.presses.get() == 1 && late.presses.get() == 0);
+		first.onPress = null;
+		button.press();
+		assertTrue(first.presses.get() == 2 && second.presses.get() == 1 && late.presses.get() == 1);
+	}
+
+	/**
+	 * Deregistering removes one registration, in order, and reports whether there was one
+	 */
+	@Test
+	public void deregistersOneAtATime() {
+		PushButton button = new PushButton();
+		Counter counter = new Counter();
+		button.register(counter);
+		button.register(counter);
+		assertTrue(button.deregister(counter));
+		button.press();
+		assertTrue(counter.presses.get() == 1);
+		assertTrue(button.deregister(counter));
+		assertFalse(button.deregister(counter));
+		button.register(counter);
+		button.deregisterAll();
+		button.press();
+		assertTrue(counter.presses.get() == 1);
+	}
+
+	/**
+	 * Threads registering listeners while another presses the button lose no registration and throw nothing
+	 */
+	@Test
+	public void registersWhileAnotherThreadDispatches() throws Exception {
+		final PushButton button = new PushButton();
+		final int threads = 4;
+		final int perThread = 500;
+		final Counter[] counters = new Counter[threads * perThread];
+		for (int i = 0; i < counters.length; i++)
+			counters[i] = new Counter();
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		final AtomicInteger done = new AtomicInteger();
+		Thread presser = new Thread(() -> {
+			try {
+				while (done.get() < threads)
+					button.press();
+			} catch (Throwable t) {
+				failure.set(t);
+			}
+		});
+		presser.start();
+		Thread[] registrars = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			final int from = t * perThread;
+			registrars[t] = new Thread(() -> {
+				for (int i = from; i < from + perThread; i++)
+					button.register(counters[i]);
+				done.incrementAndGet();
+			});
+			registrars[t].start();
+		}
+		for (Thread registrar : registrars)
+			registrar.join();
+		presser.join();
+		assertNull(failure.get());
+		for (Counter counter : counters)
+			counter.presses.set(0);
+		button.press();
+		for (Counter counter : counters)
+			assertTrue(counter.presses.get() == 1);
+	}
+
+	/**
+	 * Announcing an event to listeners directly, without an event bus, creates no objects
+	 */
+	@Test
+	public void announcingDirectlyDoesNotAllocate() {
+		PushButton button = new PushButton();
+		Counter counter = new Counter();
+		button.register(counter);
+		button.register(new Counter());
+		for (int i = 0; i < 10; i++)		// loads the classes, but is too short for the compiler to optimise an object away
+			button.press();
+
+		allocatedBytes();
+		long cost = -allocatedBytes() + allocatedBytes();
+		long before = allocatedBytes();
+		for (int i = 0; i < 10000; i++)
+			button.press();
+		long used = allocatedBytes() - before - cost;
+
+		assertTrue(counter.presses.get() == 10010);
+		assertTrue("allocated " + used + " bytes", used < 10000);		// any object per press is at least 16 bytes
+	}
+
+	private static long allocatedBytes() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+		Assume.assumeTrue(sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled());
+		return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+}
@@ -0,0 +1,101 @@
+package ca.ucalgary.seng300.a2.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.lsmr.vending.hardware.VendingMachine;
+
+import ca.ucalgary.seng300.a2.HashedWheelTimer;
+import ca.ucalgary.seng300.a2.VendingLogic;
+
+public class TestHashedWheelTimer {
+
+	/**
+	 * A task runs once, no earlier than its delay and not much later
+	 */
+	@Test
+	public void runsAfterDelay() throws Exception {
+		HashedWheelTimer timer = new HashedWheelTimer(5, 8);
+		final CountDownLatch ran = new CountDownLatch(1);
+		long start = System.nanoTime();
+		HashedWheelTimer.Timeout timeout = timer.schedule(ran::countDown, 100);
+		assertTrue(ran.await(2, TimeUnit.SECONDS));
+		long elapsedMillis = (System.nanoTime() - start) / 1000000L;
+		assertTrue(elapsedMillis >= 100);
+		Thread.sleep(20);
+		assertTrue(timeout.isExpired());
+		timer.stop();
+	}
+
+	/**
+	 * A delay longer than a turn of the wheel waits out the whole turns
+	 */
+	@Test
+	public void waitsWholeTurns() throws Exception {
+		HashedWheelTimer timer = new HashedWheelTimer(5, 4);		// a turn is 20ms
+		final CountDownLatch ran = new CountDownLatch(1);
+		long start = System.nanoTime();
+		timer.schedule(ran::countDown, 130);
+		assertTrue(ran.await(2, TimeUnit.SECONDS));
+		assertTrue((System.nanoTime() - start) / 1000000L >= 130);
+		timer.stop();
+	}
+
+	/**
+	 * Cancelled tasks never run, and cancelling twice does nothing
+	 */
+	@Test
+	public void cancelledTasksDoNotRun() throws Exception {
+		HashedWheelTimer timer = new HashedWheelTimer(5, 64);
+		final AtomicInteger runs = new AtomicInteger();
+		List<HashedWheelTimer.Timeout> timeouts = new ArrayList<HashedWheelTimer.Timeout>();
+		for (int i = 0; i < 100000; i++)
+			timeouts.add(timer.schedule(runs::incrementAndGet, 300));
+		for (HashedWheelTimer.Timeout timeout : timeouts)
+			assertTrue(timeout.cancel());
+		assertFalse(timeouts.get(0).cancel());
+		Thread.sleep(500);
+		assertTrue(runs.get() == 0);
+		timer.stop();
+	}
+
+	/**
+	 * A repeating task keeps running until it is cancelled
+	 */
+	@Test
+	public void repeatsUntilCancelled() throws Exception {
+		HashedWheelTimer timer = new HashedWheelTimer(5, 16);
+		final AtomicInteger runs = new AtomicInteger();
+		HashedWheelTimer.Timeout timeout = timer.scheduleAtFixedRate(runs::incrementAndGet, 0, 20);
+		Thread.sleep(230);
+		timeout.cancel();
+		int stopped = runs.get();
+		assertTrue(stopped >= 8 && stopped <= 13);
+		Thread.sleep(100);
+		assertTrue(runs.get() == stopped);
+		timer.stop();
+	}
+
+	/**
+	 * The welcome cycles of many machines share the timer instead of each starting two threads
+	 */
+	@Test
+	public void machinesShareTheTimer() throws Exception {
+		HashedWheelTimer.getShared();
+		int threadsBefore = Thread.activeCount();
+		for (int i = 0; i < 200; i++) {
+			VendingMachine vm = new VendingMachine(new int[] {5, 10, 25, 100, 200}, 3, 10, 10, 200, 1, 50);
+			vm.configure(Arrays.asList("Coke", "Pepsi", "Sprite"), Arrays.asList(100, 150, 250));
+			VendingLogic logic = new VendingLogic(vm, new EventStub(), true);
+			logic.welcomeMessageTimer();		// starting the cycle again replaces it
+		}
+		assertTrue(Thread.activeCount() <= threadsBefore + 2);
+	}
+}
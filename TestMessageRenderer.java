@@ -0,0 +1,83 @@
+package ca.ucalgary.seng300.a2.test;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.lsmr.vending.Coin;
+import org.lsmr.vending.hardware.VendingMachine;
+
+import ca.ucalgary.seng300.a2.MessageRenderer;
+import ca.ucalgary.seng300.a2.VendingLogic;
+
+public class TestMessageRenderer {
+
+	private VendingMachine machine() {
+		VendingMachine vm = new VendingMachine(new int[] {5, 10, 25, 100, 200}, 3, 10, 10, 200, 1, 50);
+		vm.configure(Arrays.asList("Coke", "Pepsi", "Sprite"), Arrays.asList(100, 150, 275));
+		return vm;
+	}
+
+	/**
+	 * Amounts read the same as they did when they were worked out with doubles
+	 */
+	@Test
+	public void matchesTheOldFormat() {
+		for (int cents = 0; cents <= 200000; cents++)
+			assertTrue(MessageRenderer.formatDollars(cents).equals(Double.toString(((double) cents) / 100)));
+		assertTrue(MessageRenderer.formatDollars(5).equals("0.05"));
+		assertTrue(MessageRenderer.formatDollars(-25).equals("-0.25"));
+	}
+
+	/**
+	 * A credit seen recently comes from the cache, and is the same string
+	 */
+	@Test
+	public void cachesCreditMessages() {
+		MessageRenderer renderer = new MessageRenderer(machine(), 16);
+		long built = renderer.getBuiltCount();
+		String first = renderer.credit(125);
+		assertTrue(first.equals("Current Credit: $1.25"));
+		assertTrue(renderer.credit(125) == first);
+		assertTrue(renderer.getBuiltCount() == built + 1);
+		renderer.credit(125 + 16);		// takes the same slot
+		assertTrue(renderer.credit(125).equals(first));
+		assertTrue(renderer.getBuiltCount() == built + 3);
+	}
+
+	/**
+	 * Prices are built up front and rebuilt when the machine is configured again
+	 */
+	@Test
+	public void rebuildsPricesAfterConfigure() {
+		VendingMachine vm = machine();
+		MessageRenderer renderer = new MessageRenderer(vm);
+		long built = renderer.getBuiltCount();
+		assertTrue(renderer.price(2).equals("Price of Sprite: $2.75"));
+		assertTrue(renderer.price(0) == renderer.price(0));
+		assertTrue(renderer.getBuiltCount() == built);
+
+		vm.configure(Arrays.asList("Coke", "Pepsi", "Fanta"), Arrays.asList(100, 150, 260));
+		assertTrue(renderer.price(2).equals("Price of Fanta: $2.6"));
+		assertTrue(renderer.price(0).equals("Price of Coke: $1.0"));
+		assertTrue(renderer.getBuiltCount() == built + 1);
+	}
+
+	/**
+	 * The machine does not build a message again for a credit already shown
+	 */
+	@Test
+	public void coinsReuseMessages() throws Exception {
+		VendingMachine vm = machine();
+		VendingLogic logic = new VendingLogic(vm, new EventStub(), false);
+		vm.getCoinSlot().addCoin(new Coin(25));
+		String quarter = logic.getCurrentMessage();
+		assertTrue(quarter.equals("Current Credit: $0.25"));
+		vm.getSelectionButton(0).press();		// shows the price, then the credit again
+		assertTrue(logic.getCurrentMessage() == quarter);
+		vm.getCoinSlot().addCoin(new Coin(100));
+		vm.getSelectionButton(2).press();
+		assertTrue(logic.getCurrentMessage().equals("Current Credit: $1.25"));
+	}
+}
@@ -0,0 +1,108 @@
+package ca.ucalgary.seng300.a2.test;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import ca.ucalgary.seng300.a2.BalancedPayout;
+import ca.ucalgary.seng300.a2.ChangeSolver;
+import ca.ucalgary.seng300.a2.FewestCoinsPayout;
+import ca.ucalgary.seng300.a2.PayoutPlanCache;
+
+public class TestPayoutPlanCache {
+
+	private static final int[] DENOMINATIONS = {5, 10, 25, 100, 200};
+	private static final int[] CAPACITIES = {50, 50, 50, 50, 50};
+
+	/**
+	 * The same credit with the same coins is worked out once
+	 */
+	@Test
+	public void repeatsAreHits() {
+		PayoutPlanCache cache = new PayoutPlanCache(DENOMINATIONS, CAPACITIES, new FewestCoinsPayout(), 8);
+		int[] counts = {10, 10, 10, 10, 10};
+		int[] first = cache.payout(75, counts);
+		assertArrayEquals(new int[] {0, 0, 3, 0, 0}, first);
+		first[2] = 99;		// the plan handed out is a copy
+		assertArrayEquals(new int[] {0, 0, 3, 0, 0}, cache.payout(75, counts));
+		assertTrue(cache.getHits() == 1 && cache.getMisses() == 1);
+	}
+
+	/**
+	 * A rack change drops only the plans that depended on the rack's count
+	 */
+	@Test
+	public void invalidatesPrecisely() {
+		PayoutPlanCache cache = new PayoutPlanCache(DENOMINATIONS, CAPACITIES, new FewestCoinsPayout(), 8);
+		int[] counts = {10, 10, 5, 10, 10};
+		cache.payout(25, counts);
+		cache.payout(150, counts);
+		cache.payout(10, counts);
+
+		counts[2] = 4;		// a quarter paid out: 150 cents could use five, 25 cents only one
+		cache.rackChanged(2, 4);
+		assertTrue(cache.size() == 2 && cache.getInvalidations() == 1);
+		cache.payout(25, counts);
+		cache.payout(10, counts);
+		assertTrue(cache.getHits() == 2);
+
+		counts[2] = 0;		// the last quarter
+		cache.rackChanged(2, 0);
+		assertTrue(cache.size() == 1);
+		assertArrayEquals(new int[] {1, 2, 0, 0, 0}, cache.payout(25, counts));
+	}
+
+	/**
+	 * The least recently used plan makes room for a new one
+	 */
+	@Test
+	public void evictsLeastRecentlyUsed() {
+		PayoutPlanCache cache = new PayoutPlanCache(DENOMINATIONS, CAPACITIES, new FewestCoinsPayout(), 2);
+		int[] counts = {10, 10, 10, 10, 10};
+		cache.payout(25, counts);
+		cache.payout(50, counts);
+		cache.payout(25, counts);
+		cache.payout(75, counts);		// drops 50
+		assertTrue(cache.getEvictions() == 1 && cache.size() == 2);
+		cache.payout(25, counts);
+		assertTrue(cache.getHits() == 2);
+		cache.payout(50, counts);
+		assertTrue(cache.getMisses() == 4);
+	}
+
+	/**
+	 * Plans handed out, hit or not, pay what a fresh solve pays, for either strategy
+	 */
+	@Test
+	public void agreesWithWorkingItOut() {
+		PayoutPlanCache[] caches = {new PayoutPlanCache(DENOMINATIONS, CAPACITIES, new FewestCoinsPayout(), 16),
+				new PayoutPlanCache(DENOMINATIONS, CAPACITIES, new BalancedPayout(), 16)};
+		ChangeSolver solver = ChangeSolver.forDenominations(DENOMINATIONS);
+		Random random = new Random(5);
+		int[] counts = {8, 8, 8, 8, 8};
+		int[] credits = {0, 25, 50, 75, 100, 125, 275, 390};
+		for (int step = 0; step < 1000; step++) {
+			int rack = random.nextInt(counts.length);
+			int before = counts[rack];
+			counts[rack] = Math.max(0, Math.min(CAPACITIES[rack], counts[rack] + random.nextInt(5) - 2));
+			if (counts[rack] != before) {
+				for (PayoutPlanCache cache : caches)
+					cache.rackChanged(rack, counts[rack]);
+			}
+			int credit = credits[random.nextInt(credits.length)];
+			int expected = solver.withCounts(counts).largestPayable(credit);
+			for (PayoutPlanCache cache : caches) {
+				int[] plan = cache.payout(credit, counts);
+				int paid = 0;
+				for (int i = 0; i < plan.length; i++) {
+					assertTrue(plan[i] <= counts[i]);
+					paid += plan[i] * DENOMINATIONS[i];
+				}
+				assertTrue(paid == expected);
+			}
+		}
+		assertTrue(caches[0].getHits() > caches[1].getHits());		// fewest coins depends on less of the counts
+	}
+}
@@ -0,0 +1,121 @@
+package ca.ucalgary.seng300.a2.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import ca.ucalgary.seng300.a2.BalancedPayout;
+import ca.ucalgary.seng300.a2.ChangeSolver;
+import ca.ucalgary.seng300.a2.EventCode;
+import ca.ucalgary.seng300.a2.FewestCoinsPayout;
+import ca.ucalgary.seng300.a2.HardwareKind;
+import ca.ucalgary.seng300.a2.PayoutSimulator;
+import ca.ucalgary.seng300.a2.PayoutStrategy;
+
+public class TestPayoutStrategy {
+
+	private static final int[] DENOMINATIONS = {5, 10, 25, 100, 200};
+	private static final int[] CAPACITIES = {50, 50, 50, 50, 50};
+
+	/**
+	 * Whatever the racks hold, both strategies pay exactly the amount from the coins there are, or both cannot
+	 */
+	@Test
+	public void paysExactly() {
+		PayoutStrategy[] strategies = {new FewestCoinsPayout(), new BalancedPayout()};
+		ChangeSolver solver = ChangeSolver.forDenominations(DENOMINATIONS);
+		Random random = new Random(3);
+		for (int trial = 0; trial < 200; trial++) {
+			int[] counts = new int[DENOMINATIONS.length];
+			for (int i = 0; i < counts.length; i++)
+				counts[i] = random.nextInt(6);
+			int amount = 5 * random.nextInt(80);
+			boolean payable = solver.withCounts(counts).canPay(amount);
+			for (PayoutStrategy strategy : strategies) {
+				int[] coins = strategy.payout(amount, DENOMINATIONS, counts.clone(), CAPACITIES);
+				assertTrue((coins != null) == payable);
+				if (coins == null)
+					continue;
+				int paid = 0;
+				for (int i = 0; i < coins.length; i++) {
+					assertTrue(coins[i] >= 0 && coins[i] <= counts[i]);
+					paid += coins[i] * DENOMINATIONS[i];
+				}
+				assertTrue(paid == amount);
+			}
+		}
+	}
+
+	/**
+	 * Fewest coins pays as the solver does
+	 */
+	@Test
+	public void fewestCoinsMatchesTheSolver() {
+		int[] counts = {4, 4, 4, 1, 0};
+		int[] expected = ChangeSolver.forDenominations(DENOMINATIONS).payout(140, counts);
+		assertArrayEquals(expected, new FewestCoinsPayout().payout(140, DENOMINATIONS, counts, CAPACITIES));
+	}
+
+	/**
+	 * A full rack is drawn from before one that is nearly empty, even if that takes more coins
+	 */
+	@Test
+	public void drawsFromFullerRacks() {
+		int[] coins = new BalancedPayout().payout(50, new int[] {10, 25}, new int[] {40, 2}, new int[] {50, 50});
+		assertArrayEquals(new int[] {5, 0}, coins);
+		coins = new FewestCoinsPayout().payout(50, new int[] {10, 25}, new int[] {40, 2}, new int[] {50, 50});
+		assertArrayEquals(new int[] {0, 2}, coins);
+	}
+
+	/**
+	 * Over a mix of purchases, keeping the racks balanced needs no more refills than paying with the fewest coins
+	 */
+	@Test
+	public void balancedNeedsFewerRefills() {
+		List<PayoutSimulator.Purchase> traffic = new ArrayList<PayoutSimulator.Purchase>();
+		Random random = new Random(11);
+		int[] prices = {125, 150, 175, 225};
+		for (int i = 0; i < 500; i++) {
+			int price = prices[random.nextInt(prices.length)];
+			List<Integer> inserted = new ArrayList<Integer>();
+			int total = 0;
+			while (total < price) {
+				int coin = random.nextBoolean() ? 200 : 100;
+				inserted.add(coin);
+				total += coin;
+			}
+			int[] coins = new int[inserted.size()];
+			for (int j = 0; j < coins.length; j++)
+				coins[j] = inserted.get(j);
+			traffic.add(new PayoutSimulator.Purchase(coins, total - price));
+		}
+		PayoutSimulator simulator = new PayoutSimulator(DENOMINATIONS, new int[] {25, 25, 25, 25, 25}, CAPACITIES);
+		PayoutSimulator.Report fewest = simulator.run(new FewestCoinsPayout(), traffic, 4);
+		PayoutSimulator.Report balanced = simulator.run(new BalancedPayout(), traffic, 4);
+		assertTrue(fewest.getPurchases() == 2000 && balanced.getPurchases() == 2000);
+		assertTrue(balanced.getRefills() <= fewest.getRefills());
+		assertTrue(simulator.improvement(new FewestCoinsPayout(), new BalancedPayout(), traffic, 4) >= 1);
+	}
+
+	/**
+	 * The recorder finds each purchase in a log: the coins put in before it and the credit left after it
+	 */
+	@Test
+	public void recordsPurchasesFromTheLog() {
+		PayoutSimulator.Recorder recorder = new PayoutSimulator.Recorder();
+		recorder.apply(0, EventCode.COIN_INSERTED, HardwareKind.COIN_SLOT, -1, 100, null);
+		recorder.apply(0, EventCode.CREDIT_CHANGED, HardwareKind.UNKNOWN, -1, 100, null);
+		recorder.apply(0, EventCode.COIN_INSERTED, HardwareKind.COIN_SLOT, -1, 200, null);
+		recorder.apply(0, EventCode.CREDIT_CHANGED, HardwareKind.UNKNOWN, -1, 300, null);
+		recorder.apply(0, EventCode.SELECTION_PRESSED, HardwareKind.PUSH_BUTTON, 0, 0, null);
+		recorder.apply(0, EventCode.CREDIT_CHANGED, HardwareKind.UNKNOWN, -1, 50, null);
+		recorder.apply(0, EventCode.CREDIT_CHANGED, HardwareKind.UNKNOWN, -1, 0, null);		// the change paid
+		assertTrue(recorder.getPurchases().size() == 1);
+		assertArrayEquals(new int[] {100, 200}, recorder.getPurchases().get(0).getCoins());
+		assertTrue(recorder.getPurchases().get(0).getChange() == 50);
+	}
+}
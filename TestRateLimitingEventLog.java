@@ -0,0 +1,157 @@
+package ca.ucalgary.seng300.a2.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import ca.ucalgary.seng300.a2.EventCode;
+import ca.ucalgary.seng300.a2.EventLogInterface;
+import ca.ucalgary.seng300.a2.HardwareKind;
+import ca.ucalgary.seng300.a2.MachineStateModel;
+import ca.ucalgary.seng300.a2.RateLimitingEventLog;
+
+public class TestRateLimitingEventLog {
+
+	private static final long MINUTE = 60 * 1000;
+	private static final long START = 1500000000000L;
+
+	/**
+	 * The welcome cycle writes each message twice, then one summary for each
+	 */
+	@Test
+	public void collapsesWelcomeCycle() {
+		RecordingLog recorded = new RecordingLog();
+		RateLimitingEventLog log = new RateLimitingEventLog(recorded);
+		log.configure(HardwareKind.DISPLAY, 60 * MINUTE, RateLimitingEventLog.UNLIMITED, true);
+		for (int i = 0; i < 240; i++) {
+			log.writeToLog("Hi There!", START + i * 15000);
+			log.writeToLog("", START + i * 15000 + 5000);
+		}
+		assertTrue(recorded.texts.size() == 4);
+
+		log.writeSummaries();
+		assertTrue(recorded.texts.size() == 6);
+		assertTrue(recorded.texts.get(2).equals("Hi There!"));
+		assertTrue(recorded.texts.get(3).equals(""));
+		assertTrue(recorded.texts.get(4).startsWith("\"Hi There!\" x238 between "));
+		assertTrue(recorded.texts.get(5).startsWith("\"\" x238 between "));
+		assertTrue(RateLimitingEventLog.isSummary(recorded.texts.get(4)));
+		assertTrue(log.getSummaryCount() == 2);
+	}
+
+	/**
+	 * A record after the end of a window writes the summaries and starts a new window
+	 */
+	@Test
+	public void newWindowWritesAgain() {
+		RecordingLog recorded = new RecordingLog();
+		RateLimitingEventLog log = new RateLimitingEventLog(recorded);
+		log.configure(HardwareKind.DISPLAY, MINUTE, RateLimitingEventLog.UNLIMITED, true);
+		log.writeToLog("Hi There!", START);
+		log.writeToLog("Hi There!", START + 1000);
+		log.writeToLog("Hi There!", START + 2000);
+		log.writeToLog("Hi There!", START + MINUTE);
+
+		assertTrue(recorded.texts.size() == 3);
+		assertTrue(recorded.texts.get(1).startsWith("\"Hi There!\" x2 between "));
+		assertTrue(recorded.texts.get(2).equals("Hi There!"));
+	}
+
+	/**
+	 * Past the limit, records are dropped and counted in one summary
+	 */
+	@Test
+	public void limitsRecordsPerWindow() {
+		RecordingLog recorded = new RecordingLog();
+		RateLimitingEventLog log = new RateLimitingEventLog(recorded);
+		log.configure(HardwareKind.COIN_RACK, MINUTE, 3, false);
+		for (int i = 0; i < 10; i++)
+			log.writeEvent(EventCode.COIN_RACK_COIN_ADDED, HardwareKind.COIN_RACK, 0, i, (START + i) * 1000000L);
+		log.writeSummaries();
+
+		assertTrue(recorded.events.size() == 3);
+		assertTrue(recorded.texts.size() == 1);
+		assertTrue(recorded.texts.get(0).startsWith("7 COIN_RACK records dropped between "));
+		assertTrue(RateLimitingEventLog.isSummary(recorded.texts.get(0)));
+	}
+
+	/**
+	 * A message shown again after another one is written again, and a run is summed up as soon as it is broken
+	 */
+	@Test
+	public void keepsDisplayHistoryInOrder() {
+		RecordingLog recorded = new RecordingLog();
+		RateLimitingEventLog log = new RateLimitingEventLog(recorded);
+		log.configure(HardwareKind.DISPLAY, 60 * MINUTE, RateLimitingEventLog.UNLIMITED, true);
+		log.writeToLog("Current Credit: $1.0", START);
+		log.writeToLog("Price: $2.5", START + 1000);
+		log.writeToLog("Current Credit: $1.0", START + 2000);
+		log.writeToLog("Current Credit: $1.0", START + 3000);
+		log.writeToLog("Invalid coin", START + 4000);
+		log.writeToLog("Current Credit: $1.0", START + 5000);
+
+		assertTrue(recorded.texts.size() == 6);
+		assertTrue(recorded.texts.get(2).equals("Current Credit: $1.0"));
+		assertTrue(recorded.texts.get(3).startsWith("\"Current Credit: $1.0\" x1 between "));
+		assertTrue(recorded.texts.get(4).equals("Invalid coin"));
+		assertTrue(recorded.texts.get(5).equals("Current Credit: $1.0"));
+		MachineStateModel model = new MachineStateModel();
+		for (String text : recorded.texts)
+			model.apply(START, EventCode.TEXT, HardwareKind.UNKNOWN, -1, text.length(), text);
+		assertTrue(model.getDisplayMessage().equals("Current Credit: $1.0"));
+	}
+
+	/**
+	 * Repeated and alternating typed events are collapsed, others are not, and kinds left alone pass straight through
+	 */
+	@Test
+	public void collapsesTypedEvents() {
+		RecordingLog recorded = new RecordingLog();
+		RateLimitingEventLog log = new RateLimitingEventLog(recorded);
+		log.configure(HardwareKind.COIN_RACK, MINUTE, RateLimitingEventLog.UNLIMITED, true);
+		for (int i = 0; i < 5; i++) {
+			log.writeEvent(EventCode.COIN_RACK_FULL, HardwareKind.COIN_RACK, 2, 0, (START + i) * 1000000L);
+			log.writeEvent(EventCode.COIN_RACK_FULL, HardwareKind.COIN_RACK, 3, 0, (START + i) * 1000000L);
+			log.writeEvent(EventCode.POP_RACK_FULL, HardwareKind.POP_CAN_RACK, 2, 0, (START + i) * 1000000L);
+		}
+		log.writeSummaries();
+
+		assertTrue(recorded.events.size() == 9);
+		assertTrue(recorded.texts.size() == 2);
+		assertTrue(recorded.texts.get(0).startsWith("\"Coin rack #2 is full.\" x3 between "));
+	}
+
+	/**
+	 * Summaries are not mistaken for messages on the display when a log is replayed
+	 */
+	@Test
+	public void modelIgnoresSummaries() {
+		MachineStateModel model = new MachineStateModel();
+		model.apply(START, EventCode.TEXT, HardwareKind.UNKNOWN, -1, 9, "Hi There!");
+		model.apply(START + 1, EventCode.TEXT, HardwareKind.UNKNOWN, -1, 60, "\"Hi There!\" x239 between 2017/07/14 02:40:00..2017/07/14 03:39:45");
+		assertTrue(model.getDisplayMessage().equals("Hi There!"));
+		assertFalse(RateLimitingEventLog.isSummary("Hi There!"));
+		assertFalse(RateLimitingEventLog.isSummary("\"Quoted\" on the display"));
+	}
+
+	/**
+	 * Keeps what is written to it
+	 */
+	private static class RecordingLog implements EventLogInterface {
+		List<String> texts = new ArrayList<String>();
+		List<EventCode> events = new ArrayList<EventCode>();
+
+		@Override
+		public void writeToLog(String s) {
+			texts.add(s);
+		}
+
+		@Override
+		public void writeEvent(EventCode code, HardwareKind kind, int hardwareIndex, int value, long timeNanos) {
+			events.add(code);
+		}
+	}
+}
@@ -0,0 +1,140 @@
+package ca.ucalgary.seng300.a2.test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import org.junit.Test;
+
+import ca.ucalgary.seng300.a2.EventCode;
+import ca.ucalgary.seng300.a2.EventQuery;
+import ca.ucalgary.seng300.a2.EventRecord;
+import ca.ucalgary.seng300.a2.EventReplayer;
+import ca.ucalgary.seng300.a2.HardwareKind;
+import ca.ucalgary.seng300.a2.MachineStateModel;
+import ca.ucalgary.seng300.a2.SegmentArchive;
+import ca.ucalgary.seng300.a2.SegmentArchiver;
+import ca.ucalgary.seng300.a2.SegmentedEventLog;
+
+public class TestSegmentArchive {
+
+	/**
+	 * Method writes a closed segment of count CREDIT_CHANGED records, each with its number as the value
+	 * @return the segment
+	 */
+	private File writeSegment(File dir, int count) throws Exception {
+		SegmentedEventLog log = new SegmentedEventLog(dir, "WorkLog", (count + 1) * EventRecord.RECORD_SIZE, 60000, 10);
+		for (int i = 0; i < count; i++)
+			log.writeEvent(EventCode.CREDIT_CHANGED, HardwareKind.UNKNOWN, -1, i);
+		File segment = log.getCurrentSegment();
+		log.close();
+		return segment;
+	}
+
+	/**
+	 * Every record of a segment comes back out of its archive, in order
+	 */
+	@Test
+	public void archiveRoundTrip() throws Exception {
+		File dir = Files.createTempDirectory("archive").toFile();
+		File segment = writeSegment(dir, 5000);
+		File archive = SegmentArchive.archive(segment, 4096, Deflater.DEFAULT_COMPRESSION);
+		assertTrue(archive.exists());
+		assertTrue(archive.length() < segment.length() / 3);
+
+		List<EventRecord> records = new ArrayList<EventRecord>();
+		try (SegmentArchive in = new SegmentArchive(archive)) {
+			assertTrue(in.getBlockCount() > 1);
+			in.find(new EventQuery(), records);
+		}
+		assertTrue(records.size() == 5000);
+		for (int i = 0; i < 5000; i++) {
+			assertTrue(records.get(i).getCode() == EventCode.CREDIT_CHANGED);
+			assertTrue(records.get(i).getValue() == i);
+		}
+	}
+
+	/**
+	 * A query over a short time range inflates only the blocks that overlap it
+	 */
+	@Test
+	public void findReadsOnlyNeededBlocks() throws Exception {
+		File dir = Files.createTempDirectory("archive").toFile();
+		File segment = writeSegment(dir, 5000);
+		File archive = SegmentArchive.archive(segment, 4096, Deflater.DEFAULT_COMPRESSION);
+
+		try (SegmentArchive in = new SegmentArchive(archive)) {
+			int middle = in.getBlockCount() / 2;
+			EventQuery query = new EventQuery().betweenNanos(in.getMinTime(middle), in.getMaxTime(middle));
+			List<EventRecord> records = new ArrayList<EventRecord>();
+			in.find(query, records);
+			assertTrue(records.size() > 0);
+			assertTrue(in.getBlocksRead() <= 3);	// the block, and the ones either side if they share a nanosecond
+		}
+	}
+
+	/**
+	 * Segments closed by rotation are archived in the background, and the log still reads them
+	 */
+	@Test
+	public void rotatedSegmentsAreArchived() throws Exception {
+		File dir = Files.createTempDirectory("archive").toFile();
+		SegmentedEventLog log = new SegmentedEventLog(dir, "WorkLog", 101 * EventRecord.RECORD_SIZE, 60000, 100);
+		SegmentArchiver archiver = new SegmentArchiver(1024, Deflater.DEFAULT_COMPRESSION);
+		log.setArchiver(archiver);
+		for (int i = 0; i < 1000; i++)
+			log.writeEvent(EventCode.CREDIT_CHANGED, HardwareKind.UNKNOWN, -1, i);
+		File current = log.getCurrentSegment();
+		archiver.close();		// waits for the queued segments
+
+		assertTrue(archiver.getFailedCount() == 0);
+		assertTrue(archiver.getArchivedCount() == 9);
+		List<File> logFiles = SegmentedEventLog.listLogFiles(dir, "WorkLog");
+		assertTrue(logFiles.size() == 10);
+		for (File f : logFiles) {
+			if (!f.equals(current)) {
+				assertTrue(f.getName().endsWith(SegmentArchive.ARCHIVE_SUFFIX));
+				assertFalse(new File(dir, f.getName().replace(SegmentArchive.ARCHIVE_SUFFIX, SegmentedEventLog.SEGMENT_SUFFIX)).exists());
+			}
+		}
+
+		List<EventRecord> records = log.query(new EventQuery());
+		assertTrue(records.size() == 1000);
+		for (int i = 0; i < 1000; i++)
+			assertTrue(records.get(i).getValue() == i);
+		log.close();
+
+		assertTrue(SegmentedEventLog.query(dir, "WorkLog", new EventQuery()).size() == 1000);
+		MachineStateModel model = new MachineStateModel();
+		assertTrue(EventReplayer.replaySegments(dir, "WorkLog", model, EventReplayer.END_OF_LOG) == 1000);
+		assertTrue(model.getCredit() == 999);
+	}
+
+	/**
+	 * Archives count towards the segments kept, and a resumed log does not reuse their numbers
+	 */
+	@Test
+	public void retentionCountsArchives() throws Exception {
+		File dir = Files.createTempDirectory("archive").toFile();
+		SegmentedEventLog log = new SegmentedEventLog(dir, "WorkLog", 11 * EventRecord.RECORD_SIZE, 60000, 3);
+		SegmentArchiver archiver = new SegmentArchiver();
+		log.setArchiver(archiver);
+		for (int i = 0; i < 100; i++)
+			log.writeEvent(EventCode.CREDIT_CHANGED, HardwareKind.UNKNOWN, -1, i);
+		log.close();
+		archiver.close();
+
+		SegmentedEventLog resumed = new SegmentedEventLog(dir, "WorkLog", 11 * EventRecord.RECORD_SIZE, 60000, 3);
+		resumed.writeEvent(EventCode.CREDIT_CHANGED, HardwareKind.UNKNOWN, -1, 100);
+		resumed.close();
+
+		List<File> logFiles = SegmentedEventLog.listLogFiles(dir, "WorkLog");
+		assertTrue(logFiles.size() <= 3);
+		List<EventRecord> records = SegmentedEventLog.query(dir, "WorkLog", new EventQuery());
+		assertTrue(records.get(records.size() - 1).getValue() == 100);
+	}
+}
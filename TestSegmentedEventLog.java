@@ -0,0 +1,190 @@
+package ca.ucalgary.seng300.a2.test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import ca.ucalgary.seng300.a2.ClockedEventLog;
+import ca.ucalgary.seng300.a2.EventCode;
+import ca.ucalgary.seng300.a2.EventIndex;
+import ca.ucalgary.seng300.a2.EventLogDecoder;
+import ca.ucalgary.seng300.a2.EventRecord;
+import ca.ucalgary.seng300.a2.HardwareKind;
+import ca.ucalgary.seng300.a2.SegmentedEventLog;
+import ca.ucalgary.seng300.a2.VirtualTimeScheduler;
+
+public class TestSegmentedEventLog {
+
+	private static final int SMALL_SEGMENT = 10 * EventRecord.RECORD_SIZE;
+
+	/**
+	 * Method decodes a segment and returns its text
+	 */
+	private String decode(File segment) throws IOException {
+		StringWriter text = new StringWriter();
+		try (FileInputStream in = new FileInputStream(segment)) {
+			EventLogDecoder.decode(in, text);
+		}
+		return text.toString();
+	}
+
+	/**
+	 * A full segment is closed and the next record starts a new one
+	 */
+	@Test
+	public void rotatesWhenFull() throws IOException {
+		File dir = Files.createTempDirectory("seglog").toFile();
+		SegmentedEventLog log = new SegmentedEventLog(dir, "WorkLog", SMALL_SEGMENT, 60000, 10);
+		for (int i = 0; i < 20; i++)
+			log.writeEvent(EventCode.COIN_RACK_COIN_ADDED, HardwareKind.COIN_RACK, 0, i);
+		log.close();
+
+		List<File> segments = SegmentedEventLog.listSegments(dir, "WorkLog");
+		assertTrue(segments.size() == 3);		// 9 records fit in each segment after the header
+		assertTrue(decode(segments.get(0)).contains("was added with 8cents."));
+		assertTrue(decode(segments.get(1)).contains("was added with 9cents."));
+	}
+
+	/**
+	 * Only the newest segments are kept
+	 */
+	@Test
+	public void keepsMaxSegments() throws IOException {
+		File dir = Files.createTempDirectory("seglog").toFile();
+		SegmentedEventLog log = new SegmentedEventLog(dir, "WorkLog", SMALL_SEGMENT, 60000, 2);
+		for (int i = 0; i < 50; i++)
+			log.writeEvent(EventCode.LIGHT_ON, HardwareKind.INDICATOR_LIGHT, -1, 0);
+		log.close();
+
+		List<File> segments = SegmentedEventLog.listSegments(dir, "WorkLog");
+		assertTrue(segments.size() == 2);
+		assertTrue(segments.get(1).getName().equals(SegmentedEventLog.segmentName("WorkLog", 6)));
+	}
+
+	/**
+	 * A segment older than the rotation interval is closed even though it has room
+	 */
+	@Test
+	public void rotatesByTime() throws IOException {
+		File dir = Files.createTempDirectory("seglog").toFile();
+		SegmentedEventLog log = new SegmentedEventLog(dir, "WorkLog", SMALL_SEGMENT, 1000, 10);
+		long now = EventRecord.currentTimeNanos();
+		log.writeEvent(EventCode.LIGHT_ON, HardwareKind.INDICATOR_LIGHT, -1, 0, now);
+		log.writeEvent(EventCode.LIGHT_OFF, HardwareKind.INDICATOR_LIGHT, -1, 0, now + 2000000000L);
+		log.close();
+
+		assertTrue(SegmentedEventLog.listSegments(dir, "WorkLog").size() == 2);
+	}
+
+	/**
+	 * A log stamped by a virtual clock ages its segments in virtual time, not by the wall clock
+	 */
+	@Test
+	public void rotatesByVirtualTime() throws IOException {
+		File dir = Files.createTempDirectory("seglog").toFile();
+		SegmentedEventLog segments = new SegmentedEventLog(dir, "WorkLog", SMALL_SEGMENT, 1000, 10);
+		VirtualTimeScheduler clock = new VirtualTimeScheduler();
+		ClockedEventLog log = new ClockedEventLog(segments, clock);
+		log.writeEvent(EventCode.LIGHT_ON, HardwareKind.INDICATOR_LIGHT, -1, 0);
+		clock.advance(600);
+		log.writeEvent(EventCode.LIGHT_OFF, HardwareKind.INDICATOR_LIGHT, -1, 0);
+		log.writeToLog("still the first segment");
+		assertTrue(SegmentedEventLog.listSegments(dir, "WorkLog").size() == 1);
+
+		clock.advance(600);
+		log.writeEvent(EventCode.LIGHT_ON, HardwareKind.INDICATOR_LIGHT, -1, 0);
+		log.writeEvent(EventCode.LIGHT_OFF, HardwareKind.INDICATOR_LIGHT, -1, 0);
+		segments.close();
+
+		List<File> written = SegmentedEventLog.listSegments(dir, "WorkLog");
+		assertTrue(written.size() == 2);
+		assertTrue(decode(written.get(0)).contains("still the first segment"));
+	}
+
+	/**
+	 * A new log on the same directory carries on after the last record instead of wiping it
+	 */
+	@Test
+	public void resumesLastSegment() throws IOException {
+		File dir = Files.createTempDirectory("seglog").toFile();
+		SegmentedEventLog log = new SegmentedEventLog(dir, "WorkLog", 4096, 60000, 10);
+		log.writeToLog("before restart");
+		log.close();
+
+		log = new SegmentedEventLog(dir, "WorkLog", 4096, 60000, 10);
+		log.writeToLog("after restart");
+		log.close();
+
+		List<File> segments = SegmentedEventLog.listSegments(dir, "WorkLog");
+		assertTrue(segments.size() == 1);
+		String text = decode(segments.get(0));
+		assertTrue(text.contains("before restart"));
+		assertTrue(text.contains("after restart"));
+	}
+
+	/**
+	 * A last segment with a damaged header or end of data is left as it is, and a new segment is started
+	 */
+	@Test
+	public void startsAfterDamagedSegment() throws IOException {
+		for (long[] damage : new long[][] {{0, 0x12345678}, {EventRecord.END_OFFSET_POSITION, 7}}) {
+			File dir = Files.createTempDirectory("seglog").toFile();
+			SegmentedEventLog log = new SegmentedEventLog(dir, "WorkLog", 4096, 60000, 10);
+			log.writeToLog("before damage");
+			log.close();
+			File first = new File(dir, SegmentedEventLog.segmentName("WorkLog", 1));
+			EventIndex.indexFile(first).delete();
+			try (RandomAccessFile f = new RandomAccessFile(first, "rw")) {
+				f.seek(damage[0]);
+				if (damage[0] == 0)
+					f.writeInt((int) damage[1]);		// not the magic number
+				else
+					f.writeLong(damage[1]);		// not a whole number of records
+			}
+			byte[] damaged = Files.readAllBytes(first.toPath());
+
+			log = new SegmentedEventLog(dir, "WorkLog", 4096, 60000, 10);
+			log.writeToLog("after damage");
+			log.close();
+
+			assertArrayEquals(damaged, Files.readAllBytes(first.toPath()));
+			assertFalse(EventIndex.indexFile(first).exists());
+			List<File> segments = SegmentedEventLog.listSegments(dir, "WorkLog");
+			assertEquals(Arrays.asList(first, new File(dir, SegmentedEventLog.segmentName("WorkLog", 2))), segments);
+			assertTrue(decode(segments.get(1)).contains("after damage"));
+		}
+	}
+
+	/**
+	 * A segment of the older version is only upgraded once it has been found whole
+	 */
+	@Test
+	public void upgradesOnlyWholeSegments() throws IOException {
+		File dir = Files.createTempDirectory("seglog").toFile();
+		SegmentedEventLog log = new SegmentedEventLog(dir, "WorkLog", 4096, 60000, 10);
+		log.writeToLog("version one");
+		log.close();
+		File first = new File(dir, SegmentedEventLog.segmentName("WorkLog", 1));
+		EventIndex.indexFile(first).delete();
+		try (RandomAccessFile f = new RandomAccessFile(first, "rw")) {
+			f.seek(4);
+			f.writeShort(1);
+			f.seek(EventRecord.END_OFFSET_POSITION);
+			f.writeLong(4096 + EventRecord.RECORD_SIZE);		// past the end of the segment
+		}
+		byte[] damaged = Files.readAllBytes(first.toPath());
+
+		new SegmentedEventLog(dir, "WorkLog", 4096, 60000, 10).close();
+
+		assertArrayEquals(damaged, Files.readAllBytes(first.toPath()));
+	}
+}
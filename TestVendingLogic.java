@@ -362,6 +362,32 @@ public class TestVendingLogic {
 		setup();
 		assertTrue(logic.findHardwareIndex(vm.getConfigurationPanel().getButton(0))==-1);
 	}
+	
+	/**
+	 * Method tests that coin racks are found, and hardware of another machine is not
+	 */
+	@Test
+	public void test_findHardwareIndex_CoinRackAndUnknown()
+	{
+		setup();
+		assertTrue(logic.findHardwareIndex(vm.getCoinRack(vm.getNumberOfCoinRacks() - 1))==vm.getNumberOfCoinRacks() - 1);
+		assertTrue(logic.findHardwareIndex(new PushButton())==-1);
+		assertTrue(logic.findHardwareIndex(vm.getDisplay())==-1);
+	}
+	
+	/**
+	 * Method tests that every rack and button of a large machine is found
+	 */
+	@Test
+	public void test_findHardwareIndex_LargeMachine()
+	{
+		VendingMachine big = new VendingMachine(new int[] {5, 10, 25, 100, 200}, 500, 10, 10, 200, 1, 50);
+		VendingLogic bigLogic = new VendingLogic(big);
+		for (int i = 0; i < 500; i++) {
+			assertTrue(bigLogic.findHardwareIndex(big.getSelectionButton(i))==i);
+			assertTrue(bigLogic.findHardwareIndex(big.getPopCanRack(i))==i);
+		}
+	}
 	//DetermineActionButton will be used in the future, so for we test that no exceptions are thrown
 	
 	/**
@@ -380,6 +406,28 @@ public class TestVendingLogic {
 		assertTrue(true);
 	}
 	
+	/**
+	 * Method tests that each selection button of a large machine leads to its own selection
+	 */
+	@Test
+	public void test_determineButtonAction_LargeMachine()
+	{
+		VendingMachine big = new VendingMachine(new int[] {5, 10, 25, 100, 200}, 300, 10, 10, 200, 1, 50);
+		final int[] selected = {-1};
+		VendingLogic bigLogic = new VendingLogic(big) {
+			@Override
+			public void selectionButtonAction(int index) {
+				selected[0] = index;
+			}
+		};
+		for (int i = 299; i >= 0; i--) {
+			bigLogic.determineButtonAction(big.getSelectionButton(i));
+			assertTrue(selected[0]==i);
+		}
+		bigLogic.determineButtonAction(big.getConfigurationPanel().getEnterButton());
+		assertTrue(selected[0]==0);
+	}
+	
 	/**
 	 * Method tests to see that this does not throw an exception
 	 */
@@ -45,6 +45,29 @@ public class TestVendingLogic_Installed {
 	}
 	
 
+	/**
+	 * Method tests that a purchase and its change commit the log once, and change returned on its own commits it too
+	 */
+	@Test
+	public void test_purchaseCommitsOnce() throws DisabledException
+	{
+		VendingSetup vendset = new VendingSetup();
+		vm = vendset.getVendingMachine();
+		final int[] commits = {0};
+		logic = new VendingLogic(vm, new EventStub() {
+			@Override
+			public void commit() {
+				commits[0]++;
+			}
+		}, false);
+		vm.getCoinSlot().addCoin(new Coin(200));
+		vm.getCoinSlot().addCoin(new Coin(100));
+		vm.getSelectionButton(0).press(); // costs 200, which leaves change
+		assertTrue(commits[0] == 1);
+		logic.returnChange();
+		assertTrue(commits[0] == 2);
+	}
+	
 	/**
 	 * Method tests if the logic checks to see if exact change is possible.
 	 * NOTE: This test requires the coinReturn in the vm to be properly instanced.
@@ -116,11 +139,18 @@ public class TestVendingLogic_Installed {
 		}
 	}
 	
+	/**
+	 * Tests that the welcome message is shown as soon as the logic is installed, and cleared 5 seconds later
+	 */
 	@Test
 	public void test_welcomeMessage()
 	{
-		setup();
-		System.out.println(logic.getCurrentMessage());
+		VendingSetup vendset = new VendingSetup();
+		vm = vendset.getVendingMachine();
+		VirtualTimeScheduler clock = new VirtualTimeScheduler();
+		logic = new VendingLogic(vm, new EventStub(), clock);
+		assertTrue(compareCurrentMessage("Hi There!"));
+		clock.advance(5000);
 		assertTrue(compareCurrentMessage(""));
 	}
 	
@@ -158,14 +188,18 @@ public class TestVendingLogic_Installed {
 	public void test_displayPrice()
 	{
 		
+		VirtualTimeScheduler clock = new VirtualTimeScheduler();
 		try {
-			setup();
+			vm = new VendingSetup().getVendingMachine();
+			logic = new VendingLogic(vm, s -> { }, clock);		// no work log while testing
 			vm.getSelectionButton(0).press();
 		} catch (Exception e) {
 			fail();
 		}
-		//System.out.println(logic.getCurrentMessage());
-		//Note that the this is correct! displayPrice calls displayCredit() before it returns
+		//The press returns at once, with the price on the display for 5 seconds
+		assertTrue(logic.getCurrentMessage().startsWith("Price of "));
+		clock.advance(5000);
+		//Then the credit underneath comes back
 		assertTrue(compareCurrentMessage("Current Credit: $0.0"));
 	}
 	
@@ -0,0 +1,135 @@
+package ca.ucalgary.seng300.a2.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.lsmr.vending.Coin;
+import org.lsmr.vending.PopCan;
+import org.lsmr.vending.hardware.VendingMachine;
+
+import ca.ucalgary.seng300.a2.EventLogInterface;
+import ca.ucalgary.seng300.a2.TaskScheduler;
+import ca.ucalgary.seng300.a2.VendingLogic;
+import ca.ucalgary.seng300.a2.VirtualTimeScheduler;
+
+public class TestVirtualTimeScheduler {
+
+	/**
+	 * Keeps each display message with the time it was logged at
+	 */
+	private static class RecordingLog implements EventLogInterface {
+		final List<String> lines = new ArrayList<String>();
+
+		@Override
+		public void writeToLog(String s) {
+			lines.add("? " + s);
+		}
+
+		@Override
+		public void writeToLog(String s, long timeMillis) {
+			lines.add(timeMillis + " " + s);
+		}
+	}
+
+	/**
+	 * Tasks run when the clock reaches them, those due together in the order they were scheduled
+	 */
+	@Test
+	public void runsTasksInOrder() {
+		VirtualTimeScheduler scheduler = new VirtualTimeScheduler(1000);
+		final List<String> ran = new ArrayList<String>();
+		scheduler.schedule(() -> ran.add("b@" + scheduler.currentTimeMillis()), 20);
+		scheduler.schedule(() -> ran.add("a@" + scheduler.currentTimeMillis()), 10);
+		scheduler.schedule(() -> ran.add("c@" + scheduler.currentTimeMillis()), 20);
+		TaskScheduler.ScheduledTask cancelled = scheduler.schedule(() -> ran.add("x"), 15);
+		assertTrue(cancelled.cancel());
+		assertFalse(cancelled.cancel());
+
+		assertTrue(scheduler.advance(15) == 1);
+		assertTrue(scheduler.currentTimeMillis() == 1015);
+		assertTrue(scheduler.advance(100) == 2);
+		assertTrue(scheduler.currentTimeMillis() == 1115);
+		assertTrue(ran.equals(Arrays.asList("a@1010", "b@1020", "c@1020")));
+	}
+
+	/**
+	 * A repeating task runs once per period until it is cancelled, even by itself
+	 */
+	@Test
+	public void repeatsUntilCancelled() {
+		VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+		final int[] runs = new int[1];
+		final TaskScheduler.ScheduledTask[] task = new TaskScheduler.ScheduledTask[1];
+		task[0] = scheduler.scheduleAtFixedRate(() -> {
+			if (++runs[0] == 50)
+				task[0].cancel();
+		}, 0, 1000);
+		scheduler.advance(10000);
+		assertTrue(runs[0] == 11);
+		scheduler.advance(60 * 60 * 1000);
+		assertTrue(runs[0] == 50);
+		assertTrue(scheduler.getQueuedCount() == 0);
+	}
+
+	/**
+	 * A price message stays exactly five simulated seconds, and nobody waits for it
+	 */
+	@Test
+	public void messagesExpireOnTheVirtualClock() throws Exception {
+		VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+		VendingSetup setup = new VendingSetup();
+		VendingMachine vm = setup.getVendingMachine();
+		VendingLogic logic = new VendingLogic(vm, new EventStub(), scheduler);
+		vm.getCoinSlot().addCoin(new Coin(25));
+		vm.getSelectionButton(0).press();
+		assertTrue(logic.getCurrentMessage().startsWith("Price of "));
+		scheduler.advance(4999);
+		assertTrue(logic.getCurrentMessage().startsWith("Price of "));
+		scheduler.advance(1);
+		assertTrue(logic.getCurrentMessage().equals("Current Credit: $0.25"));
+	}
+
+	/**
+	 * A day in the life of a machine, welcome cycle included, runs in moments and logs the same every time
+	 */
+	@Test
+	public void simulatesADay() throws Exception {
+		long start = System.nanoTime();
+		List<String> first = simulateDay();
+		assertTrue((System.nanoTime() - start) / 1000000L < 5000);
+		assertTrue(first.equals(simulateDay()));
+
+		int welcomes = 0;
+		for (String line : first) {
+			if (line.endsWith(" Hi There!"))
+				welcomes++;
+			assertFalse(line.startsWith("?"));		// every record has a simulated time
+		}
+		assertTrue(welcomes > 5000);
+		assertTrue(first.get(first.size() - 1).startsWith("86"));	// the last records are from the end of the day
+	}
+
+	private List<String> simulateDay() {
+		final VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+		final VendingMachine vm = new VendingSetup().getVendingMachine();
+		RecordingLog log = new RecordingLog();
+		new VendingLogic(vm, log, scheduler);
+		scheduler.scheduleAtFixedRate(() -> {		// every hour a customer checks a price and buys, and the can is restocked
+			try {
+				vm.getSelectionButton(2).press();
+				vm.getCoinSlot().addCoin(new Coin(100));
+				vm.getSelectionButton(2).press();
+				vm.getDeliveryChute().removeItems();
+				vm.getPopCanRack(2).load(new PopCan("Orange"));
+			} catch (Exception e) {
+				fail();
+			}
+		}, 7 * 60 * 1000, 60 * 60 * 1000);
+		scheduler.advance(24 * 60 * 60 * 1000);
+		return log.lines;
+	}
+}
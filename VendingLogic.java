@@ -1,8 +1,9 @@
 package groupAssignment2;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
 import org.lsmr.vending.*;
 import org.lsmr.vending.hardware.*;
-import java.util.Timer;
-import java.util.TimerTask;
 
 
 public class VendingLogic implements VendingLogicInterface {
@@ -12,22 +13,86 @@ public class VendingLogic implements VendingLogicInterface {
 	private Boolean[] circuitEnabled;			// an array used for custom configurations
 	private boolean debug = false;
 	private String currentMessage ="";
-	private Timer timer1;
-	private Timer timer2;
+	private final TaskScheduler scheduler;		// the clock and timers, shared by all machines in service
+	private TaskScheduler.ScheduledTask welcomeTask;	// the welcome cycle
+	private TaskScheduler.ScheduledTask clearTask;
+	private DisplayMessageScheduler messages;		// decides which message the display shows
+	private final MessageRenderer renderer;		// credit and price messages, built once and kept
+	private final int[] coinKinds;				// the value of the coins in each rack
+	private PayoutPlanCache payoutPlans;			// recent payouts, and the strategy that picks their coins
+	private final ChangeAvailability changeAvailability;	// the change the racks can pay, kept up to date by rack events
+	private boolean payingChange = false;			// the exact change light waits until the whole payout is done
+	private static final long MESSAGE_MILLIS = 5000;	// how long a price or an invalid coin message is shown
+	private final boolean realTime;			// false when replaying a log: no timers and no waiting
+	private final Map<AbstractHardware<? extends AbstractHardwareListener>, Integer> hardwareIndex = new IdentityHashMap<>();	// racks and buttons by index
+	private final Map<PushButton, Integer> selectionIndex = new IdentityHashMap<>();	// the selection buttons by index
+	private final Map<PushButton, Runnable> buttonActions = new IdentityHashMap<>();	// what each button of the machine does
+	private static final String UNKNOWN_BUTTON = "Unknown Button pressed! Could not determine action";
 	public boolean displayWelcome;
 	/**
 	*This constructor uses a vending machine as a parameter, then creates and assigns listeners to it.
+	*The machine writes to the event log all machines in the process share.
 	*
 	*@param VendingMachine vend is the the machine that the listeners will be registered to.
 	*@return a new instance of a VendingLogic object
 	*
 	*/
 	public VendingLogic(VendingMachine vend)
+	{
+		this(vend, EventLogMultiplexer.getDefault().newMachine(), true);
+	}
+	
+	/**
+	*This constructor installs the logic on a vending machine with the given event log.
+	*Without real time the welcome message is shown once instead of cycling on timers, and messages
+	*are not held on the display, so a recorded log can be replayed as fast as it can be read.
+	*
+	*@param VendingMachine vend is the the machine that the listeners will be registered to.
+	*@param EventLogInterface log receives the events of the machine
+	*@param boolean realTime, false to run without timers or waiting
+	*@return a new instance of a VendingLogic object
+	*
+	*/
+	public VendingLogic(VendingMachine vend, EventLogInterface log, boolean realTime)
+	{
+		this(vend, log, realTime, HashedWheelTimer.getShared());
+	}
+	
+	/**
+	*This constructor installs the logic on a vending machine that keeps time by the given scheduler.
+	*With a VirtualTimeScheduler the machine, its timers and the times in its log follow the simulation
+	*clock, so a long simulation runs as fast as its events can be handled, in the same order every time.
+	*
+	*@param VendingMachine vend is the the machine that the listeners will be registered to.
+	*@param EventLogInterface log receives the events of the machine, stamped by the scheduler's clock
+	*@param TaskScheduler scheduler runs the timers of the machine
+	*@return a new instance of a VendingLogic object
+	*
+	*/
+	public VendingLogic(VendingMachine vend, EventLogInterface log, TaskScheduler scheduler)
+	{
+		this(vend, new ClockedEventLog(log, scheduler), true, scheduler);
+	}
+	
+	private VendingLogic(VendingMachine vend, EventLogInterface log, boolean realTime, TaskScheduler scheduler)
 	{
 		//Set up attributes
 		this.vm = vend;
 		credit = 0;
-		EL = new EventLog();
+		EL = log;
+		this.realTime = realTime;
+		this.scheduler = scheduler;
+		messages = new DisplayMessageScheduler(vm.getDisplay(), scheduler);
+		renderer = new MessageRenderer(vm);
+		coinKinds = getVmCoinKinds();
+		indexHardware();
+		bindButtonActions();
+		payoutPlans = new PayoutPlanCache(coinKinds, rackCapacities(), new FewestCoinsPayout(), PayoutPlanCache.DEFAULT_MAX_PLANS);
+		changeAvailability = new ChangeAvailability(coinKinds, rackCounts(), largestChange());
+		for (int i = 0; i < coinKinds.length; i++) {
+			if (vm.getCoinRack(i).isDisabled())
+				changeAvailability.setEnabled(i, false);
+		}
 		registerListeners();
 		
 		//Set up the custom configuration
@@ -48,6 +113,35 @@ public class VendingLogic implements VendingLogicInterface {
 		return EL;
 	}
 	
+	/**
+	* This method sets how often the display may change. Messages replaced within a frame are never shown or logged
+	* @param long frameMillis, the shortest time between two changes of the display, 0 (the default) for no limit
+	* @return None
+	*/
+	public void setDisplayFrameMillis(long frameMillis){
+		messages.setFrameMillis(frameMillis);
+	}
+	
+	/**
+	* This method sets how the coins that pay change are chosen. The payouts remembered so far are forgotten
+	* @param PayoutStrategy strategy, FewestCoinsPayout (the default) or BalancedPayout to keep the racks evenly filled
+	* @return None
+	*/
+	public void setPayoutStrategy(PayoutStrategy strategy){
+		if (strategy == null)
+			throw new NullPointerException("A payout strategy is required");
+		payoutPlans = new PayoutPlanCache(coinKinds, rackCapacities(), strategy, PayoutPlanCache.DEFAULT_MAX_PLANS);
+	}
+	
+	/**
+	* This method returns the cache of recent payouts, whose counters show how often change was worked out again
+	* @param None
+	* @return PayoutPlanCache payoutPlans
+	*/
+	public PayoutPlanCache getPayoutPlans(){
+		return payoutPlans;
+	}
+	
 	/**
 	* This method returns the the credit total that the vending machine has
 	* @param None
@@ -57,6 +151,58 @@ public class VendingLogic implements VendingLogicInterface {
 		return credit;
 	}
 	
+	/**
+	* This method records the index of every rack and button, so events can find it without searching the machine.
+	* The machine's devices never change once it is built.
+	* @param None
+	* @return None
+	*/
+	private void indexHardware()
+	{
+		for (int i = 0; i < vm.getNumberOfPopCanRacks(); i++)
+			hardwareIndex.put(vm.getPopCanRack(i), i);
+		for (int i = 0; i < vm.getNumberOfCoinRacks(); i++)
+			hardwareIndex.put(vm.getCoinRack(i), i);
+		for (int i = 0; i < vm.getNumberOfSelectionButtons(); i++) {
+			hardwareIndex.put(vm.getSelectionButton(i), i);
+			selectionIndex.put(vm.getSelectionButton(i), i);
+		}
+		// Configuration Panel has 37 buttons.  This is a hard coded value.
+		for (int i = 0; i < 37; i++) {
+			PushButton button = vm.getConfigurationPanel().getButton(i);
+			if (button != null)
+				hardwareIndex.putIfAbsent(button, i);
+		}
+	}
+	
+	/**
+	* This method binds an action to every button of the machine, so a press is handled without searching for the button.
+	* @param None
+	* @return None
+	*/
+	private void bindButtonActions()
+	{
+		for (int i = 0; i < vm.getNumberOfSelectionButtons(); i++) {
+			final int index = i;
+			buttonActions.put(vm.getSelectionButton(i), () -> {
+				if (vm.isSafetyEnabled())
+					throw new SimulationException(UNKNOWN_BUTTON);	// while the safety is on a selection is not an action
+				EL.writeEvent(EventCode.SELECTION_PRESSED, HardwareKind.PUSH_BUTTON, index, 0);
+				selectionButtonAction(index);
+			});
+		}
+		// Configuration Panel has 37 buttons.  This is a hard coded value.
+		// Buttons the panel never built are null, and a null button has always been taken for one of them.
+		for (int i = 0; i < 37; i++) {
+			buttonActions.putIfAbsent(vm.getConfigurationPanel().getButton(i), () -> {
+				// TODO figure out how to configure
+			});
+		}
+		buttonActions.putIfAbsent(vm.getConfigurationPanel().getEnterButton(), () -> {
+			// TODO figure out how to configure
+		});
+	}
+	
 	/**
 	* This method creates and registers listeners for the vending machine.
 	* @param None
@@ -108,110 +254,82 @@ public class VendingLogic implements VendingLogicInterface {
 	/**
 	 * A method to begin the timers for the welcome message
 	 */
-	public void welcomeMessageTimer() {
+	public synchronized void welcomeMessageTimer() {
 		displayWelcome = true;
-		timer1 = new Timer();
-		timer1.scheduleAtFixedRate(new TimerTask() {
-				@Override
-				public void run() {
-					welcomeMessage();
-					}
-		}, 0, 15000);
-		
-		timer2 = new Timer();
-		timer2.scheduleAtFixedRate(new TimerTask() {
-			@Override
-			public void run() {
-				clearDisplayMessage();
-				}
-		}, 5000, 15000);
-		
+		cancelWelcomeMessage();		// never run two cycles at once
+		welcomeMessage();
+		messages.clear(DisplayMessageScheduler.Priority.CREDIT);	// uncovers the welcome message
+		if (!realTime)
+			return;
+		welcomeTask = scheduler.scheduleAtFixedRate(this::welcomeMessage, 15000, 15000);
+		clearTask = scheduler.scheduleAtFixedRate(this::clearDisplayMessage, 5000, 15000);
+	}
+	
+	/**
+	 * A method to stop the welcome message cycle, if it is running
+	 */
+	private synchronized void cancelWelcomeMessage() {
+		if (welcomeTask != null)
+			welcomeTask.cancel();
+		if (clearTask != null)
+			clearTask.cancel();
+		welcomeTask = null;
+		clearTask = null;
 	}
 	
 	/**
 	 * A method to push a welcome message to the display
 	 */
 	public void welcomeMessage() {
-		vm.getDisplay().display("Hi There!");
+		messages.show(DisplayMessageScheduler.Priority.WELCOME, "Hi There!");
 	}
 	
 	/**
 	 * A method to clear the message to the display
 	 */
 	public void clearDisplayMessage() {
-		vm.getDisplay().display("");
+		messages.show(DisplayMessageScheduler.Priority.WELCOME, "");
 	}
 	
 	/**
 	 * A method to send an OutOfOrder message to the display
 	 */
 	public void vendOutOfOrder() {
-		try {
-			timer1.cancel();
-			timer2.cancel();
-		} catch (Exception e) {
-			// do nothing
-		}
-		vm.getDisplay().display("Out Of Order");
+		cancelWelcomeMessage();
+		messages.show(DisplayMessageScheduler.Priority.OUT_OF_ORDER, "Out Of Order");
 	}
 	
 	/**
 	 * A method to push the currently accumulated credit to the display
 	 */
 	public void displayCredit() {
-		try {
-			timer1.cancel();
-			timer2.cancel();
-		} catch (Exception e) {
-			// do nothing
-		}
-		vm.getDisplay().display("Current Credit: $" + (((double) credit)/100));
+		cancelWelcomeMessage();
+		messages.show(DisplayMessageScheduler.Priority.CREDIT, renderer.credit(credit));
 	}
 	
 	/**
-	 * A method to display the price of the pop at a specific index 
+	 * A method to display the price of the pop at a specific index for 5 seconds.
+	 * The credit or welcome message underneath comes back when it expires; the caller does not wait.
 	 * @param index - the selection number that corresponds to the desired pop
 	 */
 	public void displayPrice(int index) {
-		try {
-			timer1.cancel();
-			timer2.cancel();
-		} catch (Exception e) {
-			// do nothing
-		}
-		vm.getDisplay().display("Price of " + vm.getPopKindName(index) + ": $" + (((double) vm.getPopKindCost(index)) / 100));
-		try {
-			if(!debug) Thread.sleep(5000);			// wait for 5 seconds
-		} catch (InterruptedException e) {
-			e.printStackTrace();
-		}
-		if (credit == 0)
-			welcomeMessageTimer();
-		else
-			this.displayCredit();
+		showForAWhile(DisplayMessageScheduler.Priority.PRICE, renderer.price(index));
 	}
 	
 	/**
-	 * Method to show that an invalid coin was inserted
-	 * TODO is this an acceptible way to wait for 5 seconds?
+	 * Method to show that an invalid coin was inserted, for 5 seconds without making the caller wait
 	 */
 	public void invalidCoinInserted() {
-		try {
-			timer1.cancel();
-			timer2.cancel();
-		} catch (Exception e) {
-			// do nothing
-		}
-		vm.getDisplay().display("Invalid coin!");
-		try {
-			if(!debug) Thread.sleep(5000);			// wait for 5 seconds
-		} catch (InterruptedException e) {
-			e.printStackTrace();
-		}
-		if (credit == 0)
-			welcomeMessageTimer();
-		else
-			this.displayCredit();
+		showForAWhile(DisplayMessageScheduler.Priority.INVALID_COIN, "Invalid coin!");
+	}
+	
+	/**
+	 * A method to show a message that goes away by itself. Without real time it is taken down straight away
+	 * @param priority - what the message is about
+	 * @param message - the text
+	 */
+	private void showForAWhile(DisplayMessageScheduler.Priority priority, String message) {
+		messages.show(priority, message, (!debug && realTime) ? MESSAGE_MILLIS : 0);
 	}
 	
 	/**
@@ -221,18 +339,9 @@ public class VendingLogic implements VendingLogicInterface {
 	 */
 	public void validCoinInserted(Coin coin) {
 		credit += coin.getValue();
-		try {
-			timer1.cancel();
-			timer2.cancel();
-		} catch (Exception e) {
-			// do nothing
-		}
-		//Light the exact change light based on attempted change output
-		if (!isExactChangePossible())
-			vm.getExactChangeLight().activate();
-		else 
-			vm.getExactChangeLight().deactivate();
-		
+		creditChanged();
+		cancelWelcomeMessage();
+		updateExactChangeLight();
 		this.displayCredit();
 	}
 	
@@ -240,7 +349,7 @@ public class VendingLogic implements VendingLogicInterface {
 	 * Method to confirm that the product is being dispensed 
 	 */
 	public void dispensingMessage() {
-		vm.getDisplay().display("Despensing. Enjoy!");
+		showForAWhile(DisplayMessageScheduler.Priority.PRICE, "Despensing. Enjoy!");
 	}
 	
 	/**
@@ -262,41 +371,156 @@ public class VendingLogic implements VendingLogicInterface {
 	}
 	
 	/**
-	 * A method to return change to the user
+	 * A method to return change to the user.
+	 * Pays the most of the credit the racks can pay exactly, with the coins the payout strategy picks. Whatever cannot be paid stays as credit.
 	 */
 	public void returnChange() {
+		payChange();
+		EL.commit();		// the change paid out on its own is a whole transaction
+	}
+	
+	/**
+	 * Method pays out change as part of a larger transaction, which commits the log when it is done
+	 */
+	private void payChange() {
+		int creditBefore = credit;
 		if (vm.getCoinReturn() != null) {
-			int[] coinKinds = getVmCoinKinds(); //vm.getCoinKindForCoinRack(0);// {200, 100, 25, 10, 5};		// legal value of Canadian coins. only types returned
+			int[] coins = payoutPlans.payout(credit, changeCounts());
+			payingChange = true;
 			for (int i = 0; i < coinKinds.length; i++) {
-				CoinRack rack = vm.getCoinRackForCoinKind(coinKinds[i]);		// the coin rack for the coin value indicated by the loop
-				if (rack != null) {									// if rack = null. coin kind is not a valid change option
-					while ((!vm.isSafetyEnabled()) && (credit > coinKinds[i]) && (!rack.isDisabled()) && (rack.size() > 0)) {
-						try {
-							rack.releaseCoin();
-							credit -= coinKinds[i];			// subtracting (i) cents from the credit
-						} catch (CapacityExceededException e) {
-							// should never happen, receptacle full should enable the safety, which is in the loop guard
-							e.printStackTrace();
-						} catch (EmptyException e) {
-							// should never happen, checked for in the loop guard
-							e.printStackTrace();
-						} catch (DisabledException e) {
-							// should never happen, checked for in the loop guard
-							e.printStackTrace();
-						}
-					}
+				if (coins[i] == 0)
+					continue;
+				try {
+					vm.getCoinRack(i).releaseCoins(coins[i]);	// one delivery for all the coins of the rack
+					credit -= coins[i] * coinKinds[i];		// subtracting the value of the coins from the credit
+				} catch (CapacityExceededException e) {
+					// should never happen, receptacle full should enable the safety, which leaves no coins to pay with
+					e.printStackTrace();
+				} catch (EmptyException e) {
+					// should never happen, the payout is worked out from the coins in the rack
+					e.printStackTrace();
+				} catch (DisabledException e) {
+					// should never happen, disabled racks are left out of the payout
+					e.printStackTrace();
 				}
 			}
 		}
 		else
-			vm.getDisplay().display("Unable to return any changed");
+			showForAWhile(DisplayMessageScheduler.Priority.PRICE, "Unable to return any changed");
+		payingChange = false;
+		if (credit != creditBefore)
+			creditChanged();
 		
-		if (!isExactChangePossible())
-			vm.getExactChangeLight().activate();
-		else 
-			vm.getExactChangeLight().deactivate();
+		updateExactChangeLight();
+	}
+	
+	
+	/**
+	 * Method logs the credit, so the state of the machine can be rebuilt from its log
+	 */
+	private void creditChanged() {
+		EL.writeEvent(EventCode.CREDIT_CHANGED, HardwareKind.UNKNOWN, -1, credit);
+	}
+	
+	/**
+	 * Method turns the exact change light on or off, if it does not already show whether exact change is possible
+	 */
+	private void updateExactChangeLight() {
+		boolean needed = !isExactChangePossible();
+		IndicatorLight light = vm.getExactChangeLight();
+		if (light.isActive() != needed) {
+			if (needed)
+				light.activate();
+			else
+				light.deactivate();
+		}
+	}
+	
+	/**
+	 * Method called by a coin rack listener when a coin goes into or out of a rack
+	 * @param rack - the rack the coin went into or out of
+	 * @param added - true if a coin was added, false if one was removed
+	 */
+	public void coinRackChanged(CoinRack rack, boolean added) {
+		coinRackChanged(rack, added ? 1 : -1);
+	}
+	
+	/**
+	 * Method called by a coin rack listener when several coins go into or out of a rack together
+	 * @param rack - the rack the coins went into or out of
+	 * @param coins - the number of coins added, or minus the number removed
+	 */
+	public void coinRackChanged(CoinRack rack, int coins) {
+		int i = rackIndex(rack);
+		if (i < 0)
+			return;
+		if (coins > 0)
+			changeAvailability.coinsAdded(i, coins);
+		else
+			changeAvailability.coinsRemoved(i, -coins);
+		payoutPlans.rackChanged(i, vm.getCoinRack(i).isDisabled() ? 0 : changeAvailability.getCount(i));
+		if (!payingChange)
+			updateExactChangeLight();
+	}
+	
+	/**
+	 * Method finds the rack among the machine's coin racks
+	 * @param rack - the rack
+	 * @return the index of the rack, which is also the index of its coin kind, or -1 if it is not one of the machine's
+	 */
+	private int rackIndex(AbstractHardware<? extends AbstractHardwareListener> rack) {
+		return rack instanceof CoinRack ? findHardwareIndex(rack) : -1;
 	}
 	
+	/**
+	 * Method counts the coins in each rack
+	 * @return int[] counts, indexed as the coin kinds are
+	 */
+	private int[] rackCounts() {
+		int[] counts = new int[coinKinds.length];
+		for (int i = 0; i < coinKinds.length; i++)
+			counts[i] = vm.getCoinRack(i).size();
+		return counts;
+	}
+	
+	/**
+	 * Method works out the most change a purchase is expected to need: a coin more than the dearest pop
+	 * @return the amount, in cents
+	 */
+	private int largestChange() {
+		int price = 0;
+		for (int i = 0; i < vm.getNumberOfSelectionButtons(); i++)
+			price = Math.max(price, vm.getPopKindCost(i));
+		int coin = 0;
+		for (int kind : coinKinds)
+			coin = Math.max(coin, kind);
+		return price + coin;
+	}
+	
+	/**
+	 * Method counts the coins that can be paid out of each rack: none from a disabled rack, or while the safety is on
+	 * @return int[] counts, indexed as the coin kinds are
+	 */
+	private int[] changeCounts() {
+		int[] counts = new int[coinKinds.length];
+		if (vm.isSafetyEnabled())
+			return counts;
+		for (int i = 0; i < coinKinds.length; i++) {
+			CoinRack rack = vm.getCoinRack(i);
+			counts[i] = rack.isDisabled() ? 0 : rack.size();
+		}
+		return counts;
+	}
+	
+	/**
+	 * Method finds how many coins each rack holds when full
+	 */
+	private int[] rackCapacities() {
+		int[] capacities = new int[coinKinds.length];
+		for (int i = 0; i < coinKinds.length; i++)
+			capacities[i] = vm.getCoinRack(i).getCapacity();
+		return capacities;
+	}
 	
 	/**
 	 * Method finds out what coin kinds are used in the vending machine based on the number of coin racks.
@@ -342,35 +566,15 @@ public class VendingLogic implements VendingLogicInterface {
 	 * @return possible - A boolean describing if it is possible to create change for every possible transaction.
 	 */
 	public boolean isExactChangePossible() {
-		boolean possible = true;
-		if (vm.getCoinReturn() != null) {
-			for (int i = 0; i < vm.getNumberOfSelectionButtons(); i++) {		// get the price for every possible pop
-				int credRemaining = credit;
-				int price = vm.getPopKindCost(i);
-				if (credRemaining >= price) {
-					credRemaining -= price;
-					int changePossible = 0;
-
-					int[] coinKinds = {200, 100, 25, 10, 5};		// legal value of Canadian coins. only types returned
-					for (int value = 0; value < coinKinds.length; value++) {
-						CoinRack rack = vm.getCoinRackForCoinKind(coinKinds[value]);		// the coin rack for the coin value indicated by the loop
-						if (rack != null) {									// if rack = null. coin kind is not a valid change option
-							int coinsNeeded = 0;
-							while ((!rack.isDisabled()) && (credRemaining > changePossible) && (rack.size() > coinsNeeded)) {
-								coinsNeeded++;
-								changePossible += coinKinds[value];			// sum of available coins
-							}
-						}
-					}
-					if (credRemaining != changePossible)		// if after going through all the coin racks, the exact change cannot be created
-						possible = false;			//  return that it is not possible to 
-				}
-			}
-		}
-		else 
-			possible = false;			// if the CoinReturn is not there (null) return false.
-		
-		return possible;
+		if (vm.getCoinReturn() == null)
+			return false;			// if the CoinReturn is not there (null) no change can be given
+		boolean safety = vm.isSafetyEnabled();		// no coins are paid out while the safety is on
+		for (int i = 0; i < vm.getNumberOfSelectionButtons(); i++) {		// get the price for every possible pop
+			int change = credit - vm.getPopKindCost(i);
+			if (change > 0 && (safety || !changeAvailability.canPay(change)))
+				return false;
+		}
+		return true;
 	}
 	
 	/** 
@@ -379,38 +583,12 @@ public class VendingLogic implements VendingLogicInterface {
 	 * @param button
 	 */
 	public void determineButtonAction(PushButton button) {
-		boolean found = false;
-		
-		if(vm.isSafetyEnabled() == false) {
-			// search through the selection buttons to see if the parameter button is a selection button
-			for (int index = 0; (found == false) && (index < vm.getNumberOfSelectionButtons()); index++) {
-				if (vm.getSelectionButton(index) == button) {
-					selectionButtonAction(index);
-					found = true;
-				}
-			}
-		}
-		
-		// search through the configuration panel to see if the parameter button is part of these buttons
-		// NOTE!!! the configuration panel has a hard coded list of 37 buttons.  If this changes it could cause an error here!
-		for (int index = 0; (found == false) && (index < 37); index++) {
-			if (vm.getConfigurationPanel().getButton(index) == button) {
-				// TODO figure out how to configure
-				found = true;
-			}
+		// the actions are bound when the logic is installed: selection buttons, then the configuration panel
+		Runnable action = buttonActions.get(button);
+		if (action == null) {
+			throw new SimulationException(UNKNOWN_BUTTON);
 		}
-		
-		// check to see if the button is the configuration panels enter button.
-		if ((found == false) && (button == vm.getConfigurationPanel().getEnterButton())) {
-			// TODO figure out how to configure
-			found = true;
-			
-		}
-		
-		if (found == false) {
-			throw new SimulationException("Unknown Button pressed! Could not determine action");
-		}
-			
+		action.run();
 	}
 
 	/**
@@ -423,11 +601,13 @@ public class VendingLogic implements VendingLogicInterface {
 				vm.getPopCanRack(index).dispensePopCan();
 				this.dispensingMessage();
 				credit -= vm.getPopKindCost(index);		// deduct the price of the pop
-				returnChange();
+				creditChanged();
+				payChange();
 				if (credit == 0)
 					this.welcomeMessageTimer();		// begin cycling the welcome message again
 				else
 					this.displayCredit();
+				EL.commit();		// everything logged for this purchase is made durable together
 			} catch (DisabledException e) {
 				// TODO Auto-generated catch block
 				e.printStackTrace();
@@ -440,7 +620,7 @@ public class VendingLogic implements VendingLogicInterface {
 			}
 		}
 		else if (circuitEnabled[index] != true) {
-			vm.getDisplay().display("Option unavailable");
+			showForAWhile(DisplayMessageScheduler.Priority.PRICE, "Option unavailable");
 		}
 		else {
 			this.displayPrice(index);
@@ -456,36 +636,22 @@ public class VendingLogic implements VendingLogicInterface {
 	 * @return The index of the hardware according to the vending machine. -1 means error could not find
 	 */
 	public int findHardwareIndex(AbstractHardware<? extends AbstractHardwareListener> hardware) {
-		if (hardware instanceof PopCanRack) {
-			for (int index = 0; index < vm.getNumberOfPopCanRacks(); index++) {
-				if (vm.getPopCanRack(index) == hardware) {
-					return index;
-				}
-			}
-		}
-		
-		else if (hardware instanceof PushButton) {
-			for (int index = 0; index < vm.getNumberOfSelectionButtons(); index++) {
-				if (vm.getSelectionButton(index) == hardware) {
-					return index;
-				}
-			}
-			
-			for (int index = 0; index < 37; index++) {
-				if (vm.getConfigurationPanel().getButton(index) == hardware) {
-					return index;
-				}
-			}
+		Integer index = hardwareIndex.get(hardware);
+		return index == null ? -1 : index; // -1 will be the error index
+	}
+	
+	/**
+	 * Method finds the index an event on a piece of hardware is logged with. Unlike findHardwareIndex,
+	 * a push button only has an index if it is a selection button
+	 * @param hardware - the hardware that the event occurred on
+	 * @return The index of the hardware, or -1 if it has none
+	 */
+	private int eventIndex(AbstractHardware<? extends AbstractHardwareListener> hardware) {
+		if (hardware instanceof PushButton) {
+			Integer index = selectionIndex.get(hardware);
+			return index == null ? -1 : index;
 		}
-		
-		else if (hardware instanceof CoinRack)
-			for (int i = 0; i < vm.getNumberOfCoinRacks(); i++) {
-				if (hardware == vm.getCoinRack(i)) {
-					return i;
-				}
-			}
-		
-		return -1; // -1 will be the error index
+		return findHardwareIndex(hardware);
 	}
 	
 	/**
@@ -494,21 +660,25 @@ public class VendingLogic implements VendingLogicInterface {
 	 * @param hardware
 	 */
 	public void disableHardware(AbstractHardware<? extends AbstractHardwareListener> hardware) {
+		EL.writeEvent(EventCode.HARDWARE_DISABLED, HardwareKind.of(hardware), eventIndex(hardware), 0);
 		if (hardware instanceof PopCanRack) {
 			circuitEnabled[findHardwareIndex(hardware)] = false;
 		}
 		else if (hardware instanceof PushButton) {
-			for (int i = 0; i < vm.getNumberOfSelectionButtons(); i++) {
-				if (hardware == vm.getSelectionButton(i)) {
-					circuitEnabled[i] = false;
-				}
-			}
+			int index = eventIndex(hardware);
+			if (index >= 0)
+				circuitEnabled[index] = false;
 		}
 		else {
+			if (hardware instanceof CoinRack && rackIndex(hardware) >= 0) {
+				changeAvailability.setEnabled(rackIndex(hardware), false);
+				payoutPlans.rackChanged(rackIndex(hardware), 0);
+			}
 			vm.getOutOfOrderLight().activate();
 			
-			returnChange();
+			payChange();
 			vendOutOfOrder();
+			EL.commit();		// the change and the out of order message end the transaction
 			//vm.enableSafety(); NOTE: calling enableSafety() will result in a stack overflow exception
 		}
 	}
@@ -519,20 +689,24 @@ public class VendingLogic implements VendingLogicInterface {
 	 * @param hardware
 	 */
 	public void enableHardware(AbstractHardware<? extends AbstractHardwareListener> hardware) {
+		EL.writeEvent(EventCode.HARDWARE_ENABLED, HardwareKind.of(hardware), eventIndex(hardware), 0);
 		if (hardware instanceof PopCanRack) {
 			int index = findHardwareIndex(hardware);
 			if ((vm.getSelectionButton(index).isDisabled() == false) && (vm.isSafetyEnabled() == false))
 				circuitEnabled[index] = true;
 		}
 		else if (hardware instanceof PushButton) {
-			for (int i = 0; i < vm.getNumberOfSelectionButtons(); i++) {
-				if (hardware == vm.getSelectionButton(i)) {
-					circuitEnabled[i] = true;
-				}
-			}
+			int index = eventIndex(hardware);
+			if (index >= 0)
+				circuitEnabled[index] = true;
 		}
 		else {
+			if (hardware instanceof CoinRack && rackIndex(hardware) >= 0) {
+				changeAvailability.setEnabled(rackIndex(hardware), true);
+				payoutPlans.rackChanged(rackIndex(hardware), changeAvailability.getCount(rackIndex(hardware)));
+			}
 			vm.getOutOfOrderLight().deactivate();
+			messages.clear(DisplayMessageScheduler.Priority.OUT_OF_ORDER);
 			//vm.disableSafety(); NOTE: This may result in a stack overflow exception
 			
 		}
@@ -553,4 +727,4 @@ public class VendingLogic implements VendingLogicInterface {
 			return circuitEnabled[index];
 	}
 	
-}
\ No newline at end of file
+}
\ No newline at end of file
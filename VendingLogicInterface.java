@@ -3,6 +3,7 @@ package ca.ucalgary.seng300.a2;
 import org.lsmr.vending.Coin;
 import org.lsmr.vending.hardware.AbstractHardware;
 import org.lsmr.vending.hardware.AbstractHardwareListener;
+import org.lsmr.vending.hardware.CoinRack;
 
 import org.lsmr.vending.hardware.PushButton;
 /**
@@ -96,4 +97,24 @@ public interface VendingLogicInterface {
 	 */
 	public void enableHardware(AbstractHardware<? extends AbstractHardwareListener> hardware);
 	
+	/**
+	 * Method called by a coin rack listener when a coin goes into or out of a rack, so the logic can keep
+	 *   track of the change it can give. Does nothing by default
+	 * @param rack - the rack the coin went into or out of
+	 * @param added - true if a coin was added, false if one was removed
+	 */
+	public default void coinRackChanged(CoinRack rack, boolean added) {
+	}
+	
+	/**
+	 * Method called by a coin rack listener when several coins go into or out of a rack together.
+	 *   By default each coin is passed on on its own
+	 * @param rack - the rack the coins went into or out of
+	 * @param coins - the number of coins added, or minus the number removed
+	 */
+	public default void coinRackChanged(CoinRack rack, int coins) {
+		for (int n = 0; n < Math.abs(coins); n++)
+			coinRackChanged(rack, coins > 0);
+	}
+	
 }
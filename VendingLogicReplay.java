@@ -0,0 +1,152 @@
+package ca.ucalgary.seng300.a2;
+
+import org.lsmr.vending.Coin;
+import org.lsmr.vending.PopCan;
+import org.lsmr.vending.hardware.*;
+
+/**
+ * Replays a recorded event log into a fresh VendingMachine with a VendingLogic installed on it.
+ * <p>
+ * Only the records of things done to the machine are replayed: coins put in the slot, selection buttons
+ * pressed, racks loaded and unloaded, and hardware disabled and enabled. The machine and the logic produce
+ * everything else themselves, exactly as they did when the log was written. The logic runs without timers
+ * or waiting and writes to a log that keeps nothing, so replay is not held up by either.
+ * <p>
+ * The machine must be configured like the one that wrote the log: the same coin kinds, selections, names and prices.
+ */
+public class VendingLogicReplay implements ReplayTarget {
+
+	private final VendingMachine vm;
+	private final VendingLogic logic;
+
+	/**
+	* Constructor installs a VendingLogic on the machine that records are replayed into
+	* @param VendingMachine vm, a new machine, configured but not loaded
+	*/
+	public VendingLogicReplay(VendingMachine vm) {
+		this.vm = vm;
+		logic = new VendingLogic(vm, new EventLogInterface() {
+			@Override
+			public void writeToLog(String s) {
+			}
+
+			@Override
+			public void writeEvent(EventCode code, HardwareKind kind, int hardwareIndex, int value) {
+			}
+
+			@Override
+			public boolean isEnabled(HardwareKind kind) {
+				return false;
+			}
+		}, false);
+	}
+
+	/**
+	* Method does to the machine what the record says was done to the original
+	*/
+	@Override
+	public void apply(long timeNanos, EventCode code, HardwareKind kind, int hardwareIndex, int value, String text) {
+		try {
+			switch (code) {
+			case COIN_INSERTED:
+			case COIN_REJECTED:
+				vm.getCoinSlot().addCoin(new Coin(value));
+				break;
+			case SELECTION_PRESSED:
+				vm.getSelectionButton(hardwareIndex).press();
+				break;
+			case COIN_RACK_LOADED: {
+				// the record holds the coins in the rack after loading
+				CoinRack rack = vm.getCoinRack(hardwareIndex);
+				int count = value - rack.size();
+				if (count > 0) {
+					Coin[] coins = new Coin[count];
+					for (int i = 0; i < count; i++)
+						coins[i] = new Coin(vm.getCoinKindForCoinRack(hardwareIndex));
+					rack.load(coins);
+				}
+				break;
+			}
+			case COIN_RACK_UNLOADED:
+				vm.getCoinRack(hardwareIndex).unload();
+				break;
+			case POP_RACK_LOADED: {
+				PopCan[] cans = new PopCan[value];
+				for (int i = 0; i < value; i++)
+					cans[i] = new PopCan(vm.getPopKindName(hardwareIndex));
+				vm.getPopCanRack(hardwareIndex).load(cans);
+				break;
+			}
+			case POP_RACK_UNLOADED:
+				vm.getPopCanRack(hardwareIndex).unload();
+				break;
+			case HARDWARE_DISABLED:
+			case HARDWARE_ENABLED: {
+				// the logic is told directly: a pop can rack that ran out is only disabled in the logic, not in the machine
+				AbstractHardware<? extends AbstractHardwareListener> hardware = findHardware(kind, hardwareIndex);
+				if (hardware != null) {
+					if (code == EventCode.HARDWARE_DISABLED)
+						logic.disableHardware(hardware);
+					else
+						logic.enableHardware(hardware);
+				}
+				break;
+			}
+			default:
+				break;		// produced by the machine itself
+			}
+		} catch (DisabledException e) {
+			// the original machine could not have logged this either; the logs do not match
+			throw new SimulationException("Replayed event on disabled hardware: " + code);
+		}
+	}
+
+	/**
+	* Method finds the hardware a record is about
+	* @return the hardware, or null if it is not part of the machine
+	*/
+	private AbstractHardware<? extends AbstractHardwareListener> findHardware(HardwareKind kind, int index) {
+		switch (kind) {
+		case COIN_SLOT:
+			return vm.getCoinSlot();
+		case COIN_RECEPTACLE:
+			return vm.getCoinReceptacle();
+		case COIN_RETURN:
+			return vm.getCoinReturn();
+		case DELIVERY_CHUTE:
+			return vm.getDeliveryChute();
+		case DISPLAY:
+			return vm.getDisplay();
+		case COIN_RACK:
+			return index >= 0 ? vm.getCoinRack(index) : null;
+		case POP_CAN_RACK:
+			return index >= 0 ? vm.getPopCanRack(index) : null;
+		case PUSH_BUTTON:
+			return index >= 0 ? vm.getSelectionButton(index) : null;
+		default:
+			return null;
+		}
+	}
+
+	public VendingMachine getVendingMachine() {
+		return vm;
+	}
+
+	public VendingLogic getLogic() {
+		return logic;
+	}
+
+	/**
+	* @return the credit in cents
+	*/
+	public int getCredit() {
+		return logic.getCurrencyValue();
+	}
+
+	/**
+	* @return the message on the display
+	*/
+	public String getDisplayMessage() {
+		return logic.getCurrentMessage();
+	}
+}
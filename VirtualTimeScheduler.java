@@ -0,0 +1,188 @@
+package ca.ucalgary.seng300.a2;
+
+import java.util.PriorityQueue;
+
+/**
+ * A scheduler on a clock that only moves when it is told to, for discrete-event simulation.
+ * <p>
+ * Nothing runs on its own. advance() moves the clock forward, jumping straight from one due task to the next and
+ * running each on the calling thread, with the clock set to the time it was due. A day of welcome cycles and
+ * message expiries therefore takes as long as the tasks themselves take to run. Tasks due at the same time run in
+ * the order they were scheduled, so a simulation gives the same events in the same order every time.
+ * <p>
+ * Tasks may schedule and cancel other tasks while they run. The scheduler is meant to be driven by one thread.
+ */
+public class VirtualTimeScheduler implements TaskScheduler {
+
+	private final PriorityQueue<Task> queue = new PriorityQueue<Task>();
+	private long nowNanos;
+	private long nextOrder;		// breaks ties between tasks due at the same time
+	private long runCount;
+
+	/**
+	* Constructor creates a scheduler whose clock starts at the epoch
+	*/
+	public VirtualTimeScheduler() {
+		this(0);
+	}
+
+	/**
+	* Constructor creates a scheduler whose clock starts at a given time
+	* @param long startMillis, the starting time, in milliseconds since the epoch
+	*/
+	public VirtualTimeScheduler(long startMillis) {
+		nowNanos = startMillis * 1000000L;
+	}
+
+	@Override
+	public synchronized long currentTimeNanos() {
+		return nowNanos;
+	}
+
+	/**
+	* @return the current time, in milliseconds since the epoch
+	*/
+	public synchronized long currentTimeMillis() {
+		return nowNanos / 1000000L;
+	}
+
+	@Override
+	public synchronized Task schedule(Runnable task, long delayMillis) {
+		return add(new Task(task, nowNanos + Math.max(0, delayMillis) * 1000000L, 0));
+	}
+
+	@Override
+	public synchronized Task scheduleAtFixedRate(Runnable task, long delayMillis, long periodMillis) {
+		if (periodMillis <= 0)
+			throw new IllegalArgumentException("Period must be positive");
+		return add(new Task(task, nowNanos + Math.max(0, delayMillis) * 1000000L, periodMillis * 1000000L));
+	}
+
+	private Task add(Task task) {
+		task.order = nextOrder++;
+		queue.add(task);
+		return task;
+	}
+
+	/**
+	* Method moves the clock forward, running every task that falls due on the way
+	* @param long millis, how far to move the clock
+	* @return the number of tasks run
+	*/
+	public long advance(long millis) {
+		if (millis < 0)
+			throw new IllegalArgumentException("Time cannot go backwards");
+		long until;
+		synchronized (this) {
+			until = nowNanos + millis * 1000000L;
+		}
+		long ran = 0;
+		Task task;
+		while ((task = next(until)) != null) {
+			try {
+				task.runnable.run();
+			} catch (RuntimeException e) {
+				e.printStackTrace();
+			}
+			ran++;
+			requeue(task);
+		}
+		synchronized (this) {
+			nowNanos = Math.max(nowNanos, until);
+		}
+		return ran;
+	}
+
+	/**
+	* Method runs the tasks that are due now, without moving the clock
+	* @return the number of tasks run
+	*/
+	public long runDue() {
+		return advance(0);
+	}
+
+	/**
+	* Method takes the next task due by a time off the queue and moves the clock to when it is due
+	*/
+	private synchronized Task next(long untilNanos) {
+		while (!queue.isEmpty()) {
+			Task task = queue.peek();
+			if (task.cancelled) {
+				queue.poll();		// cancelled tasks are dropped when they come up
+				continue;
+			}
+			if (task.dueNanos > untilNanos)
+				return null;
+			queue.poll();
+			nowNanos = task.dueNanos;
+			if (task.periodNanos == 0)
+				task.done = true;
+			runCount++;
+			return task;
+		}
+		return null;
+	}
+
+	private synchronized void requeue(Task task) {
+		if (task.periodNanos > 0 && !task.cancelled) {
+			task.dueNanos += task.periodNanos;
+			add(task);
+		}
+	}
+
+	/**
+	* @return the number of tasks waiting, cancelled ones included until they come up
+	*/
+	public synchronized int getQueuedCount() {
+		return queue.size();
+	}
+
+	/**
+	* @return the number of tasks run since the scheduler was created
+	*/
+	public synchronized long getRunCount() {
+		return runCount;
+	}
+
+	/**
+	 * A task on the virtual clock
+	 */
+	public class Task implements TaskScheduler.ScheduledTask, Comparable<Task> {
+		private final Runnable runnable;
+		private final long periodNanos;
+		private long dueNanos;
+		private long order;
+		private boolean cancelled;
+		private boolean done;
+
+		private Task(Runnable runnable, long dueNanos, long periodNanos) {
+			this.runnable = runnable;
+			this.dueNanos = dueNanos;
+			this.periodNanos = periodNanos;
+		}
+
+		@Override
+		public boolean cancel() {
+			synchronized (VirtualTimeScheduler.this) {
+				if (cancelled || done)
+					return false;
+				cancelled = true;
+				return true;
+			}
+		}
+
+		@Override
+		public boolean isCancelled() {
+			synchronized (VirtualTimeScheduler.this) {
+				return cancelled;
+			}
+		}
+
+		@Override
+		public int compareTo(Task other) {
+			if (dueNanos != other.dueNanos)
+				return dueNanos < other.dueNanos ? -1 : 1;
+			return Long.compare(order, other.order);
+		}
+	}
+}
@@ -1,14 +1,40 @@
 package org.lsmr.vending.hardware;
 
-import java.util.ArrayList;
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import org.lsmr.vending.Coin;
+import org.lsmr.vending.PopCan;
 
 /**
  * The abstract base class for all hardware devices involved in the vending
  * machine simulator.
  * <p>
  * This class utilizes the Observer design pattern. Subclasses inherit the
- * appropriate register method, but each must define its own notifyXXX methods.
- * The notifyListener method is provided to minimize the work of subclasses.
+ * appropriate register method, but each must define its own notifyXXX methods,
+ * which loop over the array returned by listeners(), or pass that loop to
+ * announce() when the device is on an event bus. Only then is a notification
+ * object created, so announcing an event directly allocates nothing.
+ * <p>
+ * The listeners are kept in an array that is never changed once it is
+ * published: registering or deregistering a listener builds a new array and
+ * swaps it in atomically. Events can therefore be announced from any thread
+ * without locks while listeners come and go, and a notification that is under
+ * way carries on with the listeners it started with. A device without
+ * listeners shares one empty array, and a single listener is a one-element
+ * array, so keeping the listeners costs nothing per event.
+ * <p>
+ * Events are announced on the thread that caused them, unless the device is
+ * given a strand of a HardwareEventBus, in which case the notification is
+ * queued and run by the bus's workers after the movement that caused it has
+ * finished, in the order the events of the strand happened. Listeners of a
+ * device on a bus must therefore not expect the device to be in the state it
+ * was in when the event happened.
+ * <p>
+ * A device can also publish its events, as HardwareEvent records, to a
+ * HardwareEventStream shared with other devices; each notifyXXX method passes
+ * its event to one of the publish() methods before announcing it.
  * <p>
  * Each hardware device must possess an appropriate listener, which extends
  * AbstractHardwareListener; the type parameter T represents this listener.
@@ -21,10 +47,188 @@ import java.util.ArrayList;
  *            The class of listeners used for this device.
  */
 public abstract class AbstractHardware<T extends AbstractHardwareListener> {
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<AbstractHardware, AbstractHardwareListener[]> LISTENERS = AtomicReferenceFieldUpdater
+	    .newUpdater(AbstractHardware.class, AbstractHardwareListener[].class, "listeners");
+
+    /**
+     * The registered listeners on this device. Each array is created with
+     * the listener class as its component type, so that it can be handed out
+     * as a T[].
+     */
+    private volatile AbstractHardwareListener[] listeners;
+    private final AbstractHardwareListener[] noListeners;
+    private volatile HardwareEventBus.Strand strand;
+    private volatile HardwareEventStream stream;
+
+    /**
+     * Creates a device without listeners.
+     * 
+     * @param listenerClass
+     *            The class of listeners used for this device.
+     */
+    protected AbstractHardware(Class<T> listenerClass) {
+	noListeners = (AbstractHardwareListener[])Array.newInstance(listenerClass, 0);
+	listeners = noListeners;
+    }
+
+    /**
+     * Returns the listeners registered when it is called, for a notifyXXX
+     * method to loop over. The array must not be changed.
+     * 
+     * @return The current listeners, in the order they were registered.
+     */
+    @SuppressWarnings("unchecked")
+    protected final T[] listeners() {
+	return (T[])listeners;
+    }
+
+    /**
+     * Announces an event to the listeners: at once, or through the event bus
+     * strand of this device, if it has one.
+     * 
+     * @param notification
+     *            Calls the listeners.
+     */
+    protected final void announce(Runnable notification) {
+	HardwareEventBus.Strand strand = this.strand;
+	if(strand == null)
+	    notification.run();
+	else
+	    strand.execute(notification);
+    }
+
+    /**
+     * Sends the events of this device through a strand of an event bus, or
+     * announces them directly again. Devices sharing a strand have their
+     * events announced in the order they happened. Causes no events.
+     * 
+     * @param strand
+     *            The strand, or null to announce events on the thread that
+     *            causes them.
+     */
+    public final void setEventStrand(HardwareEventBus.Strand strand) {
+	this.strand = strand;
+    }
+
+    /**
+     * Returns the event bus strand of this device.
+     * 
+     * @return The strand, or null if events are announced directly.
+     */
+    public final HardwareEventBus.Strand getEventStrand() {
+	return strand;
+    }
+
+    /**
+     * Publishes the events of this device to a stream, in addition to
+     * announcing them to its listeners. Causes no events.
+     * 
+     * @param stream
+     *            The stream, or null to stop publishing.
+     */
+    public final void setEventStream(HardwareEventStream stream) {
+	this.stream = stream;
+    }
+
+    /**
+     * Returns the stream the events of this device are published to.
+     * 
+     * @return The stream, or null if events are not published.
+     */
+    public final HardwareEventStream getEventStream() {
+	return stream;
+    }
+
     /**
-     * A list of the registered listeners on this device.
+     * Publishes an event that is about the device alone to the event stream of
+     * this device, if it has one.
+     * 
+     * @param type
+     *            The kind of event.
      */
-    protected ArrayList<T> listeners = new ArrayList<>();
+    protected final void publish(HardwareEvent.Type type) {
+	HardwareEventStream stream = this.stream;
+	if(stream != null)
+	    stream.publish(this, type, null, null, null, null, null, null);
+    }
+
+    /**
+     * Publishes an event about a coin to the event stream of this device, if it
+     * has one.
+     * 
+     * @param type
+     *            The kind of event.
+     * @param coin
+     *            The coin.
+     */
+    protected final void publish(HardwareEvent.Type type, Coin coin) {
+	HardwareEventStream stream = this.stream;
+	if(stream != null)
+	    stream.publish(this, type, coin, null, null, null, null, null);
+    }
+
+    /**
+     * Publishes an event about several coins to the event stream of this
+     * device, if it has one.
+     * 
+     * @param type
+     *            The kind of event.
+     * @param coins
+     *            The coins.
+     */
+    protected final void publish(HardwareEvent.Type type, Coin[] coins) {
+	HardwareEventStream stream = this.stream;
+	if(stream != null)
+	    stream.publish(this, type, null, coins, null, null, null, null);
+    }
+
+    /**
+     * Publishes an event about a pop can to the event stream of this device, if
+     * it has one.
+     * 
+     * @param type
+     *            The kind of event.
+     * @param popCan
+     *            The pop can.
+     */
+    protected final void publish(HardwareEvent.Type type, PopCan popCan) {
+	HardwareEventStream stream = this.stream;
+	if(stream != null)
+	    stream.publish(this, type, null, null, popCan, null, null, null);
+    }
+
+    /**
+     * Publishes an event about several pop cans to the event stream of this
+     * device, if it has one.
+     * 
+     * @param type
+     *            The kind of event.
+     * @param popCans
+     *            The pop cans.
+     */
+    protected final void publish(HardwareEvent.Type type, PopCan[] popCans) {
+	HardwareEventStream stream = this.stream;
+	if(stream != null)
+	    stream.publish(this, type, null, null, null, popCans, null, null);
+    }
+
+    /**
+     * Publishes a change of message to the event stream of this device, if it
+     * has one.
+     * 
+     * @param type
+     *            The kind of event.
+     * @param oldMessage
+     *            The message before.
+     * @param newMessage
+     *            The message after.
+     */
+    protected final void publish(HardwareEvent.Type type, String oldMessage, String newMessage) {
+	HardwareEventStream stream = this.stream;
+	if(stream != null)
+	    stream.publish(this, type, null, null, null, null, oldMessage, newMessage);
+    }
 
     /**
      * Locates the indicated listener and removes it such that it will no longer
@@ -37,7 +241,29 @@ public abstract class AbstractHardware<T extends AbstractHardwareListener> {
      * @return true if the listener was found and removed, false otherwise.
      */
     public final boolean deregister(T listener) {
-	return listeners.remove(listener);
+	for(;;) {
+	    AbstractHardwareListener[] current = listeners;
+	    int index = -1;
+	    for(int i = 0; i < current.length; i++)
+		if(listener == null ? current[i] == null : listener.equals(current[i])) {
+		    index = i;
+		    break;
+		}
+
+	    if(index < 0)
+		return false;
+
+	    AbstractHardwareListener[] next;
+	    if(current.length == 1)
+		next = noListeners;
+	    else {
+		next = Arrays.copyOf(current, current.length - 1);
+		System.arraycopy(current, index + 1, next, index, current.length - index - 1);
+	    }
+
+	    if(LISTENERS.compareAndSet(this, current, next))
+		return true;
+	}
     }
 
     /**
@@ -45,7 +271,7 @@ public abstract class AbstractHardware<T extends AbstractHardwareListener> {
      * calls to this method have no effect.
      */
     public final void deregisterAll() {
-	listeners.clear();
+	listeners = noListeners;
     }
 
     /**
@@ -56,7 +282,14 @@ public abstract class AbstractHardware<T extends AbstractHardwareListener> {
      *            The listener to be added.
      */
     public final void register(T listener) {
-	listeners.add(listener);
+	for(;;) {
+	    AbstractHardwareListener[] current = listeners;
+	    AbstractHardwareListener[] next = Arrays.copyOf(current, current.length + 1);
+	    next[current.length] = listener;
+
+	    if(LISTENERS.compareAndSet(this, current, next))
+		return;
+	}
     }
 
     private boolean disabled = false;
@@ -70,8 +303,15 @@ public abstract class AbstractHardware<T extends AbstractHardwareListener> {
     }
 
     private void notifyDisabled() {
-	for(T listener : listeners)
-	    listener.disabled(this);
+	publish(HardwareEvent.Type.DISABLED);
+	if(strand == null)
+	    for(AbstractHardwareListener listener : listeners)
+		listener.disabled(this);
+	else
+	    announce(() -> {
+		for(AbstractHardwareListener listener : listeners)
+		    listener.disabled(this);
+	    });
     }
 
     /**
@@ -83,8 +323,15 @@ public abstract class AbstractHardware<T extends AbstractHardwareListener> {
     }
 
     private void notifyEnabled() {
-	for(T listener : listeners)
-	    listener.enabled(this);
+	publish(HardwareEvent.Type.ENABLED);
+	if(strand == null)
+	    for(AbstractHardwareListener listener : listeners)
+		listener.enabled(this);
+	else
+	    announce(() -> {
+		for(AbstractHardwareListener listener : listeners)
+		    listener.enabled(this);
+	    });
     }
 
     /**
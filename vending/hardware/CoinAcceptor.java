@@ -28,4 +28,34 @@ public interface CoinAcceptor {
      * @return true if there is space, false if there is not space
      */
     public boolean hasSpace();
+
+    /**
+     * Checks whether the device has enough space to accept several more coins
+     * at once. By default only space for one coin is checked; devices that
+     * know their capacity should override this.
+     * 
+     * @param count
+     *            The number of coins.
+     * @return true if there is space, false if there is not space
+     */
+    public default boolean hasSpaceFor(int count) {
+	return count <= 0 || hasSpace();
+    }
+
+    /**
+     * Instructs the device to take several coins as input at once. By default
+     * they are taken one at a time; devices that can announce them together
+     * should override this.
+     * 
+     * @param coins
+     *            The coins to be taken as input.
+     * @throws CapacityExceededException
+     *             If the device does not have enough space for the coins.
+     * @throws DisabledException
+     *             If the device is disabled.
+     */
+    public default void acceptCoins(Coin... coins) throws CapacityExceededException, DisabledException {
+	for(Coin coin : coins)
+	    acceptCoin(coin);
+    }
 }
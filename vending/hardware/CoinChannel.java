@@ -35,6 +35,21 @@ public final class CoinChannel {
 	getSink().acceptCoin(coin);
     }
 
+    /**
+     * Moves the indicated coins to the sink together. This method should be
+     * called by the source device, and not by an external application.
+     * 
+     * @param coins
+     *            The coins to transport via the channel.
+     * @throws CapacityExceededException
+     *             if the sink has no space for the coins.
+     * @throws DisabledException
+     *             if the sink is currently disabled.
+     */
+    public void deliver(Coin... coins) throws CapacityExceededException, DisabledException {
+	getSink().acceptCoins(coins);
+    }
+
     /**
      * Returns whether the sink has space for at least one more coin.
      * 
@@ -44,6 +59,17 @@ public final class CoinChannel {
 	return getSink().hasSpace();
     }
 
+    /**
+     * Returns whether the sink has space for several more coins at once.
+     * 
+     * @param count
+     *            The number of coins.
+     * @return true if the channel can accept the coins; false otherwise.
+     */
+    public boolean hasSpaceFor(int count) {
+	return getSink().hasSpaceFor(count);
+    }
+
     /**
      * Returns the sink to which this channel is connected.
      * 
@@ -30,6 +30,7 @@ public final class CoinRack extends AbstractHardware<CoinRackListener> implement
      *             if capacity is not positive.
      */
     public CoinRack(int capacity) {
+	super(CoinRackListener.class);
 	if(capacity <= 0)
 	    throw new SimulationException("Capacity must be positive: " + capacity);
 	this.maxCapacity = capacity;
@@ -68,8 +69,15 @@ public final class CoinRack extends AbstractHardware<CoinRackListener> implement
     }
 
     private void notifyLoad(Coin[] coins) {
-	for(CoinRackListener listener : listeners)
-	    listener.coinsLoaded(this, coins);
+	publish(HardwareEvent.Type.COINS_LOADED, coins);
+	if(getEventStrand() == null)
+	    for(CoinRackListener listener : listeners())
+		listener.coinsLoaded(this, coins);
+	else
+	    announce(() -> {
+		for(CoinRackListener listener : listeners())
+		    listener.coinsLoaded(this, coins);
+	    });
     }
 
     /**
@@ -88,8 +96,15 @@ public final class CoinRack extends AbstractHardware<CoinRackListener> implement
     }
 
     private void notifyUnload(Coin[] coins) {
-	for(CoinRackListener listener : listeners)
-	    listener.coinsUnloaded(this, coins);
+	publish(HardwareEvent.Type.COINS_UNLOADED, coins);
+	if(getEventStrand() == null)
+	    for(CoinRackListener listener : listeners())
+		listener.coinsUnloaded(this, coins);
+	else
+	    announce(() -> {
+		for(CoinRackListener listener : listeners())
+		    listener.coinsUnloaded(this, coins);
+	    });
     }
 
     /**
@@ -168,6 +183,53 @@ public final class CoinRack extends AbstractHardware<CoinRackListener> implement
 	    notifyCoinsEmpty();
     }
 
+    /**
+     * Releases several coins from this coin rack together, to the output
+     * channel in one delivery. If successful, a single "coinsRemoved" event for
+     * all the coins is announced to its listeners. If this causes the rack to
+     * become empty, a "coinsEmpty" event is announced to its listeners.
+     * Releasing no coins announces nothing.
+     * 
+     * @param count
+     *            The number of coins to release. Cannot be negative.
+     * @throws CapacityExceededException
+     *             if the output channel does not have space for all the coins,
+     *             in which case none are released.
+     * @throws EmptyException
+     *             if the rack holds fewer coins than asked for, in which case
+     *             none are released.
+     * @throws DisabledException
+     *             if the rack is currently disabled.
+     * @throws SimulationException
+     *             if count is negative.
+     */
+    public void releaseCoins(int count) throws CapacityExceededException, EmptyException, DisabledException {
+	if(count < 0)
+	    throw new SimulationException("Cannot release a negative number of coins: " + count);
+
+	if(isDisabled())
+	    throw new DisabledException();
+
+	if(queue.size() < count)
+	    throw new EmptyException();
+
+	if(count == 0)
+	    return;
+
+	if(!sink.hasSpaceFor(count))
+	    throw new CapacityExceededException();
+
+	Coin[] coins = new Coin[count];
+	for(int i = 0; i < count; i++)
+	    coins[i] = queue.remove();
+
+	notifyCoinsRemoved(coins);
+	sink.deliver(coins);
+
+	if(queue.isEmpty())
+	    notifyCoinsEmpty();
+    }
+
     /**
      * Returns whether this coin rack has enough space to accept at least one
      * more coin. Announces no events.
@@ -177,23 +239,72 @@ public final class CoinRack extends AbstractHardware<CoinRackListener> implement
 	return queue.size() < maxCapacity;
     }
 
+    /**
+     * Returns whether this coin rack has enough space to accept the given
+     * number of coins at once. Announces no events.
+     */
+    @Override
+    public boolean hasSpaceFor(int count) {
+	return queue.size() + count <= maxCapacity;
+    }
+
     private void notifyCoinAdded(Coin coin) {
-	for(CoinRackListener listener : listeners)
-	    listener.coinAdded(this, coin);
+	publish(HardwareEvent.Type.COIN_ADDED, coin);
+	if(getEventStrand() == null)
+	    for(CoinRackListener listener : listeners())
+		listener.coinAdded(this, coin);
+	else
+	    announce(() -> {
+		for(CoinRackListener listener : listeners())
+		    listener.coinAdded(this, coin);
+	    });
     }
 
     private void notifyCoinRemoved(Coin coin) {
-	for(CoinRackListener listener : listeners)
-	    listener.coinRemoved(this, coin);
+	publish(HardwareEvent.Type.COIN_REMOVED, coin);
+	if(getEventStrand() == null)
+	    for(CoinRackListener listener : listeners())
+		listener.coinRemoved(this, coin);
+	else
+	    announce(() -> {
+		for(CoinRackListener listener : listeners())
+		    listener.coinRemoved(this, coin);
+	    });
+    }
+
+    private void notifyCoinsRemoved(Coin[] coins) {
+	publish(HardwareEvent.Type.COINS_REMOVED, coins);
+	if(getEventStrand() == null)
+	    for(CoinRackListener listener : listeners())
+		listener.coinsRemoved(this, coins);
+	else
+	    announce(() -> {
+		for(CoinRackListener listener : listeners())
+		    listener.coinsRemoved(this, coins);
+	    });
     }
 
     private void notifyCoinsFull() {
-	for(CoinRackListener listener : listeners)
-	    listener.coinsFull(this);
+	publish(HardwareEvent.Type.COINS_FULL);
+	if(getEventStrand() == null)
+	    for(CoinRackListener listener : listeners())
+		listener.coinsFull(this);
+	else
+	    announce(() -> {
+		for(CoinRackListener listener : listeners())
+		    listener.coinsFull(this);
+	    });
     }
 
     private void notifyCoinsEmpty() {
-	for(CoinRackListener listener : listeners)
-	    listener.coinsEmpty(this);
+	publish(HardwareEvent.Type.COINS_EMPTY);
+	if(getEventStrand() == null)
+	    for(CoinRackListener listener : listeners())
+		listener.coinsEmpty(this);
+	else
+	    announce(() -> {
+		for(CoinRackListener listener : listeners())
+		    listener.coinsEmpty(this);
+	    });
     }
 }
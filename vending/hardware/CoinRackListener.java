@@ -44,6 +44,21 @@ public interface CoinRackListener extends AbstractHardwareListener {
      */
     void coinRemoved(CoinRack rack, Coin coin);
 
+    /**
+     * Announces that the indicated coins have been released together from the
+     * indicated coin rack. By default each coin is announced as removed on its
+     * own.
+     * 
+     * @param rack
+     *            The rack where the event occurred.
+     * @param coins
+     *            The coins that were removed, in the order they left the rack.
+     */
+    default void coinsRemoved(CoinRack rack, Coin... coins) {
+	for(Coin coin : coins)
+	    coinRemoved(rack, coin);
+    }
+
     /**
      * Announces that the indicated sequence of coins has been added to the
      * indicated coin rack. Used to simulate direct, physical loading of the
@@ -32,6 +32,7 @@ public final class CoinReceptacle extends AbstractHardware<CoinReceptacleListene
      *             if the capacity is not a positive integer.
      */
     public CoinReceptacle(int capacity) {
+	super(CoinReceptacleListener.class);
 	if(capacity <= 0)
 	    throw new SimulationException("Capacity must be positive: " + capacity);
 
@@ -99,8 +100,15 @@ public final class CoinReceptacle extends AbstractHardware<CoinReceptacleListene
     }
 
     private void notifyLoad(Coin[] coins) {
-	for(CoinReceptacleListener listener : listeners)
-	    listener.coinsLoaded(this, coins);
+	publish(HardwareEvent.Type.COINS_LOADED, coins);
+	if(getEventStrand() == null)
+	    for(CoinReceptacleListener listener : listeners())
+		listener.coinsLoaded(this, coins);
+	else
+	    announce(() -> {
+		for(CoinReceptacleListener listener : listeners())
+		    listener.coinsLoaded(this, coins);
+	    });
     }
 
     /**
@@ -118,8 +126,15 @@ public final class CoinReceptacle extends AbstractHardware<CoinReceptacleListene
     }
 
     private void notifyUnload(Coin... coins) {
-	for(CoinReceptacleListener listener : listeners)
-	    listener.coinsUnloaded(this, coins);
+	publish(HardwareEvent.Type.COINS_UNLOADED, coins);
+	if(getEventStrand() == null)
+	    for(CoinReceptacleListener listener : listeners())
+		listener.coinsUnloaded(this, coins);
+	else
+	    announce(() -> {
+		for(CoinReceptacleListener listener : listeners())
+		    listener.coinsUnloaded(this, coins);
+	    });
     }
 
     /**
@@ -218,18 +233,48 @@ public final class CoinReceptacle extends AbstractHardware<CoinReceptacleListene
 	return coinsEntered.size() < maxCapacity;
     }
 
+    /**
+     * Returns whether this coin receptacle has enough space to accept the given
+     * number of coins at once. Announces no events.
+     */
+    @Override
+    public boolean hasSpaceFor(int count) {
+	return coinsEntered.size() + count <= maxCapacity;
+    }
+
     private void notifyCoinAdded(Coin coin) {
-	for(CoinReceptacleListener listener : listeners)
-	    listener.coinAdded(this, coin);
+	publish(HardwareEvent.Type.COIN_ADDED, coin);
+	if(getEventStrand() == null)
+	    for(CoinReceptacleListener listener : listeners())
+		listener.coinAdded(this, coin);
+	else
+	    announce(() -> {
+		for(CoinReceptacleListener listener : listeners())
+		    listener.coinAdded(this, coin);
+	    });
     }
 
     private void notifyCoinsRemoved() {
-	for(CoinReceptacleListener listener : listeners)
-	    listener.coinsRemoved(this);
+	publish(HardwareEvent.Type.COINS_REMOVED);
+	if(getEventStrand() == null)
+	    for(CoinReceptacleListener listener : listeners())
+		listener.coinsRemoved(this);
+	else
+	    announce(() -> {
+		for(CoinReceptacleListener listener : listeners())
+		    listener.coinsRemoved(this);
+	    });
     }
 
     private void notifyCoinsFull() {
-	for(CoinReceptacleListener listener : listeners)
-	    listener.coinsFull(this);
+	publish(HardwareEvent.Type.COINS_FULL);
+	if(getEventStrand() == null)
+	    for(CoinReceptacleListener listener : listeners())
+		listener.coinsFull(this);
+	else
+	    announce(() -> {
+		for(CoinReceptacleListener listener : listeners())
+		    listener.coinsFull(this);
+	    });
     }
 }
@@ -27,6 +27,7 @@ public final class CoinReturn extends AbstractHardware<CoinReturnListener> imple
      *             if the capacity is not a positive integer.
      */
     public CoinReturn(int capacity) {
+	super(CoinReturnListener.class);
 	if(capacity <= 0)
 	    throw new SimulationException("Capacity must be positive: " + capacity);
 
@@ -91,6 +92,39 @@ public final class CoinReturn extends AbstractHardware<CoinReturnListener> imple
 	    notifyReturnIsFull();
     }
 
+    /**
+     * Causes the indicated coins to be added to the coin return together, if it
+     * has space for all of them. A successful addition causes a single
+     * "coinsDelivered" event for all the coins to be announced to its
+     * listeners. If a successful addition causes the return to become full, it
+     * will also announce a "returnIsFull" event to its listeners.
+     * 
+     * @throws CapacityExceededException
+     *             if the return has no space for all the coins, in which case
+     *             none are added.
+     * @throws DisabledException
+     *             if the return is disabled.
+     */
+    @Override
+    public void acceptCoins(Coin... coins) throws CapacityExceededException, DisabledException {
+	if(isDisabled())
+	    throw new DisabledException();
+
+	if(coinsReturned.size() + coins.length > maxCapacity)
+	    throw new CapacityExceededException();
+
+	if(coins.length == 0)
+	    return;
+
+	for(Coin coin : coins)
+	    coinsReturned.add(coin);
+
+	notifyCoinsDelivered(coins);
+
+	if(coinsReturned.size() >= maxCapacity)
+	    notifyReturnIsFull();
+    }
+
     /**
      * Returns whether this coin receptacle has enough space to accept at least
      * one more coin. Causes no events.
@@ -100,13 +134,36 @@ public final class CoinReturn extends AbstractHardware<CoinReturnListener> imple
 	return coinsReturned.size() < maxCapacity;
     }
 
+    /**
+     * Returns whether this coin return has enough space to accept the given
+     * number of coins at once. Announces no events.
+     */
+    @Override
+    public boolean hasSpaceFor(int count) {
+	return coinsReturned.size() + count <= maxCapacity;
+    }
+
     private void notifyCoinsDelivered(Coin... coins) {
-	for(CoinReturnListener listener : listeners)
-	    listener.coinsDelivered(this, coins);
+	publish(HardwareEvent.Type.COINS_DELIVERED, coins);
+	if(getEventStrand() == null)
+	    for(CoinReturnListener listener : listeners())
+		listener.coinsDelivered(this, coins);
+	else
+	    announce(() -> {
+		for(CoinReturnListener listener : listeners())
+		    listener.coinsDelivered(this, coins);
+	    });
     }
 
     private void notifyReturnIsFull() {
-	for(CoinReturnListener listener : listeners)
-	    listener.returnIsFull(this);
+	publish(HardwareEvent.Type.RETURN_IS_FULL);
+	if(getEventStrand() == null)
+	    for(CoinReturnListener listener : listeners())
+		listener.returnIsFull(this);
+	else
+	    announce(() -> {
+		for(CoinReturnListener listener : listeners())
+		    listener.returnIsFull(this);
+	    });
     }
 }
@@ -19,6 +19,7 @@ public final class CoinSlot extends AbstractHardware<CoinSlotListener> {
      *            An array of the valid coin values to accept.
      */
     public CoinSlot(int[] validValues) {
+	super(CoinSlotListener.class);
 	this.validValues = validValues;
     }
 
@@ -93,12 +94,26 @@ public final class CoinSlot extends AbstractHardware<CoinSlotListener> {
     }
 
     private void notifyValidCoinInserted(Coin coin) {
-	for(CoinSlotListener listener : listeners)
-	    listener.validCoinInserted(this, coin);
+	publish(HardwareEvent.Type.VALID_COIN_INSERTED, coin);
+	if(getEventStrand() == null)
+	    for(CoinSlotListener listener : listeners())
+		listener.validCoinInserted(this, coin);
+	else
+	    announce(() -> {
+		for(CoinSlotListener listener : listeners())
+		    listener.validCoinInserted(this, coin);
+	    });
     }
 
     private void notifyCoinRejected(Coin coin) {
-	for(CoinSlotListener listener : listeners)
-	    listener.coinRejected(this, coin);
+	publish(HardwareEvent.Type.COIN_REJECTED, coin);
+	if(getEventStrand() == null)
+	    for(CoinSlotListener listener : listeners())
+		listener.coinRejected(this, coin);
+	else
+	    announce(() -> {
+		for(CoinSlotListener listener : listeners())
+		    listener.coinRejected(this, coin);
+	    });
     }
 }
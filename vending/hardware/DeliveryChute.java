@@ -23,6 +23,7 @@ public final class DeliveryChute extends AbstractHardware<DeliveryChuteListener>
      *             If the capacity is not a positive integer.
      */
     public DeliveryChute(int capacity) {
+	super(DeliveryChuteListener.class);
 	if(capacity <= 0)
 	    throw new SimulationException("Capacity must be a positive value: " + capacity);
 
@@ -104,22 +105,50 @@ public final class DeliveryChute extends AbstractHardware<DeliveryChuteListener>
     }
 
     private void notifyItemDelivered() {
-	for(DeliveryChuteListener listener : listeners)
-	    listener.itemDelivered(this);
+	publish(HardwareEvent.Type.ITEM_DELIVERED);
+	if(getEventStrand() == null)
+	    for(DeliveryChuteListener listener : listeners())
+		listener.itemDelivered(this);
+	else
+	    announce(() -> {
+		for(DeliveryChuteListener listener : listeners())
+		    listener.itemDelivered(this);
+	    });
     }
 
     private void notifyDoorOpened() {
-	for(DeliveryChuteListener listener : listeners)
-	    listener.doorOpened(this);
+	publish(HardwareEvent.Type.DOOR_OPENED);
+	if(getEventStrand() == null)
+	    for(DeliveryChuteListener listener : listeners())
+		listener.doorOpened(this);
+	else
+	    announce(() -> {
+		for(DeliveryChuteListener listener : listeners())
+		    listener.doorOpened(this);
+	    });
     }
 
     private void notifyDoorClosed() {
-	for(DeliveryChuteListener listener : listeners)
-	    listener.doorClosed(this);
+	publish(HardwareEvent.Type.DOOR_CLOSED);
+	if(getEventStrand() == null)
+	    for(DeliveryChuteListener listener : listeners())
+		listener.doorClosed(this);
+	else
+	    announce(() -> {
+		for(DeliveryChuteListener listener : listeners())
+		    listener.doorClosed(this);
+	    });
     }
 
     private void notifyChuteFull() {
-	for(DeliveryChuteListener listener : listeners)
-	    listener.chuteFull(this);
+	publish(HardwareEvent.Type.CHUTE_FULL);
+	if(getEventStrand() == null)
+	    for(DeliveryChuteListener listener : listeners())
+		listener.chuteFull(this);
+	else
+	    announce(() -> {
+		for(DeliveryChuteListener listener : listeners())
+		    listener.chuteFull(this);
+	    });
     }
 }
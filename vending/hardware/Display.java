@@ -7,21 +7,39 @@ package org.lsmr.vending.hardware;
 public final class Display extends AbstractHardware<DisplayListener> {
     private String currentMessage = null;
 
+    /**
+     * Creates a display showing no message.
+     */
+    public Display() {
+	super(DisplayListener.class);
+    }
+
     /**
      * Tells the display to start displaying the indicated message. Announces a
-     * "messageChange" event to its listeners.
+     * "messageChange" event to its listeners, unless the message is the one
+     * already displayed, in which case nothing visible changes and nothing is
+     * announced.
      * 
      * @param newMessage
      *            The message to be displayed. May be null.
      */
     public void display(String newMessage) {
 	String oldMessage = this.currentMessage;
+	if(oldMessage == null ? newMessage == null : oldMessage.equals(newMessage))
+	    return;
 	this.currentMessage = newMessage;
 	notifyMessageChange(oldMessage, newMessage);
     }
 
     private void notifyMessageChange(String oldMessage, String newMessage) {
-	for(DisplayListener listener : listeners)
-	    listener.messageChange(this, oldMessage, newMessage);
+	publish(HardwareEvent.Type.MESSAGE_CHANGE, oldMessage, newMessage);
+	if(getEventStrand() == null)
+	    for(DisplayListener listener : listeners())
+		listener.messageChange(this, oldMessage, newMessage);
+	else
+	    announce(() -> {
+		for(DisplayListener listener : listeners())
+		    listener.messageChange(this, oldMessage, newMessage);
+	    });
     }
 }
@@ -0,0 +1,151 @@
+package org.lsmr.vending.hardware;
+
+import java.util.Arrays;
+
+import org.lsmr.vending.Coin;
+import org.lsmr.vending.PopCan;
+
+/**
+ * One event of a hardware device, as published to a HardwareEventStream. Every
+ * kind of event of every device is described by the same class: its type, the
+ * device it happened on, and whichever coins, pop cans or messages the event
+ * is about.
+ * <p>
+ * Events are recycled: the object passed to a HardwareEventSink is reused for
+ * a later event as soon as onEvent returns. A sink that needs an event
+ * afterwards must copy what it needs out of it.
+ */
+public final class HardwareEvent {
+    /**
+     * The kinds of events, one for each listener callback of the devices.
+     */
+    public enum Type {
+	ENABLED, DISABLED,
+	COIN_ADDED, COIN_REMOVED, COINS_REMOVED, COINS_LOADED, COINS_UNLOADED, COINS_FULL, COINS_EMPTY,
+	COINS_DELIVERED, RETURN_IS_FULL,
+	VALID_COIN_INSERTED, COIN_REJECTED,
+	POP_CAN_ADDED, POP_CAN_REMOVED, POP_CANS_LOADED, POP_CANS_UNLOADED, POP_CANS_FULL, POP_CANS_EMPTY,
+	ITEM_DELIVERED, DOOR_OPENED, DOOR_CLOSED, CHUTE_FULL,
+	MESSAGE_CHANGE,
+	ACTIVATED, DEACTIVATED,
+	LOCKED, UNLOCKED,
+	PRESSED
+    }
+
+    private Type type;
+    private AbstractHardware<?> source;
+    private Coin coin;
+    private Coin[] coins;
+    private PopCan popCan;
+    private PopCan[] popCans;
+    private String oldMessage;
+    private String newMessage;
+
+    HardwareEvent() {
+    }
+
+    void set(Type type, AbstractHardware<?> source, Coin coin, Coin[] coins, PopCan popCan, PopCan[] popCans, String oldMessage, String newMessage) {
+	this.type = type;
+	this.source = source;
+	this.coin = coin;
+	this.coins = coins;
+	this.popCan = popCan;
+	this.popCans = popCans;
+	this.oldMessage = oldMessage;
+	this.newMessage = newMessage;
+    }
+
+    void clear() {
+	set(null, null, null, null, null, null, null, null);
+    }
+
+    /**
+     * Returns the kind of event.
+     *
+     * @return The type. Never null while the event is being published.
+     */
+    public Type getType() {
+	return type;
+    }
+
+    /**
+     * Returns the device the event happened on.
+     *
+     * @return The device.
+     */
+    public AbstractHardware<?> getSource() {
+	return source;
+    }
+
+    /**
+     * Returns the coin of a single coin event.
+     *
+     * @return The coin, or null if the event is not about a single coin.
+     */
+    public Coin getCoin() {
+	return coin;
+    }
+
+    /**
+     * Returns the coins of an event about several coins. The array belongs to
+     * the device and must not be changed.
+     *
+     * @return The coins, or null if the event is not about several coins.
+     */
+    public Coin[] getCoins() {
+	return coins;
+    }
+
+    /**
+     * Returns the pop can of a single pop can event.
+     *
+     * @return The pop can, or null if the event is not about a single pop can.
+     */
+    public PopCan getPopCan() {
+	return popCan;
+    }
+
+    /**
+     * Returns the pop cans of an event about several pop cans. The array
+     * belongs to the device and must not be changed.
+     *
+     * @return The pop cans, or null if the event is not about several pop cans.
+     */
+    public PopCan[] getPopCans() {
+	return popCans;
+    }
+
+    /**
+     * Returns the message a display showed before a MESSAGE_CHANGE event.
+     *
+     * @return The old message, which may be null.
+     */
+    public String getOldMessage() {
+	return oldMessage;
+    }
+
+    /**
+     * Returns the message a display shows after a MESSAGE_CHANGE event.
+     *
+     * @return The new message, which may be null.
+     */
+    public String getNewMessage() {
+	return newMessage;
+    }
+
+    @Override
+    public String toString() {
+	StringBuilder sb = new StringBuilder().append(type).append(" on ").append(source == null ? null : source.getClass().getSimpleName());
+	if(coin != null)
+	    sb.append(' ').append(coin.getValue()).append(" cents");
+	if(coins != null)
+	    sb.append(' ').append(coins.length).append(" coins");
+	if(popCan != null)
+	    sb.append(' ').append(popCan.getName());
+	if(popCans != null)
+	    sb.append(' ').append(popCans.length).append(" pop cans");
+	if(type == Type.MESSAGE_CHANGE)
+	    sb.append(' ').append(Arrays.asList(oldMessage, newMessage));
+	return sb.toString();
+    }
+}
@@ -0,0 +1,317 @@
+package org.lsmr.vending.hardware;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the listeners of hardware devices on a pool of worker threads, so that
+ * a slow listener does not hold up the physical movement that caused its event.
+ * <p>
+ * Events are queued on strands. The events of one strand are announced one at
+ * a time, in the order they happened; different strands are announced in
+ * parallel. A vending machine put on a bus with
+ * VendingMachine.setEventBus(bus) gets one strand for all of its devices, so
+ * the events of each device and of the machine as a whole keep their order. A
+ * strand is only ever run by one worker at a time, and gives its worker up
+ * after a batch of events, so that a busy machine does not starve the others.
+ * <p>
+ * An exception thrown by a listener is counted and does not stop the strand.
+ * <p>
+ * Once the bus is shut down, events are announced on the thread that causes
+ * them, as if there were no bus.
+ * <p>
+ * The bus keeps the number of events waiting to be announced, its peak, and
+ * the time events waited between happening and being announced.
+ */
+public final class HardwareEventBus {
+    private static final int BATCH = 64;
+    private static final AtomicInteger BUS_NUMBER = new AtomicInteger();
+
+    private final ExecutorService workers;
+    private final AtomicLong waiting = new AtomicLong();
+    private final AtomicLong maxWaiting = new AtomicLong();
+    private final AtomicLong unfinished = new AtomicLong();
+    private final AtomicLong announced = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+    private final Object idle = new Object();
+    // held weakly, so a strand goes once its devices let go of it; a strand with events queued is held by its worker task
+    private final Set<Strand> strands = Collections.newSetFromMap(new WeakHashMap<Strand, Boolean>());
+
+    /**
+     * Creates a bus with its own worker threads. The threads are daemons, so
+     * they do not keep the simulation running.
+     *
+     * @param threads
+     *            The number of worker threads. Must be positive.
+     * @throws SimulationException
+     *             if threads is not positive.
+     */
+    public HardwareEventBus(int threads) {
+	if(threads <= 0)
+	    throw new SimulationException("There must be at least one worker thread: " + threads);
+
+	final String prefix = "hardware-events-" + BUS_NUMBER.incrementAndGet() + "-";
+	final AtomicInteger threadNumber = new AtomicInteger();
+	workers = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+	    @Override
+	    public Thread newThread(Runnable r) {
+		Thread thread = new Thread(r, prefix + threadNumber.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	    }
+	});
+    }
+
+    /**
+     * Creates a new strand, whose events are announced in order.
+     *
+     * @return The strand.
+     */
+    public Strand newStrand() {
+	Strand strand = new Strand();
+	synchronized(strands) {
+	    strands.add(strand);
+	}
+	return strand;
+    }
+
+    /**
+     * Waits until every event queued so far has been announced.
+     *
+     * @param timeoutMillis
+     *            The longest time to wait.
+     * @return true if the bus is idle; false if the time ran out first.
+     * @throws InterruptedException
+     *             if the waiting thread is interrupted.
+     */
+    public boolean awaitIdle(long timeoutMillis) throws InterruptedException {
+	long deadline = System.nanoTime() + timeoutMillis * 1000000L;
+	synchronized(idle) {
+	    while(unfinished.get() > 0) {
+		long left = deadline - System.nanoTime();
+		if(left <= 0)
+		    return false;
+		idle.wait(Math.max(1, left / 1000000L));
+	    }
+	}
+	return true;
+    }
+
+    /**
+     * Stops the worker threads. Events still queued are discarded, and counted,
+     * so that the bus is idle; events that happen afterwards are announced on
+     * the thread that causes them.
+     */
+    public void shutdown() {
+	List<Strand> live;
+	synchronized(strands) {
+	    live = new ArrayList<>(strands);	// before the worker tasks that hold them are dropped
+	}
+	workers.shutdownNow();
+	for(Strand strand : live)
+	    strand.discard();
+    }
+
+    /**
+     * Returns the number of events waiting to be announced.
+     *
+     * @return The current queue depth, over all strands.
+     */
+    public long getQueueDepth() {
+	return waiting.get();
+    }
+
+    /**
+     * Returns the most events that have been waiting at once.
+     *
+     * @return The peak queue depth.
+     */
+    public long getMaxQueueDepth() {
+	return maxWaiting.get();
+    }
+
+    /**
+     * Returns the number of events announced.
+     *
+     * @return The number of events whose listeners have been called.
+     */
+    public long getAnnouncedCount() {
+	return announced.get();
+    }
+
+    /**
+     * Returns the number of events discarded because they were still queued
+     * when the bus was shut down.
+     *
+     * @return The number of events never announced.
+     */
+    public long getDiscardedCount() {
+	return discarded.get();
+    }
+
+    /**
+     * Returns the number of events whose listeners threw an exception.
+     *
+     * @return The number of failed announcements.
+     */
+    public long getFailureCount() {
+	return failures.get();
+    }
+
+    /**
+     * Returns the average time between an event happening and its listeners
+     * being called.
+     *
+     * @return The average dispatch latency in nanoseconds, or 0 if no event
+     *         has been announced.
+     */
+    public long getAverageLatencyNanos() {
+	long count = announced.get();
+	return count == 0 ? 0 : totalLatencyNanos.get() / count;
+    }
+
+    /**
+     * Returns the longest time between an event happening and its listeners
+     * being called.
+     *
+     * @return The peak dispatch latency in nanoseconds.
+     */
+    public long getMaxLatencyNanos() {
+	return maxLatencyNanos.get();
+    }
+
+    private void finished() {
+	if(unfinished.decrementAndGet() == 0)
+	    synchronized(idle) {
+		idle.notifyAll();
+	    }
+    }
+
+    private static void raise(AtomicLong max, long value) {
+	long current;
+	while(value > (current = max.get()) && !max.compareAndSet(current, value))
+	    ;
+    }
+
+    /**
+     * A sequence of events announced in order. Devices are given a strand with
+     * AbstractHardware.setEventStrand.
+     */
+    public final class Strand {
+	private final ConcurrentLinkedQueue<Event> queue = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+	private final Runnable drain = this::drain;
+
+	private Strand() {
+	}
+
+	/**
+	 * Queues a notification, to be run after those queued before it.
+	 *
+	 * @param notification
+	 *            Calls the listeners of an event.
+	 */
+	void execute(Runnable notification) {
+	    if(workers.isShutdown()) {
+		notification.run();
+		return;
+	    }
+
+	    unfinished.incrementAndGet();
+	    queue.add(new Event(notification, System.nanoTime()));
+	    raise(maxWaiting, waiting.incrementAndGet());
+	    if(scheduled.compareAndSet(false, true))
+		schedule();
+	}
+
+	/**
+	 * Hands the strand to a worker. If the bus has been shut down since, the
+	 * events are announced on this thread instead.
+	 */
+	private void schedule() {
+	    try {
+		workers.execute(drain);
+	    }
+	    catch(RejectedExecutionException e) {
+		drainInline();
+	    }
+	}
+
+	private void drain() {
+	    for(int n = 0; n < BATCH; n++) {
+		if(!announceNext()) {
+		    scheduled.set(false);
+		    // an event queued after the poll and before the flag was cleared would otherwise wait for the next one
+		    if(queue.isEmpty() || !scheduled.compareAndSet(false, true))
+			return;
+		}
+	    }
+	    schedule();
+	}
+
+	private void drainInline() {
+	    do {
+		while(announceNext())
+		    ;
+		scheduled.set(false);
+	    } while(!queue.isEmpty() && scheduled.compareAndSet(false, true));
+	}
+
+	/**
+	 * Announces the oldest queued event.
+	 *
+	 * @return false if there was none.
+	 */
+	private boolean announceNext() {
+	    Event event = queue.poll();
+	    if(event == null)
+		return false;
+
+	    waiting.decrementAndGet();
+	    long latency = System.nanoTime() - event.queuedNanos;
+	    totalLatencyNanos.addAndGet(latency);
+	    raise(maxLatencyNanos, latency);
+	    try {
+		event.notification.run();
+	    }
+	    catch(Throwable t) {
+		failures.incrementAndGet();
+	    }
+	    announced.incrementAndGet();
+	    finished();
+	    return true;
+	}
+
+	private void discard() {
+	    while(queue.poll() != null) {
+		waiting.decrementAndGet();
+		discarded.incrementAndGet();
+		finished();
+	    }
+	}
+    }
+
+    private static final class Event {
+	private final Runnable notification;
+	private final long queuedNanos;
+
+	private Event(Runnable notification, long queuedNanos) {
+	    this.notification = notification;
+	    this.queuedNanos = queuedNanos;
+	}
+    }
+}
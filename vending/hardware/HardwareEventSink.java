@@ -0,0 +1,16 @@
+package org.lsmr.vending.hardware;
+
+/**
+ * Receives every event of the devices publishing to a HardwareEventStream,
+ * whatever the device, through a single method.
+ */
+public interface HardwareEventSink {
+    /**
+     * Announces an event. The event object is reused once this method
+     * returns, so it must not be kept.
+     * 
+     * @param event
+     *            The event.
+     */
+    void onEvent(HardwareEvent event);
+}
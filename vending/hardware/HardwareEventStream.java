@@ -0,0 +1,123 @@
+package org.lsmr.vending.hardware;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.lsmr.vending.Coin;
+import org.lsmr.vending.PopCan;
+
+/**
+ * A single stream of typed events from any number of devices, for consumers
+ * such as logging, metrics and telemetry that want every event without
+ * implementing a listener interface for each kind of device. Devices publish
+ * to it in addition to announcing events to their listeners; a vending machine
+ * is connected with VendingMachine.setEventStream(stream).
+ * <p>
+ * Events are published on the thread that causes them, before the listeners of
+ * the device are told, so the stream sees events in the order they happened
+ * even when the listeners run on an event bus. Each thread keeps a small pool
+ * of HardwareEvent objects that are filled in for each event and taken back
+ * when the sinks have seen it, so publishing does not allocate once the pool
+ * has warmed up. Sinks are kept in a copy-on-write array like the listeners of
+ * a device.
+ */
+public final class HardwareEventStream {
+    private static final HardwareEventSink[] NO_SINKS = new HardwareEventSink[0];
+    private static final int POOL_SIZE = 16;
+
+    private volatile HardwareEventSink[] sinks = NO_SINKS;
+    private final AtomicLong created = new AtomicLong();
+    private final ThreadLocal<Pool> pools = new ThreadLocal<Pool>() {
+	@Override
+	protected Pool initialValue() {
+	    return new Pool();
+	}
+    };
+
+    /**
+     * Adds a sink to receive every event published from now on.
+     * 
+     * @param sink
+     *            The sink. Cannot be null.
+     */
+    public synchronized void subscribe(HardwareEventSink sink) {
+	if(sink == null)
+	    throw new NullPointerException("sink");
+	HardwareEventSink[] next = Arrays.copyOf(sinks, sinks.length + 1);
+	next[sinks.length] = sink;
+	sinks = next;
+    }
+
+    /**
+     * Removes a sink.
+     * 
+     * @param sink
+     *            The sink to remove.
+     * @return true if the sink was found and removed, false otherwise.
+     */
+    public synchronized boolean unsubscribe(HardwareEventSink sink) {
+	for(int i = 0; i < sinks.length; i++)
+	    if(sinks[i] == sink) {
+		HardwareEventSink[] next = new HardwareEventSink[sinks.length - 1];
+		System.arraycopy(sinks, 0, next, 0, i);
+		System.arraycopy(sinks, i + 1, next, i, next.length - i);
+		sinks = next.length == 0 ? NO_SINKS : next;
+		return true;
+	    }
+	return false;
+    }
+
+    /**
+     * Returns the number of event objects created so far. Once every thread's
+     * pool has warmed up this stops growing, however many events are
+     * published.
+     * 
+     * @return The number of HardwareEvent objects created.
+     */
+    public long getCreatedCount() {
+	return created.get();
+    }
+
+    void publish(AbstractHardware<?> source, HardwareEvent.Type type, Coin coin, Coin[] coins, PopCan popCan, PopCan[] popCans, String oldMessage,
+	    String newMessage) {
+	HardwareEventSink[] sinks = this.sinks;
+	if(sinks.length == 0)
+	    return;
+
+	Pool pool = pools.get();
+	HardwareEvent event = pool.acquire();
+	event.set(type, source, coin, coins, popCan, popCans, oldMessage, newMessage);
+	try {
+	    for(HardwareEventSink sink : sinks)
+		sink.onEvent(event);
+	}
+	finally {
+	    event.clear();
+	    pool.release(event);
+	}
+    }
+
+    /**
+     * The free events of one thread. A sink that causes another event while it
+     * handles one takes a second event from the pool.
+     */
+    private final class Pool {
+	private final HardwareEvent[] free = new HardwareEvent[POOL_SIZE];
+	private int size;
+
+	HardwareEvent acquire() {
+	    if(size == 0) {
+		created.incrementAndGet();
+		return new HardwareEvent();
+	    }
+	    HardwareEvent event = free[--size];
+	    free[size] = null;
+	    return event;
+	}
+
+	void release(HardwareEvent event) {
+	    if(size < free.length)
+		free[size++] = event;
+	}
+    }
+}
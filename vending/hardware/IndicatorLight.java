@@ -7,6 +7,13 @@ package org.lsmr.vending.hardware;
 public final class IndicatorLight extends AbstractHardware<IndicatorLightListener> {
     private boolean on = false;
 
+    /**
+     * Creates an indicator light that is off.
+     */
+    public IndicatorLight() {
+	super(IndicatorLightListener.class);
+    }
+
     /**
      * Turns the light on. Announces an "activated" event to its listeners.
      */
@@ -33,12 +40,26 @@ public final class IndicatorLight extends AbstractHardware<IndicatorLightListene
     }
 
     private void notifyActivated() {
-	for(IndicatorLightListener listener : listeners)
-	    listener.activated(this);
+	publish(HardwareEvent.Type.ACTIVATED);
+	if(getEventStrand() == null)
+	    for(IndicatorLightListener listener : listeners())
+		listener.activated(this);
+	else
+	    announce(() -> {
+		for(IndicatorLightListener listener : listeners())
+		    listener.activated(this);
+	    });
     }
 
     private void notifyDeactivated() {
-	for(IndicatorLightListener listener : listeners)
-	    listener.deactivated(this);
+	publish(HardwareEvent.Type.DEACTIVATED);
+	if(getEventStrand() == null)
+	    for(IndicatorLightListener listener : listeners())
+		listener.deactivated(this);
+	else
+	    announce(() -> {
+		for(IndicatorLightListener listener : listeners())
+		    listener.deactivated(this);
+	    });
     }
 }
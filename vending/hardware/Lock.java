@@ -9,6 +9,13 @@ package org.lsmr.vending.hardware;
 public final class Lock extends AbstractHardware<LockListener> {
     private boolean locked = true;
 
+    /**
+     * Creates a lock that is locked.
+     */
+    public Lock() {
+	super(LockListener.class);
+    }
+
     /**
      * Causes the lock to become locked. Announces a "locked" event to its
      * listeners.
@@ -37,12 +44,26 @@ public final class Lock extends AbstractHardware<LockListener> {
     }
 
     private void notifyLocked() {
-	for(LockListener listener : listeners)
-	    listener.locked(this);
+	publish(HardwareEvent.Type.LOCKED);
+	if(getEventStrand() == null)
+	    for(LockListener listener : listeners())
+		listener.locked(this);
+	else
+	    announce(() -> {
+		for(LockListener listener : listeners())
+		    listener.locked(this);
+	    });
     }
 
     private void notifyUnlocked() {
-	for(LockListener listener : listeners)
-	    listener.unlocked(this);
+	publish(HardwareEvent.Type.UNLOCKED);
+	if(getEventStrand() == null)
+	    for(LockListener listener : listeners())
+		listener.unlocked(this);
+	else
+	    announce(() -> {
+		for(LockListener listener : listeners())
+		    listener.unlocked(this);
+	    });
     }
 }
@@ -28,6 +28,7 @@ public final class PopCanRack extends AbstractHardware<PopCanRackListener> imple
      *             if the indicated capacity is not positive.
      */
     public PopCanRack(int capacity) {
+	super(PopCanRackListener.class);
 	if(capacity <= 0)
 	    throw new SimulationException("Capacity cannot be non-positive: " + capacity);
 
@@ -147,8 +148,15 @@ public final class PopCanRack extends AbstractHardware<PopCanRackListener> imple
     }
 
     private void notifyLoad(PopCan[] popCans) {
-	for(PopCanRackListener listener : listeners)
-	    listener.popCansLoaded(this, popCans);
+	publish(HardwareEvent.Type.POP_CANS_LOADED, popCans);
+	if(getEventStrand() == null)
+	    for(PopCanRackListener listener : listeners())
+		listener.popCansLoaded(this, popCans);
+	else
+	    announce(() -> {
+		for(PopCanRackListener listener : listeners())
+		    listener.popCansLoaded(this, popCans);
+	    });
     }
 
     /**
@@ -165,28 +173,63 @@ public final class PopCanRack extends AbstractHardware<PopCanRackListener> imple
     }
 
     private void notifyUnload(PopCan[] popCans) {
-	for(PopCanRackListener listener : listeners)
-	    listener.popCansUnloaded(this, popCans);
+	publish(HardwareEvent.Type.POP_CANS_UNLOADED, popCans);
+	if(getEventStrand() == null)
+	    for(PopCanRackListener listener : listeners())
+		listener.popCansUnloaded(this, popCans);
+	else
+	    announce(() -> {
+		for(PopCanRackListener listener : listeners())
+		    listener.popCansUnloaded(this, popCans);
+	    });
     }
 
     private void notifyPopCanAdded(PopCan popCan) {
-	for(PopCanRackListener listener : listeners)
-	    listener.popCanAdded(this, popCan);
+	publish(HardwareEvent.Type.POP_CAN_ADDED, popCan);
+	if(getEventStrand() == null)
+	    for(PopCanRackListener listener : listeners())
+		listener.popCanAdded(this, popCan);
+	else
+	    announce(() -> {
+		for(PopCanRackListener listener : listeners())
+		    listener.popCanAdded(this, popCan);
+	    });
     }
 
     private void notifyPopCansFull() {
-	for(PopCanRackListener listener : listeners)
-	    listener.popCansFull(this);
+	publish(HardwareEvent.Type.POP_CANS_FULL);
+	if(getEventStrand() == null)
+	    for(PopCanRackListener listener : listeners())
+		listener.popCansFull(this);
+	else
+	    announce(() -> {
+		for(PopCanRackListener listener : listeners())
+		    listener.popCansFull(this);
+	    });
     }
 
     private void notifyPopCansEmpty() {
-	for(PopCanRackListener listener : listeners)
-	    listener.popCansEmpty(this);
+	publish(HardwareEvent.Type.POP_CANS_EMPTY);
+	if(getEventStrand() == null)
+	    for(PopCanRackListener listener : listeners())
+		listener.popCansEmpty(this);
+	else
+	    announce(() -> {
+		for(PopCanRackListener listener : listeners())
+		    listener.popCansEmpty(this);
+	    });
     }
 
     private void notifyPopCanRemoved(PopCan popCan) {
-	for(PopCanRackListener listener : listeners)
-	    listener.popCanRemoved(this, popCan);
+	publish(HardwareEvent.Type.POP_CAN_REMOVED, popCan);
+	if(getEventStrand() == null)
+	    for(PopCanRackListener listener : listeners())
+		listener.popCanRemoved(this, popCan);
+	else
+	    announce(() -> {
+		for(PopCanRackListener listener : listeners())
+		    listener.popCanRemoved(this, popCan);
+	    });
     }
 
     @Override
@@ -6,6 +6,13 @@ package org.lsmr.vending.hardware;
  */
 public final class PushButton extends
         AbstractHardware<PushButtonListener> {
+    /**
+     * Creates a push button.
+     */
+    public PushButton() {
+	super(PushButtonListener.class);
+    }
+
     /**
      * Simulates the pressing of the button. Notifies its listeners of a
      * "pressed" event.
@@ -15,7 +22,14 @@ public final class PushButton extends
     }
 
     private void notifyPressed() {
-	for(PushButtonListener listener : listeners)
-	    listener.pressed(this);
+	publish(HardwareEvent.Type.PRESSED);
+	if(getEventStrand() == null)
+	    for(PushButtonListener listener : listeners())
+		listener.pressed(this);
+	else
+	    announce(() -> {
+		for(PushButtonListener listener : listeners())
+		    listener.pressed(this);
+	    });
     }
 }
@@ -1,5 +1,6 @@
 package org.lsmr.vending.hardware;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -153,6 +154,47 @@ public final class VendingMachine {
 	outOfOrderLight = new IndicatorLight();
     }
 
+    /**
+     * Announces the events of all the devices of this machine through one
+     * strand of an event bus, so that they are announced off the thread that
+     * causes them, in the order they happened. Causes no events.
+     * 
+     * @param bus
+     *            The bus, or null to announce events on the thread that causes
+     *            them, as by default.
+     */
+    public void setEventBus(HardwareEventBus bus) {
+	HardwareEventBus.Strand strand = bus == null ? null : bus.newStrand();
+	for(AbstractHardware<?> hardware : devices())
+	    hardware.setEventStrand(strand);
+    }
+
+    /**
+     * Publishes the events of all the devices of this machine to a stream, in
+     * addition to announcing them to their listeners. Causes no events.
+     * 
+     * @param stream
+     *            The stream, or null to stop publishing.
+     */
+    public void setEventStream(HardwareEventStream stream) {
+	for(AbstractHardware<?> hardware : devices())
+	    hardware.setEventStream(stream);
+    }
+
+    private List<AbstractHardware<?>> devices() {
+	List<AbstractHardware<?>> devices = new ArrayList<>();
+	for(AbstractHardware<?> hardware : new AbstractHardware<?>[] {coinSlot, receptacle, deliveryChute, display, exactChangeLight, outOfOrderLight, coinReturn,
+	        configurationPanel.getEnterButton(), configurationPanel.getDisplay()})
+	    if(hardware != null)
+		devices.add(hardware);
+	for(AbstractHardware<?>[] kind : new AbstractHardware<?>[][] {coinRacks, popCanRacks, buttons})
+	    devices.addAll(Arrays.asList(kind));
+	for(int i = 0; i < 37; i++)
+	    if(configurationPanel.getButton(i) != null)
+		devices.add(configurationPanel.getButton(i));
+	return devices;
+    }
+
     /**
      * Configures the hardware to use a set of names and costs for pop cans.
      * 